@@ -0,0 +1,62 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.operon.runner.OperonContext;
+import io.operon.runner.OperonRunner;
+
+//
+// OperonRunner.compile: lexing, parsing and compiling the query into the OperonContext.
+//
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompileBenchmark {
+     // no logger
+
+    @Param({"map", "filter", "where", "loop", "aggregate", "sort", "groupBy", "continue", "break"})
+    public String query;
+
+    private String queryText;
+
+    @Setup
+    public void setup() {
+        this.queryText = Queries.get(this.query);
+    }
+
+    @Benchmark
+    public OperonContext compile() throws Exception {
+        return OperonRunner.compile(new OperonContext(), this.queryText, "benchmark");
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.benchmarks;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+//
+// The synthetic JSON-payloads for the benchmarks: an array of the objects, like records exported from a database,
+// with the strings, numbers, booleans, nested objects and arrays.
+//
+// The payloads are generated with a fixed seed, so they are the same in each run, and cached by the size.
+//
+public class Payloads {
+     // no logger
+
+    private static final Map<String, String> cache = new ConcurrentHashMap<String, String>();
+
+    //
+    // @param size "1KB", "1MB" or "100MB"
+    //
+    public static String json(String size) {
+        return cache.computeIfAbsent(size, s -> generate(parseSize(s)));
+    }
+
+    public static long parseSize(String size) {
+        String s = size.trim().toUpperCase();
+        if (s.endsWith("KB")) {
+            return Long.parseLong(s.substring(0, s.length() - 2)) * 1024L;
+        }
+        else if (s.endsWith("MB")) {
+            return Long.parseLong(s.substring(0, s.length() - 2)) * 1024L * 1024L;
+        }
+        else {
+            return Long.parseLong(s);
+        }
+    }
+
+    //
+    // Generates the array of the records until the size (in bytes) is reached.
+    //
+    public static String generate(long targetBytes) {
+        Random random = new Random(42L);
+        StringBuilder sb = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, targetBytes + 512));
+        sb.append('[');
+        int i = 0;
+        while (sb.length() < targetBytes || i == 0) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            appendRecord(sb, i, random);
+            i ++;
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    private static void appendRecord(StringBuilder sb, int id, Random random) {
+        sb.append("{\"id\": ").append(id);
+        sb.append(", \"name\": \"user-").append(id).append('"');
+        sb.append(", \"group\": \"g").append(id % 16).append('"');
+        sb.append(", \"score\": ").append(random.nextInt(10000) / 100.0);
+        sb.append(", \"active\": ").append(random.nextBoolean());
+        sb.append(", \"tags\": [");
+        int tagCount = random.nextInt(4);
+        for (int t = 0; t < tagCount; t ++) {
+            if (t > 0) {
+                sb.append(", ");
+            }
+            sb.append("\"tag").append(random.nextInt(100)).append('"');
+        }
+        sb.append(']');
+        sb.append(", \"address\": {\"street\": \"Street ").append(random.nextInt(1000))
+          .append("\", \"city\": \"city-").append(random.nextInt(50))
+          .append("\", \"zip\": \"").append(10000 + random.nextInt(89999)).append("\"}");
+        sb.append(", \"note\": null}");
+    }
+}
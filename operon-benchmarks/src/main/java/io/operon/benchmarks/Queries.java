@@ -0,0 +1,51 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//
+// The representative queries, by the name used in the @Param of the benchmarks.
+// The queries are run against the array of the records (see Payloads).
+//
+public class Queries {
+     // no logger
+
+    public static final Map<String, String> QUERIES = new LinkedHashMap<String, String>();
+
+    static {
+        QUERIES.put("map", "Select: $ Map @.score * 2 End");
+        QUERIES.put("filter", "Select: $ Filter [@.score > 50] End");
+        QUERIES.put("where", "Select: $ Where ~?*.score: @ > 50 End:Where");
+        QUERIES.put("loop", "Select: 0 Loop ($i: $): @ + $i.score;");
+        QUERIES.put("aggregate", "Select: $ Map Aggregate {\"correlationId\": @.group, \"firePredicate\": true} End");
+        QUERIES.put("sort", "Select: $ Map @.score End => array:sort()");
+        QUERIES.put("groupBy", "Select: $ => array:groupBy(@.group)");
+        // About the half of the records are skipped with Continue, and each inner Map ends with Break.
+        QUERIES.put("continue", "Select: $ Map When @.score <= 50: Continue; End @.score End");
+        QUERIES.put("break", "Select: $ Map [1, 2, 3] Map When @ = 2: Break; End @ End End");
+    }
+
+    public static String get(String name) {
+        String query = QUERIES.get(name);
+        if (query == null) {
+            throw new IllegalArgumentException("Unknown query: " + name + ", expected one of: " + QUERIES.keySet());
+        }
+        return query;
+    }
+}
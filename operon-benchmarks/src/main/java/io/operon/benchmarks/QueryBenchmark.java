@@ -0,0 +1,82 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.operon.runner.OperonRunner;
+import io.operon.runner.model.OperonConfigs;
+import io.operon.runner.node.type.OperonValue;
+import io.operon.runner.util.JsonUtil;
+
+//
+// OperonRunner.doQueryWithInitialValue: compiling and evaluating the query against the parsed payload.
+//
+// The payload is copied before each invocation (outside of the measurement), so the evaluation
+// always starts from the same value. The result is not printed.
+//
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class QueryBenchmark {
+     // no logger
+
+    @Param({"map", "filter", "where", "loop", "aggregate", "sort", "groupBy", "continue", "break"})
+    public String query;
+
+    @Param({"1KB", "1MB", "100MB"})
+    public String size;
+
+    private String queryText;
+    private OperonValue payload;
+    private OperonValue initialValue;
+    private OperonConfigs configs;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.queryText = Queries.get(this.query);
+        this.payload = JsonUtil.operonValueFromString(Payloads.json(this.size));
+        this.configs = new OperonConfigs();
+        this.configs.setOutputResult(false);
+    }
+
+    @Setup(Level.Invocation)
+    public void copyPayload() throws Exception {
+        this.initialValue = this.payload.copy();
+    }
+
+    @Benchmark
+    public OperonValue doQueryWithInitialValue() throws Exception {
+        return OperonRunner.doQueryWithInitialValue(this.queryText, this.initialValue, this.configs);
+    }
+}
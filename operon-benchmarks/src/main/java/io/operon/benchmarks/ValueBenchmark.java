@@ -0,0 +1,73 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.operon.runner.node.type.OperonValue;
+import io.operon.runner.util.JsonUtil;
+import io.operon.runner.util.OutputFormatter;
+
+//
+// The operations on the parsed value: copy(), toString() and toFormattedString() (the pretty-printed output).
+//
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ValueBenchmark {
+     // no logger
+
+    @Param({"1KB", "1MB", "100MB"})
+    public String size;
+
+    private OperonValue value;
+
+    @Setup
+    public void setup() throws Exception {
+        this.value = JsonUtil.operonValueFromString(Payloads.json(this.size));
+    }
+
+    @Benchmark
+    public OperonValue copy() throws Exception {
+        return this.value.copy();
+    }
+
+    @Benchmark
+    public String serialize() {
+        return this.value.toString();
+    }
+
+    @Benchmark
+    public String serializeFormatted() {
+        return this.value.toFormattedString(new OutputFormatter());
+    }
+}
@@ -147,6 +147,18 @@ public class BaseContext {
         return rootContext;
     }
     
+    //
+    // True when the paths of the values must be built for the statement (see OperonContext.isPathObserved).
+    // The queries that were not compiled by the OperonCompiler (e.g. modules) always build them.
+    //
+    public static boolean isPathObserved(Statement stmt) {
+        Context rootContext = getRootContextByStatement(stmt);
+        if (rootContext instanceof OperonContext) {
+            return ((OperonContext) rootContext).isPathObserved();
+        }
+        return true;
+    }
+    
     //
     // NOTE / WARNING: this is not best way, if we start checking the ctx from the
     // wrong statement!
@@ -0,0 +1,126 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+
+/**
+ *
+ * Caches the parsed form (the query-plan) of the Operon-queries.
+ *
+ * Lexing and parsing the query is the expensive part of creating a new OperonContext.
+ * The ParseTree is not modified when the OperonCompiler walks it, so a single tree can
+ * be shared between threads, and each new OperonContext is stamped out from it by
+ * walking the tree again (see OperonRunner.createNewOperonContextFromPlan).
+ *
+ */
+public class CompiledQueryCache {
+     // no logger
+
+    //
+    // When the cache is full, then an arbitrary entry is evicted before adding the new one.
+    //
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+    private static final Map<String, ParseTree> plans = new ConcurrentHashMap<String, ParseTree>();
+    private static final Map<String, ParseTree> exprPlans = new ConcurrentHashMap<String, ParseTree>();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    //
+    // Returns the cached query-plan, or parses the query and caches the result.
+    // Failed parses are not cached, they throw as with OperonRunner.compile.
+    //
+    public static ParseTree getOrParse(String query) throws Exception {
+        ParseTree plan = plans.get(query);
+        if (plan != null) {
+            hits.incrementAndGet();
+            return plan;
+        }
+        misses.incrementAndGet();
+        //
+        // NOTE: two threads may parse the same query concurrently on a cold cache.
+        //       Both trees are equal, so the last one simply wins.
+        //
+        plan = OperonRunner.parseQuery(query);
+        put(plans, query, plan);
+        return plan;
+    }
+
+    //
+    // Same as getOrParse, but for the expressions (e.g. the parallel Map's map-expr),
+    // which are parsed starting from the expr-rule.
+    //
+    public static ParseTree getOrParseExpr(String expr) throws Exception {
+        ParseTree plan = exprPlans.get(expr);
+        if (plan != null) {
+            hits.incrementAndGet();
+            return plan;
+        }
+        misses.incrementAndGet();
+        plan = OperonRunner.parseExpr(expr);
+        put(exprPlans, expr, plan);
+        return plan;
+    }
+
+    private static void put(Map<String, ParseTree> cache, String key, ParseTree plan) {
+        if (maxEntries <= 0) {
+            return; // caching disabled
+        }
+        if (cache.size() >= maxEntries) {
+            Iterator<String> it = cache.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        cache.put(key, plan);
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static int size() {
+        return plans.size() + exprPlans.size();
+    }
+
+    public static void setMaxEntries(int max) {
+        maxEntries = max;
+    }
+
+    public static int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public static void clear() {
+        plans.clear();
+        exprPlans.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+}
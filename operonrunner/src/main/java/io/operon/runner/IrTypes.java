@@ -36,6 +36,7 @@ public class IrTypes {
     public static byte FUNCTION_REF = 36;
     public static byte MAP = 37;
     public static byte OF = 38;
+    public static byte OBJ_ACCESS = 39;
     
     public static byte FUNCTION_0 = 100;
     public static byte FUNCTION_1 = 101;
@@ -146,6 +146,16 @@ public class Main {
                             returnValue = (new QueryCommand(option.getOptionValue())).execute(options);
                             commandRunned = true;
                         }
+                        else if (option.getOptionName().equals("compile")) {
+                            returnValue = (new CompileCommand(option.getOptionValue())).execute(options);
+                            commandRunned = true;
+                        }
+                        else if (option.getOptionName().equals("load")) {
+                            QueryCommand loadCommand = new QueryCommand("");
+                            loadCommand.setCompiledQueryFile(option.getOptionValue());
+                            returnValue = loadCommand.execute(options);
+                            commandRunned = true;
+                        }
                         else if (option.getOptionName().equals("testsfolder")) {
                             returnValue = (new TestsFolderCommand(option.getOptionValue())).execute(options);
                             commandRunned = true;
@@ -212,25 +222,6 @@ public class Main {
                     OperonRunner.saveOperonContextToFile(mc, "module.opmc");
                 }
     
-                // TODO: --inputstream --query="Select $.body"
-                else if (option1.toLowerCase().equals("--compile")) {
-                    String filePathAndName = args[1];
-                    System.out.println("args[1] :: " + filePathAndName);
-                    String queryContent = Main.readFile(filePathAndName, Main.defaultCharset);
-                    File queryFile = new File(filePathAndName);
-                    System.out.println("File exists :: " + queryFile.exists());
-                    OperonContext operonContext = OperonRunner.createNewOperonContext(queryContent, "query", null);
-                    OperonContext oc = (OperonContext) OperonRunner.compile(
-                        operonContext, queryContent, queryFile.getPath());
-                    // Save oc to file
-                    // TODO: take filename as option
-                    OperonRunner.saveOperonContextToFile(oc, "operon.opc");
-                }
-                else if (option1.toLowerCase().equals("--load")) {
-                    String filePathAndName = args[1];
-                    OperonContext ctx = OperonRunner.loadOperonContextFromFile(filePathAndName);
-                    ctx.start(OperonContextManager.ContextStrategy.SINGLETON);
-                }
                 else if (option1.toLowerCase().equals("--installcomponents")) {
                     // Loop through the file's ArrayType, check from each ObjectTypeect if the
                     // resolveUri is empty. For empty resolveUri's try to download the component
@@ -21,7 +21,10 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 
 // signaling:
@@ -48,6 +51,7 @@ import io.operon.runner.node.Operator;
 import io.operon.runner.node.type.*;
 import io.operon.runner.util.JsonUtil;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.OutputFormatter;
 
 import org.apache.logging.log4j.Logger;
 import io.operon.runner.model.exception.*;
@@ -68,6 +72,12 @@ public class OperonContext extends BaseContext implements Context, java.io.Seria
     @Expose private SelectStatement selectStatement;
     
     private volatile boolean shutdown = false;
+    
+    //
+    // The streams opened while evaluating the select (e.g. readfile with "split"). They are closed when the
+    // evaluation ends, also when the query did not read them to the end.
+    //
+    private transient List<Closeable> evaluationStreams = new ArrayList<Closeable>();
 
     private String contextId;
     private String transactionId;
@@ -81,6 +91,12 @@ public class OperonContext extends BaseContext implements Context, java.io.Seria
     private boolean isReady = true;
     private boolean isTest = false;
     
+    //
+    // Set by the OperonCompiler: false when the query does not observe the paths of the values
+    // (pos, parent, root, path:current, ...), so the Filter and Map do not need to build them.
+    //
+    private boolean pathObserved = true;
+    
     private OperonValue outputOperonValue;
     private Exception exception;
     private ErrorValue errorValue;
@@ -191,27 +207,33 @@ public class OperonContext extends BaseContext implements Context, java.io.Seria
         Map<String, AggregateState> aggregateStates = Aggregate.getAggregateStates();
         if (aggregateStates != null) {
             for (Map.Entry<String, AggregateState> entry : aggregateStates.entrySet()) {
-                AggregateState aggState = entry.getValue();
-                if (aggState.getTimeoutStart() != null) {
-                    if (aggState.getTimeoutStart() + aggState.getTimeoutDuration() <= nowMillis) {
-                        Aggregate agg = aggState.getAggregate();
-                        System.out.println("Continue aggregate");
-                        
-                        //
-                        // NOTE: not bridget with evaluateSelectStatement()
-                        //
-                        //  improve by refactoring evaluateSelectStatement() and its errorHandlers for reuse here.
-                        // 
-                        try {
-                            OperonValue result = agg.continueAggregateAfterTimeout(aggState);
-                        } catch (OperonGenericException oge) {
-                            System.err.println("Error while evaluating aggregate: " + oge.getMessage());
-                        }
-                    }
-                }
+                this.continueAggregate(entry.getValue(), nowMillis);
             }
         }
     }
+
+    //
+    // Continues the aggregate if its timeout is due. Called from the heartBeat and from the AggregateTimer,
+    // the timeout is claimed so it is continued only once.
+    //
+    public void continueAggregate(AggregateState aggState, long nowMillis) {
+        if (aggState.claimTimeout(nowMillis) == false) {
+            return;
+        }
+        Aggregate agg = aggState.getAggregate();
+        System.out.println("Continue aggregate");
+        
+        //
+        // NOTE: not bridget with evaluateSelectStatement()
+        //
+        //  improve by refactoring evaluateSelectStatement() and its errorHandlers for reuse here.
+        // 
+        try {
+            OperonValue result = agg.continueAggregateAfterTimeout(aggState);
+        } catch (OperonGenericException oge) {
+            System.err.println("Error while evaluating aggregate: " + oge.getMessage());
+        }
+    }
     
     //
     // This is called from InputSourceDriver
@@ -256,6 +278,42 @@ public class OperonContext extends BaseContext implements Context, java.io.Seria
     }
     
     public OperonValue evaluateSelectStatement() throws OperonGenericException {
+        try {
+            return this.evaluateSelect();
+        } finally {
+            this.closeEvaluationStreams();
+        }
+    }
+    
+    //
+    // The stream is closed when the evaluation of the select ends.
+    //
+    public synchronized void closeAfterEvaluation(Closeable stream) {
+        if (this.evaluationStreams == null) {
+            this.evaluationStreams = new ArrayList<Closeable>();
+        }
+        this.evaluationStreams.add(stream);
+    }
+    
+    private void closeEvaluationStreams() {
+        List<Closeable> streams = null;
+        synchronized (this) {
+            if (this.evaluationStreams == null || this.evaluationStreams.isEmpty()) {
+                return;
+            }
+            streams = this.evaluationStreams;
+            this.evaluationStreams = new ArrayList<Closeable>();
+        }
+        for (Closeable stream : streams) {
+            try {
+                stream.close();
+            } catch (IOException ioe) {
+                // Already closed, e.g. when the stream was read to the end.
+            }
+        }
+    }
+    
+    private OperonValue evaluateSelect() throws OperonGenericException {
         //:OFF:log.debug("OperonContext :: ENTER SELECT.EVALUATE()");
         assert (selectStatement != null): "Context :: evaluateSelectStatement, selectStatement was null.";
         
@@ -455,6 +513,14 @@ public class OperonContext extends BaseContext implements Context, java.io.Seria
         return this.isTest;
     }
     
+    public void setPathObserved(boolean po) {
+        this.pathObserved = po;
+    }
+    
+    public boolean isPathObserved() {
+        return this.pathObserved;
+    }
+    
     //
     // TODO: create class for output (Producer)
     //
@@ -508,32 +574,29 @@ public class OperonContext extends BaseContext implements Context, java.io.Seria
                         if (selectConfigs.hasKey("\"prettyPrint\"")) {
                             OperonValue prettyPrintNode = selectConfigs.getByKey("prettyPrint").evaluate();
                             if (prettyPrintNode instanceof TrueType) {
-                                String prettyJson = OperonContext.serializeAsPrettyJson(result);
-                                System.out.println(prettyJson);
+                                OperonContext.printResult(result, OutputFormatter.Format.PRETTY_JSON);
                             }
                             else {
-                                System.out.println(result);
+                                OperonContext.printResult(result, OutputFormatter.Format.JSON);
                             }
                         }
                         
                         else if (operonConfigs.getPrettyPrint() == true) {
-                            String prettyJson = OperonContext.serializeAsPrettyJson(result);
-                            System.out.println(prettyJson);
+                            OperonContext.printResult(result, OutputFormatter.Format.PRETTY_JSON);
                         }
                         
                         else if (selectConfigs.hasKey("\"yaml\"")) {
                             OperonValue yamlNode = selectConfigs.getByKey("yaml").evaluate();
                             if (yamlNode instanceof TrueType) {
-                                String yamlOutput = OperonContext.serializeAsYaml(result);
-                                System.out.println(yamlOutput);
+                                OperonContext.printResult(result, OutputFormatter.Format.YAML);
                             }
                             else {
-                                System.out.println(result);
+                                OperonContext.printResult(result, OutputFormatter.Format.JSON);
                             }
                         }
                         
                         else {
-                            System.out.println(result); // regular output
+                            OperonContext.printResult(result, OutputFormatter.Format.JSON); // regular output
                         }
                     }
                     
@@ -588,6 +651,30 @@ public class OperonContext extends BaseContext implements Context, java.io.Seria
         //:OFF:log.debug("Result printing time: " + elapsedTime + " ns (" + elapsedTime / 1000000 + " ms.)");
     }
     
+    //
+    // Writes the result into the System.out, without building the whole output as String.
+    //
+    private static void printResult(OperonValue result, OutputFormatter.Format format) throws OperonGenericException {
+        try {
+            Writer writer = new OutputStreamWriter(System.out);
+            if (format == OutputFormatter.Format.YAML) {
+                writer.write("---" + System.lineSeparator());
+            }
+            if (result == null) {
+                writer.write("null"); // as the println
+            }
+            else {
+                OutputFormatter ofmt = new OutputFormatter();
+                ofmt.format = format;
+                result.writeTo(writer, ofmt);
+            }
+            writer.write(System.lineSeparator());
+            writer.flush();
+        } catch (IOException ioe) {
+            ErrorUtil.createErrorValueAndThrow((result == null ? null : result.getStatement()), "OUTPUT", "WRITE", ioe.getMessage());
+        }
+    }
+    
     public void outputError() {
         //:OFF:log.debug("OperonContext :: outputError()");
         if (this.getException() != null) {
@@ -56,7 +56,7 @@ public class OperonContextManager {
      // no logger 
     
     private OperonContextManager.ContextStrategy contextStrategy;
-    private OperonContext operonContext;
+    private volatile OperonContext operonContext;
     private String query;
     private byte[] operonContextCache;
     private PrintStream contextLogger;
@@ -220,13 +220,17 @@ public class OperonContextManager {
 
     //
     // correlationId may be null if REUSE_BY_CORRELATION_ID is not used.
-    // NOTE: it is important that this method is syncronized, otherwise parallel access
-    //       (e.g. by ISD would cause that incorrect context could be returned).
+    //
+    // New contexts are created from the cached query-plan (see CompiledQueryCache), so the query
+    // is lexed and parsed only once and creating the per-request context does not hold a lock.
+    //
+    // NOTE: the session-maps and the shared context are still guarded by this manager, otherwise
+    //       parallel access (e.g. by ISD) could return an incorrect context.
     //       Error can be confirmed with StateTests#stateTest4, when sequence ISD is run with ALWAYS_CREATE_NEW.
     //       The error would happen because this sets the new OperonContext, but parallel access would
     //       access the wrong context. TestHelper, which reads the result of seq would then get the wrong result.
     //
-    public synchronized OperonContext resolveContext(String correlationId) throws OperonGenericException, IOException {
+    public OperonContext resolveContext(String correlationId) throws OperonGenericException, IOException {
         OperonContext ctx = null;
         
         //System.out.println("ContextManager :: " + this.getContextStrategy() + ", correlationId=" + correlationId);
@@ -235,7 +239,7 @@ public class OperonContextManager {
             try {
               //System.out.println("ContextManager :: create new context");
               String contextId = String.valueOf(Math.random());
-              ctx = OperonRunner.createNewOperonContext(this.getQuery(), contextId, this.getOperonContext().getConfigs());
+              ctx = OperonRunner.createNewOperonContextFromPlan(this.getQuery(), contextId, this.getOperonContext().getConfigs());
             } catch (Exception e) {
                 ErrorUtil.createErrorValueAndThrow(null, "CONTEXT_MANAGER", "RESOLVE_ERROR", e.getMessage());
             }
@@ -244,46 +248,48 @@ public class OperonContextManager {
         
         else if (this.getContextStrategy() == OperonContextManager.ContextStrategy.REUSE_BY_CORRELATION_ID) {
             try {
-                ctx = OperonRunner.createNewOperonContext(this.getQuery(), "query", this.getOperonContext().getConfigs());
+                ctx = OperonRunner.createNewOperonContextFromPlan(this.getQuery(), "query", this.getOperonContext().getConfigs());
                 
                 if (correlationId != null) {
-                    //System.out.println("Fetch oldContext");
-                    OperonContext oldContext = this.sessionAffinateContextMap.get(correlationId);
-                    
-                    if (oldContext == null) {
-                        //System.out.println("oldContext did not exist, create new state");
-                        oldContext = this.getOperonContext();
-                        State s = new State(oldContext);
-                        oldContext.setState(s);
-                        this.sessionAffinateStateMap.put(correlationId, s);
-                    }
-                    
-                    //System.out.println("Set state");
-                    State s = this.sessionAffinateStateMap.get(correlationId);
-                    ctx.setState(s);
-                    
-                    //System.out.println("Set Let-statements");
-                    
-                    //
-                    // Copy named-values (let-stmts) from old-context to new-context,
-                    // where the ResetType is NEVER (i.e. they should be retained).
-                    //
-                    // NOTE: if OperonConfigs has "namedValues", then the check that they are set when
-                    //       the ResetType is other than NEVER is done in OperonContext's evaluateSelectStatement.
-                    //
-                    for (LetStatement oldLstmnt : oldContext.getAllLetStatements()) {
-                        if (oldLstmnt.getResetType() == LetStatement.ResetType.NEVER && oldLstmnt.getEvaluatedValue() != null) {
-                            for (LetStatement ctxLstmnt : ctx.getAllLetStatements()) {
-                                if (oldLstmnt.getValueRefStr().equals(ctxLstmnt.getValueRefStr())) {
-                                    OperonValue evaluatedValueCopy = oldLstmnt.getEvaluatedValue().copy();
-                                    ctxLstmnt.setEvaluatedValue(evaluatedValueCopy);
-                                    break;
+                    synchronized (this) {
+                        //System.out.println("Fetch oldContext");
+                        OperonContext oldContext = this.sessionAffinateContextMap.get(correlationId);
+                        
+                        if (oldContext == null) {
+                            //System.out.println("oldContext did not exist, create new state");
+                            oldContext = this.getOperonContext();
+                            State s = new State(oldContext);
+                            oldContext.setState(s);
+                            this.sessionAffinateStateMap.put(correlationId, s);
+                        }
+                        
+                        //System.out.println("Set state");
+                        State s = this.sessionAffinateStateMap.get(correlationId);
+                        ctx.setState(s);
+                        
+                        //System.out.println("Set Let-statements");
+                        
+                        //
+                        // Copy named-values (let-stmts) from old-context to new-context,
+                        // where the ResetType is NEVER (i.e. they should be retained).
+                        //
+                        // NOTE: if OperonConfigs has "namedValues", then the check that they are set when
+                        //       the ResetType is other than NEVER is done in OperonContext's evaluateSelectStatement.
+                        //
+                        for (LetStatement oldLstmnt : oldContext.getAllLetStatements()) {
+                            if (oldLstmnt.getResetType() == LetStatement.ResetType.NEVER && oldLstmnt.getEvaluatedValue() != null) {
+                                for (LetStatement ctxLstmnt : ctx.getAllLetStatements()) {
+                                    if (oldLstmnt.getValueRefStr().equals(ctxLstmnt.getValueRefStr())) {
+                                        OperonValue evaluatedValueCopy = oldLstmnt.getEvaluatedValue().copy();
+                                        ctxLstmnt.setEvaluatedValue(evaluatedValueCopy);
+                                        break;
+                                    }
                                 }
                             }
                         }
+        
+                        this.sessionAffinateContextMap.put(correlationId, ctx);
                     }
-    
-                    this.sessionAffinateContextMap.put(correlationId, ctx);
                 }
             } catch (Exception e) {
                 ErrorUtil.createErrorValueAndThrow(null, "CONTEXT_MANAGER", "RESOLVE_ERROR", e.getMessage());
@@ -295,30 +301,41 @@ public class OperonContextManager {
             ctx = this.getOperonContext();
         }
         
-        if (this.getContextStrategy() == OperonContextManager.ContextStrategy.SINGLETON || 
-                this.getContextStrategy() == OperonContextManager.ContextStrategy.REUSE_BY_CORRELATION_ID) {
-            Date nowDate = new Date();
-            ctx.getState().setLastAccessedMillis(nowDate.getTime());
-            
-            if (this.removeUnusedStates && this.removeUnusedStatesAfterMillis >= 0) {
-                this.removeUnusedStates(this.removeUnusedStatesAfterMillis);
+        synchronized (this) {
+            if (this.getContextStrategy() == OperonContextManager.ContextStrategy.SINGLETON || 
+                    this.getContextStrategy() == OperonContextManager.ContextStrategy.REUSE_BY_CORRELATION_ID) {
+                Date nowDate = new Date();
+                ctx.getState().setLastAccessedMillis(nowDate.getTime());
+                
+                if (this.removeUnusedStates && this.removeUnusedStatesAfterMillis >= 0) {
+                    this.removeUnusedStates(this.removeUnusedStatesAfterMillis);
+                }
             }
-            
+    
+            //
+            // This setting of context is required by the TestHelper to read the result.
+            //
             this.setOperonContext(ctx);
         }
-
-        //
-        // This setting of context is required by the TestHelper to read the result.
-        //
-        this.setOperonContext(ctx);
         return ctx;
     }
     
+    //
+    // Hit/miss -counters of the query-plan cache that is used when creating new contexts.
+    //
+    public long getQueryPlanCacheHits() {
+        return CompiledQueryCache.getHits();
+    }
+    
+    public long getQueryPlanCacheMisses() {
+        return CompiledQueryCache.getMisses();
+    }
+    
     //
     // Ask to remove the State -objects from the map
     // that are older than the periodInMillis
     //
-    public void removeUnusedStates(long periodInMillis) {
+    public synchronized void removeUnusedStates(long periodInMillis) {
         Date now = new Date();
         long nowMillis = now.getTime();
         List<String> toBeRemoved = new ArrayList<String>();
@@ -65,6 +65,7 @@ public class OperonRunner implements Runnable {
     private OperonContextManager.ContextStrategy contextStrategy = OperonContextManager.ContextStrategy.SINGLETON;
     
     private String query;
+    private String compiledQueryFile; // see CompiledQuery
     private String testsContent;
     private String queryId;
     private boolean isTest = false;
@@ -99,6 +100,13 @@ public class OperonRunner implements Runnable {
                     Main.setInitialValueForJsonSystem(operonContext, this.getInitialValueForJsonSystem());
                 }
             }
+            else if (this.getCompiledQueryFile() != null) {
+                operonContext = CompiledQuery.loadFromFile(this.getCompiledQueryFile(), this.getQueryId(), this.getConfigs());
+                
+                if (this.getInitialValueForJsonSystem() != null) {
+                    Main.setInitialValueForJsonSystem(operonContext, this.getInitialValueForJsonSystem());
+                }
+            }
             else {
                 operonContext = OperonRunner.createNewOperonContext(this.getQuery(), this.getQueryId(), this.getConfigs());
                 
@@ -191,6 +199,23 @@ public class OperonRunner implements Runnable {
         return newCtx;
     }
     
+    //
+    // Creates a new OperonContext from the cached query-plan (see CompiledQueryCache).
+    // Only the OperonCompiler's walk is done here, the query is lexed and parsed once.
+    // This does not lock, so it may be called from several threads concurrently.
+    //
+    public static OperonContext createNewOperonContextFromPlan(String query, String queryId, OperonConfigs configs) throws Exception, OperonGenericException, IOException {
+        ParseTree plan = CompiledQueryCache.getOrParse(query);
+        OperonContext newCtx = new OperonContext();
+        OperonRunner.compileParseTree(newCtx, plan);
+        newCtx.setContextId(queryId);
+        newCtx.setQuery(query);
+        if (configs != null) {
+            newCtx.setConfigs(configs);
+        }
+        return newCtx;
+    }
+    
     public static OperonContext createNewOperonContextWithTests(String query, OperonTestsContext testsContext, String queryId, OperonConfigs configs) 
             throws Exception, OperonGenericException, IOException {
         OperonContext newCtx = new OperonContext();
@@ -257,10 +282,17 @@ public class OperonRunner implements Runnable {
 
     // TODO: catch OperonCompilerException
     public static OperonContext compile(OperonContext operonContext, String query, String queryId) throws Exception, OperonGenericException, IOException {
-        InputStream is = new ByteArrayInputStream(query.getBytes(StandardCharsets.UTF_8));
-        
-        // Create a CharStream that reads from standard input
-        org.antlr.v4.runtime.CharStream input = org.antlr.v4.runtime.CharStreams.fromStream(is);
+        ParseTree tree = OperonRunner.parseQuery(query);
+        return OperonRunner.compileParseTree(operonContext, tree);
+    }
+
+    //
+    // Lex and parse the query. The resulting ParseTree is not modified by the OperonCompiler,
+    // so it can be cached and compiled again into a new OperonContext (see CompiledQueryCache).
+    //
+    public static ParseTree parseQuery(String query) throws Exception, IOException {
+        // Create a CharStream that reads from the query
+        org.antlr.v4.runtime.CharStream input = org.antlr.v4.runtime.CharStreams.fromString(query);
 
         // create a lexer that feeds off of input CharStream
         OperonLexer lexer = new OperonLexer(input);
@@ -285,7 +317,10 @@ public class OperonRunner implements Runnable {
             }
         });
         ParseTree tree = parser.operon(); // begin parsing at init rule
-        
+        return tree;
+    }
+
+    public static OperonContext compileParseTree(OperonContext operonContext, ParseTree tree) throws Exception, OperonGenericException, IOException {
         // Create a generic parse tree walker that can trigger callbacks
         ParseTreeWalker walker = new ParseTreeWalker();
         // Walk the tree created during the parse, trigger callbacks
@@ -297,10 +332,17 @@ public class OperonRunner implements Runnable {
 
     public static Node compileExpr(Statement currentStatement, String expr) throws Exception, OperonGenericException, IOException {
         //System.out.println("OperonRunner.compileExpr - 1 currentStatement=" + currentStatement);
-        InputStream is = new ByteArrayInputStream(expr.getBytes(StandardCharsets.UTF_8));
-        
-        // Create a CharStream that reads from standard input
-        org.antlr.v4.runtime.CharStream input = org.antlr.v4.runtime.CharStreams.fromStream(is);
+        ParseTree tree = OperonRunner.parseExpr(expr);
+        return OperonRunner.compileExprParseTree(currentStatement, tree);
+    }
+
+    //
+    // Lex and parse the expression (starting from the expr-rule).
+    // As with parseQuery, the resulting ParseTree can be cached and compiled many times.
+    //
+    public static ParseTree parseExpr(String expr) throws Exception, IOException {
+        // Create a CharStream that reads from the expr
+        org.antlr.v4.runtime.CharStream input = org.antlr.v4.runtime.CharStreams.fromString(expr);
 
         // create a lexer that feeds off of input CharStream
         OperonLexer lexer = new OperonLexer(input);
@@ -325,7 +367,10 @@ public class OperonRunner implements Runnable {
             }
         });
         ParseTree tree = parser.expr(); // begin parsing at expr-rule
-        
+        return tree;
+    }
+
+    public static Node compileExprParseTree(Statement currentStatement, ParseTree tree) throws Exception, OperonGenericException, IOException {
         // Create a generic parse tree walker that can trigger callbacks
         ParseTreeWalker walker = new ParseTreeWalker();
         // Walk the tree created during the parse, trigger callbacks
@@ -642,6 +687,17 @@ public class OperonRunner implements Runnable {
         return this.query;
     }
     
+    //
+    // Loads the query from the precompiled query-file, instead of compiling the query.
+    //
+    public void setCompiledQueryFile(String fileName) {
+        this.compiledQueryFile = fileName;
+    }
+    
+    public String getCompiledQueryFile() {
+        return this.compiledQueryFile;
+    }
+    
     public void setTestsContent(String tc) {
         this.testsContent = tc;
     }
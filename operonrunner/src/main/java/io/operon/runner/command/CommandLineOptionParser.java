@@ -108,6 +108,14 @@ public class CommandLineOptionParser {
                     co.setOptionName("query");
                     nextIsValue = true;
                     break;
+                case "--compile":
+                    co.setOptionName("compile");
+                    nextIsValue = true;
+                    break;
+                case "--load":
+                    co.setOptionName("load");
+                    nextIsValue = true;
+                    break;
                 case "--testsfolder":
                     co.setOptionName("testsfolder");
                     nextIsValue = true;
@@ -182,6 +190,22 @@ public class CommandLineOptionParser {
                     co.setOptionName("redisprefix");
                     nextIsValue = true;
                     break;
+                case "--statedir":
+                    co.setOptionName("statedir");
+                    nextIsValue = true;
+                    break;
+                case "-sd":
+                    co.setOptionName("statedir");
+                    nextIsValue = true;
+                    break;
+                case "--parallelism":
+                    co.setOptionName("parallelism");
+                    nextIsValue = true;
+                    break;
+                case "-par":
+                    co.setOptionName("parallelism");
+                    nextIsValue = true;
+                    break;
                 case "--disablecomponents":
                     co.setOptionName("disablecomponents");
                     nextIsValue = true;
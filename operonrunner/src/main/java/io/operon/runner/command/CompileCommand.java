@@ -0,0 +1,65 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.command;
+
+import java.util.List;
+
+import io.operon.runner.Main;
+import io.operon.runner.compiler.CompiledQuery;
+import io.operon.runner.model.exception.OperonGenericException;
+
+//
+// Compiles the query-file into the precompiled query-file (see CompiledQuery),
+// which can be run with the --load -option.
+//
+public class CompileCommand implements MainCommand {
+
+    private String queryFile;
+    
+    public CompileCommand(String queryFile) {
+        this.queryFile = queryFile;
+    }
+
+    public int execute(List<CommandLineOption> options) throws OperonGenericException {
+        String outputFile = this.queryFile;
+        int extPos = outputFile.lastIndexOf('.');
+        if (extPos > outputFile.lastIndexOf('/')) {
+            outputFile = outputFile.substring(0, extPos);
+        }
+        outputFile = outputFile + ".opc";
+        
+        try {
+            String query = Main.readFile(this.queryFile, Main.defaultCharset);
+            boolean irWritten = CompiledQuery.saveToFile(query, outputFile);
+            if (irWritten == false) {
+                System.out.println("Compiled (source only, the query is compiled when loaded): " + outputFile);
+            }
+            else {
+                System.out.println("Compiled: " + outputFile);
+            }
+            return 0;
+        } catch (java.nio.file.NoSuchFileException e) {
+            System.err.println("Could not find the query-file: " + this.queryFile);
+            return 1;
+        } catch (OperonGenericException oge) {
+            throw oge;
+        } catch (Exception e) {
+            System.err.println("Could not compile the query-file: " + this.queryFile + ". Error: " + e.getMessage());
+            return 1;
+        }
+    }
+}
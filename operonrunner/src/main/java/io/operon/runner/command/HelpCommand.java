@@ -40,10 +40,13 @@ public class HelpCommand implements MainCommand {
         sb.append("  --version : prints only the Operon-version.\n");
         sb.append("  --raw or -r : interprets the input from the inputstream-option as raw (e.g. csv or xml-file should be read as raw).\n");
         sb.append("  --example : shows an example Operon-query.\n");
+        sb.append("  --compile \"query.op\": compiles the query into the precompiled query-file \"query.opc\".\n");
+        sb.append("  --load \"query.opc\": runs the precompiled query-file. Can be combined with the same options as the query.\n");
         sb.append("  --inputstream or -is : receives JSON-input from the system's inputstream. This overrides any given root-value from the query.\n");
         sb.append("  --omitresult or -or: does not print the result.\n");
         sb.append("  --prettyprint or -pp: prints the output formatted.\n");
         sb.append("  --printduration or -pd: prints after the query has been executed how long the execution took.\n");
+        sb.append("  --parallelism or -par: the number of threads for the parallel Map (by default uses the common ForkJoinPool).\n");
         sb.append("  --query or -q: run the query given in the commandline.\n");
         sb.append("  -iq : the combination of --inputstream and --query.\n");
         sb.append("  -irq : the combination of --inputstream, --raw and --query.\n");
@@ -52,6 +55,7 @@ public class HelpCommand implements MainCommand {
         sb.append("  --redisuser or -ru: redis user, if not empty.\n");
         sb.append("  --redispassword or -rpwd: redis password, if not empty.\n");
         sb.append("  --redisprefix or -rpfx: prefix for state:set/get key.\n");
+        sb.append("  --statedir or -sd: folder for the durable local state (state:set/get and Aggregate), when Redis is not used.\n");
         sb.append("  --streamlines or -sl: reads the input line by line, sending each line for the query.\n");
         sb.append("  --test or -t: runs the default testfile \"operon.tests\"\n");
         sb.append("  --tests or -ts \"file1.test, file2.optest,...\": runs the named testfiles separated by commas.\n");
@@ -41,10 +41,18 @@ import io.operon.runner.util.ErrorUtil;
 public class QueryCommand implements MainCommand {
 
     private String query = "";
+    private String compiledQueryFile = null;
     
     public QueryCommand(String query) {
         this.query = query;
     }
+    
+    //
+    // Runs the precompiled query-file (--load) instead of the query.
+    //
+    public void setCompiledQueryFile(String fileName) {
+        this.compiledQueryFile = fileName;
+    }
 
     public int execute(List<CommandLineOption> options) throws OperonGenericException {
         boolean inputstream = false; // piped input: load the $ from the piped inputstream (consumes the whole stream, materializes it and loads as a single value)
@@ -102,6 +110,11 @@ public class QueryCommand implements MainCommand {
                 configs.setOutputResult(false);
             }
             
+            // sets the parallelism of the parallel Map
+            else if (option.getOptionName().toLowerCase().equals("parallelism")) {
+                configs.setParallelism(Integer.valueOf(option.getOptionValue()));
+            }
+            
             // allows to set the redis-host (default is localhost)
             else if (option.getOptionName().toLowerCase().equals("redishost")) {
                 configs.setRedisHost(option.getOptionValue());
@@ -126,10 +139,16 @@ public class QueryCommand implements MainCommand {
             else if (option.getOptionName().toLowerCase().equals("redisprefix")) {
                 configs.setRedisPrefix(option.getOptionValue());
             }
+            
+            // allows to keep the state and the aggregated values in a local write-ahead log (when Redis is not used)
+            else if (option.getOptionName().toLowerCase().equals("statedir")) {
+                configs.setStateDir(option.getOptionValue());
+            }
         }
         
         OperonRunner runner = new OperonRunner();
         runner.setConfigs(configs);
+        runner.setCompiledQueryFile(this.compiledQueryFile);
         
         if (inputstream) {
             BufferedReader f = new BufferedReader(new InputStreamReader(System.in));
@@ -0,0 +1,741 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.operon.runner.IrTypes;
+import io.operon.runner.Main;
+import io.operon.runner.OperonContext;
+import io.operon.runner.OperonRunner;
+import io.operon.runner.model.InputSource;
+import io.operon.runner.model.OperonConfigs;
+import io.operon.runner.node.BinaryNode;
+import io.operon.runner.node.MultiNode;
+import io.operon.runner.node.Node;
+import io.operon.runner.node.ObjAccess;
+import io.operon.runner.node.UnaryNode;
+import io.operon.runner.node.ValueRef;
+import io.operon.runner.node.type.ArrayType;
+import io.operon.runner.node.type.EmptyType;
+import io.operon.runner.node.type.EndValueType;
+import io.operon.runner.node.type.FalseType;
+import io.operon.runner.node.type.NullType;
+import io.operon.runner.node.type.NumberType;
+import io.operon.runner.node.type.ObjectType;
+import io.operon.runner.node.type.OperonValue;
+import io.operon.runner.node.type.PackedNumbers;
+import io.operon.runner.node.type.PairKey;
+import io.operon.runner.node.type.PairType;
+import io.operon.runner.node.type.RawValue;
+import io.operon.runner.node.type.StringType;
+import io.operon.runner.node.type.TrueType;
+import io.operon.runner.processor.BinaryNodeProcessor;
+import io.operon.runner.processor.UnaryNodeProcessor;
+import io.operon.runner.processor.binary.Division;
+import io.operon.runner.processor.binary.Minus;
+import io.operon.runner.processor.binary.Modulus;
+import io.operon.runner.processor.binary.Multiplicate;
+import io.operon.runner.processor.binary.Plus;
+import io.operon.runner.processor.binary.Power;
+import io.operon.runner.processor.binary.logical.And;
+import io.operon.runner.processor.binary.logical.BinaryNot;
+import io.operon.runner.processor.binary.logical.Eq;
+import io.operon.runner.processor.binary.logical.Gt;
+import io.operon.runner.processor.binary.logical.Gte;
+import io.operon.runner.processor.binary.logical.InEq;
+import io.operon.runner.processor.binary.logical.Lt;
+import io.operon.runner.processor.binary.logical.Lte;
+import io.operon.runner.processor.binary.logical.Or;
+import io.operon.runner.processor.unary.Negate;
+import io.operon.runner.processor.unary.Not;
+import io.operon.runner.statement.DefaultStatement;
+import io.operon.runner.statement.FromStatement;
+import io.operon.runner.statement.SelectStatement;
+import io.operon.runner.statement.Statement;
+
+/**
+ *
+ * The precompiled query-file (see the --compile and --load options).
+ *
+ * Layout (DataOutputStream, big-endian):
+ *   - magic "OPIR", the format-version and the Operon-version
+ *   - the query source (UTF-8)
+ *   - the IR-flag: 1 when the compiled node-tree follows, 0 otherwise
+ *   - the IR: the string-constants, the From-statement and the Select-statement.
+ *     The nodes are written depth-first, each starting with its IrTypes -code.
+ *
+ * Loading the IR builds the OperonContext directly, without lexing, parsing or walking the query.
+ * The IR covers the core nodes (the JSON-values, the operators, the value-references, the
+ * object-access and the Map). When the query uses other constructs (e.g. the functions or the
+ * Let-statements), or when the file was written by another version, then only the source is
+ * used, and the query is compiled when loaded.
+ *
+ */
+public class CompiledQuery {
+     // no logger
+
+    public static final byte[] MAGIC = new byte[] {'O', 'P', 'I', 'R'};
+    public static final short FORMAT_VERSION = 1;
+
+    private static final byte NO_PROCESSOR = 0;
+
+    //
+    // The processor-codes. The position in the list is the code (starting from 1),
+    // keep these in the same order as in newBinaryProcessor and newUnaryProcessor.
+    //
+    private static final List<Class<?>> BINARY_PROCESSORS = new ArrayList<Class<?>>();
+    private static final List<Class<?>> UNARY_PROCESSORS = new ArrayList<Class<?>>();
+
+    static {
+        BINARY_PROCESSORS.add(Plus.class);
+        BINARY_PROCESSORS.add(Minus.class);
+        BINARY_PROCESSORS.add(Multiplicate.class);
+        BINARY_PROCESSORS.add(Division.class);
+        BINARY_PROCESSORS.add(Modulus.class);
+        BINARY_PROCESSORS.add(Power.class);
+        BINARY_PROCESSORS.add(Eq.class);
+        BINARY_PROCESSORS.add(InEq.class);
+        BINARY_PROCESSORS.add(Gt.class);
+        BINARY_PROCESSORS.add(Gte.class);
+        BINARY_PROCESSORS.add(Lt.class);
+        BINARY_PROCESSORS.add(Lte.class);
+        BINARY_PROCESSORS.add(And.class);
+        BINARY_PROCESSORS.add(Or.class);
+        BINARY_PROCESSORS.add(BinaryNot.class);
+
+        UNARY_PROCESSORS.add(Not.class);
+        UNARY_PROCESSORS.add(Negate.class);
+    }
+
+    //
+    // Compiles the query and writes it into the file.
+    // @returns true when the IR was written, false when only the source was written.
+    //
+    public static boolean saveToFile(String query, String fileName) throws Exception {
+        OperonContext ctx = OperonRunner.createNewOperonContext(query, "query", null);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(fileName))) {
+            return write(ctx, query, out);
+        }
+    }
+
+    public static OperonContext loadFromFile(String fileName, String queryId, OperonConfigs configs) throws Exception {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(fileName))) {
+            return read(in, queryId, configs);
+        } catch (EOFException e) {
+            throw new IOException("The compiled query-file is truncated or invalid: " + fileName);
+        }
+    }
+
+    //
+    // @param ctx :: the OperonContext compiled from the query (not yet run)
+    // @returns true when the IR was written, false when only the source was written.
+    //
+    public static boolean write(OperonContext ctx, String query, OutputStream out) throws IOException {
+        byte[] ir = null;
+        try {
+            ir = new IrWriter().writeContext(ctx);
+        } catch (UnsupportedNodeException une) {
+            ir = null;
+        }
+
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.write(MAGIC);
+        dos.writeShort(FORMAT_VERSION);
+        dos.writeUTF(Main.VERSION);
+        byte[] source = query.getBytes(StandardCharsets.UTF_8);
+        dos.writeInt(source.length);
+        dos.write(source);
+        if (ir == null) {
+            dos.writeByte(0);
+        }
+        else {
+            dos.writeByte(1);
+            dos.write(ir);
+        }
+        dos.flush();
+        return ir != null;
+    }
+
+    public static OperonContext read(InputStream in, String queryId, OperonConfigs configs) throws Exception {
+        DataInputStream dis = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        dis.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i ++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Not a compiled Operon-query");
+            }
+        }
+        short formatVersion = dis.readShort();
+        String operonVersion = dis.readUTF();
+        int sourceLength = dis.readInt();
+        if (sourceLength < 0) {
+            throw new IOException("Invalid source-length in the compiled Operon-query: " + sourceLength);
+        }
+        byte[] source = new byte[sourceLength];
+        dis.readFully(source);
+        String query = new String(source, StandardCharsets.UTF_8);
+        boolean hasIr = dis.readByte() == 1;
+
+        if (hasIr == false || formatVersion != FORMAT_VERSION || operonVersion.equals(Main.VERSION) == false) {
+            return OperonRunner.createNewOperonContext(query, queryId, configs);
+        }
+
+        OperonContext ctx = new IrReader(dis).readContext();
+        ctx.setContextId(queryId);
+        ctx.setQuery(query);
+        if (configs != null) {
+            ctx.setConfigs(configs);
+        }
+        return ctx;
+    }
+
+    //
+    // Creates the processor by its code (see BINARY_PROCESSORS).
+    //
+    private static BinaryNodeProcessor newBinaryProcessor(byte code) throws IOException {
+        switch (code) {
+            case 1: return new Plus();
+            case 2: return new Minus();
+            case 3: return new Multiplicate();
+            case 4: return new Division();
+            case 5: return new Modulus();
+            case 6: return new Power();
+            case 7: return new Eq();
+            case 8: return new InEq();
+            case 9: return new Gt();
+            case 10: return new Gte();
+            case 11: return new Lt();
+            case 12: return new Lte();
+            case 13: return new And();
+            case 14: return new Or();
+            case 15: return new BinaryNot();
+            default: throw new IOException("Unknown binary-operator: " + code);
+        }
+    }
+
+    private static UnaryNodeProcessor newUnaryProcessor(byte code) throws IOException {
+        switch (code) {
+            case 1: return new Not();
+            case 2: return new Negate();
+            default: throw new IOException("Unknown unary-operator: " + code);
+        }
+    }
+
+    private static class UnsupportedNodeException extends Exception {
+        UnsupportedNodeException(String msg) {
+            super(msg, null, false, false);
+        }
+    }
+
+    private static class IrWriter {
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+        private final List<String> stringList = new ArrayList<String>();
+        private final ByteArrayOutputStream tree = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(tree);
+
+        byte[] writeContext(OperonContext ctx) throws IOException, UnsupportedNodeException {
+            if (ctx.getFunctionStatements().isEmpty() == false
+                || ctx.getLetStatements().isEmpty() == false
+                || ctx.getModules().isEmpty() == false
+                || ctx.getBindValues().isEmpty() == false
+                || ctx.getExceptionHandler() != null) {
+                throw new UnsupportedNodeException("context");
+            }
+
+            FromStatement from = ctx.getFromStatement();
+            if (from.getOperonValueConstraint() != null) {
+                throw new UnsupportedNodeException("From-constraint");
+            }
+            InputSource inputSource = from.getInputSource();
+            this.writeString(inputSource.getName());
+            this.writeString(inputSource.getSystemId());
+            this.writeOptionalNode(inputSource.getInitialValue());
+            this.writeOptionalNode(inputSource.getConfiguration());
+
+            SelectStatement select = ctx.getSelectStatement();
+            if (select.getOperonValueConstraint() != null
+                || select.getLetStatements().isEmpty() == false
+                || select.getExceptionHandler() != null) {
+                throw new UnsupportedNodeException("Select");
+            }
+            this.writeOptionalNode(select.getConfigsNode());
+            this.writeNode(select.getNode());
+            this.out.flush();
+
+            ByteArrayOutputStream result = new ByteArrayOutputStream(this.tree.size() + 16 * this.stringList.size());
+            DataOutputStream header = new DataOutputStream(result);
+            header.writeInt(this.stringList.size());
+            for (String s : this.stringList) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                header.writeInt(bytes.length);
+                header.write(bytes);
+            }
+            header.flush();
+            this.tree.writeTo(result);
+            return result.toByteArray();
+        }
+
+        //
+        // The strings are written as indexes into the string-constants, null as -1.
+        //
+        private void writeString(String s) throws IOException {
+            if (s == null) {
+                this.out.writeInt(-1);
+                return;
+            }
+            Integer index = this.strings.get(s);
+            if (index == null) {
+                index = this.stringList.size();
+                this.strings.put(s, index);
+                this.stringList.add(s);
+            }
+            this.out.writeInt(index);
+        }
+
+        private void writeOptionalNode(Node node) throws IOException, UnsupportedNodeException {
+            if (node == null) {
+                this.out.writeByte(0);
+            }
+            else {
+                this.out.writeByte(1);
+                this.writeNode(node);
+            }
+        }
+
+        private void writeNode(Node node) throws IOException, UnsupportedNodeException {
+            Class<?> type = node.getClass();
+
+            if (type == StringType.class) {
+                this.out.writeByte(IrTypes.STRING_TYPE);
+                this.writeString(((StringType) node).getStringValue());
+            }
+            else if (type == NumberType.class) {
+                NumberType number = (NumberType) node;
+                this.out.writeByte(IrTypes.NUMBER_TYPE);
+                this.out.writeDouble(number.getDoubleValue());
+                this.out.writeByte(number.getPrecision());
+            }
+            else if (type == TrueType.class) {
+                this.out.writeByte(IrTypes.TRUE_TYPE);
+            }
+            else if (type == FalseType.class) {
+                this.out.writeByte(IrTypes.FALSE_TYPE);
+            }
+            else if (type == NullType.class) {
+                this.out.writeByte(IrTypes.NULL_TYPE);
+            }
+            else if (type == EndValueType.class) {
+                this.out.writeByte(IrTypes.END_VALUE_TYPE);
+            }
+            else if (type == EmptyType.class) {
+                this.out.writeByte(IrTypes.EMPTY_TYPE);
+                this.out.writeBoolean(node.isEmptyValue());
+            }
+            else if (type == RawValue.class) {
+                byte[] bytes = ((RawValue) node).getBytes();
+                this.out.writeByte(IrTypes.RAW_VALUE);
+                this.out.writeInt(bytes.length);
+                this.out.write(bytes);
+            }
+            else if (type == ArrayType.class) {
+                this.writeArray((ArrayType) node);
+            }
+            else if (type == ObjectType.class) {
+                this.writeObject((ObjectType) node);
+            }
+            else if (type == OperonValue.class) {
+                OperonValue value = (OperonValue) node;
+                if (value.getOperonValueConstraint() != null || value.getValue() == null) {
+                    throw new UnsupportedNodeException("OperonValue");
+                }
+                this.out.writeByte(IrTypes.OPERON_VALUE);
+                this.out.writeBoolean(value.isEmptyValue());
+                this.writeNode(value.getValue());
+            }
+            else if (type == UnaryNode.class) {
+                UnaryNode unary = (UnaryNode) node;
+                this.out.writeByte(IrTypes.UNARY_NODE);
+                this.writeString(unary.getExpr());
+                this.writeProcessor(UNARY_PROCESSORS, unary.getUnaryNodeProcessor(),
+                    unary.getUnaryNodeProcessor() == null ? -1 : unary.getUnaryNodeProcessor().getSourceCodeLineNumber());
+                this.writeNode(unary.getNode());
+            }
+            else if (type == BinaryNode.class) {
+                BinaryNode binary = (BinaryNode) node;
+                BinaryNodeProcessor proc = binary.getBinaryNodeProcessor();
+                if (proc == null) {
+                    throw new UnsupportedNodeException("BinaryNode");
+                }
+                this.out.writeByte(IrTypes.BINARY_NODE);
+                this.writeString(binary.getExpr());
+                this.writeProcessor(BINARY_PROCESSORS, proc, proc.getSourceCodeLineNumber());
+                this.writeNode(binary.getLhs());
+                this.writeNode(binary.getRhs());
+            }
+            else if (type == MultiNode.class) {
+                MultiNode multi = (MultiNode) node;
+                this.out.writeByte(IrTypes.MULTI_NODE);
+                this.writeString(multi.getExpr());
+                this.out.writeInt(multi.getNodes().size());
+                for (Node n : multi.getNodes()) {
+                    this.writeNode(n);
+                }
+            }
+            else if (type == ValueRef.class) {
+                ValueRef valueRef = (ValueRef) node;
+                if (valueRef.getComputedValueRef() != null) {
+                    throw new UnsupportedNodeException("ValueRef");
+                }
+                this.out.writeByte(IrTypes.VALUE_REF);
+                this.writeString(valueRef.getValueRef());
+                this.out.writeInt(valueRef.getNamespaces().size());
+                for (String ns : valueRef.getNamespaces()) {
+                    this.writeString(ns);
+                }
+            }
+            else if (type == ObjAccess.class) {
+                ObjAccess objAccess = (ObjAccess) node;
+                this.out.writeByte(IrTypes.OBJ_ACCESS);
+                this.writeString(objAccess.getObjAccessKey());
+                this.out.writeInt(objAccess.getSourceCodeLineNumber());
+            }
+            else if (type == io.operon.runner.node.Map.class) {
+                io.operon.runner.node.Map map = (io.operon.runner.node.Map) node;
+                if (map.getStatement().getLetStatements().isEmpty() == false) {
+                    throw new UnsupportedNodeException("Map");
+                }
+                this.out.writeByte(IrTypes.MAP);
+                this.out.writeInt(map.getSourceCodeLineNumber());
+                this.writeOptionalNode(map.getConfigsNode());
+                this.writeNode(map.getMapExpr());
+            }
+            else {
+                throw new UnsupportedNodeException(type.getName());
+            }
+        }
+
+        private void writeProcessor(List<Class<?>> processors, Object proc, int line) throws IOException, UnsupportedNodeException {
+            if (proc == null) {
+                this.out.writeByte(NO_PROCESSOR);
+                return;
+            }
+            int index = processors.indexOf(proc.getClass());
+            if (index < 0) {
+                throw new UnsupportedNodeException(proc.getClass().getName());
+            }
+            this.out.writeByte(index + 1);
+            this.out.writeInt(line);
+        }
+
+        private void writeArray(ArrayType array) throws IOException, UnsupportedNodeException {
+            this.out.writeByte(IrTypes.ARRAY_TYPE);
+            this.out.writeInt(array.getArrayId());
+            PackedNumbers packed = array.getPackedValues();
+            if (packed != null) {
+                this.out.writeBoolean(true);
+                this.out.writeInt(packed.size());
+                for (int i = 0; i < packed.size(); i ++) {
+                    this.out.writeDouble(packed.getDouble(i));
+                    this.out.writeByte(packed.getPrecision(i));
+                }
+                return;
+            }
+            this.out.writeBoolean(false);
+            List<Node> values = array.getValues();
+            this.out.writeInt(values.size());
+            for (Node n : values) {
+                this.writeNode(n);
+            }
+        }
+
+        private void writeObject(ObjectType obj) throws IOException, UnsupportedNodeException {
+            this.out.writeByte(IrTypes.OBJECT_TYPE);
+            this.out.writeInt(obj.getObjId());
+            List<PairType> pairs = obj.getPairs();
+            this.out.writeInt(pairs.size());
+            for (PairType pair : pairs) {
+                if (pair.getOperonValueConstraint() != null) {
+                    throw new UnsupportedNodeException("PairType");
+                }
+                this.writeString(pair.getKey());
+                this.out.writeInt(pair.getPosition());
+                this.writeOptionalNode(pair.getConfigsNode());
+                this.writeNode(pair.getValue());
+            }
+        }
+    }
+
+    private static class IrReader {
+        private final DataInputStream in;
+        private String[] strings;
+        private OperonContext ctx;
+        private Statement currentStatement;
+        private final PairKey.Pool keyPool = new PairKey.Pool(); // the shared keys of the compiled query
+
+        IrReader(DataInputStream in) {
+            this.in = in;
+        }
+
+        OperonContext readContext() throws Exception {
+            int count = this.in.readInt();
+            this.strings = new String[count];
+            for (int i = 0; i < count; i ++) {
+                byte[] bytes = new byte[this.in.readInt()];
+                this.in.readFully(bytes);
+                this.strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            this.ctx = new OperonContext();
+
+            FromStatement from = new FromStatement(this.ctx);
+            from.setId("FromStatement");
+            this.currentStatement = from;
+            InputSource inputSource = new InputSource();
+            inputSource.setName(this.readString());
+            inputSource.setSystemId(this.readString());
+            Node initialValue = this.readOptionalNode();
+            if (initialValue != null) {
+                inputSource.setInitialValue((OperonValue) initialValue);
+            }
+            Node configuration = this.readOptionalNode();
+            if (configuration != null) {
+                inputSource.setConfiguration((ObjectType) configuration);
+            }
+            from.setInputSource(inputSource);
+            this.ctx.setFromStatement(from);
+
+            SelectStatement select = new SelectStatement(this.ctx);
+            select.setId("SelectStatement");
+            select.setPreviousStatement(from);
+            this.currentStatement = select;
+            Node configs = this.readOptionalNode();
+            if (configs != null) {
+                select.setConfigs(configs);
+            }
+            select.setNode(this.readNode());
+            this.ctx.setSelectStatement(select);
+            return this.ctx;
+        }
+
+        private String readString() throws IOException {
+            int index = this.in.readInt();
+            return (index < 0 ? null : this.strings[index]);
+        }
+
+        private Node readOptionalNode() throws Exception {
+            if (this.in.readByte() == 0) {
+                return null;
+            }
+            return this.readNode();
+        }
+
+        private Node readNode() throws Exception {
+            byte type = this.in.readByte();
+            Statement stmt = this.currentStatement;
+
+            if (type == IrTypes.STRING_TYPE) {
+                StringType result = new StringType(stmt);
+                result.setValue(this.readString());
+                return result;
+            }
+            else if (type == IrTypes.NUMBER_TYPE) {
+                NumberType result = new NumberType(stmt);
+                result.setDoubleValue(this.in.readDouble());
+                result.setPrecision(this.in.readByte());
+                return result;
+            }
+            else if (type == IrTypes.TRUE_TYPE) {
+                return new TrueType(stmt);
+            }
+            else if (type == IrTypes.FALSE_TYPE) {
+                return new FalseType(stmt);
+            }
+            else if (type == IrTypes.NULL_TYPE) {
+                return new NullType(stmt);
+            }
+            else if (type == IrTypes.END_VALUE_TYPE) {
+                return new EndValueType(stmt);
+            }
+            else if (type == IrTypes.EMPTY_TYPE) {
+                EmptyType result = new EmptyType(stmt);
+                if (this.in.readBoolean()) {
+                    result.setIsEmptyValue(true);
+                }
+                return result;
+            }
+            else if (type == IrTypes.RAW_VALUE) {
+                byte[] bytes = new byte[this.in.readInt()];
+                this.in.readFully(bytes);
+                RawValue result = new RawValue(stmt);
+                result.setValue(bytes);
+                return result;
+            }
+            else if (type == IrTypes.ARRAY_TYPE) {
+                return this.readArray(stmt);
+            }
+            else if (type == IrTypes.OBJECT_TYPE) {
+                return this.readObject(stmt);
+            }
+            else if (type == IrTypes.OPERON_VALUE) {
+                OperonValue result = new OperonValue(stmt);
+                boolean isEmptyValue = this.in.readBoolean();
+                result.setValue(this.readNode());
+                if (isEmptyValue) {
+                    result.setIsEmptyValue(true);
+                }
+                return result;
+            }
+            else if (type == IrTypes.UNARY_NODE) {
+                UnaryNode result = new UnaryNode(stmt);
+                result.setExpr(this.readString());
+                byte proc = this.in.readByte();
+                if (proc != NO_PROCESSOR) {
+                    UnaryNodeProcessor op = newUnaryProcessor(proc);
+                    op.setSourceCodeLineNumber(this.in.readInt());
+                    result.setUnaryNodeProcessor(op);
+                }
+                result.setNode(this.readNode());
+                return result;
+            }
+            else if (type == IrTypes.BINARY_NODE) {
+                BinaryNode result = new BinaryNode(stmt);
+                result.setExpr(this.readString());
+                byte proc = this.in.readByte();
+                BinaryNodeProcessor op = newBinaryProcessor(proc);
+                op.setSourceCodeLineNumber(this.in.readInt());
+                result.setBinaryNodeProcessor(op);
+                result.setLhs(this.readNode());
+                result.setRhs(this.readNode());
+                return result;
+            }
+            else if (type == IrTypes.MULTI_NODE) {
+                MultiNode result = new MultiNode(stmt);
+                result.setExpr(this.readString());
+                int count = this.in.readInt();
+                for (int i = 0; i < count; i ++) {
+                    result.addNode(this.readNode());
+                }
+                return result;
+            }
+            else if (type == IrTypes.VALUE_REF) {
+                ValueRef result = new ValueRef(stmt);
+                String symbol = this.readString();
+                result.setValueRef(symbol);
+                int count = this.in.readInt();
+                for (int i = 0; i < count; i ++) {
+                    result.getNamespaces().add(this.readString());
+                }
+                if ("_".equals(symbol)) {
+                    // Same as in the OperonCompiler for the OBJ_SELF_REFERENCE
+                    this.ctx.getConfigs().setSupportPos(true);
+                    this.ctx.getConfigs().setSupportParent(true);
+                }
+                result.resolveSlot();
+                return result;
+            }
+            else if (type == IrTypes.OBJ_ACCESS) {
+                ObjAccess result = new ObjAccess(stmt);
+                result.setObjAccessKey(this.readString());
+                result.setSourceCodeLineNumber(this.in.readInt());
+                return result;
+            }
+            else if (type == IrTypes.MAP) {
+                return this.readMap(stmt);
+            }
+            throw new IOException("Unknown IR-type: " + type);
+        }
+
+        private ArrayType readArray(Statement stmt) throws Exception {
+            ArrayType result = new ArrayType(stmt);
+            result.setArrayId(this.in.readInt());
+            boolean packed = this.in.readBoolean();
+            int count = this.in.readInt();
+            if (packed) {
+                double[] values = new double[count];
+                byte[] precisions = new byte[count];
+                for (int i = 0; i < count; i ++) {
+                    values[i] = this.in.readDouble();
+                    precisions[i] = this.in.readByte();
+                }
+                result.setPackedValues(PackedNumbers.of(values, count, precisions));
+                return result;
+            }
+            for (int i = 0; i < count; i ++) {
+                result.addValue(this.readNode());
+            }
+            return result;
+        }
+
+        private ObjectType readObject(Statement stmt) throws Exception {
+            ObjectType result = new ObjectType(stmt);
+            result.setObjId(this.in.readInt());
+            int count = this.in.readInt();
+            for (int i = 0; i < count; i ++) {
+                PairType pair = new PairType(stmt);
+                String key = this.readString();
+                pair.setPosition(this.in.readInt());
+                Node configs = this.readOptionalNode();
+                if (configs != null) {
+                    pair.setConfigs(configs);
+                }
+                pair.setPair(this.keyPool.ofQuoted(key), (OperonValue) this.readNode());
+                result.addPair(pair);
+            }
+            return result;
+        }
+
+        //
+        // The Map has its own statement (see OperonCompiler.enterMap_expr).
+        //
+        private io.operon.runner.node.Map readMap(Statement stmt) throws Exception {
+            Statement mapStatement = new DefaultStatement(this.ctx);
+            mapStatement.setId("MapStatement");
+            mapStatement.setPreviousStatement(stmt);
+            this.currentStatement = mapStatement;
+
+            int line = this.in.readInt();
+            Node configs = this.readOptionalNode();
+            Node mapExpr = this.readNode();
+
+            io.operon.runner.node.Map result = new io.operon.runner.node.Map(mapStatement);
+            result.setMapExpr(mapExpr);
+            result.setSourceCodeLineNumber(line);
+            if (configs != null) {
+                result.setConfigs(configs);
+            }
+            mapStatement.setNode(mapExpr);
+            this.currentStatement = stmt;
+            return result;
+        }
+    }
+}
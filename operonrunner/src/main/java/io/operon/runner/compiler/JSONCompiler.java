@@ -31,6 +31,7 @@ import io.operon.runner.node.type.*;
 import io.operon.runner.processor.function.core.path.PathCreate;
 import io.operon.runner.model.path.PathPart;
 import io.operon.runner.util.JsonUtil;
+import io.operon.runner.util.JsonStringCodec;
 
 import java.util.Date;
 import java.util.List;
@@ -62,6 +63,7 @@ public class JSONCompiler extends JSONBaseListener {
     private Stack<Node> stack;
     private Statement currentStatement;
     private CompilerFlags[] flags;
+    private final PairKey.Pool keyPool = new PairKey.Pool(); // the shared keys of the parse
     
     public JSONCompiler(CompilerFlags[] compilerFlags) {
         super();
@@ -203,7 +205,9 @@ public class JSONCompiler extends JSONBaseListener {
                 RawValue raw = new RawValue(this.currentStatement);
                 // substring is for cutting out the ' parts, which are used for BinaryString
                 String rawStr = token.getSymbol().getText().substring(1, token.getSymbol().getText().length() - 1);
-                rawStr = rawStr.replaceAll("\\\\`", "`");
+                if (rawStr.indexOf('\\') >= 0) {
+                    rawStr = rawStr.replace("\\`", "`");
+                }
                 byte[] valueBytes = rawStr.getBytes(StandardCharsets.UTF_8);
                 raw.setValue(valueBytes);
                 jsonValue.setValue(raw);
@@ -215,7 +219,7 @@ public class JSONCompiler extends JSONBaseListener {
                 //:OFF:log.debug("TerminalNode: String. Text :: " + symbolText);
                 //System.out.println("TerminalNode: String. Text :: " + symbolText);
                 symbolText = symbolText.substring(1, symbolText.length() - 1); // remove single quotes
-                symbolText = symbolText.replaceAll("\"", "\\\\\"");
+                symbolText = JsonStringCodec.escapeQuotes(symbolText);
                 symbolText = "\"" + symbolText + "\"";
                 //System.out.println("TerminalNode: String. SET Text :: " + symbolText);
                 sNode.setValue(symbolText);
@@ -471,7 +475,7 @@ public class JSONCompiler extends JSONBaseListener {
         List<ParseTree> subNodes = this.getContextChildNodes(ctx);
         //:OFF:log.debug("   PairType subNodes :: " + subNodes.size());
         
-        jsonPair.setPair(key, value);
+        jsonPair.setPair(this.keyPool.ofQuoted(key), value);
         this.stack.push(jsonPair);
     }
 
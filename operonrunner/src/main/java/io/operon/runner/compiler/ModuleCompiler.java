@@ -92,6 +92,7 @@ public class ModuleCompiler extends OperonModuleBaseListener {
     private Stack<Node> stack;
     private OperonValue initialCurrentValue; // TODO: refactor this away (in the fromInputSource)?
     private int aggregateIndex = 0; // used in exitAggregate_expr
+    private final PairKey.Pool keyPool = new PairKey.Pool(); // the shared keys of the compiled query
     private int objIndex = 0; // used in exitJson_obj
     private OperonTestsContext operonTestsContext;
     
@@ -1177,6 +1178,7 @@ public class ModuleCompiler extends OperonModuleBaseListener {
         }
         
         //:OFF:log.debug("  >> valueRef :: " + symbol);
+        vrNode.resolveSlot();
         this.stack.push(vrNode);
     }
 
@@ -1760,7 +1762,7 @@ public class ModuleCompiler extends OperonModuleBaseListener {
         
         //:OFF:log.debug("   PairType subNodes :: " + subNodes.size());
         
-        jsonPair.setPair(key, value);
+        jsonPair.setPair(this.keyPool.ofQuoted(key), value);
         this.stack.push(jsonPair);
     }
     
@@ -3382,6 +3384,8 @@ public class ModuleCompiler extends OperonModuleBaseListener {
         //:OFF:log.debug("EXIT aggregate_expr :: Stack size :: " + this.stack.size());
         
         Aggregate aggregate = new Aggregate(this.getCurrentStatement(), Integer.toString(aggregateIndex));
+        aggregate.setIndex(aggregateIndex);
+        aggregate.setStateLogScope("module:" + this.getModuleContext().getOwnNamespace());
         aggregateIndex = aggregateIndex + 1;
         ObjectType configs = (ObjectType) this.stack.pop();
         aggregate.setConfigs(configs);
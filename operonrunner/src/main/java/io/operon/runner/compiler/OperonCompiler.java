@@ -101,7 +101,9 @@ public class OperonCompiler extends OperonBaseListener {
     private Stack<Node> stack;
     private InputSource fromInputSource;
     private int aggregateIndex = 0; // used in exitAggregate_expr
+    private final PairKey.Pool keyPool = new PairKey.Pool(); // the shared keys of the compiled query
     private int objIndex = 1; // used in exitJson_obj
+    private boolean pathObserved = false; // see markPathObserved
     
     private long startTime = 0L;
     
@@ -190,6 +192,16 @@ public class OperonCompiler extends OperonBaseListener {
     @Override
     public void exitOperon(OperonParser.OperonContext ctx) {
         //:OFF:log.debug("====== COMPILING DONE ======. Stack size: " + this.stack.size());
+        this.getOperonContext().setPathObserved(this.pathObserved);
+    }
+
+    //
+    // The query observes the paths of the values (e.g. pos(), parent(), path:current() or _),
+    // so the Filter and Map must build the path for each value they iterate.
+    // The functions from the modules are not known here, so calling them is also counted.
+    //
+    private void markPathObserved() {
+        this.pathObserved = true;
     }
 
     //
@@ -1525,6 +1537,7 @@ public class OperonCompiler extends OperonBaseListener {
             symbol = ctx.OBJ_SELF_REFERENCE().toString();
             this.getOperonContext().getConfigs().setSupportPos(true);
             this.getOperonContext().getConfigs().setSupportParent(true);
+            this.markPathObserved();
         }
         
         // $
@@ -1540,6 +1553,7 @@ public class OperonCompiler extends OperonBaseListener {
         }
         
         //:OFF:log.debug("  >> valueRef :: " + symbol);
+        vrNode.resolveSlot();
         this.stack.push(vrNode);
     }
 
@@ -2129,7 +2143,7 @@ public class OperonCompiler extends OperonBaseListener {
         
         //:OFF:log.debug("   PairType subNodes :: " + subNodes.size());
         
-        jsonPair.setPair(key, value);
+        jsonPair.setPair(this.keyPool.ofQuoted(key), value);
         this.stack.push(jsonPair);
     }
     
@@ -3284,6 +3298,11 @@ public class OperonCompiler extends OperonBaseListener {
             CoreFunctionResolver.isCoreFunction(functionNamespace, functionName, functionParams)) {
             try {
                 Node coreFunction = CoreFunctionResolver.getCoreFunction(functionNamespace, functionName, functionParams, this.currentStatement);
+                if (functionName.equals("pos") || functionName.equals("parent") || functionName.equals("root")
+                    || functionName.equals("valueKey") || functionName.equals("last") || functionName.equals("previous")
+                    || functionName.equals("next") || functionName.equals("get") || functionName.equals("current")) {
+                    this.markPathObserved();
+                }
                 FunctionRef fnRef = new FunctionRef(this.currentStatement);
                 fnRef.setFunctionName(functionName);
                 fnRef.setFunctionFQName(fullyQualifiedName);
@@ -3296,6 +3315,9 @@ public class OperonCompiler extends OperonBaseListener {
 
         // User-defined function:
         else {
+            if (functionNamespace.isEmpty() == false) {
+                this.markPathObserved();
+            }
             FunctionRef fnRef = new FunctionRef(this.currentStatement);
             //:OFF:log.debug("  FQ-name :: " + fullyQualifiedName);
             fnRef.setFunctionName(functionName);
@@ -3436,6 +3458,13 @@ public class OperonCompiler extends OperonBaseListener {
         //
         if (fqName.equals(":pos:0") || fqName.equals("core:pos:0")) {
             this.getOperonContext().getConfigs().setSupportPos(true);
+            this.markPathObserved();
+        }
+        
+        else if (fqName.equals("path:current:0") || fqName.equals("core:path:current:0")
+             || fqName.equals("path:pos:0") || fqName.equals("core:path:pos:0")
+            ) {
+            this.markPathObserved();
         }
         
         else if (fqName.equals(":parent:0") || fqName.equals(":root:0") 
@@ -3445,6 +3474,7 @@ public class OperonCompiler extends OperonBaseListener {
              || fqName.equals(":last:1") || fqName.equals("core:last:1") || fqName.equals("array:last:1") || fqName.equals("core:array:last:1")
             ) {
             this.getOperonContext().getConfigs().setSupportParent(true);
+            this.markPathObserved();
         }
         
         else if (fqName.equals(":previous:0") || fqName.equals(":next:0") 
@@ -3453,6 +3483,7 @@ public class OperonCompiler extends OperonBaseListener {
             ) {
             this.getOperonContext().getConfigs().setSupportPos(true);
             this.getOperonContext().getConfigs().setSupportParent(true);
+            this.markPathObserved();
         }
         
         String possibleModuleName = ":" + functionName + ":" + functionParams.size();
@@ -3492,6 +3523,9 @@ public class OperonCompiler extends OperonBaseListener {
         // User-defined function:
         else {
             //System.out.println("WAS USER-DEFINED: " + fqName);
+            if (functionNamespace.isEmpty() == false) {
+                this.markPathObserved();
+            }
             try {
                 FunctionCall fnCall = new FunctionCall(this.currentStatement, fqName);
                 fnCall.setSourceCodeLineNumber(ctx.start.getLine());
@@ -3762,6 +3796,7 @@ public class OperonCompiler extends OperonBaseListener {
         
         String aggregateId = Integer.toString(aggregateIndex) + RandomUtil.randomAlphaNumeric(5);
         Aggregate aggregate = new Aggregate(this.getCurrentStatement(), aggregateId);
+        aggregate.setIndex(aggregateIndex);
         aggregateIndex = aggregateIndex + 1;
         ObjectType configs = (ObjectType) this.stack.pop();
         aggregate.setConfigs(configs);
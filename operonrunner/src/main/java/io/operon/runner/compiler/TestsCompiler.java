@@ -95,6 +95,7 @@ public class TestsCompiler extends OperonTestsBaseListener {
     private Stack<Node> stack;
     private OperonValue initialCurrentValue; // TODO: refactor this away (in the fromInputSource)?
     private Statement currentStatement;
+    private final PairKey.Pool keyPool = new PairKey.Pool(); // the shared keys of the compiled query
     private Long startTime;
     private InputSource fromInputSource;
     
@@ -1151,6 +1152,7 @@ public class TestsCompiler extends OperonTestsBaseListener {
         }
         
         //:OFF:log.debug("  >> valueRef :: " + symbol);
+        vrNode.resolveSlot();
         this.stack.push(vrNode);
     }
 
@@ -1706,7 +1708,7 @@ public class TestsCompiler extends OperonTestsBaseListener {
         
         //:OFF:log.debug("   PairType subNodes :: " + subNodes.size());
         
-        jsonPair.setPair(key, value);
+        jsonPair.setPair(this.keyPool.ofQuoted(key), value);
         this.stack.push(jsonPair);
     }
     
@@ -3129,6 +3131,8 @@ public class TestsCompiler extends OperonTestsBaseListener {
         //:OFF:log.debug("EXIT aggregate_expr :: Stack size :: " + this.stack.size());
         
         Aggregate aggregate = new Aggregate(this.getCurrentStatement(), Integer.toString(aggregateIndex));
+        aggregate.setIndex(aggregateIndex);
+        aggregate.setStateLogScope("tests");
         aggregateIndex = aggregateIndex + 1;
         ObjectType configs = (ObjectType) this.stack.pop();
         aggregate.setConfigs(configs);
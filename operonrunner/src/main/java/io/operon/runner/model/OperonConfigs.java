@@ -34,6 +34,7 @@ public class OperonConfigs {
     private boolean outputResult = true;
     private boolean indexRoot = true;
     private Map<String, OperonValue> namedValues;
+    private int parallelism = 0; // parallelism of the ForkJoinPool used by the parallel Map. 0 = use the common-pool.
     
     // Redis-related:
     private int redisPort = 6379;
@@ -42,6 +43,10 @@ public class OperonConfigs {
     private String redisPassword = null;
     private String redisPrefix = null; // when using state:set(key), the key will be prefixed with value in redisPrefix. The state:get(key) will also prefix the key.
 
+    // Local durable state: when set (and Redis is not used), the State and the aggregated values
+    // are written into the write-ahead log in this folder, and restored from it on startup (see StateLog).
+    private String stateDir = null;
+
     public OperonConfigs() {
         this.disabledComponents = new ArrayList<String>();
         this.namedValues = new HashMap<String, OperonValue>();
@@ -111,6 +116,14 @@ public class OperonConfigs {
         return this.indexRoot;
     }
 
+    public void setParallelism(int p) {
+        this.parallelism = p;
+    }
+
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
     public Map<String, OperonValue> getNamedValues() {
         return this.namedValues;
     }
@@ -159,6 +172,14 @@ public class OperonConfigs {
         this.redisPrefix = rprefix;
     }
     
+    public String getStateDir() {
+        return this.stateDir;
+    }
+
+    public void setStateDir(String sd) {
+        this.stateDir = sd;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -170,6 +191,8 @@ public class OperonConfigs {
         sb.append(" - prettyPrint: " + this.getPrettyPrint() + "\n");
         sb.append(" - outputResult: " + this.getOutputResult() + "\n");
         sb.append(" - indexRoot: " + this.getIndexRoot() + "\n");
+        sb.append(" - parallelism: " + this.getParallelism() + "\n");
+        sb.append(" - stateDir: " + this.getStateDir() + "\n");
         sb.append(" - disabledComponents: " + this.getDisabledComponents() + "\n");
         sb.append(" - namedValues: " + this.getNamedValues() + "\n");
         return sb.toString();
@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.Collections;
 import java.util.Date;
 import java.time.Duration;
+import java.io.IOException;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPubSub;
@@ -34,7 +35,9 @@ import io.operon.runner.statement.DefaultStatement;
 import io.operon.runner.node.type.*;
 import io.operon.runner.OperonContext;
 import io.operon.runner.util.JsonUtil;
+import io.operon.runner.util.ErrorUtil;
 import io.operon.runner.model.OperonConfigs;
+import io.operon.runner.model.state.StateLog;
 import io.operon.runner.model.exception.OperonGenericException;
 
 import io.operon.runner.node.type.OperonValue;
@@ -56,6 +59,10 @@ public class State {
     private String ctxId;
     private OperonContext operonContext;
     private OperonConfigs configs;
+    private StateLog stateLog; // when the stateDir is given
+    
+    // The key-prefix in the StateLog, which is shared with the Aggregate.
+    private static final String STATE_LOG_PREFIX = "state/";
     
     private final JedisPoolConfig poolConfig = buildPoolConfig();
     
@@ -68,8 +75,54 @@ public class State {
         }
         Date d = new Date();
         this.createdMillis = d.getTime();
-        if (this.configs.getRedisHost() == null) {
-            this.state = Collections.synchronizedMap(new HashMap<String, String>());
+        this.state = Collections.synchronizedMap(new HashMap<String, String>());
+    }
+
+    //
+    // The configs are set for the context after it has been created, so they are read from the context.
+    //
+    private OperonConfigs getConfigs() {
+        OperonConfigs ctxConfigs = this.operonContext.getConfigs();
+        if (ctxConfigs != null) {
+            this.configs = ctxConfigs;
+        }
+        return this.configs;
+    }
+
+    //
+    // @returns the StateLog, or null if the stateDir was not given, or Redis is used.
+    //
+    private StateLog getStateLog() throws OperonGenericException {
+        if (this.stateLog == null && this.getConfigs().getRedisHost() == null && this.getConfigs().getStateDir() != null) {
+            try {
+                this.stateLog = StateLog.open(this.getConfigs().getStateDir());
+            } catch (IOException e) {
+                ErrorUtil.createErrorValueAndThrow(null, "STATE", "LOG", "Could not open the state-log: " + e.getMessage());
+            }
+        }
+        return this.stateLog;
+    }
+
+    private static String encodeValue(OperonValue value) throws OperonGenericException {
+        OperonValue evaluatedValue = value.evaluate();
+        if (evaluatedValue instanceof RawValue) {
+            RawValue raw = (RawValue) evaluatedValue;
+            return "R" + raw.toBase64(); // "R" encodes that this is a RawValue
+        }
+        else {
+            return value.toString();
+        }
+    }
+
+    private OperonValue decodeValue(String valueStr) throws OperonGenericException {
+        if (valueStr.startsWith("R") == false) {
+            return JsonUtil.lwOperonValueFromString(valueStr);
+        }
+        else {
+            RawValue rawResult = new RawValue(new DefaultStatement(this.operonContext));
+            byte[] resultBytes = RawValue.base64ToBytes(valueStr.substring(1, valueStr.length()).getBytes());
+            rawResult.setValue(resultBytes);
+            return rawResult;
         }
     }
 
@@ -91,12 +144,12 @@ public class State {
     }
 
     public void setStateKeyAndValue(String key, OperonValue value) throws OperonGenericException, InterruptedException {
-        if (jedisPool == null && this.configs.getRedisHost() != null) {
-            if (configs.getRedisPassword() == null) {
-                jedisPool = new JedisPool(poolConfig, configs.getRedisHost(), configs.getRedisPort());
+        if (jedisPool == null && this.getConfigs().getRedisHost() != null) {
+            if (this.getConfigs().getRedisPassword() == null) {
+                jedisPool = new JedisPool(poolConfig, this.getConfigs().getRedisHost(), this.getConfigs().getRedisPort());
             }
             else {
-                jedisPool = new JedisPool(poolConfig, configs.getRedisHost(), configs.getRedisPort(), configs.getRedisUser(), configs.getRedisPassword());
+                jedisPool = new JedisPool(poolConfig, this.getConfigs().getRedisHost(), this.getConfigs().getRedisPort(), this.getConfigs().getRedisUser(), this.getConfigs().getRedisPassword());
             }
         }
         
@@ -120,12 +173,12 @@ public class State {
                         valueToSet = value.toString();
                     }
                     
-                    if (this.configs.getRedisPrefix() == null) {
+                    if (this.getConfigs().getRedisPrefix() == null) {
                         jedis.set(key, valueToSet);
                     }
                     
                     else {
-                        jedis.set(this.configs.getRedisPrefix() + key, valueToSet);
+                        jedis.set(this.getConfigs().getRedisPrefix() + key, valueToSet);
                     }
                     
                     jedis.close();
@@ -141,6 +194,18 @@ public class State {
             }
         }
         
+        //
+        // Set value into the StateLog
+        //
+        else if (this.getStateLog() != null) {
+            this.stateLog.set(STATE_LOG_PREFIX + key, encodeValue(value));
+            try {
+                this.stateLog.sync();
+            } catch (IOException e) {
+                ErrorUtil.createErrorValueAndThrow(value.getStatement(), "STATE", "LOG", e.getMessage());
+            }
+        }
+        
         //
         // Set value into Map
         //
@@ -156,12 +221,12 @@ public class State {
         String resultStr = null;
         OperonValue result = null;
         
-        if (jedisPool == null && this.configs.getRedisHost() != null) {
-            if (configs.getRedisPassword() == null) {
-                jedisPool = new JedisPool(poolConfig, configs.getRedisHost(), configs.getRedisPort());
+        if (jedisPool == null && this.getConfigs().getRedisHost() != null) {
+            if (this.getConfigs().getRedisPassword() == null) {
+                jedisPool = new JedisPool(poolConfig, this.getConfigs().getRedisHost(), this.getConfigs().getRedisPort());
             }
             else {
-                jedisPool = new JedisPool(poolConfig, configs.getRedisHost(), configs.getRedisPort(), configs.getRedisUser(), configs.getRedisPassword());
+                jedisPool = new JedisPool(poolConfig, this.getConfigs().getRedisHost(), this.getConfigs().getRedisPort(), this.getConfigs().getRedisUser(), this.getConfigs().getRedisPassword());
             }
         }
         
@@ -177,11 +242,11 @@ public class State {
                 try (Jedis jedis = jedisPool.getResource()) {
                     //System.out.println("State: connected.");
                     connected = true;
-                    if (this.configs.getRedisPrefix() == null) {
+                    if (this.getConfigs().getRedisPrefix() == null) {
                         resultStr = jedis.get(key);
                     }
                     else {
-                        resultStr = jedis.get(this.configs.getRedisPrefix() + key);
+                        resultStr = jedis.get(this.getConfigs().getRedisPrefix() + key);
                     }
                     
                     if (resultStr == null) {
@@ -194,11 +259,11 @@ public class State {
                         }
                         else {
                             String valueToSet = param2Value.toString();
-                            if (this.configs.getRedisPrefix() == null) {
+                            if (this.getConfigs().getRedisPrefix() == null) {
                                 jedis.set(key, valueToSet);
                             }
                             else {
-                                jedis.set(this.configs.getRedisPrefix() + key, valueToSet);
+                                jedis.set(this.getConfigs().getRedisPrefix() + key, valueToSet);
                             }
                             //System.out.println("get resultStr null --> 2.1");
                             result = param2Value;
@@ -231,6 +296,35 @@ public class State {
             }
         }
         
+        //
+        // Get value from the StateLog
+        //
+        else if (this.getStateLog() != null) {
+            if (param2Value == null) {
+                resultStr = this.stateLog.get(STATE_LOG_PREFIX + key);
+            }
+            else {
+                resultStr = this.stateLog.setIfAbsent(STATE_LOG_PREFIX + key, encodeValue(param2Value));
+                if (resultStr == null) {
+                    try {
+                        this.stateLog.sync();
+                    } catch (IOException e) {
+                        ErrorUtil.createErrorValueAndThrow(param2Value.getStatement(), "STATE", "LOG", e.getMessage());
+                    }
+                }
+            }
+            
+            if (resultStr == null && param2Value == null) {
+                result = new EmptyType(new DefaultStatement(this.operonContext));
+            }
+            else if (resultStr == null) {
+                result = param2Value;
+            }
+            else {
+                result = this.decodeValue(resultStr);
+            }
+        }
+        
         //
         // Get value from Map
         //
@@ -16,16 +16,7 @@
 
 package io.operon.runner.model.aggregate;
 
-import java.util.Collections;
-import java.util.Map;
-import java.util.HashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import io.operon.runner.node.Node;
 import io.operon.runner.node.Aggregate;
@@ -37,16 +28,16 @@ public class AggregateState {
     private Aggregate aggregateNode;
     private Long timeoutStart; // timestamp: milliseconds
     private Long timeoutDuration; // milliseconds
-    private transient ExecutorService timeoutExecutorService; // cannot serialize this service.
+    private transient AggregateTimer.Timeout timeout; // the scheduled aggregate-timeout
+    private transient Executor continuations; // runs the continuations of this aggregate one at a time
 
     // @ String = correlationKey
     // @ OperonValue = the aggregated value (ArrayType if no aggregationFunction was given)
-    private Map<String, Node> result;
+    private AggregateStore result;
 
     public AggregateState(Aggregate aggregate) {
         this.aggregateNode = aggregate;
-        this.timeoutExecutorService = Executors.newFixedThreadPool(3); // Executors.newSingleThreadExecutor();
-        this.result = Collections.synchronizedMap(new HashMap<String, Node>());
+        this.result = new AggregateStore();
     }
 
     public Aggregate getAggregate() {
@@ -61,11 +52,11 @@ public class AggregateState {
         return this.id;
     }
 
-    public Long getTimeoutStart() {
+    public synchronized Long getTimeoutStart() {
         return this.timeoutStart;
     }
     
-    public void setTimeoutStart(Long ts) {
+    public synchronized void setTimeoutStart(Long ts) {
         this.timeoutStart = ts;
     }
 
@@ -77,8 +68,40 @@ public class AggregateState {
         this.timeoutDuration = d;
     }
 
-    public synchronized Map<String, Node> getResult() {
+    public AggregateStore getResult() {
         return this.result;
     }
 
+    //
+    // Schedules the aggregate-timeout with the shared AggregateTimer (run in its continuation-threads,
+    // one at a time for this aggregate).
+    //
+    public synchronized void scheduleTimeout(Runnable task, long delayMillis) {
+        if (this.timeout != null) {
+            this.timeout.cancel();
+        }
+        if (this.continuations == null) {
+            this.continuations = AggregateTimer.getInstance().newContinuationExecutor();
+        }
+        this.timeout = AggregateTimer.getInstance().scheduleContinuation(task, delayMillis, this.continuations);
+    }
+
+    //
+    // The timeout may be fired by the AggregateTimer, or by the heartbeat (OperonContext.heartBeatAction),
+    // and only the first one gets to continue the aggregate.
+    //
+    // @returns true if the timeout was due, and was not yet claimed.
+    //
+    public synchronized boolean claimTimeout(long nowMillis) {
+        if (this.timeoutStart == null || this.timeoutStart + this.timeoutDuration > nowMillis) {
+            return false;
+        }
+        this.timeoutStart = null;
+        if (this.timeout != null) {
+            this.timeout.cancel();
+            this.timeout = null;
+        }
+        return true;
+    }
+
 }
\ No newline at end of file
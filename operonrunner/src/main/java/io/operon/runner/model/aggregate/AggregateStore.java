@@ -0,0 +1,491 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.model.aggregate;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.operon.runner.node.Node;
+import io.operon.runner.node.type.ArrayType;
+import io.operon.runner.model.state.StateLog;
+
+//
+// The aggregated values of the Aggregate, by the correlationId (the correlation-groups).
+//
+// The groups are kept in the stripes by the hash of the correlationId, each stripe having its own lock,
+// so the flows with the different correlationIds do not contend on the same lock.
+//
+// The groups can be bounded:
+//  - maxGroups: when there are more groups, the group that was opened first is evicted.
+//    The groups are kept also in the order they were opened (across the stripes), for the eviction.
+//  - groupTtlMillis: the group that has not been updated for this long is expired.
+//    The expiration is checked with the shared AggregateTimer.
+// The evicted and expired groups are dropped (they are not fired).
+//
+// With the StateLog the changes of the groups are also written into the log, so the groups can be
+// restored after a restart. With the default aggregation (logElements), the values added into the
+// ArrayType are logged one by one (see touch). Otherwise (e.g. the result of the aggregateFunction,
+// which may also be an array) the value is logged as a whole when put.
+//
+// This is a Map, so the Aggregate can read and update the groups by the correlationId.
+// The entrySet is a snapshot.
+//
+public class AggregateStore extends AbstractMap<String, Node> {
+     // no logger
+
+    public static final int DEFAULT_STRIPES = 16; // power of two
+
+    //
+    // The assumed sizes for estimateMemoryBytes.
+    //
+    private static final long ESTIMATED_GROUP_BYTES = 128L;
+    private static final long ESTIMATED_VALUE_BYTES = 256L;
+
+    private final Stripe[] stripes;
+
+    //
+    // The open groups in the order they were opened. Locked after the stripe, never the other way around.
+    //
+    private final LinkedHashSet<Group> opened = new LinkedHashSet<Group>();
+    private volatile int maxGroups = -1; // unlimited
+    private volatile long groupTtlMillis = -1L; // no expiration
+    private volatile StateLog stateLog;
+    private String stateLogPrefix;
+    private boolean logElements = true;
+
+    //
+    // Metrics
+    //
+    private final AtomicLong groupsOpened = new AtomicLong();
+    private final AtomicLong groupsEvicted = new AtomicLong();
+    private final AtomicLong groupsExpired = new AtomicLong();
+    private final AtomicLong valuesAggregated = new AtomicLong();
+
+    public AggregateStore() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public AggregateStore(int stripeCount) {
+        int n = 1;
+        while (n < stripeCount) {
+            n <<= 1;
+        }
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i ++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    public void setMaxGroups(int maxGroups) {
+        this.maxGroups = maxGroups;
+    }
+
+    public int getMaxGroups() {
+        return this.maxGroups;
+    }
+
+    public void setGroupTtlMillis(long ttl) {
+        this.groupTtlMillis = ttl;
+    }
+
+    public long getGroupTtlMillis() {
+        return this.groupTtlMillis;
+    }
+
+    //
+    // The groups are logged with the keys: prefix + correlationId.
+    //
+    // @param logElements true when the groups are the ArrayTypes of the aggregated values,
+    //                    which are logged (and restored) element by element.
+    //
+    public void setStateLog(StateLog log, String prefix, boolean logElements) {
+        this.stateLogPrefix = prefix;
+        this.logElements = logElements;
+        this.stateLog = log;
+    }
+
+    public StateLog getStateLog() {
+        return this.stateLog;
+    }
+
+    //
+    // Waits until the logged changes are on the disk.
+    //
+    public void sync() throws IOException, InterruptedException {
+        StateLog log = this.stateLog;
+        if (log != null) {
+            log.sync();
+        }
+    }
+
+    //
+    // Puts the group restored from the StateLog, without logging it again.
+    //
+    public void restore(String key, Node value) {
+        Stripe stripe = this.stripeOf(key);
+        Group restored = new Group(key, value, System.currentTimeMillis());
+        synchronized (stripe) {
+            Group previous = stripe.groups.put(key, restored);
+            this.reorder(previous, restored);
+        }
+        this.scheduleExpiration(restored, this.groupTtlMillis);
+        this.evictOverMax();
+    }
+
+    private Stripe stripeOf(Object key) {
+        int h = (key == null ? 0 : key.hashCode());
+        h ^= (h >>> 16);
+        return this.stripes[h & (this.stripes.length - 1)];
+    }
+
+    //
+    // Called while holding the lock of the stripe.
+    //
+    private void reorder(Group removed, Group added) {
+        synchronized (this.opened) {
+            if (removed != null) {
+                this.opened.remove(removed);
+            }
+            if (added != null) {
+                this.opened.add(added);
+            }
+        }
+    }
+
+    //
+    // Evicts the eldest groups while there are more than maxGroups.
+    // Called without holding the lock of any stripe.
+    //
+    private void evictOverMax() {
+        int max = this.maxGroups;
+        if (max <= 0) {
+            return;
+        }
+        while (true) {
+            Group eldest = null;
+            synchronized (this.opened) {
+                if (this.opened.size() <= max) {
+                    return;
+                }
+                eldest = this.opened.iterator().next();
+            }
+            Stripe stripe = this.stripeOf(eldest.key);
+            boolean evicted = false;
+            synchronized (stripe) {
+                if (stripe.groups.get(eldest.key) == eldest) {
+                    stripe.groups.remove(eldest.key);
+                    this.logRemove(eldest.key);
+                    evicted = true;
+                }
+                this.reorder(eldest, null);
+            }
+            if (evicted) {
+                this.cancelExpiration(eldest);
+                this.groupsEvicted.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public Node get(Object key) {
+        Stripe stripe = this.stripeOf(key);
+        synchronized (stripe) {
+            Group group = stripe.groups.get(key);
+            return (group == null ? null : group.value);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Stripe stripe = this.stripeOf(key);
+        synchronized (stripe) {
+            return stripe.groups.containsKey(key);
+        }
+    }
+
+    @Override
+    public Node put(String key, Node value) {
+        Stripe stripe = this.stripeOf(key);
+        long now = System.currentTimeMillis();
+        Group openedGroup = null;
+        synchronized (stripe) {
+            Group group = stripe.groups.get(key);
+            if (group != null) {
+                Node previous = group.value;
+                group.value = value;
+                group.lastUpdated = now;
+                this.logPut(key, value);
+                return previous;
+            }
+            openedGroup = new Group(key, value, now);
+            stripe.groups.put(key, openedGroup);
+            this.reorder(null, openedGroup);
+            this.logPut(key, value);
+        }
+        this.groupsOpened.incrementAndGet();
+        this.scheduleExpiration(openedGroup, this.groupTtlMillis);
+        this.evictOverMax();
+        return null;
+    }
+
+    @Override
+    public Node remove(Object key) {
+        Stripe stripe = this.stripeOf(key);
+        Group group = null;
+        synchronized (stripe) {
+            group = stripe.groups.remove(key);
+            if (group != null) {
+                this.reorder(group, null);
+                this.logRemove(group.key);
+            }
+        }
+        if (group == null) {
+            return null;
+        }
+        this.cancelExpiration(group);
+        return group.value;
+    }
+
+    //
+    // Marks the group updated, when the aggregated value was modified in place (e.g. a value added into the ArrayType).
+    //
+    public void touch(String key) {
+        this.touch(key, null);
+    }
+
+    //
+    // @param added the value that was added into the ArrayType of the group, logged into the StateLog.
+    //
+    public void touch(String key, Node added) {
+        Stripe stripe = this.stripeOf(key);
+        synchronized (stripe) {
+            Group group = stripe.groups.get(key);
+            if (group != null) {
+                group.lastUpdated = System.currentTimeMillis();
+                if (added != null && this.stateLog != null && this.logElements) {
+                    this.stateLog.add(this.stateLogPrefix + key, added.toString());
+                }
+            }
+        }
+        this.valuesAggregated.incrementAndGet();
+    }
+
+    @Override
+    public void clear() {
+        for (Stripe stripe : this.stripes) {
+            List<Group> removed = null;
+            synchronized (stripe) {
+                removed = new ArrayList<Group>(stripe.groups.values());
+                stripe.groups.clear();
+                for (Group group : removed) {
+                    this.reorder(group, null);
+                    this.logRemove(group.key);
+                }
+            }
+            for (Group group : removed) {
+                this.cancelExpiration(group);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                size += stripe.groups.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                if (stripe.groups.isEmpty() == false) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Node>> entrySet() {
+        final List<Map.Entry<String, Node>> snapshot = new ArrayList<Map.Entry<String, Node>>();
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                for (Group group : stripe.groups.values()) {
+                    snapshot.add(new AbstractMap.SimpleImmutableEntry<String, Node>(group.key, group.value));
+                }
+            }
+        }
+        return new AbstractSet<Map.Entry<String, Node>>() {
+            @Override
+            public Iterator<Map.Entry<String, Node>> iterator() {
+                return snapshot.iterator();
+            }
+
+            @Override
+            public int size() {
+                return snapshot.size();
+            }
+        };
+    }
+
+    private void scheduleExpiration(final Group group, long delayMillis) {
+        if (this.groupTtlMillis <= 0) {
+            return;
+        }
+        group.expiration = AggregateTimer.getInstance().schedule(() -> this.expire(group), delayMillis);
+    }
+
+    private void cancelExpiration(Group group) {
+        AggregateTimer.Timeout expiration = group.expiration;
+        if (expiration != null) {
+            expiration.cancel();
+        }
+    }
+
+    //
+    // Run by the AggregateTimer. The group that was updated after the expiration was scheduled
+    // is scheduled again for the rest of its time.
+    //
+    private void expire(Group group) {
+        long ttl = this.groupTtlMillis;
+        if (ttl <= 0) {
+            return;
+        }
+        Stripe stripe = this.stripeOf(group.key);
+        long remaining = 0L;
+        synchronized (stripe) {
+            if (stripe.groups.get(group.key) != group) {
+                return; // already removed
+            }
+            remaining = group.lastUpdated + ttl - System.currentTimeMillis();
+            if (remaining <= 0) {
+                stripe.groups.remove(group.key);
+                this.reorder(group, null);
+                this.logRemove(group.key);
+            }
+        }
+        if (remaining <= 0) {
+            this.groupsExpired.incrementAndGet();
+        }
+        else {
+            this.scheduleExpiration(group, remaining);
+        }
+    }
+
+    //
+    // Called while holding the lock of the stripe, so the records of the group are logged in order.
+    //
+    private void logPut(String key, Node value) {
+        StateLog log = this.stateLog;
+        if (log == null) {
+            return;
+        }
+        if (value instanceof ArrayType && this.logElements) {
+            log.remove(this.stateLogPrefix + key);
+            for (Node element : ((ArrayType) value).getValues()) {
+                log.add(this.stateLogPrefix + key, element.toString());
+            }
+        }
+        else if (value != null) {
+            log.set(this.stateLogPrefix + key, value.toString());
+        }
+    }
+
+    private void logRemove(String key) {
+        StateLog log = this.stateLog;
+        if (log != null) {
+            log.remove(this.stateLogPrefix + key);
+        }
+    }
+
+    public long getGroupsOpened() { return this.groupsOpened.get(); }
+    public long getGroupsEvicted() { return this.groupsEvicted.get(); }
+    public long getGroupsExpired() { return this.groupsExpired.get(); }
+    public long getValuesAggregated() { return this.valuesAggregated.get(); }
+
+    //
+    // The number of values in the open groups (the ArrayTypes are counted by their values).
+    //
+    public long getValueCount() {
+        long count = 0L;
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                for (Group group : stripe.groups.values()) {
+                    count += valueCount(group.value);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long valueCount(Node value) {
+        if (value instanceof ArrayType) {
+            return ((ArrayType) value).peekValues().size();
+        }
+        return 1L;
+    }
+
+    //
+    // A rough estimate of the memory used by the open groups: the keys, and the groups and the values by their
+    // count (not by their contents), so this is cheap enough to be polled. The values are not serialized.
+    //
+    public long estimateMemoryBytes() {
+        long bytes = 0L;
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                for (Group group : stripe.groups.values()) {
+                    bytes += ESTIMATED_GROUP_BYTES + 2L * group.key.length();
+                    bytes += ESTIMATED_VALUE_BYTES * valueCount(group.value);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static final class Stripe {
+        // Insertion-ordered, so the eldest group is evicted first.
+        private final LinkedHashMap<String, Group> groups = new LinkedHashMap<String, Group>();
+    }
+
+    private static final class Group {
+        private final String key;
+        private Node value;
+        private long lastUpdated; // guarded by the stripe
+        private volatile AggregateTimer.Timeout expiration;
+
+        private Group(String key, Node value, long now) {
+            this.key = key;
+            this.value = value;
+            this.lastUpdated = now;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.model.aggregate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//
+// The timer shared by all the Aggregates: the aggregate-timeouts and the expiration of
+// the correlation-groups (see AggregateStore) are scheduled here.
+//
+// This is a hashed timer-wheel: the tasks are put into the buckets by their deadline, and one
+// thread advances the wheel a bucket at each tick, running the tasks of the bucket that are due.
+// Scheduling and cancelling are O(1), so there can be a timer for each of the correlation-groups.
+// The tasks are run in the timer-thread, so they must be short. The longer tasks (the continuation of
+// the aggregate after its timeout, which runs the rest of the query) are scheduled with the
+// scheduleContinuation, which hands them off to the continuation-threads, so they do not stall the wheel.
+// The continuation-threads are a small bounded pool, shared by the aggregates. Each aggregate runs its
+// continuations one at a time (see newContinuationExecutor), so a slow continuation delays only its own
+// aggregate.
+//
+public class AggregateTimer {
+     // no logger
+
+    public static final long TICK_MILLIS = 50L;
+    private static final int WHEEL_SIZE = 512; // power of two
+    private static final int CONTINUATION_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static final AggregateTimer instance = new AggregateTimer();
+
+    private final List<Timeout>[] wheel;
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<Timeout>();
+    private final AtomicLong pending = new AtomicLong();
+    private final long startMillis;
+    private long tick = 0L; // accessed only by the timer-thread
+    private volatile Thread thread;
+    private volatile ExecutorService continuations;
+
+    @SuppressWarnings("unchecked")
+    private AggregateTimer() {
+        this.wheel = new List[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i ++) {
+            this.wheel[i] = new ArrayList<Timeout>();
+        }
+        this.startMillis = System.currentTimeMillis();
+    }
+
+    public static AggregateTimer getInstance() {
+        return instance;
+    }
+
+    //
+    // Runs the task after the delay, rounded up to the next tick.
+    //
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(task, System.currentTimeMillis() + Math.max(0L, delayMillis));
+        this.added.add(timeout);
+        this.pending.incrementAndGet();
+        this.ensureStarted();
+        return timeout;
+    }
+
+    //
+    // Runs the task after the delay with the executor (see newContinuationExecutor).
+    //
+    public Timeout scheduleContinuation(Runnable task, long delayMillis, Executor executor) {
+        return this.schedule(() -> executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Aggregate timer :: ERROR :: " + e.getMessage());
+            }
+        }), delayMillis);
+    }
+
+    //
+    // @returns the executor for the continuations of one aggregate: the continuations are run one at a time,
+    //          in the order they were due, in the shared continuation-threads.
+    //
+    public Executor newContinuationExecutor() {
+        return new SerialExecutor(this.getContinuations());
+    }
+
+    private ExecutorService getContinuations() {
+        ExecutorService executor = this.continuations;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.continuations;
+                if (executor == null) {
+                    final AtomicInteger threadCount = new AtomicInteger();
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(CONTINUATION_THREADS, CONTINUATION_THREADS,
+                        60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+                            Thread t = new Thread(r, "operon-aggregate-continuation-" + threadCount.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                    this.continuations = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    //
+    // Runs the tasks one at a time with the shared executor.
+    //
+    private static class SerialExecutor implements Executor {
+        private final Executor executor;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+        private Runnable active;
+
+        SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        public synchronized void execute(Runnable task) {
+            this.tasks.add(() -> {
+                try {
+                    task.run();
+                } finally {
+                    this.scheduleNext();
+                }
+            });
+            if (this.active == null) {
+                this.scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            this.active = this.tasks.poll();
+            if (this.active != null) {
+                this.executor.execute(this.active);
+            }
+        }
+    }
+
+    public long getPendingCount() {
+        return this.pending.get();
+    }
+
+    private void ensureStarted() {
+        if (this.thread == null) {
+            synchronized (this) {
+                if (this.thread == null) {
+                    Thread t = new Thread(this::run, "operon-aggregate-timer");
+                    t.setDaemon(true);
+                    t.start();
+                    this.thread = t;
+                }
+            }
+        }
+    }
+
+    private void run() {
+        while (true) {
+            long nextTickMillis = this.startMillis + (this.tick + 1) * TICK_MILLIS;
+            long sleep = nextTickMillis - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+            this.transferAdded();
+            List<Timeout> bucket = this.wheel[(int) (this.tick & (WHEEL_SIZE - 1))];
+            long now = System.currentTimeMillis();
+            Iterator<Timeout> it = bucket.iterator();
+            List<Timeout> due = null;
+            while (it.hasNext()) {
+                Timeout timeout = it.next();
+                if (timeout.cancelled) {
+                    it.remove();
+                    this.pending.decrementAndGet();
+                }
+                else if (timeout.deadline <= now) {
+                    it.remove();
+                    this.pending.decrementAndGet();
+                    if (due == null) {
+                        due = new ArrayList<Timeout>();
+                    }
+                    due.add(timeout);
+                }
+            }
+            if (due != null) {
+                for (Timeout timeout : due) {
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Aggregate timer :: ERROR :: " + e.getMessage());
+                    }
+                }
+            }
+            this.tick += 1;
+        }
+    }
+
+    //
+    // Puts the scheduled timeouts into the buckets. A timeout that is further than the wheel
+    // stays in its bucket for the rounds, and is run on the round when its deadline has passed.
+    //
+    private void transferAdded() {
+        Timeout timeout = null;
+        while ((timeout = this.added.poll()) != null) {
+            long deadlineTick = (timeout.deadline - this.startMillis + TICK_MILLIS - 1) / TICK_MILLIS;
+            if (deadlineTick < this.tick) {
+                deadlineTick = this.tick;
+            }
+            this.wheel[(int) (deadlineTick & (WHEEL_SIZE - 1))].add(timeout);
+        }
+    }
+
+    public static class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private volatile boolean cancelled = false;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        public long getDeadline() {
+            return this.deadline;
+        }
+    }
+}
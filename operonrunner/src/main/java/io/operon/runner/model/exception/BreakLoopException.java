@@ -23,9 +23,12 @@ import io.operon.runner.model.exception.OperonGenericException;
 
 public class BreakLoopException extends OperonGenericException {
 
+    //
+    // Stackless signal, see OperonGenericException().
+    // The BreakLoop -node throws the same instance each time.
+    //
     public BreakLoopException() {
-        super(new EmptyType(new DefaultStatement(null)));
-        //System.out.println("Created Break");
+        super();
     }
 
     public BreakLoopException(OperonValue value) {
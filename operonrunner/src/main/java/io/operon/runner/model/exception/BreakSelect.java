@@ -28,16 +28,17 @@ public class BreakSelect extends OperonGenericException {
     private short breakType = (short) 0;
     private OperonValue valueOnBreak;
 
+    //
+    // Stackless signal, see OperonGenericException().
+    //
     public BreakSelect() {
-        super(new EmptyType(new DefaultStatement(null)));
-        this.setErrorJson(null);
+        super();
         this.setOperonValueOnBreak(new EmptyType(new DefaultStatement(null)));
         //System.out.println("Created BreakSelect");
     }
 
     public BreakSelect(OperonValue value) {
-        super(new EmptyType(new DefaultStatement(null)));
-        this.setErrorJson(null);
+        super();
         this.setOperonValueOnBreak(value);
     }
 
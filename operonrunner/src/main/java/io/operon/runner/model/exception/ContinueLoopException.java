@@ -23,9 +23,12 @@ import io.operon.runner.model.exception.OperonGenericException;
 
 public class ContinueLoopException extends OperonGenericException {
 
+    //
+    // Stackless signal, see OperonGenericException().
+    // The ContinueLoop -node throws the same instance each time.
+    //
     public ContinueLoopException() {
-        super(new EmptyType(new DefaultStatement(null)));
-        //System.out.println("Created Continue");
+        super();
     }
 
     public ContinueLoopException(OperonValue value) {
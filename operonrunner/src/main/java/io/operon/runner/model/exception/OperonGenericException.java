@@ -51,6 +51,8 @@ public class OperonGenericException extends Exception {
     // This is the serialized form of this error
     //private ObjectType errorObject;
     private ErrorValue errorValue;
+    
+    private boolean signal = false;
 
     public OperonGenericException(String msg) {
         super(ErrorUtil.sanitizeValue(msg));
@@ -88,11 +90,24 @@ public class OperonGenericException extends Exception {
         }
     }
     
+    //
+    // For the control-flow signals (Break, Continue and BreakSelect), which are not errors.
+    // They may be thrown for most of the values in a loop, so the stack-trace is not filled,
+    // and the (empty) error-value is created only when it is asked (e.g. by Try-Catch).
+    //
+    protected OperonGenericException() {
+        super("", null, false, false);
+        this.signal = true;
+    }
+    
     public void setErrorJson(OperonValue ejs) {
         this.errorJson = ejs;
     }
     
     public OperonValue getErrorJson() {
+        if (this.signal && this.errorJson == null && this.errorValue == null) {
+            this.getErrorValue();
+        }
         return this.errorJson;
     }
     
@@ -101,6 +116,15 @@ public class OperonGenericException extends Exception {
     }
     
     public ErrorValue getErrorValue() {
+        if (this.signal && this.errorValue == null) {
+            EmptyType empty = new EmptyType(new DefaultStatement(null));
+            ErrorValue errorValue = new ErrorValue(empty.getStatement());
+            errorValue.setErrorJson(empty);
+            this.errorValue = errorValue;
+            if (this.errorJson == null) {
+                this.errorJson = empty;
+            }
+        }
         return this.errorValue;
     }
     
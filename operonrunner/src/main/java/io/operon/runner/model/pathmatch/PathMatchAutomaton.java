@@ -0,0 +1,165 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.model.pathmatch;
+
+import java.util.List;
+
+import io.operon.runner.statement.Statement;
+import io.operon.runner.node.PathMatches;
+import io.operon.runner.node.type.Path;
+import io.operon.runner.node.type.TrueType;
+import io.operon.runner.model.path.PathPart;
+import io.operon.runner.model.exception.OperonGenericException;
+
+//
+// The PathMatch compiled into a state-machine, which is advanced one PathPart at a time.
+// The Where -expr advances it as it descends into the value, so the path is not matched again
+// from its start for each value, and the sub-values that cannot match are not visited at all.
+//
+// The state is the count of the PathParts consumed, or DEAD when the path (and all the paths
+// under it) cannot match anymore.
+//
+// The parts before the first '?*' or '?+' (the prefix) are matched by their position, one part at
+// a time. When the PathMatch has no such wildcards, this is the whole matching. Otherwise, once the
+// prefix has been consumed, the path is matched with PathMatches.matchPath, so the semantics of the
+// wildcards stay as they are.
+//
+// Example: ~=.orders?.id
+//   - .orders      --> 1
+//   - .orders[2]   --> 2
+//   - .orders[2].id --> 3 (matches, the sub-values are not visited)
+//   - .customers   --> DEAD (the sub-values are not visited)
+//
+public class PathMatchAutomaton {
+     // no logger
+
+    public static final int DEAD = -1;
+
+    private final PathMatch pathMatch;
+    private final PathMatchPart[] parts;
+    private final int prefixLength;
+    private final boolean exact; // no '?*' or '?+'
+
+    private PathMatchAutomaton(PathMatch pathMatch) {
+        this.pathMatch = pathMatch;
+        List<PathMatchPart> pmParts = pathMatch.getPathMatchParts();
+        this.parts = pmParts.toArray(new PathMatchPart[pmParts.size()]);
+        int prefix = 0;
+        while (prefix < this.parts.length
+                && this.parts[prefix] instanceof AnyNoneOrMorePathMatchPart == false
+                && this.parts[prefix] instanceof AnySingleOrMorePathMatchPart == false) {
+            prefix += 1;
+        }
+        this.prefixLength = prefix;
+        this.exact = (prefix == this.parts.length);
+    }
+
+    public static PathMatchAutomaton compile(PathMatch pathMatch) {
+        return new PathMatchAutomaton(pathMatch);
+    }
+
+    public PathMatch getPathMatch() {
+        return this.pathMatch;
+    }
+
+    //
+    // The state for the empty path.
+    //
+    public int start() {
+        return 0;
+    }
+
+    //
+    // @return the state after the PathPart was added into the path, or DEAD.
+    //
+    public int step(Statement stmt, int state, PathPart part) throws OperonGenericException {
+        if (state == DEAD) {
+            return DEAD;
+        }
+        if (state < this.prefixLength) {
+            if (PathMatches.matchPathPart(stmt, part, this.parts[state])) {
+                return state + 1;
+            }
+            return DEAD;
+        }
+        if (this.exact) {
+            // The path is longer than the PathMatch
+            return DEAD;
+        }
+        return state + 1;
+    }
+
+    //
+    // True when the path in this state may match. When the PathMatch has wildcards,
+    // the path must still be matched with the matches(Statement, Path, int).
+    //
+    public boolean mayMatch(int state) {
+        if (state == DEAD) {
+            return false;
+        }
+        if (this.exact) {
+            return state == this.parts.length;
+        }
+        return state >= this.prefixLength;
+    }
+
+    //
+    // True when a path under the path in this state may match.
+    //
+    public boolean canDescend(int state) {
+        if (state == DEAD) {
+            return false;
+        }
+        return this.exact == false || state < this.parts.length;
+    }
+
+    //
+    // Matches the path, which has been advanced into the state.
+    //
+    public boolean matches(Statement stmt, Path path, int state) throws OperonGenericException {
+        if (this.mayMatch(state) == false) {
+            return false;
+        }
+        if (this.exact) {
+            return true;
+        }
+        return PathMatches.matchPath(stmt, path, this.pathMatch) instanceof TrueType;
+    }
+
+    //
+    // Matches the whole path.
+    //
+    public boolean matches(Statement stmt, Path path) throws OperonGenericException {
+        List<PathPart> pathParts = path.getPathParts();
+        int state = this.start();
+        for (int i = 0; i < pathParts.size() && state != DEAD && state < this.prefixLength; i ++) {
+            state = this.step(stmt, state, pathParts.get(i));
+        }
+        if (state == DEAD) {
+            return false;
+        }
+        if (this.exact) {
+            return pathParts.size() == this.parts.length;
+        }
+        if (state < this.prefixLength) {
+            // The path is shorter than the prefix
+            return false;
+        }
+        return PathMatches.matchPath(stmt, path, this.pathMatch) instanceof TrueType;
+    }
+
+}
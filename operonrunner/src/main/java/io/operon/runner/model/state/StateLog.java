@@ -0,0 +1,434 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.model.state;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+//
+// The local, durable store for the State (state:set / state:get) and for the aggregated values of the Aggregate,
+// used when the stateDir is given (see OperonConfigs) and Redis is not used.
+//
+// The changes are appended into the write-ahead log (the file "operon-state.log" in the stateDir),
+// and the log is replayed into the memory when opened, so the state survives a restart.
+// The values are kept in the memory as the serialized strings, as a list for each key.
+//
+// Writing:
+//  - set, add and remove update the memory and queue the record, without waiting.
+//  - sync waits until the queued records have been written and forced to the disk.
+//    One thread writes the records, and all the records queued meanwhile are written and forced together
+//    (the group-commit), so the concurrent writers share the cost of the fsync.
+//
+// When the log has grown much larger than the live values, it is compacted: the live values are written
+// into a new log, which then replaces the old one.
+//
+// A record that was only partly written (crash during the write) is detected with its checksum,
+// and the log is truncated at the last complete record.
+//
+public class StateLog {
+     // no logger
+
+    public static final String LOG_FILE_NAME = "operon-state.log";
+
+    private static final byte OP_SET = 1; // replace the values of the key with the value
+    private static final byte OP_ADD = 2; // add the value for the key
+    private static final byte OP_REMOVE = 3; // remove the key
+
+    private static final long MIN_COMPACTION_RECORDS = 10000L;
+
+    private static final Map<Path, StateLog> openLogs = new ConcurrentHashMap<Path, StateLog>();
+
+    private final Path logFile;
+    private FileChannel channel; // accessed only by the writer-thread after opening
+
+    // The materialized values. Guarded by this.
+    private final Map<String, List<String>> values = new LinkedHashMap<String, List<String>>();
+    private final List<Record> queue = new ArrayList<Record>(); // guarded by this
+    private long liveValueCount = 0L; // guarded by this
+    private long logRecordCount = 0L; // guarded by this
+    private long lastSeq = 0L; // guarded by this
+
+    private final Object commitLock = new Object();
+    private long durableSeq = 0L; // guarded by commitLock
+    private IOException failure; // guarded by commitLock
+
+    private Thread writer;
+
+    private StateLog(Path logFile) {
+        this.logFile = logFile;
+    }
+
+    //
+    // Opens (and replays) the log in the stateDir. The log is opened once, and shared by the contexts.
+    //
+    public static StateLog open(String stateDir) throws IOException {
+        Path dir = Paths.get(stateDir).toAbsolutePath().normalize();
+        StateLog log = openLogs.get(dir);
+        if (log != null) {
+            return log;
+        }
+        synchronized (openLogs) {
+            log = openLogs.get(dir);
+            if (log == null) {
+                Files.createDirectories(dir);
+                log = new StateLog(dir.resolve(LOG_FILE_NAME));
+                log.replay();
+                log.start();
+                openLogs.put(dir, log);
+            }
+            return log;
+        }
+    }
+
+    //
+    // @returns the first value of the key, or null if the key was not found.
+    //
+    public synchronized String get(String key) {
+        List<String> list = this.values.get(key);
+        return (list == null || list.isEmpty() ? null : list.get(0));
+    }
+
+    //
+    // @returns the values of the keys starting with the prefix (a copy).
+    //
+    public synchronized Map<String, List<String>> getByPrefix(String prefix) {
+        Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+        for (Map.Entry<String, List<String>> entry : this.values.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                result.put(entry.getKey(), new ArrayList<String>(entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    public synchronized void set(String key, String value) {
+        this.apply(OP_SET, key, value);
+        this.enqueue(OP_SET, key, value);
+    }
+
+    //
+    // Sets the value, if the key does not have a value yet.
+    //
+    // @returns the existing value, or null if the value was set.
+    //
+    public synchronized String setIfAbsent(String key, String value) {
+        String existing = this.get(key);
+        if (existing == null) {
+            this.set(key, value);
+        }
+        return existing;
+    }
+
+    public synchronized void add(String key, String value) {
+        this.apply(OP_ADD, key, value);
+        this.enqueue(OP_ADD, key, value);
+    }
+
+    public synchronized void remove(String key) {
+        if (this.values.containsKey(key)) {
+            this.apply(OP_REMOVE, key, null);
+            this.enqueue(OP_REMOVE, key, null);
+        }
+    }
+
+    //
+    // Waits until the changes made so far are on the disk.
+    //
+    public void sync() throws IOException, InterruptedException {
+        long seq = 0L;
+        synchronized (this) {
+            seq = this.lastSeq;
+        }
+        synchronized (this.commitLock) {
+            while (this.durableSeq < seq && this.failure == null) {
+                this.commitLock.wait();
+            }
+            if (this.failure != null) {
+                throw new IOException("State-log failed: " + this.failure.getMessage(), this.failure);
+            }
+        }
+    }
+
+    private void apply(byte op, String key, String value) {
+        if (op == OP_SET) {
+            List<String> list = new ArrayList<String>(1);
+            list.add(value);
+            List<String> previous = this.values.put(key, list);
+            this.liveValueCount += 1 - (previous == null ? 0 : previous.size());
+        }
+        else if (op == OP_ADD) {
+            List<String> list = this.values.get(key);
+            if (list == null) {
+                list = new ArrayList<String>();
+                this.values.put(key, list);
+            }
+            list.add(value);
+            this.liveValueCount += 1;
+        }
+        else if (op == OP_REMOVE) {
+            List<String> previous = this.values.remove(key);
+            this.liveValueCount -= (previous == null ? 0 : previous.size());
+        }
+        this.logRecordCount += 1;
+    }
+
+    private void enqueue(byte op, String key, String value) {
+        this.lastSeq += 1;
+        this.queue.add(new Record(op, key, value, this.lastSeq));
+        this.notifyAll();
+    }
+
+    //
+    // Reads the log into the memory. The incomplete or corrupted tail is truncated.
+    //
+    private void replay() throws IOException {
+        long validLength = 0L;
+        if (Files.exists(this.logFile)) {
+            long fileSize = Files.size(this.logFile);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.logFile), 64 * 1024))) {
+                while (true) {
+                    Record record = null;
+                    try {
+                        record = Record.read(in, fileSize - validLength);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    if (record == null) {
+                        System.err.println("State-log: truncating the incomplete record at " + validLength + " in " + this.logFile);
+                        break;
+                    }
+                    this.apply(record.op, record.key, record.value);
+                    validLength += record.length();
+                }
+            }
+        }
+        this.channel = FileChannel.open(this.logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (this.channel.size() > validLength) {
+            this.channel.truncate(validLength);
+            this.channel.force(true);
+        }
+        this.channel.position(validLength);
+    }
+
+    private void start() {
+        this.writer = new Thread(this::writeLoop, "operon-state-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private void writeLoop() {
+        List<Record> batch = new ArrayList<Record>();
+        while (true) {
+            boolean compact = false;
+            synchronized (this) {
+                while (this.queue.isEmpty()) {
+                    try {
+                        this.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                batch.addAll(this.queue);
+                this.queue.clear();
+                compact = this.logRecordCount > MIN_COMPACTION_RECORDS && this.logRecordCount > 2 * this.liveValueCount;
+            }
+            try {
+                if (compact) {
+                    // The batch is already in the memory, so it is included in the compacted log.
+                    this.compact();
+                }
+                else {
+                    this.write(batch);
+                }
+                this.committed(batch.get(batch.size() - 1).seq, null);
+            } catch (IOException e) {
+                System.err.println("State-log: ERROR :: " + e.getMessage());
+                this.committed(0L, e);
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<Record> batch) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        for (Record record : batch) {
+            record.write(out);
+        }
+        out.flush();
+        ByteBuffer bb = ByteBuffer.wrap(bos.toByteArray());
+        while (bb.hasRemaining()) {
+            this.channel.write(bb);
+        }
+        this.channel.force(false);
+    }
+
+    //
+    // Writes the live values into a new log, and replaces the old log with it.
+    // The records queued meanwhile are taken into the new log, so they are not written twice.
+    //
+    private void compact() throws IOException {
+        Path tmp = this.logFile.resolveSibling(LOG_FILE_NAME + ".tmp");
+        List<Record> snapshot = new ArrayList<Record>();
+        long snapshotSeq = 0L;
+        synchronized (this) {
+            for (Map.Entry<String, List<String>> entry : this.values.entrySet()) {
+                for (String value : entry.getValue()) {
+                    snapshot.add(new Record(OP_ADD, entry.getKey(), value, 0L));
+                }
+            }
+            if (this.queue.isEmpty() == false) {
+                snapshotSeq = this.queue.get(this.queue.size() - 1).seq;
+                this.queue.clear();
+            }
+            this.logRecordCount = this.liveValueCount;
+        }
+        try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            FileChannel previous = this.channel;
+            this.channel = tmpChannel;
+            try {
+                this.write(snapshot);
+            } finally {
+                this.channel = previous;
+            }
+        }
+        Files.move(tmp, this.logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.channel.close();
+        this.channel = FileChannel.open(this.logFile, StandardOpenOption.WRITE);
+        this.channel.position(this.channel.size());
+        if (snapshotSeq > 0L) {
+            this.committed(snapshotSeq, null);
+        }
+    }
+
+    private void committed(long seq, IOException e) {
+        synchronized (this.commitLock) {
+            if (e != null) {
+                this.failure = e;
+            }
+            else if (seq > this.durableSeq) {
+                this.durableSeq = seq;
+            }
+            this.commitLock.notifyAll();
+        }
+    }
+
+    //
+    // Record: [length:int][op:byte][keyLength:int][key][value][crc32:int]
+    // The length is of the op, key and value.
+    //
+    private static final class Record {
+        private final byte op;
+        private final String key;
+        private final String value;
+        private final long seq;
+        private byte[] keyBytes;
+        private byte[] valueBytes;
+
+        private Record(byte op, String key, String value, long seq) {
+            this.op = op;
+            this.key = key;
+            this.value = value;
+            this.seq = seq;
+        }
+
+        private void encode() {
+            if (this.keyBytes == null) {
+                this.keyBytes = this.key.getBytes(StandardCharsets.UTF_8);
+                this.valueBytes = (this.value == null ? new byte[0] : this.value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private long length() {
+            this.encode();
+            return 4 + 1 + 4 + this.keyBytes.length + this.valueBytes.length + 4;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            this.encode();
+            int length = 1 + 4 + this.keyBytes.length + this.valueBytes.length;
+            CRC32 crc = new CRC32();
+            crc.update(this.op);
+            crc.update(this.keyBytes);
+            crc.update(this.valueBytes);
+            out.writeInt(length);
+            out.writeByte(this.op);
+            out.writeInt(this.keyBytes.length);
+            out.write(this.keyBytes);
+            out.write(this.valueBytes);
+            out.writeInt((int) crc.getValue());
+        }
+
+        //
+        // @param remaining the bytes left in the log, from the start of the record.
+        // @returns the record, or null if the record is incomplete or corrupted.
+        // @throws EOFException at the end of the log (between the records).
+        //
+        private static Record read(DataInputStream in, long remaining) throws IOException {
+            int length = in.readInt();
+            try {
+                // The corrupted length must not be allocated
+                if (length < 5 || 4L + length + 4L > remaining) {
+                    return null;
+                }
+                byte op = in.readByte();
+                int keyLength = in.readInt();
+                if (keyLength < 0 || keyLength > length - 5) {
+                    return null;
+                }
+                byte[] keyBytes = new byte[keyLength];
+                in.readFully(keyBytes);
+                byte[] valueBytes = new byte[length - 5 - keyLength];
+                in.readFully(valueBytes);
+                int expected = in.readInt();
+                CRC32 crc = new CRC32();
+                crc.update(op);
+                crc.update(keyBytes);
+                crc.update(valueBytes);
+                if ((int) crc.getValue() != expected || op < OP_SET || op > OP_REMOVE) {
+                    return null;
+                }
+                String value = (op == OP_REMOVE ? null : new String(valueBytes, StandardCharsets.UTF_8));
+                Record record = new Record(op, new String(keyBytes, StandardCharsets.UTF_8), value, 0L);
+                record.keyBytes = keyBytes;
+                record.valueBytes = valueBytes;
+                return record;
+            } catch (EOFException e) {
+                return null; // torn write
+            }
+        }
+    }
+}
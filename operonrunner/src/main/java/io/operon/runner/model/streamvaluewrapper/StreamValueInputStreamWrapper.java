@@ -19,17 +19,12 @@ package io.operon.runner.model.streamvaluewrapper;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.Closeable;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.CharBuffer;
 
-import io.operon.runner.OperonContext;
-import io.operon.runner.statement.Statement;
+import io.operon.runner.EmptyContext;
 import io.operon.runner.statement.DefaultStatement;
 import io.operon.runner.model.exception.OperonGenericException;
 import io.operon.runner.node.type.*;
-import io.operon.runner.util.JsonUtil;
-import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.JsonStreamReader;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
@@ -38,9 +33,11 @@ public class StreamValueInputStreamWrapper implements StreamValueWrapper {
      // no logger 
     
     private boolean supportsJson = false;
+    private boolean splitArrays = false;
     
     private InputStream is;
-    private BufferedReader reader = null;
+    private JsonStreamReader reader = null;
+    private EndValueType endValue = null;
 
     public StreamValueInputStreamWrapper() {}
     
@@ -64,55 +61,44 @@ public class StreamValueInputStreamWrapper implements StreamValueWrapper {
         this.supportsJson = sj;
     }
 
+    //
+    // When set, readJson reads the elements of the top-level array one at a time.
+    //
+    public boolean isSplitArrays() {
+        return this.splitArrays;
+    }
+    
+    public void setSplitArrays(boolean splitArrays) {
+        this.splitArrays = splitArrays;
+    }
+
     public void close() throws IOException {
         this.is.close();
     }
     
     //
-    // Reads one OperonValue from inputstream:
+    // Reads the next OperonValue from the inputstream (line-delimited or concatenated JSON, see JsonStreamReader).
+    // Blocks until the value is available. At the end of the stream the stream is closed, and EndValueType is returned.
     //
     public OperonValue readJson() throws OperonGenericException {
         try {
             if (this.reader == null) {
-                this.reader = new BufferedReader(new InputStreamReader(this.getInputStream()));
+                this.reader = new JsonStreamReader(this.getInputStream());
+                this.reader.setSplitArrays(this.splitArrays);
             }
             
-            String line = null;
-            OperonValue result = null;
-    
-            int i = 0;
-            while (i < 10) {
-                if (reader.ready()) {
-                    line = reader.readLine();
-                    if (line != null) {
-                        return JsonUtil.lwOperonValueFromString(line);
-                    }
-                    else {
-                        //:OFF:log.debug("streamvaluewrapper :: read empty line");
-                        i += 1;
-                        OperonContext jsonContext = new OperonContext();
-                        Statement stmt = new DefaultStatement(jsonContext);
-                        this.getInputStream().close();
-                        return new EndValueType(stmt);
-                    }
-                }
-                else {
-                    if (i % 5 == 0) {
-                        //:OFF:log.debug("streamvaluewrapper :: waiting for stream to be ready.");
-                    }
-                    Thread.sleep(50);
-                    i += 1;
-                }
+            OperonValue result = this.reader.next();
+            if (result != null) {
+                return result;
             }
             
             this.getInputStream().close();
-            OperonContext jsonContext = new OperonContext();
-            Statement stmt = new DefaultStatement(jsonContext);
-            return new EndValueType(stmt);
+            if (this.endValue == null) {
+                this.endValue = new EndValueType(new DefaultStatement(new EmptyContext()));
+            }
+            return this.endValue;
         } catch (IOException ioe) {
             throw new OperonGenericException(ioe.getMessage());
-        } catch (InterruptedException ie) {
-            throw new OperonGenericException(ie.getMessage());
         }
     }
 
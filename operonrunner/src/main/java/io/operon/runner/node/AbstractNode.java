@@ -30,6 +30,7 @@ import io.operon.runner.statement.DefaultStatement;
 import io.operon.runner.statement.Statement;
 import io.operon.runner.node.type.*;
 import io.operon.runner.util.JsonUtil;
+import io.operon.runner.util.OperonValueCopier;
 import io.operon.runner.node.Operator;
 import io.operon.runner.OperonRunner;
 import io.operon.runner.util.ErrorUtil;
@@ -165,8 +166,11 @@ public abstract class AbstractNode implements Node, java.io.Serializable {
         //System.out.println("DeepCopy called. stmt=" + currentStatement);
         String expr = node.getExpr();
         if (expr == null) {
-            // If not an expr, then OperonValue, which can be serialized and then parsed:
+            // If not an expr, then OperonValue, which is copied as it would be serialized:
             //System.out.println("  >> expr null");
+            if (node instanceof OperonValue) {
+                return OperonValueCopier.snapshot((OperonValue) node, null);
+            }
             String valStr = node.toString();
             return JsonUtil.lwOperonValueFromString(valStr);
             //throw new RuntimeException("AbstractNode.deepCopyNode :: FATAL :: expr was null for Node: " + node.getClass().getName());
@@ -180,8 +184,7 @@ public abstract class AbstractNode implements Node, java.io.Serializable {
             //System.out.println("  >> newStatement 1 :: " + newStatement);
             OperonValue currentValueCopy = null;
             if (currentStatement.getCurrentValue() != null) {
-                String cvStr = currentStatement.getCurrentValue().toString();
-                currentValueCopy = JsonUtil.lwOperonValueFromString(cvStr);
+                currentValueCopy = OperonValueCopier.snapshot(currentStatement.getCurrentValue(), null);
             }
             else {
                 currentValueCopy = new EmptyType(newStatement);
@@ -19,8 +19,6 @@ package io.operon.runner.node;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.Collections;
 
 import io.operon.runner.statement.Statement;
 import io.operon.runner.node.Node;
@@ -29,20 +27,19 @@ import io.operon.runner.node.type.*;
 import io.operon.runner.util.JsonUtil;
 import io.operon.runner.util.ErrorUtil;
 import io.operon.runner.model.aggregate.AggregateState;
+import io.operon.runner.model.aggregate.AggregateStore;
+import io.operon.runner.model.aggregate.AggregateTimer;
+import io.operon.runner.model.state.StateLog;
+import io.operon.runner.model.OperonConfigs;
 
 import io.operon.runner.Context;
 import io.operon.runner.BaseContext;
 import io.operon.runner.OperonContext;
 import io.operon.runner.system.InputSourceDriver;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.UUID;
+import java.io.IOException;
 
 import org.apache.logging.log4j.Logger;
 import io.operon.runner.model.exception.OperonGenericException;
@@ -60,12 +57,24 @@ import org.apache.logging.log4j.LogManager;
 //
 // The most basic aggregation-strategy is to just add json-values into an array.
 //
+// The correlation-groups can be bounded with the configs:
+//  - maxGroups: the max number of the open groups, after which the eldest group is evicted.
+//  - groupTtlMillis: the group that has not received values for this long is expired.
+// See AggregateStore.
+// With the "debug" -config the metrics of the aggregates (see getMetrics) are printed when the aggregate fires.
+//
+// When the stateDir is given (see OperonConfigs), the groups are written into the StateLog, and restored
+// from it when the query is started again. The groups are logged by the index of the Aggregate in the query
+// (the Aggregates of the modules and the tests by their index within the module, or the tests).
+//
 public class Aggregate extends AbstractNode implements Node {
      // no logger 
     @Expose private byte t = IrTypes.AGGREGATE;
     
     @Expose private ObjectType configs;
     @Expose private String id;
+    @Expose private int index; // the position of the Aggregate in the query, the same when the query is compiled again
+    @Expose private String stateLogScope; // null for the query, otherwise e.g. the module, so the indexes do not collide
 
     //
     // This may be computable expr.
@@ -105,28 +114,17 @@ public class Aggregate extends AbstractNode implements Node {
     @Expose private boolean hasTimeout = false;
     @Expose public Long timeoutMillis;
     @Expose private Node timeoutContinuation; // After timeout this node will be evaluated. Should be next node from AST after aggregate.
-    @Expose private long defaultHeartbeatDuration = 1000L;
+    @Expose private Integer maxGroups;
+    @Expose private Long groupTtlMillis;
+    @Expose private boolean debug = false;
+    private volatile boolean storeResolved = false;
     
-    private static Map<String, AggregateState> aggregateStates;
+    private static final Map<String, AggregateState> aggregateStates = new ConcurrentHashMap<String, AggregateState>();
 
     public Aggregate(Statement stmt, String id) {
         super(stmt);
-        synchronized (this) {
-            //System.out.println("new Aggregate");
-            this.setId(id);
-            
-            // Initialize aggregateTimeoutState
-            if (getAggregateStates() == null) {
-                this.aggregateStates = Collections.synchronizedMap(new HashMap<String, AggregateState>()); // new ConcurrentHashMap<String, AggregateState>();
-            }
-    
-            if (getAggregateStates().get(getId()) == null) {
-                AggregateState aggregateState = new AggregateState(this);
-                getAggregateStates().put(this.getId(), aggregateState);
-                
-                //System.out.println(this.getId() + " :: added AggregateState");
-            }
-        }
+        this.setId(id);
+        aggregateStates.computeIfAbsent(id, k -> new AggregateState(this));
     }
 
     public /*synchronized*/ OperonValue evaluate() throws BreakSelect, OperonGenericException {
@@ -138,27 +136,8 @@ public class Aggregate extends AbstractNode implements Node {
         //OperonValue currentValueCopy = currentValue.copy();
 
 
-        if (this.getHasTimeout()) {
-            //System.out.println("Has timeout");
-            Context ctx = BaseContext.getRootContextByStatement(this.getStatement());
-            if (ctx instanceof OperonContext) {
-                //System.out.println("ctx is OperonContext");
-                OperonContext operonCtx = (OperonContext) ctx;
-                //
-                // Set the missing heartbeat with default-value
-                //
-                if (operonCtx.hasHeartbeat == false) {
-                    //System.out.println("Setting the default-heartbeat");
-                    operonCtx.registerHeartBeat(defaultHeartbeatDuration);
-                    //System.out.println("Setting the default-heartbeat: OK");
-                }
-            }
-            else {
-                //System.out.println("Not OperonContext");
-            }
-        }
-        else {
-            //System.out.println("No timeout");
+        if (this.storeResolved == false) {
+            this.resolveStore();
         }
 
 
@@ -307,7 +286,9 @@ public class Aggregate extends AbstractNode implements Node {
                     //System.out.println(">> FirePredicate was true");
                     synchronized (this) {
                         OperonValue result = this.getAggregationResult(type, currentValue.copy());
-                        return this.returnAggregationResult(result, type);
+                        OperonValue aggregationResult = this.returnAggregationResult(result, type);
+                        this.syncStore();
+                        return aggregationResult;
                     }
                 }
                 
@@ -340,6 +321,15 @@ public class Aggregate extends AbstractNode implements Node {
             aggState.setTimeoutStart(now.getTime());
             aggState.setTimeoutDuration(this.getTimeoutMillis());
 
+            //
+            // The timeout is fired by the shared AggregateTimer (the heartBeat may fire it too, whichever comes first).
+            //
+            Context ctx = BaseContext.getRootContextByStatement(this.getStatement());
+            if (ctx instanceof OperonContext) {
+                final OperonContext operonCtx = (OperonContext) ctx;
+                aggState.scheduleTimeout(() -> operonCtx.continueAggregate(aggState, System.currentTimeMillis()), this.getTimeoutMillis());
+            }
+
             this.getStatement().getOperonContext().setIsReady(true, "Aggregate"); // switch to ready, so ISD may send new items
             //System.out.println("Aggregate :: start timeout: " + this.getId());
             
@@ -376,6 +366,7 @@ public class Aggregate extends AbstractNode implements Node {
         
         OperonValue result = this.getAggregationResult(type, null); // currentValue is set to null (we don't have one at this point)
         OperonValue aggregationResult = this.returnAggregationResult(result, type);
+        this.syncStore();
         
         Node continuation = this.getTimeoutContinuation();
         if (continuation != null) {
@@ -428,6 +419,7 @@ public class Aggregate extends AbstractNode implements Node {
                 OperonValue aggFnResult = (OperonValue) aggFnRef.invoke();
                 
                 Node aggRes = getAggregateStates().get(this.getId()).getResult().put(this.getCorrelationId(), aggFnResult);
+                getAggregateStates().get(this.getId()).getResult().touch(this.getCorrelationId());
             }
             
             else if (aggFnRefTypeTest instanceof LambdaFunctionRef) {
@@ -481,6 +473,7 @@ public class Aggregate extends AbstractNode implements Node {
                 //:OFF:log.debug("Aggregate with LambdaFunctionRef :: got result :: " + aggFnResult);
                 
                 Node aggRes = getAggregateStates().get(this.getId()).getResult().put(this.getCorrelationId(), aggFnResult);
+                getAggregateStates().get(this.getId()).getResult().touch(this.getCorrelationId());
             }
         }
         
@@ -490,7 +483,7 @@ public class Aggregate extends AbstractNode implements Node {
             synchronized (this) {
             //System.out.println("correlationId :: " + this.getCorrelationId() + ", aggregateId :: " + this.getId());
             //System.out.println("ThreadId :: " + Thread.currentThread().getId());
-                Map<String, Node> asResult = getAggregateStates().get(this.getId()).getResult();
+                AggregateStore asResult = getAggregateStates().get(this.getId()).getResult();
                 Node aggRes = asResult.get(this.getCorrelationId());
                 if (this.getAggregateFunction() == null) {
                     //System.out.println(">>>>> agg :: add :: " + currentValueCopy);
@@ -505,10 +498,12 @@ public class Aggregate extends AbstractNode implements Node {
                             ArrayType asResultArray = new ArrayType(this.getStatement());
                             asResultArray.getValues().add(currentValueCopy);
                             asResult.put(this.getCorrelationId(), asResultArray);
+                            asResult.touch(this.getCorrelationId());
                             //System.out.println("asResult :: now :: " + getAggregateStates().get(this.getId()).getResult());
                         }
                     } else {
                         ((ArrayType) aggRes).getValues().add(currentValueCopy);
+                        asResult.touch(this.getCorrelationId(), currentValueCopy);
                     }
                     //System.out.println(">>>>> agg :: add :: check 2");
                     //System.out.println(">>>>> agg :: after add :: " + ((ArrayType) aggRes).getValues());
@@ -520,6 +515,7 @@ public class Aggregate extends AbstractNode implements Node {
         //:OFF:log.debug("exit evaluateSelectStatement");
         //System.out.println("Throw BreakSelect");
         //:OFF:log.debug("Throw BreakSelect");
+        this.syncStore();
         throw new BreakSelect();
     }
 
@@ -613,6 +609,9 @@ public class Aggregate extends AbstractNode implements Node {
     //  1 = interval
     //  2 = firepredicateExpr or firepredicateFunctionRef
     private synchronized OperonValue returnAggregationResult(OperonValue aggregationResult, short type) {
+        if (this.debug) {
+            System.out.println(getMetrics());
+        }
         // Remove all entries
         if (type == 0 || type == 1) {
             getAggregateStates().get(this.getId()).getResult().clear();
@@ -660,6 +659,83 @@ public class Aggregate extends AbstractNode implements Node {
         }
     }
 
+    //
+    // Read configs for the limits of the correlation-groups, and set them for the store.
+    // Attach the StateLog to the store, when the stateDir is given.
+    //
+    private synchronized void resolveStore() throws OperonGenericException {
+        if (this.storeResolved) {
+            return;
+        }
+        if (this.getConfigs() != null) {
+            for (PairType pair : this.getConfigs().getPairs()) {
+                if (pair.getKey().equals("\"maxGroups\"")) {
+                    NumberType numberValue = (NumberType) ((OperonValue) pair.getValue()).evaluate();
+                    this.maxGroups = (int) numberValue.getDoubleValue();
+                }
+                else if (pair.getKey().equals("\"groupTtlMillis\"")) {
+                    NumberType numberValue = (NumberType) ((OperonValue) pair.getValue()).evaluate();
+                    this.groupTtlMillis = (long) numberValue.getDoubleValue();
+                }
+                else if (pair.getKey().equals("\"debug\"")) {
+                    this.debug = ((OperonValue) pair.getValue()).evaluate() instanceof TrueType;
+                }
+            }
+        }
+        AggregateStore store = getAggregateStates().get(this.getId()).getResult();
+        if (this.maxGroups != null) {
+            store.setMaxGroups(this.maxGroups);
+        }
+        if (this.groupTtlMillis != null) {
+            store.setGroupTtlMillis(this.groupTtlMillis);
+        }
+        OperonConfigs operonConfigs = this.getStatement().getOperonContext().getConfigs();
+        if (store.getStateLog() == null && operonConfigs != null
+                && operonConfigs.getStateDir() != null && operonConfigs.getRedisHost() == null) {
+            try {
+                this.restoreStore(store, StateLog.open(operonConfigs.getStateDir()));
+            } catch (IOException e) {
+                ErrorUtil.createErrorValueAndThrow(this.getStatement(), "AGGREGATE", "STATE", "Could not open the state-log: " + e.getMessage());
+            }
+        }
+        this.storeResolved = true;
+    }
+
+    //
+    // Restores the groups from the StateLog into the store, and starts logging the changes.
+    //
+    private void restoreStore(AggregateStore store, StateLog log) throws OperonGenericException {
+        String prefix = "aggregate/" + (this.getStateLogScope() == null ? "" : this.getStateLogScope() + "/") + this.getIndex() + "/";
+        for (Map.Entry<String, List<String>> entry : log.getByPrefix(prefix).entrySet()) {
+            String groupCorrelationId = entry.getKey().substring(prefix.length());
+            Node value = null;
+            if (this.getAggregateFunction() == null) {
+                ArrayType values = new ArrayType(this.getStatement());
+                for (String valueStr : entry.getValue()) {
+                    values.getValues().add(JsonUtil.lwOperonValueFromString(valueStr));
+                }
+                value = values;
+            }
+            else {
+                value = JsonUtil.lwOperonValueFromString(entry.getValue().get(0));
+            }
+            store.restore(groupCorrelationId, value);
+        }
+        boolean logElements = (this.getAggregateFunction() == null);
+        store.setStateLog(log, prefix, logElements);
+    }
+
+    //
+    // Waits until the changes of the groups are on the disk, when the StateLog is used.
+    //
+    private void syncStore() throws OperonGenericException {
+        try {
+            getAggregateStates().get(this.getId()).getResult().sync();
+        } catch (IOException | InterruptedException e) {
+            ErrorUtil.createErrorValueAndThrow(this.getStatement(), "AGGREGATE", "STATE", e.getMessage());
+        }
+    }
+
     public void setId(String i) {
         this.id = i;
     }
@@ -668,6 +744,22 @@ public class Aggregate extends AbstractNode implements Node {
         return this.id;
     }
 
+    public void setIndex(int i) {
+        this.index = i;
+    }
+    
+    public int getIndex() {
+        return this.index;
+    }
+
+    public void setStateLogScope(String scope) {
+        this.stateLogScope = scope;
+    }
+
+    public String getStateLogScope() {
+        return this.stateLogScope;
+    }
+
     public void setCorrelationIdExpr(Node idExpr) {
         this.correlationIdExpr = idExpr;
     }
@@ -720,11 +812,46 @@ public class Aggregate extends AbstractNode implements Node {
         return "Aggregate";
     }
 
-    // synchronizing this method causes timeout to block indefinetely
-    public static /*synchronized*/ Map<String, AggregateState> getAggregateStates() {
+    public static Map<String, AggregateState> getAggregateStates() {
         return aggregateStates;
     }
 
+    //
+    // The state of the aggregates, e.g. for debugging the memory-usage. Printed with the "debug" -config.
+    // The estimatedBytes is a rough estimate (see AggregateStore.estimateMemoryBytes).
+    //
+    public static String getMetrics() {
+        long groups = 0L;
+        long opened = 0L;
+        long evicted = 0L;
+        long expired = 0L;
+        long valuesAggregated = 0L;
+        long values = 0L;
+        long bytes = 0L;
+        for (AggregateState aggState : aggregateStates.values()) {
+            AggregateStore store = aggState.getResult();
+            groups += store.size();
+            opened += store.getGroupsOpened();
+            evicted += store.getGroupsEvicted();
+            expired += store.getGroupsExpired();
+            valuesAggregated += store.getValuesAggregated();
+            values += store.getValueCount();
+            bytes += store.estimateMemoryBytes();
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("Aggregate:\n");
+        sb.append(" - aggregates: " + aggregateStates.size() + "\n");
+        sb.append(" - groups: " + groups + "\n");
+        sb.append(" - groupsOpened: " + opened + "\n");
+        sb.append(" - groupsEvicted: " + evicted + "\n");
+        sb.append(" - groupsExpired: " + expired + "\n");
+        sb.append(" - valuesAggregated: " + valuesAggregated + "\n");
+        sb.append(" - values: " + values + "\n");
+        sb.append(" - estimatedBytes: " + bytes + "\n");
+        sb.append(" - pendingTimers: " + AggregateTimer.getInstance().getPendingCount() + "\n");
+        return sb.toString();
+    }
+
     public void setHasTimeout(Boolean t) {
         this.hasTimeout = t;
     }
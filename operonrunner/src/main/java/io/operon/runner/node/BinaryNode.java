@@ -51,6 +51,7 @@ public class BinaryNode extends AbstractNode implements Node {
     public void setRhs(Node rhs) { this.rhs = rhs; }
     public Node getRhs() { return this.rhs; }
     public void setBinaryNodeProcessor(BinaryNodeProcessor proc) {this.proc = proc; }
+    public BinaryNodeProcessor getBinaryNodeProcessor() {return this.proc; }
     
     public String toString() {
         return this.getEvaluatedValue().toString();
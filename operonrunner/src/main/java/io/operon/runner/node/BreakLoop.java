@@ -39,13 +39,19 @@ public class BreakLoop extends AbstractNode implements Node {
      // no logger 
     @Expose private byte t = IrTypes.BREAK_LOOP;
 
+    // The same (stackless) signal is thrown each time.
+    private transient BreakLoopException signal = null;
+
     public BreakLoop(Statement stmnt) {
         super(stmnt);
     }
 
     public OperonValue evaluate() throws OperonGenericException {
         //:OFF:log.debug("ENTER BreakLoop.evaluate()");
-        throw new BreakLoopException();
+        if (this.signal == null) {
+            this.signal = new BreakLoopException();
+        }
+        throw this.signal;
     }
 
 }
@@ -35,13 +35,19 @@ import org.apache.logging.log4j.LogManager;
 public class ContinueLoop extends AbstractNode implements Node {
      // no logger 
 
+    // The same (stackless) signal is thrown each time.
+    private transient ContinueLoopException signal = null;
+
     public ContinueLoop(Statement stmnt) {
         super(stmnt);
     }
 
     public OperonValue evaluate() throws OperonGenericException {
         //:OFF:log.debug("ENTER ContinueLoop.evaluate()");
-        throw new ContinueLoopException();
+        if (this.signal == null) {
+            this.signal = new ContinueLoopException();
+        }
+        throw this.signal;
     }
 
 }
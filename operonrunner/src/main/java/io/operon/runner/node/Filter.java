@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.stream.Collectors;
 
+import io.operon.runner.BaseContext;
 import io.operon.runner.statement.Statement;
 import io.operon.runner.node.Node;
 import io.operon.runner.node.type.*;
@@ -41,6 +42,7 @@ public class Filter extends AbstractNode implements Node, SupportsAttributes {
     private Node filterListExpression;
     private Node configs;
     private Info resolvedConfigs;
+    private Boolean pathObserved; // resolved when first evaluated, see isPathObserved
     
     public Filter(Statement stmnt) {
         super(stmnt);
@@ -71,9 +73,16 @@ public class Filter extends AbstractNode implements Node, SupportsAttributes {
         Info info = this.resolveConfigs(this.getStatement());
         this.setResolvedConfigs(info);
 
-        Path resetPath = this.getStatement().getCurrentPath().copy();
-        OperonValue objLink = this.getStatement().getCurrentPath().getObjLink();
-        resetPath.setObjLink(objLink);
+        //
+        // When the query does not observe the paths, the path is not built for the values,
+        // and the current path stays as it is, so it is not copied either.
+        //
+        Path resetPath = this.getStatement().getCurrentPath();
+        if (this.isPathObserved()) {
+            resetPath = resetPath.copy();
+            OperonValue objLink = this.getStatement().getCurrentPath().getObjLink();
+            resetPath.setObjLink(objLink);
+        }
         
         if (evaluatedCurrentValue instanceof ArrayType) {
             ArrayType arrayToFilter = (ArrayType) evaluatedCurrentValue;
@@ -139,6 +148,7 @@ public class Filter extends AbstractNode implements Node, SupportsAttributes {
             Info info = this.getResolvedConfigs();
             if (info.parallel == false) {
                 Path currentPath = this.getStatement().getCurrentPath();
+                boolean pathObserved = this.isPathObserved();
                 for (int i = 0;  i < arraySize; i ++) {
                     if (info.maxResults != -1 && arrayResult.getValues().size() >= info.maxResults) {
                         break;
@@ -150,13 +160,13 @@ public class Filter extends AbstractNode implements Node, SupportsAttributes {
                     //
                     // ATTRIBUTES
                     //
-                    Path newPath = (Path) currentPath.copy();
-                    PathPart pp = new PosPathPart(i + 1);
-                    newPath.getPathParts().add(pp);
-                    if (currentPath.getObjLink() == null) {
-                        newPath.setObjLink(arrayToFilter);
+                    if (pathObserved) {
+                        Path newPath = currentPath.child(new PosPathPart(i + 1));
+                        if (currentPath.getObjLink() == null) {
+                            newPath.setObjLink(arrayToFilter);
+                        }
+                        this.getStatement().setCurrentPath(newPath);
                     }
-                    this.getStatement().setCurrentPath(newPath);
                     //
                     // END ATTRIBUTES
                     //
@@ -526,6 +536,7 @@ public class Filter extends AbstractNode implements Node, SupportsAttributes {
             int objSize = objToFilter.getPairs().size();
             //System.out.println("BEFORE for-loop: objToFilter=" + objToFilter);
             Path currentPath = this.getStatement().getCurrentPath();
+            boolean pathObserved = this.isPathObserved();
             for (int i = 0;  i < objSize; i ++) {
                 PairType jsonPair = objToFilter.getPairs().get(i);
                 //System.out.println("jsonPair.getPosition() == " + jsonPair.getPosition() + ", objSize == " + objSize);
@@ -555,13 +566,13 @@ public class Filter extends AbstractNode implements Node, SupportsAttributes {
                 // 
                 // ATTRIBUTES
                 // 
-                Path newPath = (Path) currentPath.copy();
-                PathPart kpp = new KeyPathPart(key.substring(1, key.length() - 1));
-                newPath.getPathParts().add(kpp);
-                if (currentPath.getObjLink() == null) {
-                    newPath.setObjLink(objToFilter);
+                if (pathObserved) {
+                    Path newPath = currentPath.child(new KeyPathPart(key.substring(1, key.length() - 1)));
+                    if (currentPath.getObjLink() == null) {
+                        newPath.setObjLink(objToFilter);
+                    }
+                    this.getStatement().setCurrentPath(newPath);
                 }
-                this.getStatement().setCurrentPath(newPath);
                 //
                 // END ATTRIBUTES
                 //
@@ -780,6 +791,13 @@ public class Filter extends AbstractNode implements Node, SupportsAttributes {
         return this.resolvedConfigs;
     }
 
+    private boolean isPathObserved() {
+        if (this.pathObserved == null) {
+            this.pathObserved = BaseContext.isPathObserved(this.getStatement());
+        }
+        return this.pathObserved;
+    }
+
     public Info resolveConfigs(Statement stmt) throws OperonGenericException {
         Info info = new Info();
         
@@ -23,11 +23,14 @@ package io.operon.runner.node;
 import io.operon.runner.OperonContext;
 import io.operon.runner.OperonRunner;
 import io.operon.runner.util.RandomUtil;
+import io.operon.runner.util.ParallelUtil;
 
 import java.util.Collections;
 import java.util.Collection;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -88,6 +91,7 @@ public class IOCall extends AbstractNode implements Node {
     // If the component is a .jar, then the following apply:
     private transient IntegrationComponent componentInstance = null; // The dynamically loaded component -instance. This has to be transient if expr is deep-copied by serialization.
     private transient Class componentClass = null; // This has to be transient if expr is deep-copied by serialization.
+    private transient HttpComponent httpComponent = null; // The http -component is reused by this node.
     
     private Boolean disabledComponent = null;
     
@@ -112,23 +116,7 @@ public class IOCall extends AbstractNode implements Node {
         
         OperonValue result = null;
         
-        if (this.disabledComponent == null) {
-            Context rootContext = BaseContext.getRootContextByStatement(this.getStatement());
-            if (rootContext.getConfigs() != null && rootContext.getConfigs().getDisabledComponents().contains(this.getComponentName())) {
-                this.disabledComponent = true;
-                ErrorValue ev = new ErrorValue(this.getStatement());
-                ev.setCode("COMPONENT_DISABLED");
-                ev.setType("COMPONENT");
-                ev.setMessage("Component disabled: " + this.getComponentName());
-                result = ev;
-                return result;
-            }
-            else {
-                this.disabledComponent = false;
-            }
-        }
-        
-        else if (this.disabledComponent == true) {
+        if (this.isComponentDisabled()) {
             ErrorValue ev = new ErrorValue(this.getStatement());
             ev.setCode("COMPONENT_DISABLED");
             ev.setType("COMPONENT");
@@ -164,9 +152,7 @@ public class IOCall extends AbstractNode implements Node {
         
         else if (this.getComponentName().equals("http")) {
             //:OFF:log.debug("IOCall :: http");
-            IntegrationComponent httpComponent = new HttpComponent();
-            httpComponent.setComponentName(this.getComponentName());
-            httpComponent.setComponentId(this.getComponentId());
+            HttpComponent httpComponent = this.getHttpComponent();
             httpComponent.setJsonConfiguration(this.getJsonConfiguration());
             try {
                 result = httpComponent.produce(currentValue);
@@ -538,6 +524,70 @@ public class IOCall extends AbstractNode implements Node {
     public void setComponentId(String cid) { this.componentId = cid; }
     public void setJsonConfiguration(ObjectType jsonConfig) { this.jsonConfiguration = jsonConfig; }
     
+    //
+    // Evaluates the component-call against the given value without waiting for the result.
+    // The http -component sends the request asynchronously, so no thread is reserved while waiting
+    // for the response. The other components are evaluated on the I/O -executor (see ParallelUtil).
+    //
+    // NOTE: the node must not be evaluated again before the returned future has completed.
+    //
+    public CompletableFuture<OperonValue> evaluateAsync(OperonValue currentValue) {
+        this.getStatement().setCurrentValue(currentValue);
+        try {
+            if (this.getComponentName().equals("http") && this.isComponentDisabled() == false) {
+                HttpComponent httpComponent = this.getHttpComponent();
+                httpComponent.setJsonConfiguration(this.getJsonConfiguration());
+                return httpComponent.produceAsync(currentValue).handle((result, t) -> {
+                    if (t == null) {
+                        return result;
+                    }
+                    Throwable cause = (t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+                    try {
+                        ErrorUtil.createErrorValueAndThrow(this.getStatement(), "INTEGRATION", "HTTP", cause.getMessage() + ". Line #" + this.getSourceCodeLineNumber());
+                    } catch (OperonGenericException oge) {
+                        throw new CompletionException(oge);
+                    }
+                    return null;
+                });
+            }
+        } catch (OperonGenericException oge) {
+            CompletableFuture<OperonValue> failed = new CompletableFuture<OperonValue>();
+            failed.completeExceptionally(oge);
+            return failed;
+        }
+        
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.evaluate();
+            } catch (OperonGenericException oge) {
+                throw new CompletionException(oge);
+            }
+        }, ParallelUtil.getIoExecutor());
+    }
+    
+    private boolean isComponentDisabled() {
+        if (this.disabledComponent == null) {
+            Context rootContext = BaseContext.getRootContextByStatement(this.getStatement());
+            this.disabledComponent = rootContext.getConfigs() != null
+                && rootContext.getConfigs().getDisabledComponents().contains(this.getComponentName());
+        }
+        return this.disabledComponent;
+    }
+    
+    //
+    // The component is kept for this node, so it can reuse the resolved configuration.
+    //
+    private HttpComponent getHttpComponent() {
+        HttpComponent httpComponent = this.httpComponent;
+        if (httpComponent == null) {
+            httpComponent = new HttpComponent();
+            httpComponent.setComponentName(this.getComponentName());
+            httpComponent.setComponentId(this.getComponentId());
+            this.httpComponent = httpComponent;
+        }
+        return httpComponent;
+    }
+    
     public ObjectType getJsonConfiguration() throws OperonGenericException {
         if (this.jsonConfiguration == null) {
             return new ObjectType(this.getStatement());
@@ -33,6 +33,7 @@ import io.operon.runner.ModuleContext;
 import io.operon.runner.processor.BinaryNodeProcessor; 
 import io.operon.runner.statement.Statement; 
 import io.operon.runner.statement.LetStatement; 
+import io.operon.runner.statement.RuntimeValues;
 import io.operon.runner.util.JsonUtil;
 import io.operon.runner.util.ErrorUtil;
 
@@ -52,6 +53,7 @@ public class Loop extends AbstractNode implements Node {
      // no logger  
 
     private String valueRef;
+    private transient RuntimeValues.SlotKey valueSlotKey; // resolved when the valueRef is set, or after the deserialization
     private Node loopExpr;
     private Node loopIteratorExpr;
     private Node configs;
@@ -134,7 +136,7 @@ public class Loop extends AbstractNode implements Node {
             NumberType nextValue = new NumberType(currentValue.getStatement());
             nextValue.setDoubleValue((double) i);
             nextValue.setPrecision((byte) 0);
-            loopExpression.getStatement().getRuntimeValues().put(this.getValueRef(), nextValue);
+            RuntimeValues.put(loopExpression.getStatement().getRuntimeValues(), this.getValueSlotKey(), nextValue);
             loopExpression.getStatement().setCurrentValue(result);
             
             //
@@ -173,7 +175,7 @@ public class Loop extends AbstractNode implements Node {
                 NumberType nextValue = new NumberType(currentValue.getStatement());
                 nextValue.setDoubleValue((double) i);
                 nextValue.setPrecision((byte) 0);
-                loopExpression.getStatement().getRuntimeValues().put(this.getValueRef(), nextValue);
+                RuntimeValues.put(loopExpression.getStatement().getRuntimeValues(), this.getValueSlotKey(), nextValue);
                 loopExpression.getStatement().setCurrentValue(result);
                 
                 //
@@ -198,7 +200,7 @@ public class Loop extends AbstractNode implements Node {
                 NumberType nextValue = new NumberType(currentValue.getStatement());
                 nextValue.setDoubleValue((double) i);
                 nextValue.setPrecision((byte) 0);
-                loopExpression.getStatement().getRuntimeValues().put(this.getValueRef(), nextValue);
+                RuntimeValues.put(loopExpression.getStatement().getRuntimeValues(), this.getValueSlotKey(), nextValue);
                 loopExpression.getStatement().setCurrentValue(result);
                 
                 //
@@ -234,7 +236,7 @@ public class Loop extends AbstractNode implements Node {
         
         for (int i = 0; i < itValues.size(); i ++) {
             OperonValue nextValue = itValues.get(i).evaluate();
-            loopExpression.getStatement().getRuntimeValues().put(this.getValueRef(), nextValue);
+            RuntimeValues.put(loopExpression.getStatement().getRuntimeValues(), this.getValueSlotKey(), nextValue);
             // NOTE: original currentValue is not sent, because Loop-pattern should modify it with each iteration.
             //System.out.println("  Loop :: set the CV :: " + result);
             loopExpression.getStatement().setCurrentValue(result);
@@ -267,7 +269,7 @@ public class Loop extends AbstractNode implements Node {
             ObjectType nextObj = new ObjectType(it.getStatement());
             nextObj.addPair(nextPair);
             
-            loopExpression.getStatement().getRuntimeValues().put(this.getValueRef(), nextObj);
+            RuntimeValues.put(loopExpression.getStatement().getRuntimeValues(), this.getValueSlotKey(), nextObj);
             loopExpression.getStatement().setCurrentValue(result);
             
             //
@@ -300,7 +302,7 @@ public class Loop extends AbstractNode implements Node {
         //System.out.println("handleFunctionRefIterator :: nv = " + nextValue);
         
         while (nextValue != null && (nextValue instanceof EndValueType == false)) {
-            loopExpression.getStatement().getRuntimeValues().put(this.getValueRef(), nextValue);
+            RuntimeValues.put(loopExpression.getStatement().getRuntimeValues(), this.getValueSlotKey(), nextValue);
             loopExpression.getStatement().setCurrentValue(result);
             
             //
@@ -340,7 +342,7 @@ public class Loop extends AbstractNode implements Node {
         //System.out.println("handleFunctionRefIterator :: nv = " + nextValue);
         
         while (nextValue != null && (nextValue instanceof EndValueType == false)) {
-            loopExpression.getStatement().getRuntimeValues().put(this.getValueRef(), nextValue);
+            RuntimeValues.put(loopExpression.getStatement().getRuntimeValues(), this.getValueSlotKey(), nextValue);
             loopExpression.getStatement().setCurrentValue(result);
             
             //
@@ -388,7 +390,7 @@ public class Loop extends AbstractNode implements Node {
                 if (nextValue instanceof EndValueType) {
                     break;
                 }
-                loopExpression.getStatement().getRuntimeValues().put(this.getValueRef(), nextValue);
+                RuntimeValues.put(loopExpression.getStatement().getRuntimeValues(), this.getValueSlotKey(), nextValue);
                 loopExpression.getStatement().setCurrentValue(result);
                 
                 //
@@ -436,6 +438,14 @@ public class Loop extends AbstractNode implements Node {
 
     public void setValueRef(String valueRef) {
         this.valueRef = valueRef;
+        this.valueSlotKey = RuntimeValues.slotKeyOf(valueRef);
+    }
+
+    private RuntimeValues.SlotKey getValueSlotKey() {
+        if (this.valueSlotKey == null) {
+            this.valueSlotKey = RuntimeValues.slotKeyOf(this.getValueRef());
+        }
+        return this.valueSlotKey;
     }
 
     public String getValueRef() {
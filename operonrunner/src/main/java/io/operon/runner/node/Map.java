@@ -21,11 +21,20 @@ import java.util.ArrayList;
 import java.util.stream.Collectors;
 import java.util.Collections;
 import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.operon.runner.node.AbstractNode;
 import io.operon.runner.node.Node;
 import io.operon.runner.node.type.*;
 import io.operon.runner.ModuleContext;
+import io.operon.runner.BaseContext;
+import io.operon.runner.Context;
+import io.operon.runner.OperonContext;
+import io.operon.runner.OperonRunner;
+import io.operon.runner.CompiledQueryCache;
 import io.operon.runner.model.exception.BreakLoopException;
 import io.operon.runner.model.exception.ContinueLoopException;
 import io.operon.runner.model.streamvaluewrapper.*;
@@ -33,8 +42,12 @@ import io.operon.runner.model.path.*;
 import io.operon.runner.processor.BinaryNodeProcessor; 
 import io.operon.runner.statement.Statement; 
 import io.operon.runner.statement.LetStatement; 
+import io.operon.runner.statement.DefaultStatement;
 import io.operon.runner.util.JsonUtil;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.ParallelUtil;
+
+import org.antlr.v4.runtime.tree.ParseTree;
 
 import org.apache.logging.log4j.Logger;
 import io.operon.runner.model.exception.OperonGenericException;
@@ -58,6 +71,7 @@ public class Map extends AbstractNode implements Node {
     // SplicingLeft, SplicingRight, or SplicingRange
     //private Node mappingRange; // e.g. [1,2,3] Map(::2): 0 End ==> [0, 0, 3]
     @Expose private Node configs;
+    private Boolean pathObserved; // resolved when first evaluated, see isPathObserved
 
     public Map(Statement stmnt) {
         super(stmnt);
@@ -247,6 +261,7 @@ public class Map extends AbstractNode implements Node {
             ArrayType window = null;
             int currentWindowSize = 0;
             int k = 0; // this is used as index to get the value. "i" is not used as it is used to calculate the "k" based on direction.
+            boolean pathObserved = this.isPathObserved();
             
             for (int i = 0; i < arrayValues.size(); i ++) {
                 if (info.direction == Direction.RIGHT) {
@@ -266,14 +281,13 @@ public class Map extends AbstractNode implements Node {
                 // ATTRIBUTES
                 //
                 
-                if (this.getStatement().getPreviousStatement() != null) {
+                if (pathObserved == false) {
+                    // The query does not observe the paths
+                }
+                else if (this.getStatement().getPreviousStatement() != null) {
                     Statement prevStmt = this.getStatement().getPreviousStatement();
                     Path prevCurrentPath = (Path) prevStmt.getCurrentPath();
-                    PathPart pp = new PosPathPart(k + 1);
-                    Path newPath = new Path(this.getStatement());
-                    newPath.setObjLink(prevCurrentPath.getObjLink());
-                    newPath = (Path) prevCurrentPath.copy();
-                    newPath.getPathParts().add(pp);
+                    Path newPath = prevCurrentPath.child(new PosPathPart(k + 1));
                     this.getStatement().setCurrentPath(newPath);
                 }
                 else {
@@ -384,53 +398,27 @@ public class Map extends AbstractNode implements Node {
             //
             
             //System.out.println("parallel was true");
-            if (info.direction == Direction.RIGHT) {
-                Collections.reverse(arrayValues);
+            List<OperonValue> values = new ArrayList<OperonValue>(arrayValues.size());
+            for (int i = 0; i < arrayValues.size(); i ++) {
+                int k = i;
+                if (info.direction == Direction.RIGHT) {
+                    k = arrayValues.size() - i - 1;
+                }
+                Node arrayValue = arrayValues.get(k);
+                if ((arrayValue instanceof OperonValue) == false) {
+                    arrayValue = arrayValue.getEvaluatedValue();
+                }
+                values.add((OperonValue) arrayValue);
             }
-            List<OperonValue> parallelResults = arrayValues.parallelStream().map(
-                arrayValue -> {
-                    try {
-                        if ((arrayValue instanceof OperonValue) == false) {
-                            arrayValue = arrayValue.getEvaluatedValue();
-                        }
-                        
-                        //
-                        // Each forked process would use the same statement-context,
-                        // and therefore one process would affect other process' statement,
-                        // and thus the currentValue, causing wrong results.
-                        //
-                        // Therefore we must copy the mapExpr -node, so each would have their own statement.
-                        //System.out.println("  Parallel Map");
-                        //System.out.println("    Parallel Map :: expr=" + this.getMapExpr().getExpr());
-                        
-                        //
-                        // CHECK: we should COMPILE the expr with NEW DefaultStatement, so NONE of the state will leak into the new expression!
-                        //
-                        boolean linkScope = false;
-                        Node mapExprCopy = AbstractNode.deepCopyNode(this.getStatement(), this.getMapExpr(), linkScope); // this.getMapExpr(); // AbstractNode.deepCopyNode(this.getMapExpr());
-                        
-                        mapExprCopy.getStatement().setCurrentValue((OperonValue) arrayValue);
-                        //System.out.println("map-expr: set prototype to true");
-                        //mapExprCopy.getStatement().setPrototype(true);
-                        
-                        Node mapExprResult = mapExprResult = mapExprCopy.evaluate();
-
-                        if (mapExprResult instanceof EmptyType) { 
-                            this.synchronizeState();
-                            return new EmptyType(this.getStatement()); // TODO: should we filter these out?
-                        }
-                        this.synchronizeState();
-                        return ((OperonValue) mapExprResult).copy(); // Return the deep-copy instead of the value-reference to prevent modifation from memory.
-                    } catch (Exception e) {
-                        // Do smthg
-                        System.err.println("Error: " + e.getMessage());
-                        return null;
-                    }
-                }    
-            ).collect(Collectors.toList());
+            
+            List<OperonValue> parallelResults = this.evaluateParallel(values, info);
             
             if (info.outputObject == false) {
-                resultArray.getValues().addAll(parallelResults);
+                for (int i = 0; i < parallelResults.size(); i ++) {
+                    if (parallelResults.get(i) != null) {
+                        resultArray.getValues().add(parallelResults.get(i));
+                    }
+                }
             }
             else {
                 for (int i = 0; i < parallelResults.size(); i ++) {
@@ -471,14 +459,14 @@ public class Map extends AbstractNode implements Node {
             
             Path prevPath = null;
             Path resetPath = new Path(this.getStatement());
-            if (this.getStatement().getPreviousStatement() != null) {
+            boolean pathObserved = this.isPathObserved();
+            if (pathObserved == false) {
+                // The query does not observe the paths
+            }
+            else if (this.getStatement().getPreviousStatement() != null) {
                 Statement prevStmt = this.getStatement().getPreviousStatement();
                 Path prevCurrentPath = (Path) prevStmt.getCurrentPath();
-                PathPart pp = new PosPathPart(k + 1);
-                Path newPath = new Path(this.getStatement());
-                newPath.setObjLink(prevCurrentPath.getObjLink());
-                newPath = (Path) prevCurrentPath.copy();
-                newPath.getPathParts().add(pp);
+                Path newPath = prevCurrentPath.child(new PosPathPart(k + 1));
                 this.getStatement().setCurrentPath(newPath);
             }
             else {
@@ -494,8 +482,9 @@ public class Map extends AbstractNode implements Node {
                 // Reset prevPath
                 //  TODO: inspect where the prevPath gets overwritten, so this would not be needed
                 //        Refer: MapTests#mapOpPrevious
-                prevPath = resetPath.copy();
-                prevPath.setObjLink(resetPath.getObjLink());
+                if (pathObserved) {
+                    prevPath = resetPath.shallowCopy();
+                }
                 //System.out.println("RESET :: " + resetPath);
                 if (info.direction == Direction.RIGHT) {
                     k = pairs.size() - i - 1;
@@ -522,17 +511,17 @@ public class Map extends AbstractNode implements Node {
                 
                 //System.out.println(">> Map, add attributes");
                 
-                String key = pair.getKey().substring(1, pair.getKey().length() - 1);
+                String key = pair.getKeyName();
 
                 //
                 // ATTRIBUTES
                 //
-                if (prevPath != null) {
+                if (pathObserved == false) {
+                    // The query does not observe the paths
+                }
+                else if (prevPath != null) {
                     //System.out.println(">> Map, add attributes :: newPath1 :: " + prevPath);
-                    Path prevCurrentPathCopy = (Path) prevPath.copy();
-                    //System.out.println(">> Map, add attributes :: newPath COPY :: " + prevCurrentPathCopy);
-                    PathPart kpp = new KeyPathPart(key);
-                    prevCurrentPathCopy.getPathParts().add(kpp);
+                    Path prevCurrentPathCopy = prevPath.child(new KeyPathPart(key));
                     
                     if (prevPath.getObjLink() == null) {
                         prevCurrentPathCopy.setObjLink(jsonObj);
@@ -628,7 +617,7 @@ public class Map extends AbstractNode implements Node {
                         c.setValueToEvaluateAgainst((OperonValue) mapExprResult); 
                         OperonValue constraintResult = (OperonValue) c.evaluate(); 
                         if (constraintResult instanceof FalseType) {
-                            ErrorUtil.createErrorValueAndThrow(this.getStatement(), "CONSTRAINT", "VIOLATION", "Field: " + pair.getKey().substring(1, pair.getKey().length() - 1) + ", line #" + this.getSourceCodeLineNumber());
+                            ErrorUtil.createErrorValueAndThrow(this.getStatement(), "CONSTRAINT", "VIOLATION", "Field: " + pair.getKeyName() + ", line #" + this.getSourceCodeLineNumber());
                         } 
                         resultPair.setOperonValueConstraint(c); 
                     } 
@@ -661,82 +650,45 @@ public class Map extends AbstractNode implements Node {
             // - windowing is not possible
             //
             
-            // "indexify" the pairs first:
-            if (info.direction == Direction.RIGHT) {
-                Collections.reverse(pairs);
-            }
-            List<PairWithIndex> pairsWithIndices = new ArrayList<PairWithIndex>();
-            // pairs = List<PairType>
+            List<PairType> orderedPairs = new ArrayList<PairType>(pairs.size());
+            List<OperonValue> values = new ArrayList<OperonValue>(pairs.size());
             for (int i = 0; i < pairs.size(); i ++) {
-                PairWithIndex pwi = new PairWithIndex();
-                pwi.index = i;
-                pwi.value = pairs.get(i);
-                pairsWithIndices.add(pwi);
+                int k = i;
+                if (info.direction == Direction.RIGHT) {
+                    k = pairs.size() - i - 1;
+                }
+                PairType pair = pairs.get(k);
+                orderedPairs.add(pair);
+                values.add((OperonValue) pair.getValue());
             }
             
-            List<OperonValue> parallelResults = pairsWithIndices.parallelStream().map(
-                pwi -> {
-                    try {
-                        PairType pair = (PairType) pwi.value;
-                        int i = pwi.index;
-                        ////:OFF:log.debug("    >> MAP OP i=["  + i + "], arrayValue :: "+ arrayValue); 
-                        OperonValue pairOperonValue = (OperonValue) pair.getValue();
-
-                        //pairOperonValue.getStatement().getRuntimeValues().put("_", jsonObj);
-            
-                        //
-                        // Each forked process would use the same statement-context,
-                        // and therefore one process would affect other process' statement,
-                        // and thus the currentValue, causing wrong results.
-                        //
-                        // Therefore we must copy the mapExpr -node, so each would have their own statement.
-                        //System.out.println("  Parallel Object Map");
-                        //System.out.println("    Parallel Object Map :: expr=" + this.getMapExpr().getExpr());
-                        boolean linkScope = false;
-                        Node mapExprCopy = AbstractNode.deepCopyNode(this.getStatement(), this.getMapExpr(), linkScope); // AbstractNode.deepCopyNode(this.getMapExpr());
-                        
-                        mapExprCopy.getStatement().setCurrentValue(pairOperonValue);
-                        
-                        Node mapExprResult = mapExprCopy.evaluate();
-
-                        // 
-                        // Check object-constraints, if they exist. 
-                        // 
-                        PairType resultPair = new PairType(this.getStatement()); 
-                         
-                        if (pair.getOperonValueConstraint() != null) { 
-                            // Apply constraint-check: 
-                            OperonValueConstraint c = pair.getOperonValueConstraint(); 
-                            c.setValueToEvaluateAgainst((OperonValue) mapExprResult); 
-                            OperonValue constraintResult = (OperonValue) c.evaluate(); 
-                            if (constraintResult instanceof FalseType) { 
-                                ErrorUtil.createErrorValueAndThrow(this.getStatement(), "CONSTRAINT", "VIOLATION", "Field: " + pair.getKey().substring(1, pair.getKey().length() - 1) + ", line #" + this.getSourceCodeLineNumber());
-                            } 
-                            resultPair.setOperonValueConstraint(c); 
-                        } 
+            List<OperonValue> parallelResults = this.evaluateParallel(values, info);
             
-                        if (mapExprResult instanceof EmptyType) { 
-                            this.synchronizeState();
-                            return new EmptyType(this.getStatement());
-                        } 
-                        resultPair.setPair(pair.getKey(), ((OperonValue) mapExprResult).copy());
-                        this.synchronizeState();
-                        return resultPair;
-                    } catch (Exception e) {
-                        // Do smthg
-                        System.err.println("Error: " + e.getMessage());
-                        return null;
-                    }
-                }    
-            ).collect(Collectors.toList());
-            
-            for (OperonValue resultValue : parallelResults) {
-                if (resultValue instanceof PairType) {
-                    resultObj.addPair((PairType) resultValue);
-                }
-                else {
+            for (int i = 0; i < parallelResults.size(); i ++) {
+                PairType pair = orderedPairs.get(i);
+                OperonValue mapExprResult = parallelResults.get(i);
+                if (mapExprResult == null) {
                     continue; // Skip empty values
                 }
+                
+                // 
+                // Check object-constraints, if they exist. 
+                // 
+                PairType resultPair = new PairType(this.getStatement()); 
+                 
+                if (pair.getOperonValueConstraint() != null) { 
+                    // Apply constraint-check: 
+                    OperonValueConstraint c = pair.getOperonValueConstraint(); 
+                    c.setValueToEvaluateAgainst(mapExprResult); 
+                    OperonValue constraintResult = (OperonValue) c.evaluate(); 
+                    if (constraintResult instanceof FalseType) { 
+                        ErrorUtil.createErrorValueAndThrow(this.getStatement(), "CONSTRAINT", "VIOLATION", "Field: " + pair.getKeyName() + ", line #" + this.getSourceCodeLineNumber());
+                    } 
+                    resultPair.setOperonValueConstraint(c); 
+                } 
+                
+                resultPair.setPair(pair.getKey(), mapExprResult);
+                resultObj.addPair(resultPair);
             }
         }
         
@@ -750,6 +702,133 @@ public class Map extends AbstractNode implements Node {
         }
     }
 
+    //
+    // Evaluates the map-expr against each value on a ForkJoinPool.
+    //
+    // The map-expr is parsed only once (the ParseTree is cached by CompiledQueryCache), and then compiled
+    // once for each chunk of values. Each chunk evaluates its values sequentially with its own
+    // compiled copy, so the statements (and thus the currentValue) are never shared between threads.
+    //
+    // The pool is given with the "parallelism" -option, or with OperonConfigs (the common-pool by default).
+    //
+    // With the "inFlight" -option the map-expr is not bound to the pool: the given number of evaluations
+    // are kept running at the same time (see ParallelUtil.evaluateInFlight). This is for the map-exprs
+    // which wait for I/O, e.g. Map {"inFlight": 16}: -> http:{"url": $base} End
+    // The copies of the map-expr are compiled into the context of the query (see ParallelUtil.compileInScope).
+    //
+    // @returns the (copied) results in the order of the values. Empty results are null.
+    //          The first error is thrown after all the chunks have completed.
+    //
+    private List<OperonValue> evaluateParallel(List<OperonValue> values, Info info) throws OperonGenericException {
+        if (info.inFlight > 0) {
+            return this.evaluateInFlight(values, info);
+        }
+        
+        int parallelism = info.parallelism;
+        if (parallelism < 0) {
+            Context rootContext = BaseContext.getRootContextByStatement(this.getStatement());
+            if (rootContext != null && rootContext.getConfigs() != null) {
+                parallelism = rootContext.getConfigs().getParallelism();
+            }
+        }
+        ForkJoinPool pool = ParallelUtil.getPool(parallelism);
+        
+        final String expr = this.getMapExpr().getExpr();
+        final OperonValue [] results = new OperonValue[values.size()];
+        final AtomicReference<Exception> error = new AtomicReference<Exception>();
+        
+        // Break stops the mapping: the values starting from the lowest breaking index are not mapped.
+        final AtomicInteger breakIndex = new AtomicInteger(Integer.MAX_VALUE);
+        
+        int chunkCount = Math.min(values.size(), pool.getParallelism() * 4);
+        int chunkSize = chunkCount == 0 ? 0 : (values.size() + chunkCount - 1) / chunkCount;
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        
+        for (int start = 0; start < values.size(); start += chunkSize) {
+            final int from = start;
+            final int to = Math.min(start + chunkSize, values.size());
+            tasks.add(pool.submit(() -> {
+                try {
+                    Node mapExprCopy = this.compileMapExpr(expr);
+                    for (int i = from; i < to; i ++) {
+                        if (error.get() != null || i > breakIndex.get()) {
+                            return;
+                        }
+                        mapExprCopy.getStatement().setCurrentValue(values.get(i));
+                        try {
+                            Node mapExprResult = mapExprCopy.evaluate();
+                            if (mapExprResult instanceof EmptyType == false) {
+                                // Return the deep-copy instead of the value-reference to prevent modifation from memory.
+                                results[i] = ((OperonValue) mapExprResult).copy();
+                            }
+                        } catch (BreakLoopException ble) {
+                            breakIndex.accumulateAndGet(i, Math::min);
+                            return;
+                        } catch (ContinueLoopException cle) {
+                            continue;
+                        }
+                    }
+                } catch (Exception e) {
+                    error.compareAndSet(null, e);
+                }
+            }));
+        }
+        
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        
+        this.synchronizeState();
+        
+        if (error.get() != null) {
+            Exception e = error.get();
+            if (e instanceof OperonGenericException) {
+                throw (OperonGenericException) e;
+            }
+            ErrorUtil.createErrorValueAndThrow(this.getStatement(), "MAP", "PARALLEL", e.getMessage() + ", line #" + this.getSourceCodeLineNumber());
+        }
+        
+        List<OperonValue> resultList = new ArrayList<OperonValue>(results.length);
+        int resultCount = Math.min(results.length, breakIndex.get());
+        for (int i = 0; i < resultCount; i ++) {
+            resultList.add(results[i]);
+        }
+        return resultList;
+    }
+    
+    private List<OperonValue> evaluateInFlight(List<OperonValue> values, Info info) throws OperonGenericException {
+        List<OperonValue> results = null;
+        try {
+            final Statement scope = this.getStatement();
+            final ParseTree exprTree = CompiledQueryCache.getOrParseExpr(this.getMapExpr().getExpr());
+            results = ParallelUtil.evaluateInFlight(() -> ParallelUtil.compileInScope(scope, exprTree), values, info.inFlight);
+        } catch (OperonGenericException oge) {
+            throw oge;
+        } catch (Exception e) {
+            ErrorUtil.createErrorValueAndThrow(this.getStatement(), "MAP", "PARALLEL", e.getMessage() + ", line #" + this.getSourceCodeLineNumber());
+        }
+        
+        this.synchronizeState();
+        
+        for (int i = 0; i < results.size(); i ++) {
+            if (results.get(i) instanceof EmptyType) {
+                results.set(i, null);
+            }
+        }
+        return results;
+    }
+    
+    //
+    // Compiles the map-expr with a new statement, so none of the state is shared
+    // with the original map-expr.
+    //
+    private Node compileMapExpr(String expr) throws Exception {
+        Context ctx = new OperonContext();
+        DefaultStatement newStatement = new DefaultStatement(ctx);
+        Node mapExprCopy = OperonRunner.compileExprParseTree(newStatement, CompiledQueryCache.getOrParseExpr(expr));
+        return mapExprCopy;
+    }
+    
     public StringType handleString(OperonValue currentValueCopy, Info info) throws OperonGenericException {
         StringType jsonString = (StringType) currentValueCopy; 
         ////:OFF:log.debug("    >> MAP OP lhsResult :: " + lhsResult); 
@@ -857,6 +936,7 @@ public class Map extends AbstractNode implements Node {
         }
         
         ArrayType resultArray = new ArrayType(this.getStatement());
+        boolean pathObserved = this.isPathObserved();
         
         if (svw.supportsJson()) {
             //:OFF:log.debug("Stream supportsJson");
@@ -872,12 +952,14 @@ public class Map extends AbstractNode implements Node {
                 //
                 // ATTRIBUTES
                 //
-                PathPart pp = new PosPathPart(i);
-                Path newPath = new Path(this.getStatement());
-                newPath.getPathParts().add(pp);
-                newPath.setObjLink(nextValue);
-                //System.out.println(">> Map stream, add attributes :: newPath :: " + newPath);
-                this.getStatement().setCurrentPath(newPath);
+                if (pathObserved) {
+                    PathPart pp = new PosPathPart(i);
+                    Path newPath = new Path(this.getStatement());
+                    newPath.getPathParts().add(pp);
+                    newPath.setObjLink(nextValue);
+                    //System.out.println(">> Map stream, add attributes :: newPath :: " + newPath);
+                    this.getStatement().setCurrentPath(newPath);
+                }
     
                 this.getStatement().setCurrentValue(nextValue); // Set CV also for currentStatement because lfr sets cv from previous-stmt
                 mapExpression.getStatement().setCurrentValue(nextValue);
@@ -929,6 +1011,10 @@ public class Map extends AbstractNode implements Node {
         this.configs = conf;
     }
     
+    public Node getConfigsNode() {
+        return this.configs;
+    }
+    
     public ObjectType getConfigs() throws OperonGenericException {
         if (this.configs == null) {
             return new ObjectType(this.getStatement());
@@ -937,6 +1023,13 @@ public class Map extends AbstractNode implements Node {
         return (ObjectType) this.configs;
     }
 
+    private boolean isPathObserved() {
+        if (this.pathObserved == null) {
+            this.pathObserved = BaseContext.isPathObserved(this.getStatement());
+        }
+        return this.pathObserved;
+    }
+
     public Info resolveConfigs(Statement stmt) throws OperonGenericException {
         Info info = new Info();
         
@@ -958,6 +1051,15 @@ public class Map extends AbstractNode implements Node {
                         info.parallel = true;
                     }
                     break;
+                case "\"parallelism\"":
+                    NumberType parallelismValue = (NumberType) pair.getEvaluatedValue();
+                    info.parallelism = (int) parallelismValue.getDoubleValue();
+                    break;
+                case "\"inflight\"":
+                    NumberType inFlightValue = (NumberType) pair.getEvaluatedValue();
+                    info.inFlight = (int) inFlightValue.getDoubleValue();
+                    info.parallel = true;
+                    break;
                 case "\"retainlast\"":
                     NumberType retainLastValue = (NumberType) pair.getEvaluatedValue();
                     info.retainLast = (int) retainLastValue.getDoubleValue();
@@ -1016,6 +1118,8 @@ public class Map extends AbstractNode implements Node {
 
     private class Info {
         public boolean parallel = false;
+        public int parallelism = -1; // the number of threads for the parallel mapping. -1 = use the OperonConfigs.
+        public int inFlight = -1; // the number of concurrent evaluations for the map-exprs that wait for I/O. -1 = not used.
         public int retainLast = -1; // how many last results to retain when mapping against number. null = retain all.
         public int retainFirst = -1; // how many first results to retain when mapping against number. null = retain all.
         public int windowSize = 1; // how many items are gathered for evaluation at a time
@@ -1044,14 +1148,6 @@ public class Map extends AbstractNode implements Node {
         public boolean outputObject = false;
     }
     
-    //
-    // Used to add the index when doing parallel-operations
-    //
-    class PairWithIndex {
-        int index = -1;
-        OperonValue value;
-    }
-    
     private enum Direction {
         LEFT("left"), RIGHT("right");
         private String direction = "left";
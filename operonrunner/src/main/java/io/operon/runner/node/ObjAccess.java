@@ -37,6 +37,7 @@ import org.apache.logging.log4j.LogManager;
 public class ObjAccess extends AbstractNode implements Node, SupportsAttributes { 
      // no logger  
     private String objAccessKey;
+    private transient String quotedObjAccessKey; // quoted once, see PairKey
 
     public ObjAccess(Statement stmnt) { 
         super(stmnt); 
@@ -44,6 +45,7 @@ public class ObjAccess extends AbstractNode implements Node, SupportsAttributes
  
     public void setObjAccessKey(String key) { 
         this.objAccessKey = key; 
+        this.quotedObjAccessKey = null;
     } 
  
     public OperonValue evaluate() throws OperonGenericException { 
@@ -78,8 +80,14 @@ public class ObjAccess extends AbstractNode implements Node, SupportsAttributes
         //System.out.println("Accessing: " + this.getObjAccessKey());
         
         
+        String jStrKey = this.quotedObjAccessKey;
+        if (jStrKey == null) {
+            jStrKey = PairKey.quote(this.getObjAccessKey());
+            this.quotedObjAccessKey = jStrKey;
+        }
+        
         if (obj.getIndexedPairs() != null) {
-            PairType p = obj.getIndexedPairs().get("\"" + this.getObjAccessKey() + "\"");
+            PairType p = obj.getIndexedPairs().get(jStrKey);
             if (p != null) {
                 result = p.getEvaluatedValue();
                 // No position available
@@ -90,20 +98,11 @@ public class ObjAccess extends AbstractNode implements Node, SupportsAttributes
         
         
         if (result == null) {
-            // Access by object's key. Loop through the pairs and check which pair matches.
-            String parentKey = null;
-            int resultPairPosition = 0;
-            int pairPosition = 1;
-            for (PairType pair : obj.getPairs()) { 
-                //:OFF:log.debug("KEY :: " + pair.getKey()); 
-                if (pair.getKey().equals("\"" + this.getObjAccessKey() + "\"")) { 
-                    result = pair.getEvaluatedValue(); 
-                    resultPairPosition = pairPosition;
-                    parentKey = pair.getKey();
-                    break; 
-                }
-                pairPosition += 1;
-            } 
+            // Access by object's key. The pairs are indexed by the key when the object is wide (see PairList).
+            PairType pair = obj.getPairByKey(jStrKey);
+            if (pair != null) {
+                result = pair.getEvaluatedValue();
+            }
         }
         else {
             //System.out.println("Cache hit");
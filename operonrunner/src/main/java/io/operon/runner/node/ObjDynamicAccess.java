@@ -241,7 +241,7 @@ public class ObjDynamicAccess extends AbstractNode implements Node {
         OperonValue result = null;
         if (dynamicKeyExprResult instanceof StringType) {
             String dynamicKey = ((StringType) dynamicKeyExprResult).getJavaStringValue();
-            if (pair.getKey().equals("\"" + dynamicKey + "\"")) {
+            if (pair.getKeyName().equals(dynamicKey)) {
                 result = pair.getEvaluatedValue();
             }
         }
@@ -96,7 +96,7 @@ public class ObjDynamicDeepScan extends AbstractNode implements Node {
             PairType pair = obj.getPairs().get(i);
             //:OFF:log.debug("    Obj key :: " + pair.getKey());
 
-            PathPart pp = new KeyPathPart(pair.getKey().substring(1, pair.getKey().length() - 1));
+            PathPart pp = new KeyPathPart(pair.getKeyName());
             this.currentPath.setValueLink(pair.getValue());
             this.currentPath.setObjLink(this.getRootValue());
             this.currentPath.addPathPart(pp);
@@ -276,7 +276,7 @@ public class ObjDynamicDeepScan extends AbstractNode implements Node {
         
         if (dynamicKeyExprResult instanceof StringType) {
             String dynamicKey = ((StringType) dynamicKeyExprResult).getJavaStringValue();
-            if (pair.getKey().equals("\"" + dynamicKey + "\"")) {
+            if (pair.getKeyName().equals(dynamicKey)) {
                 result = pair.getEvaluatedValue();
             }
             else {
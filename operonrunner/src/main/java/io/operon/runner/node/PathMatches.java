@@ -41,6 +41,7 @@ public class PathMatches extends AbstractNode implements Node {
      // no logger 
     
     private PathMatch pathMatch;
+    private PathMatchAutomaton pathMatchAutomaton; // compiled when first used
     
     public PathMatches(Statement stmnt) {
         super(stmnt);
@@ -49,7 +50,48 @@ public class PathMatches extends AbstractNode implements Node {
     public OperonValue evaluate() throws OperonGenericException {
         //System.out.println("PathMatches :: evaluate()");
         OperonValue currentValue = this.getStatement().getCurrentValue();
-        return PathMatches.matchPath(this.getStatement(), currentValue, this.getPathMatch());
+        Path path = (Path) currentValue.evaluate();
+        if (this.getPathMatchAutomaton().matches(this.getStatement(), path)) {
+            return new TrueType(this.getStatement());
+        }
+        return new FalseType(this.getStatement());
+    }
+
+    //
+    // Match the single PathPart against the PathMatchPart, which is not '?*' or '?+'.
+    // This is the same comparison that the matchPath does for the parts before the wildcards.
+    //
+    public static boolean matchPathPart(Statement stmt, PathPart sourcePathPart, PathMatchPart pathMatchPart) throws OperonGenericException {
+        if (pathMatchPart instanceof AnySinglePathMatchPart) {
+            return true;
+        }
+        
+        if (sourcePathPart instanceof KeyPathPart) {
+            String sourceKey = ((KeyPathPart) sourcePathPart).getKey();
+            if (pathMatchPart instanceof KeyPathMatchPart) {
+                return sourceKey.equals(((KeyPathMatchPart) pathMatchPart).getKey());
+            }
+            else if (pathMatchPart instanceof DynamicKeyPathMatchPart) {
+                Node dnKeyExpr = ((DynamicKeyPathMatchPart) pathMatchPart).getKeyExpr();
+                StringType sourceKeyValue = new StringType(stmt);
+                sourceKeyValue.setFromJavaString(sourceKey);
+                dnKeyExpr.getStatement().setCurrentValue(sourceKeyValue);
+                OperonValue dnKeyExprResult = dnKeyExpr.evaluate();
+                if (dnKeyExprResult instanceof TrueType) {
+                    return true;
+                }
+                else if (dnKeyExprResult instanceof StringType) {
+                    return sourceKey.equals(((StringType) dnKeyExprResult).getJavaStringValue());
+                }
+            }
+            return false;
+        }
+        
+        else if (sourcePathPart instanceof PosPathPart && pathMatchPart instanceof FilterListPathMatchPart) {
+            return PathMatches.evaluatePosPathAgainstFilterListPathMatchPart(stmt, (PosPathPart) sourcePathPart, (FilterListPathMatchPart) pathMatchPart);
+        }
+        
+        return false;
     }
 
     // 
@@ -404,10 +446,18 @@ public class PathMatches extends AbstractNode implements Node {
     
     public void setPathMatch(PathMatch pm) {
         this.pathMatch = pm;
+        this.pathMatchAutomaton = null;
     }
     
     public PathMatch getPathMatch() {
         return this.pathMatch;
     }
 
+    public PathMatchAutomaton getPathMatchAutomaton() {
+        if (this.pathMatchAutomaton == null) {
+            this.pathMatchAutomaton = PathMatchAutomaton.compile(this.getPathMatch());
+        }
+        return this.pathMatchAutomaton;
+    }
+
 }
\ No newline at end of file
@@ -17,6 +17,7 @@
 package io.operon.runner.node;
 
 import java.util.List;
+import java.util.Arrays;
 
 import io.operon.runner.statement.Statement;
 import io.operon.runner.node.Node;
@@ -138,6 +139,9 @@ public class Range extends OperonValue implements Node {
     public static ArrayType filterArray(ArrayType array, Range range) throws OperonGenericException {
         int rangeLhs = range.getEvaluatedLhs();
         int rangeRhs = range.getEvaluatedRhs();
+        if (array.getPackedValues() != null) {
+            return filterPackedArray(array, array.getPackedValues(), rangeLhs, rangeRhs);
+        }
         int arraySize = array.getValues().size();
         ArrayType result = new ArrayType(array.getStatement());
         
@@ -180,6 +184,65 @@ public class Range extends OperonValue implements Node {
         return result;
     }
     
+    //
+    // Same as filterArray, but takes the values from the packed values without materializing them.
+    //
+    private static ArrayType filterPackedArray(ArrayType array, PackedNumbers packed, int rangeLhs, int rangeRhs) throws OperonGenericException {
+        int arraySize = packed.size();
+        ArrayType result = new ArrayType(array.getStatement());
+        int[] positions = null;
+        int count = 0;
+        
+        int steps = 0;
+        if (rangeLhs >= rangeRhs) {
+            steps = rangeLhs - rangeRhs + 1;
+            positions = new int[Math.min(steps, arraySize)];
+            for (int i = 0; i < steps; i ++) {
+                int takeIndex = rangeLhs - i;
+                if (takeIndex < 0) {
+                    takeIndex = arraySize + takeIndex + 1;
+                }
+                if (takeIndex <= 0) {
+                    continue;
+                }
+                if (takeIndex > arraySize) {
+                    continue;
+                }
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, count * 2 + 1);
+                }
+                positions[count ++] = takeIndex - 1;
+            }
+        }
+        else {
+            steps = rangeRhs - rangeLhs + 1;
+            if (steps > arraySize) {
+                steps = arraySize;
+            }
+            positions = new int[steps];
+            for (int i = 0; i < steps; i ++) {
+                int takeIndex = rangeLhs + i;
+                if (takeIndex < 0) {
+                    takeIndex = arraySize + takeIndex + 1;
+                }
+                if (takeIndex <= 0) {
+                    continue;
+                }
+                positions[count ++] = takeIndex - 1;
+            }
+        }
+        
+        if (count >= PackedNumbers.MIN_PACKED_SIZE) {
+            result.setPackedValues(packed.select(positions, count));
+        }
+        else {
+            for (int i = 0; i < count; i ++) {
+                result.addValue(packed.toNumberType(positions[i], array.getStatement()));
+            }
+        }
+        return result;
+    }
+    
     public static ObjectType filterObj(ObjectType obj, Range range) throws OperonGenericException {
         int rangeLhs = range.getEvaluatedLhs();
         int rangeRhs = range.getEvaluatedRhs();
@@ -67,6 +67,8 @@ public class UnaryNode extends AbstractNode implements Node {
     public Node getNode() { return this.node; }
 
     public void setUnaryNodeProcessor(UnaryNodeProcessor proc) {this.proc = proc; }
+    
+    public UnaryNodeProcessor getUnaryNodeProcessor() {return this.proc; }
 
     public String toString() {
         return this.getEvaluatedValue().toString();
@@ -27,6 +27,7 @@ import io.operon.runner.statement.FunctionStatement;
 import io.operon.runner.statement.SelectStatement;
 import io.operon.runner.statement.ExceptionStatement;
 import io.operon.runner.statement.LetStatement;
+import io.operon.runner.statement.RuntimeValues;
 import io.operon.runner.node.Node;
 import io.operon.runner.node.type.*;
 import io.operon.runner.util.JsonUtil;
@@ -54,6 +55,19 @@ public class ValueRef extends AbstractNode implements Node {
     private boolean valueBoundToOperator = false;
     private ValueLocationType valueLocation = ValueLocationType.UNKNOWN;
     
+    //
+    // Resolved with resolveSlot, when the symbol is not computed:
+    //   - slotKey: the symbol with the namespaces, and its slot in the RuntimeValues
+    //   - key, slot: of the slotKey, read on each evaluation
+    //   - letStatement: the LetStatement where the value was found from (with the map where it was found from),
+    //     which is evaluated directly instead of looking it up again.
+    //
+    private transient RuntimeValues.SlotKey slotKey = null; // resolved again after the deserialization
+    private transient String key = null;
+    private int slot = -1;
+    private LetStatement letStatement = null;
+    private Map<String, LetStatement> letStatementFrom = null;
+    
     public ValueRef(Statement stmnt) {
         super(stmnt);
         this.namespaces = new ArrayList<String>();
@@ -81,11 +95,17 @@ public class ValueRef extends AbstractNode implements Node {
         // **************************************** DEBUG
         
         // add the namespace if present
-        String getKey = this.buildKey(this.getNamespaces());
+        String getKey = this.key;
+        if (getKey == null) {
+            getKey = this.buildKey(this.getNamespaces());
+            if (this.getComputedValueRef() == null) {
+                this.resolveSlot();
+            }
+        }
         
         OperonValue value = null;
         
-        if (getKey.equals("@")) {
+        if (this.slot == RuntimeValues.CURRENT_VALUE_SLOT || getKey.equals("@")) {
             //System.out.println("ValueRef :: CV");
             value = this.getStatement().getCurrentValue();
             //System.out.println("ValueRef :: CV :: " + value);
@@ -136,9 +156,17 @@ public class ValueRef extends AbstractNode implements Node {
             else if (this.valueLocation == ValueLocationType.SUB_MODULE) {
                 value = this.resolveFromParentScope(getKey);
             }
+            
+            if (value == null) {
+                // The value was not in the same place as before, resolve it again:
+                this.valueLocation = ValueLocationType.UNKNOWN;
+                this.letStatement = null;
+                this.letStatementFrom = null;
+            }
         }
 
-        else {
+        if (value == null && this.valueLocation == ValueLocationType.UNKNOWN
+                && getKey.equals("@") == false && getKey.equals("$") == false) {
             //
             // Get from statement's own runtimeValues (statement may be e.g. Select, Let, Function)
             //
@@ -195,6 +223,7 @@ public class ValueRef extends AbstractNode implements Node {
             }
             
             if (value == null) {
+                this.valueLocation = ValueLocationType.UNKNOWN;
                 //:OFF:log.debug("ValueRef :: cannot resolve value :: " + getKey);
                 ErrorUtil.createErrorValueAndThrow(this.getStatement(), "VALUE_REF", "ERROR", "Cannot resolve value: " + getKey);
             }
@@ -225,7 +254,7 @@ public class ValueRef extends AbstractNode implements Node {
     //   Each strategy sets the location if value was found.
     //   
     private OperonValue resolveFromStatementOwnRuntimeValues(String getKey) throws OperonGenericException {
-        OperonValue result = this.getStatement().getRuntimeValues().get(getKey);
+        OperonValue result = this.getRuntimeValue(this.getStatement(), getKey);
         if (result != null) {
             this.valueLocation = ValueLocationType.STAMENT_OWN;
         }
@@ -233,7 +262,7 @@ public class ValueRef extends AbstractNode implements Node {
     }
     
     private OperonValue resolveFromFunctionStatement(String getKey) throws OperonGenericException {
-        LetStatement letStatement = (LetStatement) ((FunctionStatement) this.getStatement()).getLetStatements().get(getKey);
+        LetStatement letStatement = this.getLetStatement(((FunctionStatement) this.getStatement()).getLetStatements(), getKey);
         OperonValue result = getValueFromLetStatement(letStatement, getKey);
         if (result != null) {
             this.valueLocation = ValueLocationType.FUNCTION_STATEMENT;
@@ -242,7 +271,7 @@ public class ValueRef extends AbstractNode implements Node {
     }
     
     private OperonValue resolveFromSelectStatement(String getKey) throws OperonGenericException {
-        LetStatement letStatement = (LetStatement) ((SelectStatement) this.getStatement()).getLetStatements().get(getKey);
+        LetStatement letStatement = this.getLetStatement(((SelectStatement) this.getStatement()).getLetStatements(), getKey);
         OperonValue result = getValueFromLetStatement(letStatement, getKey);
         if (result != null) {
             this.valueLocation = ValueLocationType.SELECT_STATEMENT;
@@ -251,7 +280,7 @@ public class ValueRef extends AbstractNode implements Node {
     }
     
     private OperonValue resolveFromExceptionStatement(String getKey) throws OperonGenericException {
-        LetStatement letStatement = (LetStatement) ((ExceptionStatement) this.getStatement()).getLetStatements().get(getKey);
+        LetStatement letStatement = this.getLetStatement(((ExceptionStatement) this.getStatement()).getLetStatements(), getKey);
         OperonValue result = getValueFromLetStatement(letStatement, getKey);
         if (result != null) {
             this.valueLocation = ValueLocationType.EXCEPTION_STATEMENT;
@@ -260,7 +289,7 @@ public class ValueRef extends AbstractNode implements Node {
     }
     
     private OperonValue resolveFromDefaultStatement(String getKey) throws OperonGenericException {
-        LetStatement letStatement = (LetStatement) ((DefaultStatement) this.getStatement()).getLetStatements().get(getKey);
+        LetStatement letStatement = this.getLetStatement(((DefaultStatement) this.getStatement()).getLetStatements(), getKey);
         OperonValue result = getValueFromLetStatement(letStatement, getKey);
         if (result != null) {
             this.valueLocation = ValueLocationType.DEFAULT_STATEMENT;
@@ -275,7 +304,7 @@ public class ValueRef extends AbstractNode implements Node {
             //:OFF:log.debug("    >> ValueRef :: Context's Let-statements were null.");
             return null;
         }
-        LetStatement letStatement = (LetStatement) letStatements.get(getKey);
+        LetStatement letStatement = this.getLetStatement(letStatements, getKey);
         OperonValue result = getValueFromLetStatement(letStatement, getKey);
         if (result != null) {
             this.valueLocation = ValueLocationType.LET_STAMENT;
@@ -290,7 +319,7 @@ public class ValueRef extends AbstractNode implements Node {
         
         while (parent != null && value == null) {
             if (parent != null) {
-                value = parent.getRuntimeValues().get(getKey);
+                value = this.getRuntimeValue(parent, getKey);
                 if (value == null) {
                     // Check from parent't LetStatement, if parent is FunctionStatement
                     if (parent instanceof FunctionStatement){ 
@@ -370,6 +399,48 @@ public class ValueRef extends AbstractNode implements Node {
     }
     
     // Helpers:
+    
+    //
+    // Resolves the key and the slot for the symbol, so they are not built again on each evaluation.
+    // This is called by the compiler after the symbol and the namespaces are set, and on the first
+    // evaluation if not called by the compiler. Not for the computed value-refs, i.e. $(expr).
+    //
+    public void resolveSlot() {
+        if (this.getComputedValueRef() != null || this.getValueRef() == null) {
+            return;
+        }
+        try {
+            RuntimeValues.SlotKey slotKey = RuntimeValues.slotKeyOf(this.buildKey(this.getNamespaces()));
+            this.slotKey = slotKey;
+            this.slot = slotKey.getSlot();
+            this.key = slotKey.getKey();
+        } catch (OperonGenericException oge) {
+            // Not thrown when the symbol is not computed.
+        }
+    }
+    
+    private OperonValue getRuntimeValue(Statement stmt, String getKey) {
+        if (this.key != null) {
+            return RuntimeValues.get(stmt.getRuntimeValues(), this.slot, getKey);
+        }
+        return stmt.getRuntimeValues().get(getKey);
+    }
+    
+    //
+    // The LetStatement is looked up once from the same map.
+    // The LetStatements are added into the maps before the query is evaluated.
+    //
+    private LetStatement getLetStatement(Map<String, LetStatement> letStatements, String getKey) {
+        if (this.key != null && this.letStatementFrom == letStatements) {
+            return this.letStatement;
+        }
+        LetStatement letStatement = (LetStatement) letStatements.get(getKey);
+        if (letStatement != null && this.key != null) {
+            this.letStatement = letStatement;
+            this.letStatementFrom = letStatements;
+        }
+        return letStatement;
+    }
 
 
 
@@ -383,7 +454,13 @@ public class ValueRef extends AbstractNode implements Node {
             
             // Never reset:
             if (letStatement.getResetType() == LetStatement.ResetType.NEVER) {
-                this.getStatement().getPreviousStatement().getRuntimeValues().put(getKey, value);
+                Map<String, OperonValue> runtimeValues = this.getStatement().getPreviousStatement().getRuntimeValues();
+                if (this.key != null) {
+                    RuntimeValues.put(runtimeValues, this.slotKey, value);
+                }
+                else {
+                    runtimeValues.put(getKey, value);
+                }
             }
             return value;
         }
@@ -100,11 +100,21 @@ public class Where extends AbstractNode implements Node, java.io.Serializable {
         Info info = this.resolveConfigs(this.getStatement());
 
         this.currentPath = new Path(this.getStatement());
+        this.currentDepth = 0;
+        this.matchedPaths = new ArrayList<Path>();
         
-        //
-        // This result is not used?
-        //
-        Node resultTraverse = this.evaluateSelector(currentValue, info);
+        PathMatchAutomaton automaton = this.getPathMatches().getPathMatchAutomaton();
+        OperonValue evaluatedValue = currentValue.evaluate();
+        if (evaluatedValue instanceof ObjectType) {
+            this.evaluateObj((ObjectType) evaluatedValue, automaton, automaton.start(), info);
+        }
+        else if (evaluatedValue instanceof ArrayType) {
+            this.evaluateArray((ArrayType) evaluatedValue, automaton, automaton.start(), info);
+        }
+        else {
+            ////:OFF:log.debug("Where: cannot apply. Wrong type: " + evaluatedValue);
+            ErrorUtil.createErrorValueAndThrow(this.getStatement(), "WHERE", "TYPE", "Cannot apply. Wrong type.");
+        }
         
         //debug("Where.evaluate() done");
         //debug("    Matched paths: " + this.matchedPaths);
@@ -115,56 +125,31 @@ public class Where extends AbstractNode implements Node, java.io.Serializable {
         return result;
     }
 
-    private ArrayType evaluateSelector(OperonValue value, Info info) throws OperonGenericException {
-        OperonValue evaluatedValue = value.evaluate();
-        if (evaluatedValue instanceof ObjectType) {
-            ////:OFF:log.debug("EXIT Where.evaluate() obj");
-            return evaluateObj( (ObjectType) evaluatedValue, info );
-        }
-        
-        else if (evaluatedValue instanceof ArrayType) {
-            ////:OFF:log.debug("EXIT Where.evaluate() array");
-            return evaluateArray( (ArrayType) evaluatedValue, info );
-        }
-        
-        ////:OFF:log.debug("Where: cannot apply. Wrong type: " + evaluatedValue);
-        ErrorUtil.createErrorValueAndThrow(this.getStatement(), "WHERE", "TYPE", "Cannot apply. Wrong type.");
-        return null;
-    }
-
     //
     // CurrentValue was Object
     //
-    private ArrayType evaluateObj(ObjectType obj, Info info) throws OperonGenericException {
-        ArrayType result = new ArrayType(this.getStatement());
-        
-        //debug("OBJ START PATH PART = " + this.currentPath);
-        //debug("   CurrentPath size = " + this.currentPath.getPathParts().size());
-        
-        int startPathSize = this.currentPath.getPathParts().size();
-        
+    // The currentPath is the path of the obj. The PathPart of each pair is added into it for
+    // the duration of the pair, and the PathMatchAutomaton is advanced with it from the state of the obj.
+    // The pairs that cannot match (DEAD) are not descended into.
+    //
+    private void evaluateObj(ObjectType obj, PathMatchAutomaton automaton, int state, Info info) throws OperonGenericException {
         //
         // Scan through the struct, and evaluate the key for each PairType
         //
-        for (int i = 0; i < obj.getPairs().size(); i ++) {
-            PairType pair = obj.getPairs().get(i);
+        List<PairType> pairs = obj.getPairs();
+        for (int i = 0; i < pairs.size() && this.isDone(info) == false; i ++) {
+            PairType pair = pairs.get(i);
             ////:OFF:log.debug("    Obj key :: " + pair.getKey());
 
-            PathPart pp = new KeyPathPart(pair.getKey().substring(1, pair.getKey().length() - 1));
-            //this.currentPath.setValueLink(pair.getValue());
-            //this.currentPath.setObjLink(this.getRootValue());
+            PathPart pp = new KeyPathPart(pair.getKeyName());
             this.currentPath.addPathPart(pp);
             this.currentDepth += 1;
             
             //debug("  - Obj CurrentPath = " + this.currentPath + ", CurrentDepth = " + this.currentDepth);
             
-            PathMatch pathMatch = this.getPathMatches().getPathMatch();
+            int pairState = automaton.step(obj.getStatement(), state, pp);
             
-            //debug("   - PathMatch :: " + pathMatch);
-            OperonValue isMatch = PathMatches.matchPath(obj.getStatement(), this.currentPath, pathMatch);
-            
-            //debug("    Is match: " + isMatch);
-            if (isMatch instanceof TrueType) {
+            if (automaton.matches(obj.getStatement(), this.currentPath, pairState)) {
                 //
                 // evaluate whereExpr
                 //
@@ -173,11 +158,11 @@ public class Where extends AbstractNode implements Node, java.io.Serializable {
                     try {
                         expr.getStatement().setCurrentValue(obj);
                         expr.getStatement().setCurrentPath(currentPath);
-                        isMatch = expr.evaluate();
+                        OperonValue isMatch = expr.evaluate();
                         
                         if (isMatch instanceof TrueType) {
                             //debug("    - Match: adding to matchedPaths");
-                            this.matchedPaths.add(this.currentPath.copy());
+                            this.matchedPaths.add(this.currentPath.shallowCopy());
                         }
                     } catch (OperonGenericException oge) {
                         // noop
@@ -186,123 +171,43 @@ public class Where extends AbstractNode implements Node, java.io.Serializable {
 
                 else {
                     //debug("    - Match: adding to matchedPaths");
-                    this.matchedPaths.add(this.currentPath.copy());                    
+                    this.matchedPaths.add(this.currentPath.shallowCopy());                    
                 }
             }
 
-            if (info.maxResults != null && matchedPaths.size() >= info.maxResults) {
-                break;
-            }
-
-            OperonValue subObj = pair.getEvaluatedValue();
-            ArrayType subResult = null;
-            //boolean recursed = false;
-            
-            if (((subObj instanceof ObjectType) || (subObj instanceof ArrayType))) {
-                if (info.maxDepth == null || currentDepth < info.maxDepth) {
-                    //recursed = true;
-                    subResult = (ArrayType) evaluateSelector(subObj, info);
-                    if (subResult.getValues().size() > 0) {
-                        //
-                        // Recursive call creates an array, which must be flattened:
-                        //
-                        for (Node n : subResult.getValues()) {
-                            if (subResult != null) {
-                                result.addValue(n);
-                            }
-                        }
-                    }
-                    else {
-    
-                    }
-                }
+            if (automaton.canDescend(pairState) && this.isDone(info) == false
+                    && (info.maxDepth == null || this.currentDepth < info.maxDepth)) {
+                this.evaluateValue(pair.getEvaluatedValue(), automaton, pairState, info);
             }
             
-            //
-            // TODO: do not backtrack after last iteration!
-            //
-            if (i < obj.getPairs().size() - 1 && this.currentPath.getPathParts().size() > 0 && 
-                    this.currentPath.getPathParts().get(this.currentPath.getPathParts().size() - 1) instanceof KeyPathPart) {
-                //debug("  - Object :: backtracking from obj pair");
-                this.currentPath.removeLastPathPart();
-                this.currentDepth -= 1;
-                //debug("    - After backtrack :: Obj CurrentPath = " + this.currentPath + ", CurrentDepth = " + this.currentDepth);
-            }
-        }
-        
-        //debug("Obj ENDed: will now remove last path part");
-        //debug("  - PathSize=" + this.currentPath.getPathParts().size());
-        //debug("  - currentPath: " + this.currentPath);
-        //debug("  - currentDepth: " + this.currentDepth);
-        
-        int endPathSize = this.currentPath.getPathParts().size();
-        
-        //
-        // FIXME: in certain case this does one removal too much!
-        //
-        
-        //
-        // Remove the last path-part only if the path was not returned to
-        // the original size (these are mutually exlusive operations).
-        //
-        boolean rmLast = true;
-        //debug("  - Path size when this routine started: startPathSize=" + startPathSize + " :: size after this routine: endPathSize=" + endPathSize);
-        for (int i = 0; i < endPathSize - startPathSize; i ++) {
-            //debug("    - Sizes differ: will chop back to start-path size");
-            this.currentPath.removeLastPathPart();
-            rmLast = false;
-        }
-        
-        if (rmLast == true) {
-            //debug("  - Will now remove last part");
             this.currentPath.removeLastPathPart();
             this.currentDepth -= 1;
-            //debug("Obj -data after removing last path-part:");
-            //debug("  - PathSize=" + this.currentPath.getPathParts().size());
-            //debug("  - currentPath: " + this.currentPath);
-            //debug("  - currentDepth: " + this.currentDepth);
-        }
-        else {
-            //debug("Obj -data after chopping back to start-path size:");
-            //debug("  - PathSize=" + this.currentPath.getPathParts().size());
-            //debug("  - currentPath: " + this.currentPath);
-            //debug("  - currentDepth: " + this.currentDepth);
         }
-
-        return result;
     }
     
     //
     // CurrentValue is Array
     //
-    private ArrayType evaluateArray(ArrayType array, Info info) throws OperonGenericException {
+    // The positions do not count into the currentDepth (the maxDepth is the depth of the objects).
+    //
+    private void evaluateArray(ArrayType array, PathMatchAutomaton automaton, int state, Info info) throws OperonGenericException {
         ////:OFF:log.debug("Accessing array of objects");
         //debug("Accessing array");
         
-        ArrayType resultArray = new ArrayType(this.getStatement());
         List<Node> arrayValues = array.getValues();
         
-        for (int i = 0; i < arrayValues.size(); i ++) {
-            Node arrayNode = arrayValues.get(i);
+        for (int i = 0; i < arrayValues.size() && this.isDone(info) == false; i ++) {
             ////:OFF:log.debug("    >> Looping: " + i);
             //debug("Array Looping i=" + i);
             
-            OperonValue arrayNodeEvaluated = arrayNode.evaluate();
-            
             PathPart pp = new PosPathPart(i + 1);
-            //this.currentPath.setValueLink(arrayNodeEvaluated);
-            //this.currentPath.setObjLink(this.getRootValue());
             this.currentPath.addPathPart(pp);
             
             //debug("ARRAY CurrentPath = " + this.currentPath + ", CurrentDepth = " + this.currentDepth);
             
-            PathMatch pathMatch = this.getPathMatches().getPathMatch();
-            
-            //debug("   - PathMatch :: " + pathMatch);
-            OperonValue isMatch = PathMatches.matchPath(array.getStatement(), this.currentPath, pathMatch);
+            int elementState = automaton.step(array.getStatement(), state, pp);
             
-            //debug("    Is match: " + isMatch);
-            if (isMatch instanceof TrueType /*&& truncated == false*/) {
+            if (automaton.matches(array.getStatement(), this.currentPath, elementState)) {
                 //
                 // evaluate whereExpr
                 //
@@ -312,11 +217,11 @@ public class Where extends AbstractNode implements Node, java.io.Serializable {
                         OperonValue pathValue = PathValue.get(array, currentPath);
                         expr.getStatement().setCurrentValue(pathValue);
                         expr.getStatement().setCurrentPath(currentPath);
-                        isMatch = expr.evaluate();
+                        OperonValue isMatch = expr.evaluate();
                         
                         if (isMatch instanceof TrueType) {
                             //debug("    - Match: adding to matchedPaths");
-                            this.matchedPaths.add(this.currentPath.copy());
+                            this.matchedPaths.add(this.currentPath.shallowCopy());
                         }
                     }
                     catch (OperonGenericException oge) {
@@ -326,64 +231,33 @@ public class Where extends AbstractNode implements Node, java.io.Serializable {
 
                 else {
                     //debug("    - Match: adding to matchedPaths");
-                    this.matchedPaths.add(this.currentPath.copy());                    
-                }
-            }
-            
-            if (info.maxResults != null && matchedPaths.size() >= info.maxResults) {
-                break;
-            }
-            
-            if (arrayNodeEvaluated instanceof ObjectType) {
-                if (info.maxDepth != null && currentDepth >= info.maxDepth) {
-                    System.out.println("ARR: maxDepth, currentDepth = " + currentDepth);
-                    continue;
-                }
-                ArrayType arrayNodeResult = (ArrayType) evaluateObj((ObjectType) arrayNodeEvaluated, info);
-                if (arrayNodeResult.getValues().size() > 0) {
-                    //
-                    // Recursive call creates an array, which must be flattened:
-                    //
-                    for (Node n : arrayNodeResult.getValues()) {
-                        resultArray.addValue(n);
-                    }
+                    this.matchedPaths.add(this.currentPath.shallowCopy());                    
                 }
-                // ADDED while fixing:
-                this.currentPath.removeLastPathPart();
-                this.currentDepth -= 1;
             }
             
-            // Added this so we can traverse nested arrays [[]]
-            else if (arrayNodeEvaluated instanceof ArrayType) {
-                if (info.maxDepth != null && currentDepth >= info.maxDepth) {
-                    System.out.println("ARR: maxDepth, currentDepth = " + currentDepth);
-                    continue;
-                }
-                //debug("Array recurse");
-                ArrayType arrayNodeResult = (ArrayType) evaluateArray((ArrayType) arrayNodeEvaluated, info);
-                if (arrayNodeResult.getValues().size() > 0) {
-                    //
-                    // Recursive call creates an array, which must be flattened:
-                    //
-                    for (Node n : arrayNodeResult.getValues()) {
-                        resultArray.addValue(n);
-                    }
-                }
-                //debug("Array :: tracking back");
-                //debug("  - ARRAY CurrentPath = " + this.currentPath + ", CurrentDepth = " + this.currentDepth);
-                this.currentPath.removeLastPathPart();
-                this.currentDepth -= 1;
-            }
-            
-            else {
-                //debug("Array :: last tracking back");
-                //debug("  - ARRAY CurrentPath = " + this.currentPath + ", CurrentDepth = " + this.currentDepth);
-                this.currentPath.removeLastPathPart();
+            if (automaton.canDescend(elementState) && this.isDone(info) == false
+                    && (info.maxDepth == null || this.currentDepth < info.maxDepth)) {
+                this.evaluateValue(arrayValues.get(i).evaluate(), automaton, elementState, info);
             }
             
+            this.currentPath.removeLastPathPart();
         }
-        
-        return resultArray;
+    }
+    
+    private void evaluateValue(OperonValue value, PathMatchAutomaton automaton, int state, Info info) throws OperonGenericException {
+        if (value instanceof ObjectType) {
+            this.evaluateObj((ObjectType) value, automaton, state, info);
+        }
+        else if (value instanceof ArrayType) {
+            this.evaluateArray((ArrayType) value, automaton, state, info);
+        }
+    }
+    
+    //
+    // The traversal stops when the maxResults have been found.
+    //
+    private boolean isDone(Info info) {
+        return info.maxResults != null && this.matchedPaths.size() >= info.maxResults;
     }
     
     private void debug(String value) {
@@ -18,6 +18,9 @@ package io.operon.runner.node.type;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 import io.operon.runner.statement.Statement;
 import io.operon.runner.node.FunctionRef;
@@ -28,6 +31,9 @@ import io.operon.runner.node.AbstractNode;
 import io.operon.runner.node.type.OperonValue;
 import io.operon.runner.node.type.EmptyType;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.JsonUtil;
+import io.operon.runner.util.NumberFormatter;
+import io.operon.runner.util.OperonValueCopier;
 import io.operon.runner.util.OutputFormatter;
 import io.operon.runner.util.YamlFormatter;
 
@@ -55,6 +61,33 @@ public class ArrayType extends OperonValue implements Node {
     
     private int arrayId;
     
+    //
+    // Copy-on-write: when set, the values are shared with other copies and this.values is null.
+    // The values are copied on the first access through getValues(). See OperonValueCopier.
+    //
+    private volatile OperonValueCopier.Shared<Node> sharedValues;
+    
+    //
+    // Cached structural hash (see JsonUtil.structuralHash), set only when the array is locked.
+    // Dropped when the values are accessed through getValues / setValues.
+    //
+    private transient volatile Integer structuralHash;
+    
+    //
+    // Index of the scalar values (see JsonUtil.scalarKey), used by the membership-tests
+    // (in-operator and array:contains). Kept for the evaluated arrays, and dropped as the structuralHash.
+    //
+    private transient volatile Set<Object> scalarIndex;
+    
+    //
+    // Packed numeric values: when set, this.values is null. The values are materialized
+    // into NumberTypes on the first access through getValues / peekValues.
+    // The array-functions (e.g. array:sum, array:sort) use the packed values directly.
+    //
+    private volatile PackedNumbers packedValues;
+    
+    private static final Set<Object> NOT_INDEXABLE = Collections.unmodifiableSet(new HashSet<Object>());
+    
     public ArrayType(Statement stmt) {
         super(stmt);
         this.values = new ArrayList<Node>(); // RF
@@ -86,7 +119,11 @@ public class ArrayType extends OperonValue implements Node {
                     //:OFF:log.debug("    ArrayType :: Range :: rangeLhs :: " + rangeLhs);
                     //:OFF:log.debug("    ArrayType :: Range :: rangeRhs :: " + rangeRhs);
                     
-                    int steps = 0;
+                    int steps = Math.abs(rangeRhs - rangeLhs) + 1;
+                    if (steps >= PackedNumbers.MIN_PACKED_SIZE && this.appendPacked(PackedNumbers.range(rangeLhs, rangeRhs))) {
+                        return;
+                    }
+                    
                     if (rangeLhs >= rangeRhs) {
                         steps = rangeLhs - rangeRhs + 1;
                         // direction = -1;
@@ -141,6 +178,18 @@ public class ArrayType extends OperonValue implements Node {
             currentValue = this;
         }
 
+        PackedNumbers packed = this.packedValues;
+        if (packed != null) {
+            // The numbers are atomic, the result shares the packed values.
+            ArrayType result = new ArrayType(this.getStatement());
+            result.setArrayValueType(this.getArrayValueType());
+            result.setPackedValues(packed);
+            this.setPreventReEvaluation(false);
+            result.setUnboxed(true);
+            this.getStatement().setCurrentValue(result);
+            return result;
+        }
+
         ArrayType result = new ArrayType(this.getStatement());
         result.setArrayValueType(this.getArrayValueType());
         //result.setParentObj(this.getParentObj());
@@ -174,13 +223,216 @@ public class ArrayType extends OperonValue implements Node {
     }
     
     public List<Node> getValues() {
+        this.structuralHash = null;
+        this.scalarIndex = null;
+        if (this.sharedValues != null) {
+            this.unshareValues();
+        }
+        else if (this.packedValues != null) {
+            this.unpackValues();
+        }
         return this.values;
     }
     
     public void setValues(List<Node> values) {
+        OperonValueCopier.Shared<Node> shared = this.sharedValues;
+        if (shared != null) {
+            shared.release();
+            this.sharedValues = null;
+        }
+        this.structuralHash = null;
+        this.scalarIndex = null;
+        this.packedValues = null;
         this.values = values;
     }
     
+    //
+    // @returns the packed values, or null when the values are not packed.
+    //
+    public PackedNumbers getPackedValues() {
+        return this.packedValues;
+    }
+    
+    public void setPackedValues(PackedNumbers packed) {
+        this.setValues(null);
+        this.packedValues = packed;
+    }
+    
+    //
+    // Appends the packed values when this array is empty or has packed values with the same precision.
+    // @returns false when the values were not appended.
+    //
+    private boolean appendPacked(PackedNumbers packed) {
+        PackedNumbers current = this.packedValues;
+        if (current != null) {
+            PackedNumbers concat = current.concat(packed);
+            if (concat == null) {
+                return false;
+            }
+            this.setPackedValues(concat);
+            return true;
+        }
+        if (this.sharedValues == null && this.values != null && this.values.isEmpty()) {
+            this.setPackedValues(packed);
+            return true;
+        }
+        return false;
+    }
+    
+    private synchronized void unpackValues() {
+        PackedNumbers packed = this.packedValues;
+        if (packed == null) {
+            return;
+        }
+        this.values = packed.toNodes(this.getStatement());
+        this.packedValues = null;
+    }
+    
+    //
+    // Returns the values without copying the shared values (copy-on-write).
+    // The returned list and values must not be modified.
+    //
+    public List<Node> peekValues() {
+        OperonValueCopier.Shared<Node> shared = this.sharedValues;
+        if (shared != null) {
+            return shared.getList();
+        }
+        if (this.packedValues != null) {
+            this.unpackValues();
+        }
+        return this.values;
+    }
+    
+    //
+    // Ordered hash of the values, consistent with JsonUtil.isIdentical.
+    //
+    public int getStructuralHash() throws OperonGenericException {
+        Integer cached = this.structuralHash;
+        if (cached != null) {
+            return cached;
+        }
+        int hash = 1;
+        PackedNumbers packed = this.packedValues;
+        if (packed != null) {
+            for (int i = 0; i < packed.size(); i ++) {
+                hash = 31 * hash + JsonUtil.numberHash(packed.getDouble(i));
+            }
+        }
+        else {
+            for (Node value : this.peekValues()) {
+                if (value instanceof OperonValue == false) {
+                    value = value.evaluate();
+                }
+                hash = 31 * hash + JsonUtil.structuralHash((OperonValue) value);
+            }
+        }
+        if (this.getUnboxed() && this.getPreventReEvaluation()) {
+            this.structuralHash = hash;
+        }
+        return hash;
+    }
+    
+    //
+    // @returns the scalar-keys of the values (see JsonUtil.scalarKey), or null when the values
+    //          cannot be tested through the index (e.g. a value has bindings or is not evaluated).
+    //          Non-scalar values are not in the index, they are never equal to a scalar value.
+    //
+    public Set<Object> getScalarIndex() {
+        Set<Object> index = this.scalarIndex;
+        PackedNumbers packed = this.packedValues;
+        if (index == null && packed != null) {
+            index = new HashSet<Object>();
+            for (int i = 0; i < packed.size(); i ++) {
+                Object key = JsonUtil.numberKey(packed.getDouble(i));
+                if (key == null) {
+                    index = NOT_INDEXABLE; // NaN
+                    break;
+                }
+                index.add(key);
+            }
+            if (this.getUnboxed()) {
+                this.scalarIndex = index;
+            }
+        }
+        else if (index == null) {
+            index = new HashSet<Object>();
+            for (Node value : this.peekValues()) {
+                if ((value instanceof AtomicOperonValue == false && value instanceof ObjectType == false
+                        && value instanceof ArrayType == false)
+                        || value.getBindings().isEmpty() == false) {
+                    index = NOT_INDEXABLE;
+                    break;
+                }
+                if (value instanceof AtomicOperonValue) {
+                    Object key = JsonUtil.scalarKey((OperonValue) value);
+                    if (key == null && value instanceof NumberType) {
+                        index = NOT_INDEXABLE; // NaN
+                        break;
+                    }
+                    if (key != null) {
+                        index.add(key);
+                    }
+                }
+            }
+            if (this.getUnboxed()) {
+                this.scalarIndex = index;
+            }
+        }
+        return (index == NOT_INDEXABLE ? null : index);
+    }
+    
+    //
+    // Copy-on-write: returns a copy which shares the values with this array.
+    //
+    public ArrayType shareCopy(Statement stmt) {
+        PackedNumbers packed = this.packedValues;
+        if (packed != null) {
+            ArrayType result = new ArrayType(stmt);
+            result.setPackedValues(packed);
+            result.setArrayValueType(this.getArrayValueType());
+            result.unboxed = this.unboxed;
+            result.preventReEvaluation = this.preventReEvaluation;
+            return result;
+        }
+        OperonValueCopier.Shared<Node> shared = null;
+        synchronized (this) {
+            if (this.sharedValues == null) {
+                this.sharedValues = new OperonValueCopier.Shared<Node>(this.values);
+                this.values = null;
+            }
+            shared = this.sharedValues;
+            shared.acquire();
+        }
+        ArrayType result = new ArrayType(stmt);
+        result.values = null;
+        result.sharedValues = shared;
+        result.setArrayValueType(this.getArrayValueType());
+        result.unboxed = this.unboxed;
+        result.preventReEvaluation = this.preventReEvaluation;
+        return result;
+    }
+    
+    private synchronized void unshareValues() {
+        OperonValueCopier.Shared<Node> shared = this.sharedValues;
+        if (shared == null) {
+            return;
+        }
+        synchronized (shared) {
+            if (shared.isLastOwner()) {
+                this.values = shared.getList();
+            }
+            else {
+                try {
+                    this.values = OperonValueCopier.copyValues(shared.getList(), this.getStatement());
+                } catch (OperonGenericException oge) {
+                    throw new RuntimeException(oge.getMessage());
+                }
+                shared.release();
+            }
+        }
+        this.sharedValues = null;
+    }
+    
     // Used by array:sort, min, max
     public static class ArrayComparator implements java.util.Comparator, java.io.Serializable {
         
@@ -262,10 +514,24 @@ public class ArrayType extends OperonValue implements Node {
     
     @Override
     public String toString() {
+        PackedNumbers packed = this.packedValues;
+        if (packed != null) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("[");
+            for (int i = 0; i < packed.size(); i ++) {
+                NumberFormatter.append(sb, packed.getDouble(i), packed.getPrecision(i));
+                if (i < packed.size() - 1) {
+                    sb.append(", ");
+                }
+            }
+            sb.append("]");
+            return sb.toString();
+        }
+        List<Node> values = this.peekValues();
         StringBuilder sb = new StringBuilder();
         sb.append("[");
-        for (int i = 0; i < this.getValues().size(); i ++) {
-            Node arrayValue = this.getValues().get(i);
+        for (int i = 0; i < values.size(); i ++) {
+            Node arrayValue = values.get(i);
             //assert (arrayValue != null): "ArrayType :: toString :: index at " + i + ", was null.";
             
             String arrayValueStr = arrayValue.toString();
@@ -276,7 +542,7 @@ public class ArrayType extends OperonValue implements Node {
             }
 
             sb.append(arrayValueStr);
-            if (i < this.getValues().size() - 1) {
+            if (i < values.size() - 1) {
                 sb.append(", ");
             }
         }
@@ -289,12 +555,30 @@ public class ArrayType extends OperonValue implements Node {
     @Override
     public String toFormattedString(OutputFormatter ofmt) {
         if (ofmt == null) {ofmt = new OutputFormatter();}
+        PackedNumbers packed = this.packedValues;
+        if (packed != null) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(ofmt.arrayStart + System.lineSeparator());
+            ofmt.spaces = (short) (ofmt.spaces + ofmt.spacing);
+            String indent = ofmt.spaces();
+            for (int i = 0; i < packed.size(); i ++) {
+                sb.append(indent);
+                NumberFormatter.append(sb, packed.getDouble(i), packed.getPrecision(i));
+                if (i < packed.size() - 1) {
+                    sb.append("," + System.lineSeparator());
+                }
+            }
+            ofmt.spaces = (short) (ofmt.spaces - ofmt.spacing); // reset spacing
+            sb.append(System.lineSeparator() + ofmt.spaces() + ofmt.arrayEnd);
+            return sb.toString();
+        }
+        List<Node> values = this.peekValues();
         StringBuilder sb = new StringBuilder();
         sb.append(ofmt.arrayStart + System.lineSeparator());
         ofmt.spaces = (short) (ofmt.spaces + ofmt.spacing);
-        for (int i = 0; i < this.getValues().size(); i ++) {
+        for (int i = 0; i < values.size(); i ++) {
             //System.out.println("<<< ArrayType, i=" + i + ", arrayId=" + this.getArrayId());
-            Node arrayValue = this.getValues().get(i);
+            Node arrayValue = values.get(i);
             //assert (arrayValue != null): "ArrayType :: toString :: index at " + i + ", was null.";
             
             String arrayValueStr = ofmt.spaces() + arrayValue.toFormattedString(ofmt);
@@ -305,7 +589,7 @@ public class ArrayType extends OperonValue implements Node {
             }
 
             sb.append(arrayValueStr);
-            if (i < this.getValues().size() - 1) {
+            if (i < values.size() - 1) {
                 sb.append("," + System.lineSeparator());
             }
         }
@@ -318,6 +602,7 @@ public class ArrayType extends OperonValue implements Node {
 
     @Override
     public String toYamlString(YamlFormatter yf) {
+        List<Node> values = this.peekValues();
         //System.out.println("ArrayType :: toYamlString, spaces = " + yf.spaces + ", arrayId=" + this.getArrayId());
         if (yf == null) {
             //System.out.println("ArrayType :: toYamlString :: yf was null, creating new YamlFormatter");
@@ -326,8 +611,8 @@ public class ArrayType extends OperonValue implements Node {
         StringBuilder sb = new StringBuilder();
 
         boolean spacingIncreased = false;
-        for (int i = 0; i < this.getValues().size(); i ++) {
-            Node arrayValue = this.getValues().get(i); //.evaluate();
+        for (int i = 0; i < values.size(); i ++) {
+            Node arrayValue = values.get(i); //.evaluate();
             String arrayValueStr = null;
             
             // Sub-array:
@@ -368,7 +653,7 @@ public class ArrayType extends OperonValue implements Node {
             }
 
             sb.append(arrayValueStr);
-            if (i < this.getValues().size() - 1) {
+            if (i < values.size() - 1) {
                 sb.append(System.lineSeparator());
             }
         }
@@ -381,13 +666,14 @@ public class ArrayType extends OperonValue implements Node {
 
     @Override
     public String toTomlString(OutputFormatter ofmt) {
+        List<Node> values = this.peekValues();
         if (ofmt == null) {ofmt = new OutputFormatter();}
         StringBuilder sb = new StringBuilder();
         sb.append(ofmt.arrayStart + System.lineSeparator());
         ofmt.spaces = (short) (ofmt.spaces + ofmt.spacing);
-        for (int i = 0; i < this.getValues().size(); i ++) {
+        for (int i = 0; i < values.size(); i ++) {
             //System.out.println("<<< ArrayType, i=" + i + ", arrayId=" + this.getArrayId());
-            Node arrayValue = this.getValues().get(i);
+            Node arrayValue = values.get(i);
             //assert (arrayValue != null): "ArrayType :: toString :: index at " + i + ", was null.";
             
             String arrayValueStr = ofmt.spaces() + arrayValue.toTomlString(ofmt);
@@ -398,7 +684,7 @@ public class ArrayType extends OperonValue implements Node {
             }
 
             sb.append(arrayValueStr);
-            if (i < this.getValues().size() - 1) {
+            if (i < values.size() - 1) {
                 sb.append("," + System.lineSeparator());
             }
         }
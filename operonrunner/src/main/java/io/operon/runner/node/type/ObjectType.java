@@ -30,6 +30,7 @@ import io.operon.runner.node.type.OperonValue;
 import io.operon.runner.node.type.EmptyType; 
 import io.operon.runner.util.ErrorUtil;
 import io.operon.runner.util.JsonUtil;
+import io.operon.runner.util.OperonValueCopier;
 import io.operon.runner.util.OutputFormatter;
 import io.operon.runner.util.YamlFormatter;
  
@@ -54,23 +55,35 @@ public class ObjectType extends OperonValue implements Node {
     //
     private Map<String, PairType> indexedPairs;
     
+    //
+    // Copy-on-write: when set, the pairs are shared with other copies and this.pairs is null.
+    // The pairs are copied on the first access through getPairs(). See OperonValueCopier.
+    //
+    private volatile OperonValueCopier.Shared<PairType> sharedPairs;
+    
+    //
+    // Cached structural hash (see JsonUtil.structuralHash), set only when the object is locked.
+    // Dropped when the pairs are accessed through getPairs / setPairs.
+    //
+    private transient volatile Integer structuralHash;
+    
     // Generated by the compiler.
     private int objId;
     
     public ObjectType(Statement stmnt) { 
         super(stmnt); 
-        this.pairs = new ArrayList<PairType>(); 
+        this.pairs = new PairList(); 
     }
  
     public void addPair(PairType pair) throws OperonGenericException {
         if (pair.getKey() == null) {
             ErrorUtil.createErrorValueAndThrow(this.getStatement(), "OBJECT", "ERROR", "Object addPair: key was null");
         }
-        if (this.hasKey(pair.getKey())) {
+        if (indexOfKey(this.peekPairs(), pair.getKey()) >= 0) {
             ErrorUtil.createErrorValueAndThrow(this.getStatement(), "OBJECT", "ERROR", "duplicate field not allowed: " + pair.getKey());
         }
         //System.out.println("Adding pair. Is empty? " + pair.isEmptyValue());
-        this.pairs.add(pair); 
+        this.getPairs().add(pair); 
     }
 
     //
@@ -78,7 +91,7 @@ public class ObjectType extends OperonValue implements Node {
     // do not require duplicate-key check, so this is much faster.
     //
     public void safeAddPair(PairType pair) {
-        this.pairs.add(pair); 
+        this.getPairs().add(pair); 
     }
 
     //
@@ -87,15 +100,7 @@ public class ObjectType extends OperonValue implements Node {
     //                 key was not found
     //
     public boolean addOrUpdatePair(PairType addPair) {
-        String key = addPair.getKey();
-        int updateIndex = -1;
-        for (int i = 0; i < this.getPairs().size(); i ++) {
-            String compareKey = this.getPairs().get(i).getKey();
-            if (compareKey.equals(key)) {
-                updateIndex = i;
-                break;
-            }
-        }
+        int updateIndex = indexOfKey(this.getPairs(), addPair.getKey());
         if (updateIndex > -1) {
             // Update
             this.getPairs().set(updateIndex, addPair);
@@ -103,7 +108,7 @@ public class ObjectType extends OperonValue implements Node {
         }
         else {
             // Add
-            this.pairs.add(addPair);
+            this.getPairs().add(addPair);
             return true;
         }
     }
@@ -113,16 +118,11 @@ public class ObjectType extends OperonValue implements Node {
     // @Throws an error if key is not found.
     //
     public void updatePairByKey(String key, OperonValue newValue) throws OperonGenericException {
-        int updateIndex = -1;
-        for (int i = 0; i < this.getPairs().size(); i ++) {
-            if (this.getPairs().get(i).getKey().equals("\"" + key + "\"")) {
-                updateIndex = i;
-                break;
-            }
-        }
+        String jStrKey = PairKey.quote(key);
+        int updateIndex = indexOfKey(this.getPairs(), jStrKey);
         if (updateIndex > -1) {
             PairType newPair = new PairType(this.getStatement());
-            newPair.setPair("\"" + key + "\"", newValue);
+            newPair.setPair(jStrKey, newValue);
             this.getPairs().set(updateIndex, newPair);
         }
         else {
@@ -134,13 +134,7 @@ public class ObjectType extends OperonValue implements Node {
     // @param key as non-quoted.
     //
     public void removePairByKey(String key) throws OperonGenericException {
-        int removeIndex = -1;
-        for (int i = 0; i < this.getPairs().size(); i ++) {
-            if (this.getPairs().get(i).getKey().equals("\"" + key + "\"")) {
-                removeIndex = i;
-                break;
-            }
-        }
+        int removeIndex = indexOfKey(this.getPairs(), PairKey.quote(key));
         if (removeIndex > -1) {
             this.getPairs().remove(removeIndex);
         }
@@ -152,11 +146,15 @@ public class ObjectType extends OperonValue implements Node {
     // @param fromKey as non-quoted.
     // @param toKey as non-quoted.
     public void renameKey(String fromKey, String toKey) throws OperonGenericException {
-        for (int i = 0; i < this.getPairs().size(); i ++) {
-            if (this.getPairs().get(i).getKey().equals("\"" + fromKey + "\"")) {
-                this.getPairs().get(i).setKey("\"" + toKey + "\"");
-                return;
+        List<PairType> pairs = this.getPairs();
+        String jStrFromKey = PairKey.quote(fromKey);
+        int renameIndex = indexOfKey(pairs, jStrFromKey);
+        if (renameIndex > -1) {
+            pairs.get(renameIndex).setKey(PairKey.quote(toKey));
+            if (pairs instanceof PairList) {
+                ((PairList) pairs).keyChanged(renameIndex, jStrFromKey);
             }
+            return;
         }
         ErrorUtil.createErrorValueAndThrow(this.getStatement(), "OBJECT", "ERROR", "rename: field not found: " + fromKey);
     }
@@ -169,19 +167,21 @@ public class ObjectType extends OperonValue implements Node {
         if (fromIndex > this.getPairs().size()) {
             ErrorUtil.createErrorValueAndThrow(this.getStatement(), "OBJECT", "ERROR", "rename: field not found: " + fromIndex);
         }
-        this.getPairs().get(fromIndex).setKey("\"" + toKey + "\"");
+        this.getPairs().get(fromIndex).setKey(PairKey.quote(toKey));
+        keysChanged(this.getPairs());
     }
 
     // @param toKey as a list of non-quoted keys.
     public void renameKeyList(List<String> fromKey, List<String> toKey) throws OperonGenericException {
         for (int i = 0; i < this.getPairs().size(); i ++) {
             for (int li = 0; li < fromKey.size(); li ++) {
-                if (this.getPairs().get(i).getKey().equals("\"" + fromKey.get(li) + "\"")) {
-                    this.getPairs().get(i).setKey("\"" + toKey.get(li) + "\"");
+                if (this.getPairs().get(i).getKey().equals(PairKey.quote(fromKey.get(li)))) {
+                    this.getPairs().get(i).setKey(PairKey.quote(toKey.get(li)));
                     break;
                 }
             }
         }
+        keysChanged(this.getPairs());
     }
 
     //
@@ -194,18 +194,19 @@ public class ObjectType extends OperonValue implements Node {
             for (int li = 0; li < fromKeyStartsWith.size(); li ++) {
                 if (fromCaseInsensitive) {
                     if (this.getPairs().get(i).getKey().toLowerCase().startsWith("\"" + fromKeyStartsWith.get(li))) {
-                        this.getPairs().get(i).setKey("\"" + toKey.get(li) + "\"");
+                        this.getPairs().get(i).setKey(PairKey.quote(toKey.get(li)));
                         break;
                     }
                 }
                 else {
                     if (this.getPairs().get(i).getKey().startsWith("\"" + fromKeyStartsWith.get(li))) {
-                        this.getPairs().get(i).setKey("\"" + toKey.get(li) + "\"");
+                        this.getPairs().get(i).setKey(PairKey.quote(toKey.get(li)));
                         break;
                     }
                 }
             }
         }
+        keysChanged(this.getPairs());
     }
 
     public String getKeyByIndex(int index) throws OperonGenericException {
@@ -240,13 +241,39 @@ public class ObjectType extends OperonValue implements Node {
     // @param jStrKey as quoted.
     //
     public boolean hasKey(String jStrKey) {
-        List<PairType> pairs = this.getPairs();
+        return indexOfKey(this.peekPairs(), jStrKey) > -1;
+    }
+
+    //
+    // @param jStrKey as quoted.
+    // @returns the pair, or null when not found. The pair may be shared (copy-on-write), and must not be modified.
+    //
+    public PairType getPairByKey(String jStrKey) {
+        List<PairType> pairs = this.peekPairs();
+        int i = indexOfKey(pairs, jStrKey);
+        return (i > -1 ? pairs.get(i) : null);
+    }
+
+    //
+    // The pairs are normally a PairList, which indexes the keys of the wide objects.
+    // Other lists (e.g. set by deserialization) are searched linearly.
+    //
+    private static int indexOfKey(List<PairType> pairs, String jStrKey) {
+        if (pairs instanceof PairList) {
+            return ((PairList) pairs).indexOfKey(jStrKey);
+        }
         for (int i = 0; i < pairs.size(); i ++) {
             if (pairs.get(i).getKey().equals(jStrKey)) {
-                return true;
+                return i;
             }
         }
-        return false;
+        return -1;
+    }
+
+    private static void keysChanged(List<PairType> pairs) {
+        if (pairs instanceof PairList) {
+            ((PairList) pairs).keysChanged();
+        }
     }
 
     public ObjectType evaluate() throws OperonGenericException { 
@@ -276,7 +303,7 @@ public class ObjectType extends OperonValue implements Node {
         
         //System.out.println(">> ObjectType 1 :: cv = " + currentValue);
         
-        List<PairType> resultList = new ArrayList<PairType>();
+        List<PairType> resultList = new PairList(this.getPairs().size());
 
         boolean preventReEval = true;
 
@@ -289,7 +316,7 @@ public class ObjectType extends OperonValue implements Node {
             if (pair.getPreventReEvaluation() == false) {
                 // Set the currentPath
                 Path pairPath = (Path) objPath.copy();
-                String pairKey = pair.getKey().substring(1, pair.getKey().length() - 1);
+                String pairKey = pair.getKeyName();
                 PathPart kpp = new KeyPathPart(pairKey);
                 pairPath.getPathParts().add(kpp);
                 pair.getStatement().setCurrentPath(pairPath);
@@ -318,7 +345,7 @@ public class ObjectType extends OperonValue implements Node {
         
         this.setUnboxed(true);
         this.setPreventReEvaluation(preventReEval); // if all pairs are atomic, then we want to prevent re-evaluation of the whole object.
-        this.pairs = resultList;
+        this.setPairs(resultList);
         // Do not log here, causes re-evaluation 
         this.getStatement().setCurrentValue(this);
         return this;
@@ -341,13 +368,96 @@ public class ObjectType extends OperonValue implements Node {
     }
     
     public void setPairs(List<PairType> p) {
-        this.pairs = p;
+        OperonValueCopier.Shared<PairType> shared = this.sharedPairs;
+        if (shared != null) {
+            shared.release();
+            this.sharedPairs = null;
+        }
+        this.structuralHash = null;
+        this.pairs = (p instanceof PairList || p == null ? p : new PairList(p));
     }
      
     public List<PairType> getPairs() { 
+        this.structuralHash = null;
+        if (this.sharedPairs != null) {
+            this.unsharePairs();
+        }
         return this.pairs; 
     }
     
+    //
+    // Returns the pairs without copying the shared pairs (copy-on-write).
+    // The returned list and pairs must not be modified.
+    //
+    public List<PairType> peekPairs() {
+        OperonValueCopier.Shared<PairType> shared = this.sharedPairs;
+        if (shared != null) {
+            return shared.getList();
+        }
+        return this.pairs;
+    }
+    
+    //
+    // Order-insensitive hash of the pairs, consistent with JsonUtil.isIdentical.
+    //
+    public int getStructuralHash() throws OperonGenericException {
+        Integer cached = this.structuralHash;
+        if (cached != null) {
+            return cached;
+        }
+        int hash = 0;
+        for (PairType pair : this.peekPairs()) {
+            hash += 31 * pair.getKey().hashCode() + JsonUtil.structuralHash(pair.getValue());
+        }
+        if (this.getUnboxed() && this.getPreventReEvaluation()) {
+            this.structuralHash = hash;
+        }
+        return hash;
+    }
+    
+    //
+    // Copy-on-write: returns a copy which shares the pairs with this object.
+    //
+    public ObjectType shareCopy(Statement stmt) {
+        OperonValueCopier.Shared<PairType> shared = null;
+        synchronized (this) {
+            if (this.sharedPairs == null) {
+                this.sharedPairs = new OperonValueCopier.Shared<PairType>(this.pairs);
+                this.pairs = null;
+            }
+            shared = this.sharedPairs;
+            shared.acquire();
+        }
+        ObjectType result = new ObjectType(stmt);
+        result.pairs = null;
+        result.sharedPairs = shared;
+        result.unboxed = this.unboxed;
+        result.preventReEvaluation = this.preventReEvaluation;
+        result.setIndexedPairs(this.getIndexedPairs());
+        return result;
+    }
+    
+    private synchronized void unsharePairs() {
+        OperonValueCopier.Shared<PairType> shared = this.sharedPairs;
+        if (shared == null) {
+            return;
+        }
+        synchronized (shared) {
+            if (shared.isLastOwner()) {
+                this.pairs = shared.getList();
+            }
+            else {
+                try {
+                    this.pairs = OperonValueCopier.copyPairs(shared.getList(), this.getStatement());
+                } catch (OperonGenericException oge) {
+                    throw new RuntimeException(oge.getMessage());
+                }
+                shared.release();
+            }
+        }
+        this.sharedPairs = null;
+    }
+    
     public void setIndexedPairs(Map<String, PairType> ip) {
         this.indexedPairs = ip;
     }
@@ -378,7 +488,8 @@ public class ObjectType extends OperonValue implements Node {
     }
     
     @Override
-    public String toString() { 
+    public String toString() {
+        List<PairType> pairs = this.peekPairs(); 
         //:OFF:log.debug("ObjectType :: [" + this.getObjId() + "] toString()"); 
         //System.out.println("ObjectType :: [" + this.getObjId() + "] toString()");
         StringBuilder sb = new StringBuilder(); 
@@ -386,8 +497,8 @@ public class ObjectType extends OperonValue implements Node {
         sb.append("{"); 
         
         int i = 0;
-        for (i = 0; i < this.getPairs().size(); i ++) { 
-            PairType pair = this.getPairs().get(i);
+        for (i = 0; i < pairs.size(); i ++) { 
+            PairType pair = pairs.get(i);
             String pairValueStr = pair.toString();
             // Check if EmptyValue 
             if (pairValueStr.isEmpty()) { 
@@ -397,7 +508,7 @@ public class ObjectType extends OperonValue implements Node {
             
             //System.out.println("pairValueStr [" + i + "]: >>" + pairValueStr + "<<");
             
-            if (i < this.getPairs().size() - 1) {
+            if (i < pairs.size() - 1) {
                 sb.append(", ");
             }
         }
@@ -417,6 +528,7 @@ public class ObjectType extends OperonValue implements Node {
 
     @Override
     public String toFormattedString(OutputFormatter ofmt) {
+        List<PairType> pairs = this.peekPairs();
         //:OFF:log.debug("ObjectType :: [" + this.getObjId() + "] toString()"); 
         if (ofmt == null) {ofmt = new OutputFormatter();}
         //System.out.println("ObjectType convert to String");
@@ -426,8 +538,8 @@ public class ObjectType extends OperonValue implements Node {
         ofmt.spaces = (short) (ofmt.spaces + ofmt.spacing);
         
         int i = 0;
-        for (i = 0; i < this.getPairs().size(); i ++) {
-            PairType pair = this.getPairs().get(i);
+        for (i = 0; i < pairs.size(); i ++) {
+            PairType pair = pairs.get(i);
             String pairValueStr =  ofmt.spaces() + pair.toFormattedString(ofmt);
             // Check if EmptyValue 
             if (pairValueStr.isEmpty()) { 
@@ -437,7 +549,7 @@ public class ObjectType extends OperonValue implements Node {
             
             //System.out.println("pairValueStr [" + i + "]: >>" + pairValueStr + "<<");
             
-            if (i < this.getPairs().size() - 1) { 
+            if (i < pairs.size() - 1) { 
                 sb.append("," + System.lineSeparator()); 
             }
         }
@@ -451,6 +563,7 @@ public class ObjectType extends OperonValue implements Node {
 
     @Override
     public String toYamlString(YamlFormatter yf) {
+        List<PairType> pairs = this.peekPairs();
         //:OFF:log.debug("ObjectType :: [" + this.getObjId() + "] toYamlString()"); 
         if (yf == null) {
             //System.out.println("ObjectType :: toYamlString :: yf was null, creating new YamlFormatter");
@@ -459,15 +572,15 @@ public class ObjectType extends OperonValue implements Node {
         //System.out.println("ObjectType convert to String");
         StringBuilder sb = new StringBuilder(); 
         
-        if (this.getPairs().size() == 0) {
+        if (pairs.size() == 0) {
             sb.append("{}");
         }
         
         int i = 0;
         String pairValueStr = null;
-        for (i = 0; i < this.getPairs().size(); i ++) {
+        for (i = 0; i < pairs.size(); i ++) {
             //System.out.println("toYamlString :: OUTER OBJ :: i=" + i + ", objId=" + this.getObjId());
-            PairType pair = this.getPairs().get(i);
+            PairType pair = pairs.get(i);
             pairValueStr = pair.toYamlString(yf); /*yf.spaces() +*/
             //System.out.println("toYamlString :: OUTER OBJ PAIR CALL DONE");
             // Check if EmptyValue 
@@ -476,7 +589,7 @@ public class ObjectType extends OperonValue implements Node {
             }
             sb.append(pairValueStr); 
 
-            if (i < this.getPairs().size() - 1) {
+            if (i < pairs.size() - 1) {
                 sb.append(System.lineSeparator()); 
             }
         }
@@ -488,6 +601,7 @@ public class ObjectType extends OperonValue implements Node {
 
     @Override
     public String toTomlString(OutputFormatter ofmt) {
+        List<PairType> pairs = this.peekPairs();
         //:OFF:log.debug("ObjectType :: [" + this.getObjId() + "] toString()"); 
         if (ofmt == null) {ofmt = new OutputFormatter();}
         //System.out.println("ObjectType convert to String");
@@ -500,8 +614,8 @@ public class ObjectType extends OperonValue implements Node {
         //ofmt.spaces = (short) (ofmt.spaces + ofmt.spacing);
         
         int i = 0;
-        for (i = 0; i < this.getPairs().size(); i ++) {
-            PairType pair = this.getPairs().get(i);
+        for (i = 0; i < pairs.size(); i ++) {
+            PairType pair = pairs.get(i);
             String pairValueStr =  ofmt.spaces() + pair.toTomlString(ofmt);
             // Check if EmptyValue 
             if (pairValueStr.isEmpty()) { 
@@ -510,7 +624,7 @@ public class ObjectType extends OperonValue implements Node {
             sb.append(pairValueStr); 
             
             //System.out.println("pairValueStr [" + i + "]: >>" + pairValueStr + "<<");
-            if (i < this.getPairs().size() - 1) {
+            if (i < pairs.size() - 1) {
                 sb.append(System.lineSeparator());
             }
         }
@@ -26,6 +26,13 @@ import io.operon.runner.util.JsonUtil;
 import io.operon.runner.util.ErrorUtil;
 import io.operon.runner.util.OutputFormatter;
 import io.operon.runner.util.YamlFormatter;
+import io.operon.runner.util.ValueWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.logging.log4j.Logger;
 import io.operon.runner.model.exception.OperonGenericException;
@@ -145,7 +152,14 @@ public class OperonValue extends AbstractNode implements Node {
         OperonValue result = JsonUtil.copyOperonValue(this);
         return result;
     }
-    
+
+    //
+    // Hash of the Jsonvalue, consistent with JsonUtil.isIdentical.
+    //
+    public int structuralHash() throws OperonGenericException {
+        return JsonUtil.structuralHash(this);
+    }
+
     public void setOperonValueConstraint(OperonValueConstraint c) {
         this.constraint = c;
     }
@@ -182,4 +196,21 @@ public class OperonValue extends AbstractNode implements Node {
         return result;
     }
 
-}
\ No newline at end of file
+    //
+    // Writes the value into the writer, without building the whole result as String.
+    // The ofmt.format selects the serialization (JSON, PRETTY_JSON, YAML or TOML).
+    // When ofmt is null, then the value is written as JSON (same as toString).
+    //
+    public void writeTo(Writer writer, OutputFormatter ofmt) throws IOException {
+        ValueWriter.write(this, writer, ofmt);
+    }
+
+    //
+    // Writes the value as UTF-8 into the output-stream. The stream is flushed, but not closed.
+    //
+    public void writeTo(OutputStream out, OutputFormatter ofmt) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        this.writeTo(writer, ofmt);
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.node.type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import io.operon.runner.node.Node;
+import io.operon.runner.statement.Statement;
+
+//
+// The packed values of a numeric ArrayType: the double-values, and either one precision
+// which is shared by all the values (e.g. the Range), or the precision of each value.
+//
+// PackedNumbers is immutable, so the copies of the array may share it. The values are
+// materialized into NumberTypes only when the array-values are accessed through
+// ArrayType.getValues or peekValues.
+//
+public final class PackedNumbers {
+     // no logger
+
+    //
+    // The numeric arrays smaller than this are kept as NumberTypes.
+    //
+    public static final int MIN_PACKED_SIZE = 16;
+
+    private final double[] values;
+    private final int size;
+    private final byte precision; // shared precision, when precisions is null
+    private final byte[] precisions;
+
+    private PackedNumbers(double[] values, int size, byte precision, byte[] precisions) {
+        this.values = values;
+        this.size = size;
+        this.precision = precision;
+        this.precisions = precisions;
+    }
+
+    //
+    // NOTE: the arrays are not copied, the caller must not modify them afterwards.
+    //
+    public static PackedNumbers of(double[] values, int size, byte[] precisions) {
+        byte shared = (size > 0 ? precisions[0] : 0);
+        for (int i = 1; i < size; i ++) {
+            if (precisions[i] != shared) {
+                return new PackedNumbers(values, size, (byte) 0, precisions);
+            }
+        }
+        return new PackedNumbers(values, size, shared, null);
+    }
+
+    public static PackedNumbers of(double[] values, int size, byte precision) {
+        return new PackedNumbers(values, size, precision, null);
+    }
+
+    //
+    // Integers from lhs to rhs (both inclusive), in descending order when lhs > rhs.
+    //
+    public static PackedNumbers range(int lhs, int rhs) {
+        int size = Math.abs(rhs - lhs) + 1;
+        int step = (lhs > rhs ? -1 : 1);
+        double[] values = new double[size];
+        for (int i = 0; i < size; i ++) {
+            values[i] = (double) (lhs + i * step);
+        }
+        return new PackedNumbers(values, size, (byte) 0, null);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public double getDouble(int i) {
+        return this.values[Objects.checkIndex(i, this.size)];
+    }
+
+    public byte getPrecision(int i) {
+        return (this.precisions == null ? this.precision : this.precisions[i]);
+    }
+
+    public NumberType toNumberType(int i, Statement stmt) {
+        NumberType result = new NumberType(stmt);
+        result.setDoubleValue(this.getDouble(i));
+        result.setPrecision(this.getPrecision(i));
+        return result;
+    }
+
+    public List<Node> toNodes(Statement stmt) {
+        List<Node> result = new ArrayList<Node>(Math.max(10, this.size));
+        for (int i = 0; i < this.size; i ++) {
+            result.add(this.toNumberType(i, stmt));
+        }
+        return result;
+    }
+
+    //
+    // The values of the positions, in the given order.
+    //
+    public PackedNumbers select(int[] positions, int count) {
+        double[] selected = new double[count];
+        byte[] selectedPrecisions = (this.precisions == null ? null : new byte[count]);
+        for (int i = 0; i < count; i ++) {
+            selected[i] = this.getDouble(positions[i]);
+            if (selectedPrecisions != null) {
+                selectedPrecisions[i] = this.precisions[positions[i]];
+            }
+        }
+        if (selectedPrecisions == null) {
+            return new PackedNumbers(selected, count, this.precision, null);
+        }
+        return of(selected, count, selectedPrecisions);
+    }
+
+    //
+    // @returns the values of both, or null when they do not share the same precision.
+    //
+    public PackedNumbers concat(PackedNumbers other) {
+        if (this.precisions != null || other.precisions != null || this.precision != other.precision) {
+            return null;
+        }
+        double[] result = Arrays.copyOf(this.values, this.size + other.size);
+        System.arraycopy(other.values, 0, result, this.size, other.size);
+        return new PackedNumbers(result, this.size + other.size, this.precision, null);
+    }
+
+    // Same order of additions as in array:sum, so the result is the same.
+    public double sum() {
+        double result = 0.0;
+        for (int i = 0; i < this.size; i ++) {
+            result += this.values[i];
+        }
+        return result;
+    }
+
+    // Same as in array:sum, the undefined precision (-1) is not taken into account.
+    public byte maxPrecision() {
+        if (this.precisions == null) {
+            return (this.precision > 0 ? this.precision : 0);
+        }
+        byte result = 0;
+        for (int i = 0; i < this.size; i ++) {
+            if (this.precisions[i] > result) {
+                result = this.precisions[i];
+            }
+        }
+        return result;
+    }
+
+    //
+    // Position of the min-value, as Collections.min with NumberType.compareTo would select it.
+    //
+    public int indexOfMin() {
+        int result = 0;
+        for (int i = 1; i < this.size; i ++) {
+            if (this.values[i] < this.values[result]) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    //
+    // Position of the max-value, as Collections.max with NumberType.compareTo would select it.
+    //
+    public int indexOfMax() {
+        int result = 0;
+        for (int i = 1; i < this.size; i ++) {
+            double v = this.values[i];
+            if ((v < this.values[result]) == false && (v == this.values[result]) == false) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    //
+    // Stable sort in the ascending order, same as Collections.sort with NumberType.compareTo.
+    // @returns null when there is a NaN, which cannot be ordered the same way.
+    //
+    public PackedNumbers sorted() {
+        boolean negativeZero = false;
+        for (int i = 0; i < this.size; i ++) {
+            double v = this.values[i];
+            if (Double.isNaN(v)) {
+                return null;
+            }
+            if (v == 0.0 && Double.doubleToRawLongBits(v) != 0L) {
+                negativeZero = true;
+            }
+        }
+
+        // Equal values are indistinguishable, so the stability does not matter.
+        if (this.precisions == null && negativeZero == false) {
+            double[] result = Arrays.copyOf(this.values, this.size);
+            Arrays.sort(result);
+            return new PackedNumbers(result, this.size, this.precision, null);
+        }
+
+        final double[] v = this.values;
+        Integer[] order = new Integer[this.size];
+        for (int i = 0; i < this.size; i ++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                double va = v[a];
+                double vb = v[b];
+                return (va < vb ? -1 : (va == vb ? 0 : 1));
+            }
+        });
+        int[] positions = new int[this.size];
+        for (int i = 0; i < this.size; i ++) {
+            positions[i] = order[i];
+        }
+        return this.select(positions, this.size);
+    }
+}
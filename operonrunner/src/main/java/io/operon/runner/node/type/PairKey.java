@@ -0,0 +1,123 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.node.type;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//
+// The key of the PairType: the key-name, and the quoted form (which the PairType.getKey returns).
+//
+// The keys are shared with a Pool, which is scoped to the compiled query (the compiler) or to the parse
+// (the JSON-parser), so the objects created by them share the same key-instances. The key-comparison then
+// usually succeeds on the reference-check of the String.equals, and the hash of the String is computed
+// only once. There is no global pool, so the keys of the input (e.g. from HTTP or files) are not retained
+// after the parse.
+//
+public final class PairKey implements java.io.Serializable {
+     // no logger
+
+    public static final int DEFAULT_MAX_POOLED_KEYS = 65536;
+
+    private final String name;
+    private final String quoted;
+
+    private PairKey(String name, String quoted) {
+        this.name = name;
+        this.quoted = quoted;
+    }
+
+    //
+    // @param quoted :: the key with the double-quotes, e.g. "\"bin\""
+    //
+    public static PairKey ofQuoted(String quoted) {
+        return new PairKey(quoted.substring(1, quoted.length() - 1), quoted);
+    }
+
+    //
+    // @param name :: the key without the double-quotes, e.g. "bin"
+    //
+    public static PairKey of(String name) {
+        return new PairKey(name, "\"" + name + "\"");
+    }
+
+    //
+    // Returns the quoted key for the key-name, i.e. same as "\"" + name + "\"".
+    //
+    public static String quote(String name) {
+        return "\"" + name + "\"";
+    }
+
+    //
+    // The shared keys of one compiled query or parse. Not thread-safe: used by the thread which
+    // compiles or parses. When the pool is full, the new keys are not pooled.
+    //
+    public static final class Pool {
+        private final Map<String, PairKey> byQuoted = new HashMap<String, PairKey>();
+        private final int maxKeys;
+
+        public Pool() {
+            this(DEFAULT_MAX_POOLED_KEYS);
+        }
+
+        public Pool(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public PairKey ofQuoted(String quoted) {
+            PairKey key = this.byQuoted.get(quoted);
+            if (key != null) {
+                return key;
+            }
+            key = PairKey.ofQuoted(quoted);
+            if (this.byQuoted.size() < this.maxKeys) {
+                this.byQuoted.put(quoted, key);
+            }
+            return key;
+        }
+
+        public int size() {
+            return this.byQuoted.size();
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getQuoted() {
+        return this.quoted;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return (o instanceof PairKey) && this.quoted.equals(((PairKey) o).quoted);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.quoted.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.quoted;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.node.type;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+//
+// The pairs of the ObjectType, in the insertion order.
+//
+// Small objects are searched linearly. Above the INDEX_THRESHOLD a hash-index (quoted key -> pair)
+// is built on the first key-lookup, and kept up to date when the pairs are appended, replaced,
+// removed or renamed. The other structural changes (insert, clear, sort, ...) increment the modCount,
+// which invalidates the index, and it is rebuilt on the next lookup.
+//
+// The index keeps the last known position of the pair. The removals only shift the pairs left,
+// so the pair is found by scanning down from that position.
+//
+// NOTE: when a key of a pair is changed (PairType.setKey), then keyChanged() or keysChanged() must be called.
+//
+public class PairList extends ArrayList<PairType> {
+     // no logger
+
+    public static final int INDEX_THRESHOLD = 8;
+
+    private transient volatile Map<String, Entry> keyIndex;
+    private transient int keyIndexModCount;
+
+    //
+    // When the same key is found more than once (e.g. added with ObjectType.safeAddPair), the index
+    // points to the first one, and it is rebuilt after the changes.
+    //
+    private transient boolean duplicateKeys;
+
+    private static final class Entry {
+        PairType pair;
+        int pos;
+
+        Entry(PairType pair, int pos) {
+            this.pair = pair;
+            this.pos = pos;
+        }
+    }
+
+    public PairList() {
+        super();
+    }
+
+    public PairList(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    public PairList(Collection<? extends PairType> pairs) {
+        super(pairs);
+    }
+
+    @Override
+    public boolean add(PairType pair) {
+        Map<String, Entry> index = this.validIndex();
+        super.add(pair);
+        if (index != null) {
+            if (index.containsKey(pair.getKey())) {
+                this.duplicateKeys = true;
+            }
+            else {
+                index.put(pair.getKey(), new Entry(pair, this.size() - 1));
+            }
+            this.keyIndexModCount = this.modCount;
+        }
+        return true;
+    }
+
+    @Override
+    public PairType set(int i, PairType pair) {
+        Map<String, Entry> index = this.validIndex();
+        PairType old = super.set(i, pair);
+        if (index != null) {
+            Entry e = index.get(pair.getKey());
+            if (this.duplicateKeys == false && old != null && e != null && e.pair == old) {
+                e.pair = pair;
+                e.pos = i;
+            }
+            else {
+                this.keyIndex = null;
+            }
+        }
+        return old;
+    }
+
+    @Override
+    public PairType remove(int i) {
+        Map<String, Entry> index = this.validIndex();
+        PairType removed = super.remove(i);
+        if (index != null) {
+            Entry e = index.get(removed.getKey());
+            if (this.duplicateKeys == false && e != null && e.pair == removed) {
+                index.remove(removed.getKey());
+                this.keyIndexModCount = this.modCount;
+            }
+            else {
+                this.keyIndex = null;
+            }
+        }
+        return removed;
+    }
+
+    //
+    // @param jStrKey as quoted.
+    // @returns the position of the first pair with the key, or -1 when not found.
+    //
+    public int indexOfKey(String jStrKey) {
+        int size = this.size();
+        if (size <= INDEX_THRESHOLD) {
+            for (int i = 0; i < size; i ++) {
+                if (jStrKey.equals(this.get(i).getKey())) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Map<String, Entry> index = this.validIndex();
+        if (index == null) {
+            index = this.buildIndex();
+        }
+        int pos = this.positionOf(index.get(jStrKey), jStrKey);
+        if (pos == -2) {
+            // The key was changed without keyChanged(), rebuild.
+            index = this.buildIndex();
+            pos = this.positionOf(index.get(jStrKey), jStrKey);
+        }
+        return (pos < 0 ? -1 : pos);
+    }
+
+    //
+    // @returns -1 when not in index, -2 when the index is out of date.
+    //
+    private int positionOf(Entry e, String jStrKey) {
+        if (e == null) {
+            return -1;
+        }
+        int pos = Math.min(e.pos, this.size() - 1);
+        while (pos >= 0 && this.get(pos) != e.pair) {
+            pos --;
+        }
+        if (pos < 0 || jStrKey.equals(e.pair.getKey()) == false) {
+            return -2;
+        }
+        e.pos = pos;
+        return pos;
+    }
+
+    @Override
+    public Object clone() {
+        PairList result = (PairList) super.clone();
+        result.keyIndex = null;
+        return result;
+    }
+
+    //
+    // Called after the key of the pair in position i was changed from oldKey.
+    //
+    public void keyChanged(int i, String oldKey) {
+        Map<String, Entry> index = this.validIndex();
+        if (index == null || this.duplicateKeys) {
+            this.keyIndex = null;
+            return;
+        }
+        PairType pair = this.get(i);
+        index.remove(oldKey);
+        if (index.containsKey(pair.getKey())) {
+            this.keyIndex = null;
+        }
+        else {
+            index.put(pair.getKey(), new Entry(pair, i));
+        }
+    }
+
+    //
+    // Called after the keys were changed.
+    //
+    public void keysChanged() {
+        this.keyIndex = null;
+    }
+
+    private Map<String, Entry> validIndex() {
+        Map<String, Entry> index = this.keyIndex;
+        if (index != null && this.keyIndexModCount == this.modCount) {
+            return index;
+        }
+        return null;
+    }
+
+    private Map<String, Entry> buildIndex() {
+        int size = this.size();
+        Map<String, Entry> index = new HashMap<String, Entry>(size * 2);
+        boolean duplicates = false;
+        for (int i = 0; i < size; i ++) {
+            PairType pair = this.get(i);
+            if (index.putIfAbsent(pair.getKey(), new Entry(pair, i)) != null) {
+                duplicates = true;
+            }
+        }
+        this.duplicateKeys = duplicates;
+        this.keyIndexModCount = this.modCount;
+        this.keyIndex = index;
+        return index;
+    }
+}
@@ -38,6 +38,8 @@ public class PairType extends OperonValue implements Node {
     
     @Expose private String key;
     
+    private transient PairKey pairKey; // resolved lazily from the key, when not set with setPair(PairKey, ...)
+    
     @Expose private OperonValue value;
 
     private int position; // Required in Filter
@@ -54,6 +56,7 @@ public class PairType extends OperonValue implements Node {
     //      --> this should add the double-quotes itself.
     public void setPair(String key, OperonValue value ) { 
         this.key = key;
+        this.pairKey = null;
         this.value = value;
         this.setEvaluatedValue(value); // set evaluated value already before evaluating, avoids null-pointer from toString(), which is called before evaluate()
         if (value.isEmptyValue()) {
@@ -116,9 +119,18 @@ public class PairType extends OperonValue implements Node {
         return this; 
     } 
 
+    //
+    // Sets the shared key (see PairKey.Pool), so the pairs with the same key share the key-String.
+    //
+    public void setPair(PairKey key, OperonValue value) {
+        this.setPair(key.getQuoted(), value);
+        this.pairKey = key;
+    }
+
     // Assumes double-quotes
     public void setKey(String newKey) {
         this.key = newKey;
+        this.pairKey = null;
     }
 
     // Returns key with double-quotes
@@ -126,6 +138,20 @@ public class PairType extends OperonValue implements Node {
         return this.key; 
     }
 
+    public PairKey getPairKey() {
+        PairKey pk = this.pairKey;
+        if (pk == null && this.key != null) {
+            pk = PairKey.ofQuoted(this.key);
+            this.pairKey = pk;
+        }
+        return pk;
+    }
+
+    // Returns key without double-quotes
+    public String getKeyName() {
+        return this.getPairKey().getName();
+    }
+
     public OperonValue getValue() { 
         return this.value;
     }
@@ -256,12 +282,12 @@ public class PairType extends OperonValue implements Node {
         }
         else {
             if (ev instanceof ArrayType) {
-                String result = yf.spaces() + this.getKey().substring(1, this.getKey().length() - 1) + ":" + System.lineSeparator() + strValue;
+                String result = yf.spaces() + this.getKeyName() + ":" + System.lineSeparator() + strValue;
                 //System.out.println("toYamlString :: PAIR RETURN: Array :: [[[" + result + "]]]");
                 return result;
             }
             else if (ev instanceof ObjectType) {
-                String result = this.getKey().substring(1, this.getKey().length() - 1) + ":" + System.lineSeparator() + strValue;
+                String result = this.getKeyName() + ":" + System.lineSeparator() + strValue;
                 //System.out.println("toYamlString :: PAIR RETURN: Object");
                 return result;
             }
@@ -269,7 +295,7 @@ public class PairType extends OperonValue implements Node {
                 //System.out.println("  else, yf.spaces = " + yf.spaces);
                 //System.out.println("PairType :: RETURN :: " + strValue);
                 //System.out.println("toYamlString :: PAIR RETURN: Value");
-                return yf.spaces() + this.getKey().substring(1, this.getKey().length() - 1) + ": " + strValue;
+                return yf.spaces() + this.getKeyName() + ": " + strValue;
             }
         }
     }
@@ -300,7 +326,7 @@ public class PairType extends OperonValue implements Node {
             //
             // this.getParentObj();
             //
-            sb.append("[" + this.getKey().substring(1, this.getKey().length() - 1) + "]" + System.lineSeparator());
+            sb.append("[" + this.getKeyName() + "]" + System.lineSeparator());
             String strValue = ev.toTomlString(ofmt);
             if (strValue.isEmpty()) {
                 sb.append("");
@@ -316,7 +342,7 @@ public class PairType extends OperonValue implements Node {
                 sb.append("");
             }
             else {
-                sb.append(this.getKey().substring(1, this.getKey().length() - 1) + " = " + strValue);
+                sb.append(this.getKeyName() + " = " + strValue);
             }
             return sb.toString();
         }
@@ -341,6 +367,20 @@ public class PairType extends OperonValue implements Node {
         return (ObjectType) this.configs;
     }
 
+    //
+    // @returns true when the "hidden" -option is set, i.e. the pair is not serialized.
+    //
+    public boolean isHidden() {
+        if (this.configs == null) {
+            return false;
+        }
+        try {
+            return this.resolveConfigs(this.getStatement()).hidden;
+        } catch (OperonGenericException oge) {
+            return false;
+        }
+    }
+
     //
     // Lazyly resolved on serialization
     //
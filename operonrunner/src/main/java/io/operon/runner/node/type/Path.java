@@ -174,6 +174,33 @@ public class Path extends OperonValue implements Node, AtomicOperonValue {
         return copyPath;
     }
 
+    //
+    // Copies only the list of the PathParts: the PathParts are not modified after they are
+    // created, so the copy can share them with this Path.
+    //
+    public Path shallowCopy() {
+        return this.shallowCopy(0);
+    }
+
+    //
+    // The Path one part deeper than this Path, e.g. the Path of the element in the Filter or Map.
+    //
+    public Path child(PathPart pp) {
+        Path childPath = this.shallowCopy(1);
+        childPath.getPathParts().add(pp);
+        return childPath;
+    }
+
+    private Path shallowCopy(int extraCapacity) {
+        List<PathPart> ppList = new ArrayList<PathPart>(this.getPathParts().size() + extraCapacity);
+        ppList.addAll(this.getPathParts());
+        Path copyPath = new Path(this.getStatement());
+        copyPath.setPathParts(ppList);
+        copyPath.setObjLink(this.getObjLink());
+        copyPath.setValueLink(this.getValueLink());
+        return copyPath;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) {
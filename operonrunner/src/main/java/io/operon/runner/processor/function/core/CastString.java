@@ -31,6 +31,7 @@ import io.operon.runner.processor.function.Namespaces;
 import io.operon.runner.processor.function.core.raw.RawToStringType;
 import io.operon.runner.node.FunctionRegularArgument;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.JsonStringCodec;
 
 import org.apache.logging.log4j.Logger;
 import io.operon.runner.model.exception.OperonGenericException;
@@ -127,7 +128,7 @@ public class CastString extends BaseArity1 implements Node, Arity1 {
             
             else {
                 String arrayString = ((ArrayType) currentValue.evaluate()).toString();
-                arrayString = arrayString.replaceAll("\"", "\\\\\"");
+                arrayString = JsonStringCodec.escapeQuotes(arrayString);
                 result.setFromJavaString(arrayString);
             }
             
@@ -144,7 +145,7 @@ public class CastString extends BaseArity1 implements Node, Arity1 {
         else {
             StringType result = new StringType(this.getStatement());
             String setFromString = currentValue.toString();
-            setFromString = setFromString.replaceAll("\"", "\\\\\"");
+            setFromString = JsonStringCodec.escapeQuotes(setFromString);
             result.setFromJavaString(setFromString);
             return result;
         }
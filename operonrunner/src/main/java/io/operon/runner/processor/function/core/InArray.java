@@ -21,6 +21,7 @@ import io.operon.runner.OperonContext;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.Set;
 
 import io.operon.runner.node.AbstractNode;
 import io.operon.runner.node.Node;
@@ -66,10 +67,25 @@ public class InArray extends BaseArity1 implements Node, Arity1, SupportsAttribu
                 return resultTrue;
             }
             
-            if (arrayToTest.getValues().size() == 0) {
+            if (arrayToTest.peekValues().size() == 0) {
                 FalseType resultFalse = new FalseType(this.getStatement());
                 return resultFalse;
             }
+            
+            //
+            // Scalar values are looked up from the array's index (see ArrayType.getScalarIndex),
+            // the other values are compared one by one.
+            //
+            if (currentValue.getBindings().isEmpty()) {
+                Object key = JsonUtil.scalarKey(currentValue);
+                Set<Object> index = (key != null ? arrayToTest.getScalarIndex() : null);
+                if (index != null) {
+                    if (index.contains(key)) {
+                        return new TrueType(this.getStatement());
+                    }
+                    return new FalseType(this.getStatement());
+                }
+            }
 
             for (int i = 0; i < arrayToTest.getValues().size(); i ++) {
                 //:OFF:log.debug("loop, i == " + i);
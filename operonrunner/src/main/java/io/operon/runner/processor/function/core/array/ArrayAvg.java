@@ -27,6 +27,7 @@ import io.operon.runner.node.type.NumberType;
 import io.operon.runner.node.type.OperonValue;
 import io.operon.runner.node.type.ArrayType;
 import io.operon.runner.node.type.ObjectType;
+import io.operon.runner.node.type.PackedNumbers;
 import io.operon.runner.statement.Statement;
 import io.operon.runner.processor.function.BaseArity0;
 import io.operon.runner.processor.function.Arity0;
@@ -56,17 +57,25 @@ public class ArrayAvg extends BaseArity0 implements Node, Arity0 {
         try {
             OperonValue currentValue = this.getStatement().getCurrentValue();
             ArrayType array = (ArrayType) currentValue.evaluate();
-            List<Node> arrayValues = array.getValues();
             
-            double resultSum = 0.0;
-            
-            for (int i = 0; i < arrayValues.size(); i ++) {
-                Node n = arrayValues.get(i);
-                NumberType number = (NumberType) n.evaluate();
-                resultSum += number.getDoubleValue();
+            double avg = 0.0;
+            PackedNumbers packed = array.getPackedValues();
+            if (packed != null) {
+                avg = packed.sum() / packed.size();
+            }
+            else {
+                List<Node> arrayValues = array.getValues();
+                
+                double resultSum = 0.0;
+                
+                for (int i = 0; i < arrayValues.size(); i ++) {
+                    Node n = arrayValues.get(i);
+                    NumberType number = (NumberType) n.evaluate();
+                    resultSum += number.getDoubleValue();
+                }
+                
+                avg = resultSum / arrayValues.size();
             }
-            
-            double avg = resultSum / arrayValues.size();
             
             // Begin Set precision
             byte precision = NumberType.getPrecisionFromStr(String.valueOf(avg)); // TODO: does toString convert to scientific-notation?
@@ -21,6 +21,7 @@ import io.operon.runner.OperonContext;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.Set;
 
 import io.operon.runner.node.AbstractNode;
 import io.operon.runner.node.Node;
@@ -60,7 +61,7 @@ public class ArrayContains extends BaseArity1 implements Node, Arity1, SupportsA
         try {
             OperonValue currentValue = this.getStatement().getCurrentValue();
             ArrayType arrayToTest = (ArrayType) currentValue.evaluate();
-            if (arrayToTest.getValues().size() == 0) {
+            if (arrayToTest.peekValues().size() == 0) {
                 ErrorUtil.createErrorValueAndThrow(this.getStatement(), "FUNCTION", "array:" + this.getFunctionName(), "Empty array is not supported.");
             }
 
@@ -72,6 +73,25 @@ public class ArrayContains extends BaseArity1 implements Node, Arity1, SupportsA
 
             Path resetPath = currentPath.copy();
             resetPath.setObjLink(objLink);
+            
+            //
+            // When the test is a scalar constant (number, string or null), then it is looked up
+            // from the array's index (see ArrayType.getScalarIndex), instead of testing each value.
+            // NOTE: true and false are not constants here, they are the result of the test.
+            //
+            Node paramNode = this.getParam1();
+            if ((paramNode instanceof NumberType || paramNode instanceof StringType || paramNode instanceof NullType)
+                    && paramNode.getBindings().isEmpty()) {
+                Set<Object> index = arrayToTest.getScalarIndex();
+                Object key = JsonUtil.scalarKey((OperonValue) paramNode);
+                if (index != null && key != null) {
+                    this.getStatement().setCurrentPath(resetPath);
+                    if (index.contains(key)) {
+                        return new TrueType(this.getStatement());
+                    }
+                    return new FalseType(this.getStatement());
+                }
+            }
 
             for (int i = 0; i < arrayToTest.getValues().size(); i ++) {
                 //:OFF:log.debug("loop, i == " + i);
@@ -84,7 +104,6 @@ public class ArrayContains extends BaseArity1 implements Node, Arity1, SupportsA
                 
                 OperonValue valueToTest = ArrayGet.baseGet(this.getStatement(), arrayToTest, i + 1);
                 
-                Node paramNode = this.getParam1();
                 paramNode.getStatement().setCurrentValue(valueToTest);
                 Node forAtLeastFunctionRefNode = paramNode.evaluate();
                 
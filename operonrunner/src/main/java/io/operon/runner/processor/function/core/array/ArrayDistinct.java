@@ -20,6 +20,8 @@ import io.operon.runner.OperonContext;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
 
 import io.operon.runner.node.AbstractNode;
 import io.operon.runner.node.Node;
@@ -53,24 +55,38 @@ public class ArrayDistinct extends BaseArity0 implements Node, Arity0 {
             OperonValue currentValue = this.getStatement().getCurrentValue();
             ArrayType array = (ArrayType) currentValue.evaluate();
             
+            List<Node> values = array.getValues();
             List<Node> resultList = new ArrayList<Node>();
             
             //
-            // This algorithm is naive --> improve
+            // The values are bucketed by their structural hash, and only the values
+            // in the same bucket are compared with isIdentical.
             //
-            for (int i = 0; i < array.getValues().size(); i ++) {
-                OperonValue value = (OperonValue) array.getValues().get(i);
-                boolean found = false;
-                int resultSize = resultList.size();
+            Map<Integer, List<OperonValue>> buckets = new HashMap<Integer, List<OperonValue>>();
+            
+            for (int i = 0; i < values.size(); i ++) {
+                OperonValue value = (OperonValue) values.get(i);
+                int hash = JsonUtil.structuralHash(value);
+                List<OperonValue> bucket = buckets.get(hash);
                 
-                for (int j = 0; j < resultSize; j ++) {
-                    if (JsonUtil.isIdentical(value, (OperonValue) resultList.get(j)) == true) {
-                        found = true;
-                    }
+                if (bucket == null) {
+                    bucket = new ArrayList<OperonValue>(1);
+                    buckets.put(hash, bucket);
                 }
-                if (found == false) {
-                    resultList.add(value);
+                else {
+                    boolean found = false;
+                    for (OperonValue bucketValue : bucket) {
+                        if (JsonUtil.isIdentical(value, bucketValue) == true) {
+                            found = true;
+                            break;
+                        }
+                    }
+                    if (found == true) {
+                        continue;
+                    }
                 }
+                bucket.add(value);
+                resultList.add(value);
             }
             array.setValues(resultList);
             ////:OFF:log.debug("DISTINCT :: " + this.getStatement().getId());
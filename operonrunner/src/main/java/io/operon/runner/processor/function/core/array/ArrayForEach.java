@@ -17,6 +17,7 @@
 package io.operon.runner.processor.function.core.array;
 
 import io.operon.runner.OperonContext;
+import io.operon.runner.CompiledQueryCache;
 
 import java.util.List;
 import java.util.ArrayList;
@@ -30,27 +31,39 @@ import io.operon.runner.node.LambdaFunctionRef;
 import io.operon.runner.node.type.*;
 import io.operon.runner.model.path.*;
 import io.operon.runner.statement.Statement;
-import io.operon.runner.processor.function.BaseArity1;
-import io.operon.runner.processor.function.Arity1;
+import io.operon.runner.processor.function.BaseArity2;
+import io.operon.runner.processor.function.Arity2;
 import io.operon.runner.processor.function.Namespaces;
 import io.operon.runner.processor.function.SupportsAttributes;
 import io.operon.runner.util.JsonUtil;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.ParallelUtil;
 
+import org.antlr.v4.runtime.tree.ParseTree;
 import org.apache.logging.log4j.Logger;
 import io.operon.runner.model.exception.OperonGenericException;
 
 import org.apache.logging.log4j.LogManager;
 
 // 
+// Options:
+//   - inFlight: the number of the values which are evaluated at the same time, for the exprs which
+//               wait for I/O, e.g. => forEach(-> http:{"url": ...}, {"inFlight": 16}).
+//               The results are in the order of the values. Only for the pure expression (not for
+//               the function-refs). Each concurrent evaluation has its own copy of the expr, compiled
+//               into the context of the query and linked to the scope of the forEach.
+//               The copies share the Let -values and the state of the query, so the expr should only
+//               read them (see ParallelUtil.evaluateInFlight).
 // 
-// 
-public class ArrayForEach extends BaseArity1 implements Node, Arity1, SupportsAttributes {
+public class ArrayForEach extends BaseArity2 implements Node, Arity2, SupportsAttributes {
      // no logger 
     
+    private Node configs;
+    
     public ArrayForEach(Statement statement, List<Node> params) throws OperonGenericException {
         super(statement);
-        this.setParams(params, "forEach", "expr");
+        this.setParam2AsOptional(true);
+        this.setParams(params, "forEach", "expr", "options");
         this.setNs(Namespaces.ARRAY);
     }
 
@@ -74,6 +87,11 @@ public class ArrayForEach extends BaseArity1 implements Node, Arity1, SupportsAt
         Path resetPath = currentPath.copy();
         resetPath.setObjLink(objLink);
         
+        if (this.getParam2() != null) {
+            this.setConfigs(this.getParam2());
+        }
+        Info info = this.resolveConfigs();
+        
         try {
             ArrayType result = new ArrayType(this.getStatement());
             OperonValue evaluatedNode = null;
@@ -131,6 +149,34 @@ public class ArrayForEach extends BaseArity1 implements Node, Arity1, SupportsAt
                 //          This is because we don't know when evaluating the first time what
                 //          is the expr-node type (FunctionRef, FunctionLambdaRef, or pure expression).
                 result.getValues().add(evaluatedNode);
+                if (info.inFlight > 0 && this.getParam1().getExpr() != null && arrayToLoop.getValues().size() > 1) {
+                    List<OperonValue> values = new ArrayList<OperonValue>(arrayToLoop.getValues().size() - 1);
+                    for (int i = 1; i < arrayToLoop.getValues().size(); i ++) {
+                        values.add(ArrayGet.baseGet(this.getStatement(), arrayToLoop, i + 1));
+                    }
+                    final Statement scope = this.getStatement();
+                    final Node expr = this.getParam1();
+                    final ParseTree exprTree = CompiledQueryCache.getOrParseExpr(expr.getExpr());
+                    final OperonValue pathObjLink = objLink;
+                    ParallelUtil.ExprSource exprSource = new ParallelUtil.ExprSource() {
+                        public Node copy() throws Exception {
+                            return ParallelUtil.compileInScope(scope, exprTree);
+                        }
+
+                        public void prepare(Node exprCopy, int index) {
+                            // The values are from the second value onwards
+                            ArrayForEach.this.setCurrentPathWithPos(exprCopy.getStatement(), index + 2, pathObjLink);
+                        }
+
+                        public boolean isLoop() {
+                            // Break and Continue are errors, as in the sequential evaluation.
+                            return false;
+                        }
+                    };
+                    result.getValues().addAll(ParallelUtil.evaluateInFlight(exprSource, values, info.inFlight));
+                    this.getStatement().setCurrentPath(resetPath);
+                    return result;
+                }
                 for (int i = 1; i < arrayToLoop.getValues().size(); i ++) {
                     //System.out.println(">> i=" + i + 1);
                     Node n = this.getParam1();
@@ -160,4 +206,41 @@ public class ArrayForEach extends BaseArity1 implements Node, Arity1, SupportsAt
         stmt.setCurrentPath(newPath);
     }
 
+    public void setConfigs(Node conf) {
+        this.configs = conf;
+    }
+    
+    public ObjectType getConfigs() throws OperonGenericException {
+        if (this.configs == null) {
+            return new ObjectType(this.getStatement());
+        }
+        this.configs = (ObjectType) this.configs.evaluate();
+        return (ObjectType) this.configs;
+    }
+
+    public Info resolveConfigs() throws OperonGenericException {
+        Info info = new Info();
+        
+        if (this.configs == null) {
+            return info;
+        }
+        
+        for (PairType pair : this.getConfigs().getPairs()) {
+            String key = pair.getKey();
+            switch (key.toLowerCase()) {
+                case "\"inflight\"":
+                    NumberType inFlightValue = (NumberType) pair.getEvaluatedValue();
+                    info.inFlight = (int) inFlightValue.getDoubleValue();
+                    break;
+                default:
+                    break;
+            }
+        }
+        return info;
+    }
+
+    private class Info {
+        public int inFlight = -1;
+    }
+
 }
\ No newline at end of file
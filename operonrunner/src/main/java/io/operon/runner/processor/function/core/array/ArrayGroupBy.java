@@ -177,7 +177,7 @@ public class ArrayGroupBy extends BaseArity1 implements Node, Arity1 {
 		    else {
 		        groupPair.setPair("\"" + entryKey + "\"", groupArr);
 		    }
-		    result.addPair(groupPair);
+		    result.safeAddPair(groupPair); // the keys are unique in the groupMap
 		}
         return result;
     }
@@ -304,7 +304,7 @@ public class ArrayGroupBy extends BaseArity1 implements Node, Arity1 {
 		    }
 		    PairType groupPair = new PairType(arrayToGroup.getStatement());
 		    groupPair.setPair("\"" + entry.getKey() + "\"", groupArr);
-		    result.addPair(groupPair);
+		    result.safeAddPair(groupPair); // the keys are unique in the groupMap
 		}
         return result;
     }
@@ -52,6 +52,12 @@ public class ArrayMax extends BaseArity1 implements Node, Arity1 {
     public OperonValue evaluate() throws OperonGenericException {
         OperonValue currentValue = this.getStatement().getCurrentValue();
         ArrayType arrayToSeek = (ArrayType) currentValue.evaluate();
+        
+        PackedNumbers packed = arrayToSeek.getPackedValues();
+        if (packed != null && this.getParam1() == null
+                && (arrayToSeek.getArrayValueType() == IrTypes.MISSING_TYPE || arrayToSeek.getArrayValueType() == IrTypes.NUMBER_TYPE)) {
+            return packed.toNumberType(packed.indexOfMax(), arrayToSeek.getStatement());
+        }
         if (arrayToSeek.getValues().size() == 0) {
             return currentValue;
         }
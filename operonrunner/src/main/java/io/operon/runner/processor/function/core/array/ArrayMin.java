@@ -54,6 +54,12 @@ public class ArrayMin extends BaseArity1 implements Node, Arity1 {
         OperonValue currentValue = this.getStatement().getCurrentValue();
         ArrayType arrayToSeek = (ArrayType) currentValue.evaluate();
         
+        PackedNumbers packed = arrayToSeek.getPackedValues();
+        if (packed != null && this.getParam1() == null
+                && (arrayToSeek.getArrayValueType() == IrTypes.MISSING_TYPE || arrayToSeek.getArrayValueType() == IrTypes.NUMBER_TYPE)) {
+            return packed.toNumberType(packed.indexOfMin(), arrayToSeek.getStatement());
+        }
+        
         //System.out.println(arrayToSeek.getArrayValueType());
         
         if (arrayToSeek.getValues().size() == 0) {
@@ -59,6 +59,16 @@ public class ArraySort extends BaseArity1 implements Node, Arity1 /*, SupportsAt
     public ArrayType evaluate() throws OperonGenericException {
         OperonValue currentValue = this.getStatement().getCurrentValue();
         ArrayType arrayToSort = (ArrayType) currentValue.evaluate();
+        
+        PackedNumbers packed = arrayToSort.getPackedValues();
+        if (packed != null && this.getParam1() == null
+                && (arrayToSort.getArrayValueType() == IrTypes.MISSING_TYPE || arrayToSort.getArrayValueType() == IrTypes.NUMBER_TYPE)) {
+            PackedNumbers sorted = packed.sorted();
+            if (sorted != null) {
+                arrayToSort.setPackedValues(sorted);
+                return arrayToSort;
+            }
+        }
         if (arrayToSort.getValues().size() == 0) {
             return arrayToSort;
         }
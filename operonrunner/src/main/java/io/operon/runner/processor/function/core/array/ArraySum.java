@@ -27,6 +27,7 @@ import io.operon.runner.node.type.NumberType;
 import io.operon.runner.node.type.OperonValue;
 import io.operon.runner.node.type.ArrayType;
 import io.operon.runner.node.type.ObjectType;
+import io.operon.runner.node.type.PackedNumbers;
 import io.operon.runner.statement.Statement;
 import io.operon.runner.processor.function.BaseArity0;
 import io.operon.runner.processor.function.Arity0;
@@ -57,6 +58,15 @@ public class ArraySum extends BaseArity0 implements Node, Arity0 {
             OperonValue currentValue = this.getStatement().getCurrentValue();
             ////:OFF:log.debug("Sum() :: currentValue :: " + currentValue.getClass().getName());
             ArrayType array = (ArrayType) currentValue.evaluate();
+            
+            PackedNumbers packed = array.getPackedValues();
+            if (packed != null) {
+                NumberType result = new NumberType(this.getStatement());
+                result.setDoubleValue(packed.sum());
+                result.setPrecision(packed.maxPrecision());
+                return result;
+            }
+            
             List<Node> arrayValues = array.getValues();
             
             double resultSum = 0.0;
@@ -57,7 +57,7 @@ public class ObjectCreatePair extends BaseArity2 implements Node, Arity2 {
             //ObjectType result = new ObjectType(this.getStatement());
             List<PairType> pairs = new ArrayList<PairType>();
             PairType resultPair = new PairType(stmt);
-            resultPair.setPair("\"" + keyStr + "\"", jsonValue);
+            resultPair.setPair(PairKey.of(keyStr), jsonValue);
             result.addPair(resultPair);
             
             return result;
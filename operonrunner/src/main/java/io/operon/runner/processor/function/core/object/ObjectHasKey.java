@@ -48,7 +48,7 @@ public class ObjectHasKey extends BaseArity1 implements Node, Arity1 {
             String key = ((StringType) keyNode).getJavaStringValue();
             
             ObjectType obj = (ObjectType) currentValue.evaluate();
-            boolean hasKey = obj.hasKey("\"" + key + "\"");
+            boolean hasKey = obj.hasKey(PairKey.quote(key));
             
             if (hasKey) {
                 TrueType result = new TrueType(this.getStatement());
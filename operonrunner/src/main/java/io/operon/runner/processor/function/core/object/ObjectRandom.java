@@ -86,7 +86,7 @@ public class ObjectRandom extends BaseArity1 implements Node, Arity1 {
                throw new Exception("Option \"count\" cannot be smaller than zero."); 
             }
             
-            List<PairType> resultList = new ArrayList<PairType>();
+            List<PairType> resultList = new PairList();
 
             List<Integer> availableIndexes = new ArrayList<Integer>();
             for (int i = 0; i < originalResultList.size(); i ++) {
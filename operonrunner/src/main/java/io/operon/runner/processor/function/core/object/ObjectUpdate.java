@@ -106,7 +106,7 @@ public class ObjectUpdate extends BaseArity2 implements Node, Arity2 {
         // inject value in object
         ObjectType injectObj = new ObjectType(obj.getStatement());
         PairType injectPair = new PairType(obj.getStatement());
-        injectPair.setPair("\"" + updateKey + "\"", injectValue);
+        injectPair.setPair(PairKey.of(updateKey), injectValue);
         injectObj.addPair(injectPair);
         
         updateValueNode.getStatement().setCurrentValue(injectObj);
@@ -83,7 +83,7 @@ public class ObjectUpsert extends BaseArity2 implements Node, Arity2 {
     }
 
     public static ObjectType doUpsertByKey(ObjectType obj, String updateKey, Node updateValueNode) throws OperonGenericException {
-        boolean hasKey = obj.hasKey("\"" + updateKey + "\"");
+        boolean hasKey = obj.hasKey(PairKey.quote(updateKey));
         if (hasKey == false) {
             // insert the key:
             
@@ -93,7 +93,7 @@ public class ObjectUpsert extends BaseArity2 implements Node, Arity2 {
             
             if (updateValueJson instanceof EmptyType == false) {
                 PairType newPair = new PairType(obj.getStatement());
-                newPair.setPair("\"" + updateKey + "\"", updateValueJson);
+                newPair.setPair(PairKey.of(updateKey), updateValueJson);
                 obj.addPair(newPair);
             }
             return obj;
@@ -105,7 +105,7 @@ public class ObjectUpsert extends BaseArity2 implements Node, Arity2 {
             // inject value in object
             ObjectType injectObj = new ObjectType(obj.getStatement());
             PairType injectPair = new PairType(obj.getStatement());
-            injectPair.setPair("\"" + updateKey + "\"", injectValue);
+            injectPair.setPair(PairKey.of(updateKey), injectValue);
             injectObj.addPair(injectPair);
             
             updateValueNode.getStatement().setCurrentValue(injectObj);
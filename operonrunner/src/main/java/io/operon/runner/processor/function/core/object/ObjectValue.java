@@ -100,17 +100,14 @@ public class ObjectValue extends BaseArity1 implements Node, Arity1 {
         }
         else {
             boolean found = false;
-            List<PairType> pairs = obj.getPairs();
-            for (int i = 0; i < pairs.size(); i ++) {
-                if (pairs.get(i).getKey().equals("\"" + key + "\"")) {
-                    result = pairs.get(i).getValue();
-                    found = true;
-                    result = result.evaluate();
-                    //setCurrentPathWithKey(result.getStatement(), key, obj);
-                    if (result instanceof LambdaFunctionRef) {
-                        result = handleLambdaFunctionRef(obj, (LambdaFunctionRef) result);
-                    }
-                    break;
+            PairType pair = obj.getPairByKey(PairKey.quote(key));
+            if (pair != null) {
+                result = pair.getValue();
+                found = true;
+                result = result.evaluate();
+                //setCurrentPathWithKey(result.getStatement(), key, obj);
+                if (result instanceof LambdaFunctionRef) {
+                    result = handleLambdaFunctionRef(obj, (LambdaFunctionRef) result);
                 }
             }
 
@@ -34,6 +34,7 @@ import io.operon.runner.processor.function.Arity0;
 import io.operon.runner.processor.function.Namespaces;
 import io.operon.runner.util.JsonUtil;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.JsonStringCodec;
 import io.operon.runner.model.exception.OperonGenericException;
 
 //
@@ -59,9 +60,12 @@ public class RawToStringType extends BaseArity0 implements Node, Arity0 {
     }
 
     public static StringType rawToStringType(Statement stmt, RawValue bv, Boolean escape) throws OperonGenericException {
-        String rawStr = new String(bv.getBytes());
+        String rawStr = null;
         if (escape) {
-            rawStr = RawToStringType.sanitizeForStringType(rawStr);
+            rawStr = JsonStringCodec.escapeToString(bv.getBytes());
+        }
+        else {
+            rawStr = new String(bv.getBytes());
         }
         StringType result = new StringType(stmt);
         // TODO: check if escape: 
@@ -75,17 +79,10 @@ public class RawToStringType extends BaseArity0 implements Node, Arity0 {
         return result;
     }
     
+    //
+    // Escapes the backslash, double-quote, \b, \f, \n, \r and \t (see JsonStringCodec).
+    //
     public static String sanitizeForStringType(String strValue) {
-        //
-        // NOTE: the replaces must be run in correct order.
-        //
-        strValue = strValue.replaceAll("\\\\", "\\\\\\\\") // replace backslash: "\foo" -> "\\foo"
-                            .replaceAll("\b", "\\\\b") // replace backspace
-                            .replaceAll("\f", "\\\\f") // replace form-feed
-                            .replaceAll("\t", "\\\\t") // replace tab
-                            .replaceAll("\r", "\\\\r") // replace carriage-return
-                            .replaceAll("\n", "\\\\n") // replace new-lines
-                            .replaceAll("\"", "\\\\\""); // replace double-quotes
-        return strValue;
+        return JsonStringCodec.escape(strValue);
     }
 }
\ No newline at end of file
@@ -118,7 +118,7 @@ public class CoreFunctionResolver {
             || fqFunctionName.equals("core:array:forAll:1") || fqFunctionName.equals("array:forAll:1") || fqFunctionName.equals(":forAll:1")
             || fqFunctionName.equals("core:array:forAtLeast:2") || fqFunctionName.equals("array:forAtLeast:2") || fqFunctionName.equals(":forAtLeast:2")
             || fqFunctionName.equals("core:array:forAtMost:2") || fqFunctionName.equals("array:forAtMost:2") || fqFunctionName.equals(":forAtMost:2")
-            || fqFunctionName.equals("core:array:forEach:1") || fqFunctionName.equals("array:forEach:1") || fqFunctionName.equals(":forEach:1")
+            || fqFunctionName.equals("core:array:forEach:1") || fqFunctionName.equals("array:forEach:1") || fqFunctionName.equals(":forEach:1") || fqFunctionName.equals("core:array:forEach:2") || fqFunctionName.equals("array:forEach:2") || fqFunctionName.equals(":forEach:2")
             || fqFunctionName.equals("core:array:forEachPair:2") || fqFunctionName.equals("array:forEachPair:2") || fqFunctionName.equals(":forEachPair:2")
             || fqFunctionName.equals("core:array:contains:1") || fqFunctionName.equals("array:contains:1")
             || fqFunctionName.equals("core:array:groupBy:0") || fqFunctionName.equals("array:groupBy:0") || fqFunctionName.equals("core:array:groupBy:1") || fqFunctionName.equals("array:groupBy:1")
@@ -28,6 +28,7 @@ import io.operon.runner.processor.function.Arity1;
 import io.operon.runner.processor.function.Namespaces;
 import io.operon.runner.processor.function.core.raw.RawToStringType;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.RegexCache;
 import io.operon.runner.model.exception.OperonGenericException;
 
 /*
@@ -36,10 +37,20 @@ import io.operon.runner.model.exception.OperonGenericException;
  **/
 public class StringCollect extends BaseArity1 implements Node, Arity1 {
     
+    private transient Pattern literalPattern; // when the regex is a literal
+    
     public StringCollect(Statement statement, List<Node> params) throws OperonGenericException {
         super(statement);
         this.setParams(params, "collect", "regex");
         this.setNs(Namespaces.STRING);
+        boolean unescape = true;
+        this.literalPattern = RegexCache.compileLiteral(this.getParam1(), unescape);
+    }
+
+    private static Pattern compilePattern(StringType patternJsStr) {
+        String patternStr = patternJsStr.getJavaStringValue();
+        patternStr = new String(StringToRaw.stringToBytes(patternStr, true));
+        return RegexCache.compile(patternStr);
     }
 
     public ArrayType evaluate() throws OperonGenericException {        
@@ -49,12 +60,11 @@ public class StringCollect extends BaseArity1 implements Node, Arity1 {
             StringType jsStr = (StringType) currentValue.evaluate();
             String strValue = jsStr.getJavaStringValue();
             
-            StringType patternJsStr = (StringType) this.getParam1().evaluate();
-            String patternStr = patternJsStr.getJavaStringValue();
-            
-            patternStr = new String(StringToRaw.stringToBytes(patternStr, true));
+            Pattern p = this.literalPattern;
+            if (p == null) {
+                p = compilePattern((StringType) this.getParam1().evaluate());
+            }
             
-            Pattern p = Pattern.compile(patternStr);
             Matcher m = p.matcher(strValue);
             
             ArrayType result = new ArrayType(this.getStatement());
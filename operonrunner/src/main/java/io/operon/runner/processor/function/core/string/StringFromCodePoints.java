@@ -34,6 +34,7 @@ import io.operon.runner.processor.function.Arity0;
 import io.operon.runner.processor.function.Namespaces;
 import io.operon.runner.util.JsonUtil;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.JsonStringCodec;
 import io.operon.runner.model.exception.OperonGenericException;
 
 public class StringFromCodePoints extends BaseArity0 implements Node, Arity0 {
@@ -62,7 +63,7 @@ public class StringFromCodePoints extends BaseArity0 implements Node, Arity0 {
             
             int[] cpArray = codePointsArray.stream().mapToInt(i -> i).toArray();
             String resultStr = new String(cpArray, 0, cpArray.length);
-            resultStr = resultStr.replaceAll("\"", "\\\\\""); // sanitize-string
+            resultStr = JsonStringCodec.escapeQuotes(resultStr); // sanitize-string
             result.setFromJavaString(resultStr);
             return result;
         } catch (Exception e) {
@@ -17,6 +17,7 @@
 package io.operon.runner.processor.function.core.string;
 
 import java.util.List;
+import java.util.regex.Pattern;
 
 import io.operon.runner.node.AbstractNode;
 import io.operon.runner.node.Node;
@@ -31,27 +32,35 @@ import io.operon.runner.processor.function.BaseArity1;
 import io.operon.runner.processor.function.Arity1;
 import io.operon.runner.processor.function.Namespaces;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.RegexCache;
 import io.operon.runner.model.exception.OperonGenericException;
 
 public class StringMatches extends BaseArity1 implements Node, Arity1 {
     
+    private transient Pattern literalPattern; // when the regex is a literal
+    
     public StringMatches(Statement statement, List<Node> params) throws OperonGenericException {
         super(statement);
         this.setParams(params, "matches", "regex");
         this.setNs(Namespaces.STRING);
+        this.literalPattern = RegexCache.compileLiteral(this.getParam1());
     }
 
     public OperonValue evaluate() throws OperonGenericException {        
         try {
             OperonValue currentValue = this.getStatement().getCurrentValue();
             
-            Node regexNode = this.getParam1().evaluate();
-            String regexStr = ((StringType) regexNode).getJavaStringValue();
+            Pattern p = this.literalPattern;
+            if (p == null) {
+                Node regexNode = this.getParam1().evaluate();
+                String regexStr = ((StringType) regexNode).getJavaStringValue();
+                p = RegexCache.compile(regexStr);
+            }
             
             StringType str = (StringType) currentValue.evaluate();
             String strValue = str.getJavaStringValue();
             
-            if (strValue.matches(regexStr)) {
+            if (p.matcher(strValue).matches()) {
                 TrueType result = new TrueType(this.getStatement());
                 return result;
             }
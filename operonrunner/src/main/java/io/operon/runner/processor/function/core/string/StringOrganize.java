@@ -30,6 +30,8 @@ import io.operon.runner.processor.function.Arity1;
 import io.operon.runner.processor.function.Namespaces;
 import io.operon.runner.util.JsonUtil;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.RegexCache;
+import io.operon.runner.util.JsonStringCodec;
 import io.operon.runner.model.exception.OperonGenericException;
 
 //
@@ -129,18 +131,10 @@ public class StringOrganize extends BaseArity1 implements Node, Arity1 {
                             break;
                         case "\"separators\"":
                             String separatorsStr = ((StringType) pair.getValue().evaluate()).getJavaStringValue();
-                            separatorsStr = separatorsStr.replaceAll("\\\\n", "\n");
-                            separatorsStr = separatorsStr.replaceAll("\\\\r", "\r");
-                            
                             if (separatorsStr.contains("\"")) {
                                 parseQuotedStrings = false;
                             }
-                            separatorsStr = separatorsStr.replaceAll("\\\\\"", "\"");
-                            
-                            separatorsStr = separatorsStr.replaceAll("\\\\t", "\t");
-                            separatorsStr = separatorsStr.replaceAll("\\\\b", "\b");
-                            separatorsStr = separatorsStr.replaceAll("\\\\f", "\f");
-                            separatorsStr = separatorsStr.replaceAll("\\\\\\\\", "\\\\");
+                            separatorsStr = JsonStringCodec.unescape(separatorsStr);
                             singleSeparators = separatorsStr;
                             break;
                         case "\"includelinesstartingwith\"":
@@ -182,7 +176,7 @@ public class StringOrganize extends BaseArity1 implements Node, Arity1 {
                 //System.out.println("Separator :: [" + sep + "]");
                 //sep = sep.replaceAll("\\", "\\\\");
                 //System.out.println("Separator_ :: [" + sep + "]");
-                String [] parts = strValue.split(lineSeparator);
+                String [] parts = RegexCache.compile(lineSeparator).split(strValue);
                 ArrayType result = new ArrayType(stmt);
                 int startIndex = 0;
                 
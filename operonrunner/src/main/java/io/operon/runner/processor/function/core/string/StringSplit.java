@@ -17,6 +17,7 @@
 package io.operon.runner.processor.function.core.string;
 
 import java.util.List;
+import java.util.regex.Pattern;
 
 import io.operon.runner.node.AbstractNode;
 import io.operon.runner.node.Node;
@@ -30,6 +31,7 @@ import io.operon.runner.processor.function.BaseArity1;
 import io.operon.runner.processor.function.Arity1;
 import io.operon.runner.processor.function.Namespaces;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.RegexCache;
 import io.operon.runner.model.exception.OperonGenericException;
 
 /*
@@ -38,24 +40,31 @@ import io.operon.runner.model.exception.OperonGenericException;
  **/
 public class StringSplit extends BaseArity1 implements Node, Arity1 {
     
+    private transient Pattern literalPattern; // when the regex is a literal
+    
     public StringSplit(Statement statement, List<Node> params) throws OperonGenericException {
         super(statement);
         this.setParams(params, "split", "regex");
         this.setNs(Namespaces.STRING);
+        this.literalPattern = RegexCache.compileLiteral(this.getParam1());
     }
 
     public ArrayType evaluate() throws OperonGenericException {        
         try {
             OperonValue currentValue = this.getStatement().getCurrentValue();
             
-            StringType split = (StringType) this.getParam1().evaluate();
-            String splitByRegex = split.getJavaStringValue();
+            Pattern p = this.literalPattern;
+            if (p == null) {
+                StringType split = (StringType) this.getParam1().evaluate();
+                String splitByRegex = split.getJavaStringValue();
+                p = RegexCache.compile(splitByRegex);
+            }
             
             StringType str = (StringType) currentValue.evaluate();
             String strValue = str.getJavaStringValue();
             ArrayType result = new ArrayType(this.getStatement());
             
-            String [] resultParts = strValue.split(splitByRegex);
+            String [] resultParts = p.split(strValue);
             
             for (int i = 0; i < resultParts.length; i ++) {
                 StringType resultStringPart = new StringType(this.getStatement());
@@ -34,6 +34,7 @@ import io.operon.runner.processor.function.Arity0;
 import io.operon.runner.processor.function.Namespaces;
 import io.operon.runner.util.JsonUtil;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.JsonStringCodec;
 import io.operon.runner.model.exception.OperonGenericException;
 
 public class StringToRaw extends BaseArity0 implements Node, Arity0 {
@@ -60,11 +61,7 @@ public class StringToRaw extends BaseArity0 implements Node, Arity0 {
 
     public static byte[] stringToBytes(String strValue, boolean unescape) {
         if (unescape) {
-            //
-            // NOTE: the replaces must be run in correct order.
-            //
-            strValue = StringToRaw.unescapeString(strValue);
-            return strValue.getBytes();
+            return JsonStringCodec.unescapeToBytes(strValue);
         }
         else {
             return strValue.getBytes();
@@ -75,12 +72,6 @@ public class StringToRaw extends BaseArity0 implements Node, Arity0 {
     // NOTE: see raw:rawToStringType for escaping string.
     //
     public static String unescapeString(String strValue) {
-        return strValue.replaceAll("\\\\\"", "\"") // replace double-quotes
-                        .replaceAll("\\\\n", "\n") // replace new-lines
-                        .replaceAll("\\\\r", "\r") // replace carriage-return
-                        .replaceAll("\\\\t", "\t") // replace tab
-                        .replaceAll("\\\\f", "\f") // replace form-feed
-                        .replaceAll("\\\\b", "\b") // replace backspace
-                        .replaceAll("\\\\\\\\", "\\\\"); // replace backslash: "\\foo" -> "\foo"
+        return JsonStringCodec.unescape(strValue);
     }
 }
\ No newline at end of file
@@ -37,7 +37,7 @@ import com.google.gson.annotations.Expose;
 public abstract class BaseStatement {
      // no logger 
     @Expose private String id;
-    private Map<String, OperonValue> runtimeValues;
+    private RuntimeValues runtimeValues;
     private Statement previousStatement;
     @Expose private Map<String, LetStatement> letStatements;
     private ExceptionHandler exceptionHandler;
@@ -67,7 +67,7 @@ public abstract class BaseStatement {
     
     public BaseStatement(Context ctx) {
         this.operonContext = ctx;
-        this.runtimeValues = new HashMap<String, OperonValue>();
+        this.runtimeValues = new RuntimeValues();
         this.letStatements = new HashMap<String, LetStatement>();
         this.setErrorHandled(false);
     }
@@ -91,12 +91,12 @@ public abstract class BaseStatement {
     }
     
     public OperonValue getCurrentValue() {
-        OperonValue currentValue = this.getRuntimeValues().get("@");
+        OperonValue currentValue = this.runtimeValues.getCurrentValue();
         return currentValue;
     }
     
     public void setCurrentValue(OperonValue currentValue) {
-        this.getRuntimeValues().put("@", currentValue);
+        this.runtimeValues.setCurrentValue(currentValue);
     }
     
     public Map<String, OperonValue> getRuntimeValues() {
@@ -104,7 +104,14 @@ public abstract class BaseStatement {
     }
     
     protected void setRuntimeValues(Map<String, OperonValue> rtv) {
-        this.runtimeValues = rtv;
+        if (rtv instanceof RuntimeValues) {
+            this.runtimeValues = (RuntimeValues) rtv;
+        }
+        else {
+            RuntimeValues runtimeValues = new RuntimeValues();
+            runtimeValues.putAll(rtv);
+            this.runtimeValues = runtimeValues;
+        }
     }
     
     public Context getOperonContext() {
@@ -0,0 +1,381 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.statement;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.operon.runner.node.type.OperonValue;
+
+//
+// The runtime-values of the statement (the frame): the current-value ("@"), and the values
+// which are set when evaluating (e.g. the function-arguments, the Loop-value and "_").
+//
+// Each symbol is given a fixed slot-number (see slotKeyOf), so the ValueRef and the Loop can resolve
+// the slot when compiled, and read and set the value by the slot. The current-value has its own field.
+// A statement holds only a few values, so they are kept in arrays which are scanned by the slot.
+//
+// This is a Map, so the values can still be set and read by the symbol.
+//
+// The slots are keyed weakly, so the slot of the symbol is dropped when the queries which used
+// the symbol are gone. The holders of the slot (the SlotKey and the RuntimeValues) keep the
+// key-instance of the slot, so the slot of a symbol in use is never dropped. The slots are looked up
+// under a lock, which is taken once when a symbol is resolved; not when the value is set by the SlotKey.
+// The slot-numbers are not reused.
+//
+public class RuntimeValues extends AbstractMap<String, OperonValue> {
+     // no logger
+
+    public static final String CURRENT_VALUE = "@";
+    public static final int CURRENT_VALUE_SLOT = 0;
+
+    private static final Map<String, Slot> slots = new WeakHashMap<String, Slot>(); // guarded by itself
+    private static final AtomicInteger slotCount = new AtomicInteger(1);
+
+    private static final int[] NO_SLOTS = new int[0];
+    private static final String[] NO_KEYS = new String[0];
+    private static final OperonValue[] NO_VALUES = new OperonValue[0];
+
+    private OperonValue currentValue;
+    private boolean hasCurrentValue = false;
+
+    private int[] valueSlots = NO_SLOTS;
+    private String[] keys = NO_KEYS;
+    private OperonValue[] values = NO_VALUES;
+    private int size = 0;
+
+    //
+    // The symbol with its slot, resolved once (e.g. when the ValueRef or the Loop is compiled), so the
+    // value can be set and read by the slot without looking up the slots again. Holds the key-instance
+    // of the slot, so the slot of the symbol is kept while this is held. Equal symbols have the same
+    // slot in all the statements.
+    //
+    public static final class SlotKey {
+        private final String key;
+        private final int slot;
+
+        private SlotKey(String key, int slot) {
+            this.key = key;
+            this.slot = slot;
+        }
+
+        public String getKey() {
+            return this.key;
+        }
+
+        public int getSlot() {
+            return this.slot;
+        }
+    }
+
+    public static final SlotKey CURRENT_VALUE_KEY = new SlotKey(CURRENT_VALUE, CURRENT_VALUE_SLOT);
+
+    // The symbols which the runtime sets itself, resolved here so setting them does not lock the slots.
+    private static final SlotKey[] RUNTIME_KEYS = new SlotKey[] {
+        resolve("$"), resolve("_"), resolve("$a"), resolve("$b"), resolve("$error")
+    };
+
+    public static SlotKey slotKeyOf(String key) {
+        if (CURRENT_VALUE.equals(key)) {
+            return CURRENT_VALUE_KEY;
+        }
+        for (SlotKey runtimeKey : RUNTIME_KEYS) {
+            if (runtimeKey.key.equals(key)) {
+                return runtimeKey;
+            }
+        }
+        return resolve(key);
+    }
+
+    private static SlotKey resolve(String key) {
+        synchronized (slots) {
+            Slot slot = slots.get(key);
+            String slotKey = (slot == null ? null : slot.key.get());
+            if (slotKey == null) {
+                slot = new Slot(slotCount.getAndIncrement(), key);
+                slots.put(key, slot);
+                slotKey = key;
+            }
+            return new SlotKey(slotKey, slot.slot);
+        }
+    }
+
+    //
+    // The slot does not hold its key strongly, otherwise the weak key of the slots would never be dropped.
+    //
+    private static class Slot {
+        private final int slot;
+        private final WeakReference<String> key;
+
+        Slot(int slot, String key) {
+            this.slot = slot;
+            this.key = new WeakReference<String>(key);
+        }
+    }
+
+    //
+    // Reads the value by the slot, when the map is RuntimeValues, otherwise by the key.
+    //
+    public static OperonValue get(Map<String, OperonValue> runtimeValues, int slot, String key) {
+        if (runtimeValues instanceof RuntimeValues) {
+            return ((RuntimeValues) runtimeValues).getBySlot(slot);
+        }
+        return runtimeValues.get(key);
+    }
+
+    //
+    // Sets the value by the slot, when the map is RuntimeValues, otherwise by the key.
+    //
+    public static OperonValue put(Map<String, OperonValue> runtimeValues, SlotKey slotKey, OperonValue value) {
+        if (runtimeValues instanceof RuntimeValues) {
+            return ((RuntimeValues) runtimeValues).put(slotKey, value);
+        }
+        return runtimeValues.put(slotKey.key, value);
+    }
+
+    public OperonValue getCurrentValue() {
+        return this.currentValue;
+    }
+
+    public void setCurrentValue(OperonValue value) {
+        this.currentValue = value;
+        this.hasCurrentValue = true;
+    }
+
+    public OperonValue getBySlot(int slot) {
+        if (slot == CURRENT_VALUE_SLOT) {
+            return this.currentValue;
+        }
+        int[] s = this.valueSlots;
+        for (int i = 0; i < this.size; i ++) {
+            if (s[i] == slot) {
+                return this.values[i];
+            }
+        }
+        return null;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < this.size; i ++) {
+            String k = this.keys[i];
+            if (k == key || k.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public OperonValue get(Object key) {
+        if (CURRENT_VALUE.equals(key)) {
+            return this.currentValue;
+        }
+        int i = this.indexOf(key);
+        return (i < 0 ? null : this.values[i]);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (CURRENT_VALUE.equals(key)) {
+            return this.hasCurrentValue;
+        }
+        return this.indexOf(key) >= 0;
+    }
+
+    @Override
+    public OperonValue put(String key, OperonValue value) {
+        if (CURRENT_VALUE.equals(key)) {
+            OperonValue previous = this.currentValue;
+            this.setCurrentValue(value);
+            return previous;
+        }
+        int i = this.indexOf(key);
+        if (i >= 0) {
+            OperonValue previous = this.values[i];
+            this.values[i] = value;
+            return previous;
+        }
+        this.add(slotKeyOf(key), value);
+        return null;
+    }
+
+    public OperonValue put(SlotKey slotKey, OperonValue value) {
+        if (slotKey.slot == CURRENT_VALUE_SLOT) {
+            OperonValue previous = this.currentValue;
+            this.setCurrentValue(value);
+            return previous;
+        }
+        int[] s = this.valueSlots;
+        for (int i = 0; i < this.size; i ++) {
+            if (s[i] == slotKey.slot) {
+                OperonValue previous = this.values[i];
+                this.values[i] = value;
+                return previous;
+            }
+        }
+        this.add(slotKey, value);
+        return null;
+    }
+
+    private void add(SlotKey slotKey, OperonValue value) {
+        if (this.size == this.keys.length) {
+            int capacity = Math.max(4, this.size * 2);
+            this.valueSlots = Arrays.copyOf(this.valueSlots, capacity);
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+        this.valueSlots[this.size] = slotKey.slot;
+        this.keys[this.size] = slotKey.key;
+        this.values[this.size] = value;
+        this.size += 1;
+    }
+
+    @Override
+    public OperonValue remove(Object key) {
+        if (CURRENT_VALUE.equals(key)) {
+            OperonValue previous = this.currentValue;
+            this.currentValue = null;
+            this.hasCurrentValue = false;
+            return previous;
+        }
+        int i = this.indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        OperonValue previous = this.values[i];
+        int last = this.size - 1;
+        this.valueSlots[i] = this.valueSlots[last];
+        this.keys[i] = this.keys[last];
+        this.values[i] = this.values[last];
+        this.keys[last] = null;
+        this.values[last] = null;
+        this.size = last;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        this.currentValue = null;
+        this.hasCurrentValue = false;
+        Arrays.fill(this.keys, 0, this.size, null);
+        Arrays.fill(this.values, 0, this.size, null);
+        this.size = 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size + (this.hasCurrentValue ? 1 : 0);
+    }
+
+    @Override
+    public Set<Map.Entry<String, OperonValue>> entrySet() {
+        return new AbstractSet<Map.Entry<String, OperonValue>>() {
+            @Override
+            public int size() {
+                return RuntimeValues.this.size();
+            }
+
+            @Override
+            public Iterator<Map.Entry<String, OperonValue>> iterator() {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    //
+    // Iterates the current-value first (when set), then the other values.
+    //
+    private class EntryIterator implements Iterator<Map.Entry<String, OperonValue>> {
+        private int next = (RuntimeValues.this.hasCurrentValue ? -1 : 0);
+        private String lastKey = null;
+
+        @Override
+        public boolean hasNext() {
+            return this.next < RuntimeValues.this.size;
+        }
+
+        @Override
+        public Map.Entry<String, OperonValue> next() {
+            if (this.hasNext() == false) {
+                throw new NoSuchElementException();
+            }
+            String key = (this.next < 0 ? CURRENT_VALUE : RuntimeValues.this.keys[this.next]);
+            this.next += 1;
+            this.lastKey = key;
+            return new Entry(key);
+        }
+
+        @Override
+        public void remove() {
+            if (this.lastKey == null) {
+                throw new IllegalStateException();
+            }
+            RuntimeValues.this.remove(this.lastKey);
+            if (CURRENT_VALUE.equals(this.lastKey) == false) {
+                // The last value was moved into the removed position.
+                this.next -= 1;
+            }
+            this.lastKey = null;
+        }
+    }
+
+    private class Entry implements Map.Entry<String, OperonValue> {
+        private final String key;
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return this.key;
+        }
+
+        @Override
+        public OperonValue getValue() {
+            return RuntimeValues.this.get(this.key);
+        }
+
+        @Override
+        public OperonValue setValue(OperonValue value) {
+            return RuntimeValues.this.put(this.key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof Map.Entry == false) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return this.key.equals(other.getKey()) && java.util.Objects.equals(this.getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            OperonValue value = this.getValue();
+            return this.key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+    }
+}
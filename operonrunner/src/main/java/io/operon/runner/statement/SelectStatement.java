@@ -107,6 +107,10 @@ public class SelectStatement extends BaseStatement implements Statement {
         this.configs = conf;
     }
     
+    public Node getConfigsNode() {
+        return this.configs;
+    }
+    
     public ObjectType getConfigs() throws OperonGenericException {
         if (this.configs == null) {
             return new ObjectType(this);
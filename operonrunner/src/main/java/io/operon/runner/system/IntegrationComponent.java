@@ -16,9 +16,13 @@
 
 package io.operon.runner.system;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import io.operon.runner.node.type.OperonValue;
 import io.operon.runner.node.type.ObjectType;
 import io.operon.runner.model.exception.OperonComponentException;
+import io.operon.runner.util.ParallelUtil;
 
 // 
 // IntegrationComponents are used (e.g.) to write the final or intermediary results into
@@ -35,6 +39,23 @@ public interface IntegrationComponent {
     public String getComponentName();
     public OperonValue produce(OperonValue value) throws OperonComponentException;
     
+    //
+    // Non-blocking variant of produce. The future completes with the result, or exceptionally with
+    // the OperonComponentException (wrapped in CompletionException).
+    //
+    // The default implementation runs produce on the I/O -executor. The components which can do
+    // their I/O without blocking a thread (e.g. http) override this.
+    //
+    public default CompletableFuture<OperonValue> produceAsync(OperonValue value) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.produce(value);
+            } catch (OperonComponentException oce) {
+                throw new CompletionException(oce);
+            }
+        }, ParallelUtil.getIoExecutor());
+    }
+    
     public void setJsonConfiguration(ObjectType jsonConfig);
 
 }
\ No newline at end of file
@@ -20,9 +20,17 @@ import java.util.Collections;
 import java.util.Collection;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Iterator;
 import java.util.stream.Stream;
 import java.util.stream.Collectors;
-import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import java.nio.file.Path;
@@ -42,6 +50,7 @@ import java.util.regex.Matcher;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.Charset;
 
+import io.operon.runner.EmptyContext;
 import io.operon.runner.OperonContext;
 import io.operon.runner.OperonContextManager;
 import static io.operon.runner.OperonContextManager.ContextStrategy;
@@ -53,6 +62,7 @@ import io.operon.runner.node.type.*;
 import io.operon.runner.model.streamvaluewrapper.*;
 import io.operon.runner.system.InputSourceDriver;
 import io.operon.runner.util.JsonUtil;
+import io.operon.runner.util.JsonStreamReader;
 import io.operon.runner.util.ErrorUtil;
 import io.operon.runner.system.BaseSystem;
 import io.operon.runner.statement.FromStatement;
@@ -69,15 +79,33 @@ import org.apache.logging.log4j.LogManager;
 public class FileSystem implements InputSourceDriver {
      // no logger 
 
+    private static final int DEFAULT_MAX_CONSUMED_FILES = 100000;
+    
     private ObjectType jsonConfiguration; // optional: json-configuration for the component
     private boolean isRunning;
     private long pollCounter = 0L;
     private ObjectType initialValue;
     private OperonContextManager ocm;
-    private List<String> consumedFiles; // list of consumed while, for stopWhenNoNewFiles -option.
+    private Set<String> consumedFiles; // consumed files, for stopWhenNoNewFiles -option. The oldest are forgotten, see maxConsumedFiles.
+    private Set<String> inFlightFiles; // files that are locked and given to the workers, but not yet handled.
+    private ThreadPoolExecutor workers; // null when the files are handled by the polling thread.
     
     public FileSystem() {
-        this.consumedFiles = new ArrayList<String>();
+        this.consumedFiles = createConsumedFiles(DEFAULT_MAX_CONSUMED_FILES);
+        this.inFlightFiles = ConcurrentHashMap.newKeySet();
+    }
+    
+    //
+    // Insertion-ordered, so when the set is full the file that was consumed first is forgotten.
+    //
+    private static Set<String> createConsumedFiles(final int maxSize) {
+        Map<String, Boolean> map = new LinkedHashMap<String, Boolean>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return this.size() > maxSize;
+            }
+        };
+        return Collections.synchronizedSet(Collections.newSetFromMap(map));
     }
     
     public boolean isRunning() {
@@ -138,6 +166,27 @@ public class FileSystem implements InputSourceDriver {
                 //:OFF:log.debug("FileSystem.start dir created");
             }
             
+            if (info.maxConsumedFiles != DEFAULT_MAX_CONSUMED_FILES) {
+                this.consumedFiles = createConsumedFiles(info.maxConsumedFiles);
+            }
+            
+            if (info.workers > 1) {
+                //
+                // The queue is bounded: when it is full, the polling thread handles the file itself,
+                // and does not lock more files than the workers can keep up with.
+                //
+                this.workers = new ThreadPoolExecutor(info.workers, info.workers, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(info.workers * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+            }
+            
+            FolderWatcher watcher = null;
+            if (info.watch && (info.fileName == null || info.fileName.isEmpty()) && folder.toFile().isDirectory()) {
+                watcher = FolderWatcher.create(folder, info.recursive);
+            }
+            Set<Path> changedFiles = new LinkedHashSet<Path>(); // reported by the watcher, and not yet consumed
+            boolean fullScan = true;
+            long lastFullScanMillis = 0L;
+            
             //:OFF:log.debug("FileSystem.start enter while");
             while (this.isRunning) {
                 if (info.pollTimes != null 
@@ -173,9 +222,16 @@ public class FileSystem implements InputSourceDriver {
                         this.isRunning = false;
                     }
             
-                    else {
+                    else if (watcher == null || fullScan
+                            || System.currentTimeMillis() - lastFullScanMillis >= info.fullScanInterval) {
                         //System.out.println("Directory found. Trying to consume files.");
                         this.handleFolder(info.path, info, ocm);
+                        lastFullScanMillis = System.currentTimeMillis();
+                        fullScan = false;
+                    }
+                    
+                    else {
+                        this.handleChangedFiles(changedFiles, info, ocm);
                     }
                 }
                 
@@ -227,7 +283,21 @@ public class FileSystem implements InputSourceDriver {
                     }
                 }
                 this.pollCounter += 1;
-                Thread.sleep(info.pollInterval);
+                if (watcher != null && this.isRunning) {
+                    // Returns as soon as files are created or modified.
+                    fullScan = watcher.await(info.pollInterval, changedFiles);
+                }
+                else {
+                    Thread.sleep(info.pollInterval);
+                }
+            }
+            
+            if (watcher != null) {
+                watcher.close();
+            }
+            if (this.workers != null) {
+                this.workers.shutdown();
+                this.workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
             }
 
             if (info.sendEndSignal) {
@@ -272,8 +342,7 @@ public class FileSystem implements InputSourceDriver {
 	    // Check regexes:
 	    //
 	    if (info.includeRegex != null && info.includeRegex.length() > 0) {
-            Pattern p = Pattern.compile(info.includeRegex);
-            Matcher m = p.matcher(fileName);
+            Matcher m = info.includePattern.matcher(fileName);
             return m.matches();
 	    }
 	    return true;
@@ -282,7 +351,7 @@ public class FileSystem implements InputSourceDriver {
     // Returns true if the file can be consumed,
     // and false otherwise.
     // Uses the "changed" -strategy
-    private static boolean possibleToConsume(File f, List<String> consumedFiles, Info info) throws OperonGenericException {
+    private static boolean possibleToConsume(File f, Set<String> consumedFiles, Info info) throws OperonGenericException {
 	    //System.out.println("possibleToConsume");
 	    if (info.stopWhenNoNewFiles) {
 	        if (consumedFiles.contains(f.toString())) {
@@ -406,30 +475,86 @@ public class FileSystem implements InputSourceDriver {
     		        continue;
     		    }
     		    
-    		    File f = new File(fileName);
-    		    
-    		    if (possibleToConsume(f, this.consumedFiles, info)) {
-    		        if (readLockFile(fileName, info) != null) {
-                		//Path filePath = Paths.get(folderPath + File.separator + fileName + ".operon");
-                		Path filePath = Paths.get(fileName + ".operon");
-                		//
-                		// TODO: mark the file, so other processes know that we are trying to read from it
-                		// TODO: batch-files if batch = true
-                		//System.out.println("Consuming file :: " + fileName);
-                		List<Path> pathsToFiles = new ArrayList<Path>();
-                		pathsToFiles.add(Paths.get(fileName));
-                        handleFrame(ocm, info, pathsToFiles);
-                        this.consumedFiles.add(fileName);
-    		        }
-    		    }
+    		    this.consumeFile(fileName, info, ocm);
     		    fileCounter += 1L;
-                Thread.sleep(info.pollInterval);
+    		    if (this.workers == null && info.watch == false) {
+                    Thread.sleep(info.pollInterval);
+    		    }
     		}
     	} catch (IOException e) {
     		System.err.println("ERROR SIGNAL: file-system");
     	}
     }
     
+    //
+    // Consumes the files reported by the watcher. The files that are still too new to be consumed
+    // (see changedTreshold) are kept in the set, and tried again on the next poll.
+    //
+    private void handleChangedFiles(Set<Path> changedFiles, Info info, OperonContextManager ocm) throws OperonGenericException, IOException {
+        long fileCounter = 0L;
+        long nowMillis = System.currentTimeMillis();
+        Iterator<Path> it = changedFiles.iterator();
+        while (it.hasNext()) {
+            if (info.maxFilesPerPoll != null && (fileCounter >= info.maxFilesPerPoll)) {
+                break;
+            }
+            Path path = it.next();
+            String fileName = path.toString();
+            File f = path.toFile();
+            if (fileName.endsWith(".operon") || filterPredicate(fileName, info) == false || f.isFile() == false) {
+                it.remove();
+                continue;
+            }
+            if (nowMillis - info.changedTreshold < f.lastModified()) {
+                // Another process might still be writing the file.
+                continue;
+            }
+            it.remove();
+            this.consumeFile(fileName, info, ocm);
+            fileCounter += 1L;
+        }
+    }
+    
+    //
+    // Locks the file and handles it, either in this thread or in the workers.
+    //
+    private void consumeFile(String fileName, Info info, OperonContextManager ocm) throws OperonGenericException, IOException {
+        if (this.inFlightFiles.contains(fileName)) {
+            // A worker is handling the earlier version of the file, which still holds the lock.
+            return;
+        }
+        File f = new File(fileName);
+        
+        if (possibleToConsume(f, this.consumedFiles, info)) {
+            if (readLockFile(fileName, info) != null) {
+                //
+                // TODO: mark the file, so other processes know that we are trying to read from it
+                // TODO: batch-files if batch = true
+                //System.out.println("Consuming file :: " + fileName);
+                List<Path> pathsToFiles = new ArrayList<Path>();
+                pathsToFiles.add(Paths.get(fileName));
+                if (this.workers == null) {
+                    handleFrame(ocm, info, pathsToFiles);
+                    this.consumedFiles.add(fileName);
+                }
+                else {
+                    this.inFlightFiles.add(fileName);
+                    this.workers.execute(() -> {
+                        try {
+                            handleFrame(ocm, info, pathsToFiles);
+                            // Only the successfully handled file is consumed, the failed one is retried on the next poll.
+                            this.consumedFiles.add(fileName);
+                        } catch (Exception e) {
+                            System.err.println("FileSystem :: ERROR :: " + e.getMessage());
+                        } finally {
+                            this.inFlightFiles.remove(fileName);
+                        }
+                    });
+                }
+            }
+        }
+    }
+    
     // @param jsonObj : wrapper for initialValue
     public void streamLines(OperonContext ctx, Info info, Path path) throws OperonGenericException, IOException {
         //System.out.println("handling streamLines");
@@ -462,28 +587,31 @@ public class FileSystem implements InputSourceDriver {
                             }
                         }
                         
-                        if (info.streamLinesWrapper) {
-                            ObjectType jsonObj = new ObjectType(stmt);
-                            PairType pair = new PairType(stmt);
-                            pair.setPair("\"body\"", initValue);
-                            jsonObj.addPair(pair);
+                        // The context may be shared by the workers.
+                        synchronized (ctx) {
+                            if (info.streamLinesWrapper) {
+                                ObjectType jsonObj = new ObjectType(stmt);
+                                PairType pair = new PairType(stmt);
+                                pair.setPair("\"body\"", initValue);
+                                jsonObj.addPair(pair);
                             
-                            PairType pairLineCounter = new PairType(stmt);
-                            NumberType lnNode = new NumberType(stmt);
-                            lnNode.setDoubleValue((double) (lineCounter.longValue()));
-                            pairLineCounter.setPair("\"lineCounter\"", lnNode);
-                            jsonObj.addPair(pairLineCounter);
+                                PairType pairLineCounter = new PairType(stmt);
+                                NumberType lnNode = new NumberType(stmt);
+                                lnNode.setDoubleValue((double) (lineCounter.longValue()));
+                                pairLineCounter.setPair("\"lineCounter\"", lnNode);
+                                jsonObj.addPair(pairLineCounter);
                             
-                            // Set the initial value into OperonContext:
-                            ctx.setInitialValue(jsonObj);
-                        }
-                        else {
-                            ctx.setInitialValue(initValue);
-                        }
+                                // Set the initial value into OperonContext:
+                                ctx.setInitialValue(jsonObj);
+                            }
+                            else {
+                                ctx.setInitialValue(initValue);
+                            }
                 
-                        // Evaluate the query against the intial value:
-                        OperonValue result = ctx.evaluateSelectStatement();
-                        ctx.outputResult(result);
+                            // Evaluate the query against the intial value:
+                            OperonValue result = ctx.evaluateSelectStatement();
+                            ctx.outputResult(result);
+                        }
                     } catch (OperonGenericException oge) {
                         System.err.println("ERROR SIGNAL: file-system: while reading file line-content: " + oge.getMessage());
                     }
@@ -494,6 +622,46 @@ public class FileSystem implements InputSourceDriver {
         }
     }
     
+    //
+    // Sends each element of the top-level array for processing. The file is read through a fixed-size buffer
+    // (see JsonStreamReader), so only the element being processed is in the memory.
+    //
+    public void splitElements(OperonContext ctx, Info info, Path path) throws OperonGenericException, IOException {
+        Statement stmt = new DefaultStatement(ctx);
+        long elementCounter = 0L;
+        
+        try (InputStream is = new FileInputStream(path.toFile())) {
+            JsonStreamReader reader = new JsonStreamReader(is);
+            reader.setSplitArrays(true);
+            OperonValue element = null;
+            while ((element = reader.next()) != null) {
+                elementCounter += 1L;
+                OperonValue initValue = element;
+                
+                if (info.streamLinesWrapper) {
+                    ObjectType jsonObj = new ObjectType(stmt);
+                    PairType pair = new PairType(stmt);
+                    pair.setPair("\"body\"", element);
+                    jsonObj.addPair(pair);
+                    
+                    PairType pairElementCounter = new PairType(stmt);
+                    NumberType ecNode = new NumberType(stmt);
+                    ecNode.setDoubleValue((double) elementCounter);
+                    pairElementCounter.setPair("\"elementCounter\"", ecNode);
+                    jsonObj.addPair(pairElementCounter);
+                    initValue = jsonObj;
+                }
+                
+                // The context may be shared by the workers.
+                synchronized (ctx) {
+                    ctx.setInitialValue(initValue);
+                    OperonValue result = ctx.evaluateSelectStatement();
+                    ctx.outputResult(result);
+                }
+            }
+        }
+    }
+    
     //
     // Implement the handling logic here.
     //
@@ -533,6 +701,10 @@ public class FileSystem implements InputSourceDriver {
                 this.streamLines(ctx, info, path);
             }
             
+            else if (info.split) {
+                this.splitElements(ctx, info, path);
+            }
+            
             else {
                 Statement stmt = new DefaultStatement(ctx);
                 ObjectType jsonObj = new ObjectType(stmt);
@@ -559,29 +731,32 @@ public class FileSystem implements InputSourceDriver {
                 
                 if (info.readAs == ReadAsType.JSON) {
                     // Read the file-contents
-                    String fileContent = null;
+                    byte[] fileBytes = null;
                     try {
-                        fileContent = new String(Files.readAllBytes(path), info.charSet);
+                        fileBytes = Files.readAllBytes(path);
                     } catch (Exception e) {
                         System.err.println("ERROR SIGNAL: file-system: while reading file content: " + e.getMessage());
                     }
-                    if (fileContent == null) {
+                    if (fileBytes == null) {
                         System.err.println("File not found (empty content read).");
                         return;
                     }
                     
                     OperonValue initValue = null;
+                    CompilerFlags[] flags = null;
+                    if (info.index) {
+                        flags = new CompilerFlags[] {CompilerFlags.INDEX_ROOT};
+                    }
+                    
                     if (info.lwParser) {
-                        initValue = JsonUtil.lwOperonValueFromString(fileContent);
+                        initValue = JsonUtil.lwOperonValueFromString(new String(fileBytes, info.charSet));
+                    }
+                    else if (StandardCharsets.UTF_8.equals(info.charSet)) {
+                        // The UTF-8 bytes are read as such, without decoding them first into String.
+                        initValue = JsonUtil.operonValueFromBytes(fileBytes, flags, new EmptyContext());
                     }
                     else {
-                        if (info.index) {
-                            CompilerFlags[] flags = {CompilerFlags.INDEX_ROOT};
-                            initValue = JsonUtil.operonValueFromString(fileContent, flags);
-                        }
-                        else {
-                            initValue = JsonUtil.operonValueFromString(fileContent);
-                        }
+                        initValue = JsonUtil.operonValueFromString(new String(fileBytes, info.charSet), flags);
                     }
                     
                     PairType pair = new PairType(stmt);
@@ -591,14 +766,14 @@ public class FileSystem implements InputSourceDriver {
                 
                 else if (info.readAs == ReadAsType.RAW) {
                     // Read the file-contents
-                    String fileContent = new String(Files.readAllBytes(path), info.charSet);
-                    if (fileContent == null) {
-                        System.err.println("File not found (empty content read).");
-                        return;
+                    byte[] fileBytes = Files.readAllBytes(path);
+                    if (StandardCharsets.UTF_8.equals(info.charSet) == false) {
+                        // Re-encode into UTF-8
+                        fileBytes = new String(fileBytes, info.charSet).getBytes(StandardCharsets.UTF_8);
                     }
                     PairType pair = new PairType(stmt);
                     RawValue rawNode = new RawValue(stmt);
-                    rawNode.setValue(fileContent.getBytes(StandardCharsets.UTF_8));
+                    rawNode.setValue(fileBytes);
                     pair.setPair("\"body\"", rawNode);
                     jsonObj.addPair(pair);
                 }
@@ -623,12 +798,15 @@ public class FileSystem implements InputSourceDriver {
                     ErrorUtil.createErrorValueAndThrow(stmt, type, code, message);
                 }
                 
-                // Set the initial value into OperonContext:
-                ctx.setInitialValue(jsonObj);
-    
-                // Evaluate the query against the intial value:
-                OperonValue result = ctx.evaluateSelectStatement();
-                ctx.outputResult(result);
+                // The context may be shared by the workers.
+                synchronized (ctx) {
+                    // Set the initial value into OperonContext:
+                    ctx.setInitialValue(jsonObj);
+        
+                    // Evaluate the query against the intial value:
+                    OperonValue result = ctx.evaluateSelectStatement();
+                    ctx.outputResult(result);
+                }
             }
             
             
@@ -793,6 +971,15 @@ public class FileSystem implements InputSourceDriver {
                         info.streamLines = true;
                     }
                     break;
+                case "\"split\"":
+                    Node splitValue = pair.getValue().evaluate();
+                    if (splitValue instanceof FalseType) {
+                        info.split = false;
+                    }
+                    else {
+                        info.split = true;
+                    }
+                    break;
                 case "\"streamlineswrapper\"":
                     Node streamLinesWrapperValue = pair.getValue().evaluate();
                     if (streamLinesWrapperValue instanceof FalseType) {
@@ -835,6 +1022,7 @@ public class FileSystem implements InputSourceDriver {
                 case "\"includeregex\"":
                     String includeRegex = ((StringType) pair.getValue().evaluate()).getJavaStringValue();
                     info.includeRegex = includeRegex;
+                    info.includePattern = Pattern.compile(includeRegex);
                     break;
                 case "\"pollinterval\"":
                     double fcPollInterval = ((NumberType) pair.getValue().evaluate()).getDoubleValue();
@@ -865,6 +1053,27 @@ public class FileSystem implements InputSourceDriver {
                     }
                     info.includeExt = includeExtList;
                     break;
+                case "\"watch\"":
+                    Node watchValue = pair.getValue().evaluate();
+                    if (watchValue instanceof FalseType) {
+                        info.watch = false;
+                    }
+                    else {
+                        info.watch = true;
+                    }
+                    break;
+                case "\"fullscaninterval\"":
+                    double fullScanInterval = ((NumberType) pair.getValue().evaluate()).getDoubleValue();
+                    info.fullScanInterval = (long) fullScanInterval;
+                    break;
+                case "\"workers\"":
+                    double workers = ((NumberType) pair.getValue().evaluate()).getDoubleValue();
+                    info.workers = Math.max(1, (int) workers);
+                    break;
+                case "\"maxconsumedfiles\"":
+                    double maxConsumedFiles = ((NumberType) pair.getValue().evaluate()).getDoubleValue();
+                    info.maxConsumedFiles = Math.max(1, (int) maxConsumedFiles);
+                    break;
                 case "\"charset\"":
                     String fcCharSet = ((StringType) pair.getValue().evaluate()).getJavaStringValue();
                     info.charSet = Charset.forName(fcCharSet.toUpperCase());
@@ -936,7 +1145,8 @@ public class FileSystem implements InputSourceDriver {
         private boolean stopWhenNoNewFiles = false; // This records the file-names that are consumed and does not consume same filename twice.
         private boolean sendEndSignal = false; // When stopping, then send the EndValueType to the OperonContext.
         private boolean streamLines = false; // sends each line for processing.
-        private boolean streamLinesWrapper = false; // decide if add headers and body when streaming lines
+        private boolean streamLinesWrapper = false; // decide if add headers and body when streaming lines (or split elements)
+        private boolean split = false; // sends each element of the top-level array for processing.
         private boolean lwParser = false;
         private boolean index = false; // Build index of the value. This could speed up the query when accessing the same object multiple times.
         private String moveDonePath = ".done";
@@ -949,6 +1159,11 @@ public class FileSystem implements InputSourceDriver {
         private long changedTreshold = 1000L; // if file is new than now - changedTreshold, then consume it (applies for changed -readlock-strategy)
         private List<String> includeExt = new ArrayList<String>(); // e.g. ["json", "txt"] --> includes files with given extension: 1.json, data.txt would be included.
         private String includeRegex = null; // Use regex-expression to match the filename
+        private Pattern includePattern = null; // compiled includeRegex
+        private boolean watch = false; // Watch the folder for the new files, instead of listing it on each poll.
+        private long fullScanInterval = 10000L; // When watching, the folder is still listed after this many millis, in case the watcher missed files.
+        private int workers = 1; // Number of files handled concurrently. The query is evaluated one file at a time when the context is shared (SINGLETON).
+        private int maxConsumedFiles = DEFAULT_MAX_CONSUMED_FILES; // Number of the consumed files that are remembered for stopWhenNoNewFiles.
         private Charset charSet = Main.defaultCharset; // byte encoding scheme for read bytes
         
         // contextManagement is preferred option for ISD
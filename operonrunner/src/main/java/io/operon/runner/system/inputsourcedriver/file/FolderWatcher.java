@@ -0,0 +1,136 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.system.inputsourcedriver.file;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+//
+// Watches the folder (and its subfolders, when recursive) for the created and modified files,
+// so the file-isd does not have to list the folder to find the new files.
+//
+// The events may be lost (OVERFLOW), or not be delivered at all on some file-systems (e.g. network-mounts),
+// therefore the file-isd still lists the folder now and then (see fullScanInterval).
+//
+class FolderWatcher {
+     // no logger
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<WatchKey, Path>();
+    private final boolean recursive;
+
+    private FolderWatcher(WatchService watchService, boolean recursive) {
+        this.watchService = watchService;
+        this.recursive = recursive;
+    }
+
+    //
+    // @returns the watcher, or null if the file-system does not support watching.
+    //
+    static FolderWatcher create(Path folder, boolean recursive) {
+        try {
+            FolderWatcher watcher = new FolderWatcher(folder.getFileSystem().newWatchService(), recursive);
+            watcher.register(folder);
+            return watcher;
+        } catch (UnsupportedOperationException | IOException e) {
+            System.err.println("file-isd: cannot watch the folder, polling it instead: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void register(Path folder) throws IOException {
+        if (this.recursive) {
+            try (Stream<Path> walk = Files.walk(folder)) {
+                for (Path dir : (Iterable<Path>) walk.filter(p -> Files.isDirectory(p))::iterator) {
+                    this.registerOne(dir);
+                }
+            }
+        }
+        else {
+            this.registerOne(folder);
+        }
+    }
+
+    private void registerOne(Path dir) throws IOException {
+        WatchKey key = dir.register(this.watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        this.keys.put(key, dir);
+    }
+
+    //
+    // Waits for the events, at most timeoutMillis, and adds the paths of the created and modified files
+    // into the changed -set. After the first event, the events that are already queued are taken too.
+    //
+    // @returns true if the events were lost and the folder should be listed.
+    //
+    boolean await(long timeoutMillis, Set<Path> changed) throws InterruptedException {
+        boolean overflow = false;
+        try {
+            WatchKey key = this.watchService.poll(Math.max(timeoutMillis, 1L), TimeUnit.MILLISECONDS);
+            while (key != null) {
+                Path dir = this.keys.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW || dir == null) {
+                        overflow = true;
+                        continue;
+                    }
+                    Path child = dir.resolve((Path) event.context());
+                    if (Files.isDirectory(child)) {
+                        if (this.recursive && event.kind() == ENTRY_CREATE) {
+                            try {
+                                this.register(child);
+                            } catch (IOException e) {
+                                System.err.println("file-isd: cannot watch the folder: " + child);
+                            }
+                            // Files may have been written into the folder before it was registered.
+                            overflow = true;
+                        }
+                        continue;
+                    }
+                    changed.add(child);
+                }
+                if (key.reset() == false) {
+                    this.keys.remove(key);
+                }
+                key = this.watchService.poll();
+            }
+        } catch (ClosedWatchServiceException e) {
+            overflow = true;
+        }
+        return overflow;
+    }
+
+    void close() {
+        try {
+            this.watchService.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+}
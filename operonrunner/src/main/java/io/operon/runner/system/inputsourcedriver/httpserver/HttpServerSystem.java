@@ -138,6 +138,13 @@ public class HttpServerSystem implements InputSourceDriver {
             threadPoolExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(info.si.threadPoolSize);
             debug(info, "HttpServer: create http-server, host=" + info.si.host + ", port=" + info.si.port);
             
+            //
+            // The responses are written in parts (headers, chunked body), so disable the Nagle's algorithm,
+            // which would otherwise delay the kept-alive responses. Must be set before the first server is created.
+            //
+            if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+                System.setProperty("sun.net.httpserver.nodelay", "true");
+            }
             server = HttpServer.create(new InetSocketAddress(info.si.host, info.si.port), info.si.backlogSize);
             
             debug(info, "HttpServer: map paths");
@@ -33,8 +33,6 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.Headers;
 
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 
 import io.operon.runner.Main;
@@ -212,34 +210,25 @@ public class OperonHttpHandler implements HttpHandler {
     
                     // pull request body                
                     InputStream reqBodyIS = httpExchange.getRequestBody();
-                    
-                    final int bufferSize = 1024;
-                    final char[] buffer = new char[bufferSize];
-                    final StringBuilder out = new StringBuilder();
-                    Reader in = new InputStreamReader(reqBodyIS, StandardCharsets.UTF_8);
-                    int charsRead;
-                    while((charsRead = in.read(buffer, 0, buffer.length)) > 0) {
-                        out.append(buffer, 0, charsRead);
-                    }
+                    byte[] requestBodyBytes = reqBodyIS.readAllBytes();
                     
                     debug(info, "HttpHandler: map body: read inputstream");
-                    String materializedRequestBody = out.toString();
-                    if (materializedRequestBody.isEmpty()) {
+                    if (requestBodyBytes.length == 0) {
                         bodyNode = new EmptyType(stmt);
                     }
                     
                     else {
                         if (contentType.isEmpty() == false && contentType.toLowerCase().contains("application/json")) {
                             debug(info, "HttpHandler: map body: read as application/json");
-                            debug(info, "HttpHandler: map body from str: " + materializedRequestBody);
-                            bodyNode.setValue(JsonUtil.operonValueFromString(materializedRequestBody));
+                            debug(info, "HttpHandler: map body from bytes: " + requestBodyBytes.length);
+                            bodyNode.setValue(JsonUtil.operonValueFromBytes(requestBodyBytes));
                             debug(info, "HttpHandler: map body: set as JSON-value");
                         }
                         else {
                             // read as bytes.
                             debug(info, "HttpHandler: map body from bytes");
                             RawValue raw = new RawValue(stmt);
-                            raw.setValue(materializedRequestBody.getBytes());
+                            raw.setValue(requestBodyBytes);
                             bodyNode = raw;
                         }
                     }
@@ -391,11 +380,11 @@ public class OperonHttpHandler implements HttpHandler {
             debug(info, "HttpHandler: response not mappable. Ensure that response is Object.");
         }
 
-        String responseStr = responseValue.toString();
-        
-        httpExchange.sendResponseHeaders(statusCode, responseStr.length());
-        outputStream.write(responseStr.getBytes());
-        outputStream.flush();
+        //
+        // The response is streamed (chunked), so the body is not built in memory.
+        //
+        httpExchange.sendResponseHeaders(statusCode, 0);
+        responseValue.writeTo(outputStream, null);
         outputStream.close();
     }
 
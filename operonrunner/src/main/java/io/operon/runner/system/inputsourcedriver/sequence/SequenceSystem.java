@@ -25,6 +25,7 @@ import io.operon.runner.system.BaseSystem;
 import io.operon.runner.node.Node;
 import io.operon.runner.node.type.*;
 import io.operon.runner.util.JsonUtil;
+import io.operon.runner.util.OperonValueCopier;
 import io.operon.runner.statement.FromStatement;
 
 import java.util.concurrent.ExecutionException;
@@ -103,7 +104,7 @@ public class SequenceSystem extends BaseSystem implements InputSourceDriver {
                                 
                                 // This creates also a new Statement, therefore not affecting the state
                                 // of the original array.
-                                OperonValue jvDeepCopy = JsonUtil.lwOperonValueFromString(jv.toString());
+                                OperonValue jvDeepCopy = OperonValueCopier.snapshot((OperonValue) jv, null);
                                 handleFrame(ctxSub, (OperonValue) jvDeepCopy);
                                 int counter = i.getAndIncrement();
                                 
@@ -0,0 +1,223 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.system.integration.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.time.Duration;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import static java.net.http.HttpClient.Version;
+import static java.net.http.HttpClient.Redirect;
+
+//
+// The HttpClients shared by the http -components.
+//
+// The HttpClient keeps its connections alive and reuses them (and multiplexes the requests over
+// a single HTTP/2 -connection), so the clients are shared by all the requests that have the same
+// connection-settings. The pool is bounded: when full, the least recently used client is dropped,
+// and its connections are closed when the client is garbage-collected.
+//
+public class HttpClientPool {
+     // no logger
+
+    public static final int DEFAULT_MAX_CLIENTS = 32;
+
+    private static volatile int maxClients = DEFAULT_MAX_CLIENTS;
+
+    private static final Map<ClientKey, HttpClient> clients = new LinkedHashMap<ClientKey, HttpClient>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ClientKey, HttpClient> eldest) {
+            if (this.size() > maxClients) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    //
+    // Metrics
+    //
+    private static final AtomicLong clientsCreated = new AtomicLong();
+    private static final AtomicLong clientsReused = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+    private static final AtomicLong requests = new AtomicLong();
+    private static final AtomicLong failedRequests = new AtomicLong();
+    private static final AtomicLong activeRequests = new AtomicLong();
+    private static final AtomicLong http2Responses = new AtomicLong();
+    private static final AtomicLong http11Responses = new AtomicLong();
+    private static final AtomicLong requestTimeNanos = new AtomicLong();
+
+    //
+    // @param httpVersion :: null or 2 = HTTP/2 (falls back to HTTP/1.1 when the server does not support it), 1 = HTTP/1.1
+    //
+    public static HttpClient getClient(Integer httpVersion, Redirect followRedirects, Long connectTimeout,
+                String proxyHost, Integer proxyPort) {
+        ClientKey key = new ClientKey(httpVersion, followRedirects, connectTimeout, proxyHost, proxyPort);
+        synchronized (clients) {
+            HttpClient client = clients.get(key);
+            if (client != null) {
+                clientsReused.incrementAndGet();
+                return client;
+            }
+            client = createClient(key);
+            clients.put(key, client);
+            clientsCreated.incrementAndGet();
+            return client;
+        }
+    }
+
+    private static HttpClient createClient(ClientKey key) {
+        HttpClient.Builder builder = HttpClient.newBuilder();
+
+        if (key.httpVersion != null && key.httpVersion == 1) {
+            builder.version(Version.HTTP_1_1);
+        }
+        else {
+            builder.version(Version.HTTP_2);
+        }
+
+        if (key.followRedirects != null) {
+            builder.followRedirects(key.followRedirects);
+        }
+
+        if (key.connectTimeout != null) {
+            builder.connectTimeout(Duration.ofMillis(key.connectTimeout));
+        }
+
+        if (key.proxyHost != null) {
+            builder.proxy(ProxySelector.of(new InetSocketAddress(key.proxyHost, key.proxyPort)));
+        }
+
+        return builder.build();
+    }
+
+    //
+    // Called by the component around each request.
+    //
+    static long requestStarted() {
+        requests.incrementAndGet();
+        activeRequests.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    static void requestDone(long startTime, Version version) {
+        activeRequests.decrementAndGet();
+        requestTimeNanos.addAndGet(System.nanoTime() - startTime);
+        if (version == Version.HTTP_2) {
+            http2Responses.incrementAndGet();
+        }
+        else {
+            http11Responses.incrementAndGet();
+        }
+    }
+
+    static void requestFailed(long startTime) {
+        activeRequests.decrementAndGet();
+        requestTimeNanos.addAndGet(System.nanoTime() - startTime);
+        failedRequests.incrementAndGet();
+    }
+
+    public static void setMaxClients(int max) {
+        maxClients = max;
+    }
+
+    public static int getClientCount() {
+        synchronized (clients) {
+            return clients.size();
+        }
+    }
+
+    public static void clear() {
+        synchronized (clients) {
+            clients.clear();
+        }
+    }
+
+    public static long getClientsCreated() { return clientsCreated.get(); }
+    public static long getClientsReused() { return clientsReused.get(); }
+    public static long getEvictions() { return evictions.get(); }
+    public static long getRequests() { return requests.get(); }
+    public static long getFailedRequests() { return failedRequests.get(); }
+    public static long getActiveRequests() { return activeRequests.get(); }
+    public static long getHttp2Responses() { return http2Responses.get(); }
+    public static long getHttp11Responses() { return http11Responses.get(); }
+    public static long getRequestTimeMillis() { return requestTimeNanos.get() / 1000000L; }
+
+    //
+    // The metrics are printed after each request, when the http-component has the "debug" -option.
+    //
+    public static String getMetrics() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("HttpClientPool:\n");
+        sb.append(" - clients: " + getClientCount() + "\n");
+        sb.append(" - clientsCreated: " + getClientsCreated() + "\n");
+        sb.append(" - clientsReused: " + getClientsReused() + "\n");
+        sb.append(" - evictions: " + getEvictions() + "\n");
+        sb.append(" - requests: " + getRequests() + "\n");
+        sb.append(" - failedRequests: " + getFailedRequests() + "\n");
+        sb.append(" - activeRequests: " + getActiveRequests() + "\n");
+        sb.append(" - http2Responses: " + getHttp2Responses() + "\n");
+        sb.append(" - http11Responses: " + getHttp11Responses() + "\n");
+        sb.append(" - requestTimeMillis: " + getRequestTimeMillis() + "\n");
+        return sb.toString();
+    }
+
+    //
+    // The connection-settings of the client.
+    //
+    private static final class ClientKey {
+        private final Integer httpVersion;
+        private final Redirect followRedirects;
+        private final Long connectTimeout;
+        private final String proxyHost;
+        private final Integer proxyPort;
+
+        ClientKey(Integer httpVersion, Redirect followRedirects, Long connectTimeout, String proxyHost, Integer proxyPort) {
+            this.httpVersion = httpVersion;
+            this.followRedirects = followRedirects;
+            this.connectTimeout = connectTimeout;
+            this.proxyHost = proxyHost;
+            this.proxyPort = proxyPort;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof ClientKey == false) {
+                return false;
+            }
+            ClientKey other = (ClientKey) o;
+            return Objects.equals(this.httpVersion, other.httpVersion)
+                && this.followRedirects == other.followRedirects
+                && Objects.equals(this.connectTimeout, other.connectTimeout)
+                && Objects.equals(this.proxyHost, other.proxyHost)
+                && Objects.equals(this.proxyPort, other.proxyPort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.httpVersion, this.followRedirects, this.connectTimeout, this.proxyHost, this.proxyPort);
+        }
+    }
+}
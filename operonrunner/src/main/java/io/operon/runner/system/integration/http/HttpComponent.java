@@ -69,6 +69,8 @@ import java.io.InputStreamReader;
 import java.lang.StringBuffer;
 import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.zip.GZIPInputStream;
@@ -83,6 +85,7 @@ import io.operon.runner.system.integration.BaseComponent;
 import io.operon.runner.processor.function.core.raw.RawToStringType;
 import io.operon.runner.util.JsonUtil;
 import io.operon.runner.util.ErrorUtil;
+import io.operon.runner.util.ParallelUtil;
 import io.operon.runner.model.streamvaluewrapper.*;
 
 import org.apache.logging.log4j.Logger;
@@ -99,6 +102,12 @@ public class HttpComponent extends BaseComponent implements IntegrationComponent
      // no logger 
     private static final String COOKIES_HEADER = "Set-Cookie";
     private static java.net.CookieManager msCookieManager = new java.net.CookieManager();
+    
+    //
+    // The resolved configuration. This is reused as long as the configuration-object
+    // is the same and has no expressions which are evaluated for each value (i.e. it is locked).
+    //
+    private volatile Info resolvedInfo = null;
 
     public HttpComponent() {
         //:OFF:log.debug("http :: constructor");
@@ -107,71 +116,133 @@ public class HttpComponent extends BaseComponent implements IntegrationComponent
     public OperonValue produce(OperonValue currentValue) throws OperonComponentException {
         //:OFF:log.debug("http :: produce");
         try {
-            Info info = resolve(currentValue);
+            Info info = this.getInfo(currentValue);
             OperonValue result = this.handleTask(currentValue, info);
             return result;
-        } 
+        } catch (Exception e) {
+            throw HttpComponent.toComponentException(e);
+        }
+    }
+
+    //
+    // Sends the request without blocking the calling thread. The response is read and converted
+    // on the I/O -executor, because the body (e.g. JSON) is read from the InputStream.
+    //
+    @Override
+    public CompletableFuture<OperonValue> produceAsync(OperonValue currentValue) {
+        try {
+            Info info = this.getInfo(currentValue);
+            debug(info, "produceAsync");
+            HttpClient client = this.getClient(info);
+            HttpRequest request = this.buildRequest(currentValue, info);
+            final long startTime = HttpClientPool.requestStarted();
+            return client.sendAsync(request, HttpComponent.bodyHandler(info))
+                .whenComplete((response, t) -> {
+                    if (t != null) {
+                        HttpClientPool.requestFailed(startTime);
+                    }
+                    else {
+                        HttpClientPool.requestDone(startTime, response.version());
+                    }
+                })
+                .handleAsync((response, t) -> {
+                    try {
+                        if (t != null) {
+                            throw HttpComponent.toComponentException(t);
+                        }
+                        OperonValue result = this.handleResponse(currentValue, info, response);
+                        if (info.debug) {
+                            debug(info, HttpClientPool.getMetrics());
+                        }
+                        return result;
+                    } catch (Exception e) {
+                        throw new CompletionException(HttpComponent.toComponentException(e));
+                    }
+                }, ParallelUtil.getIoExecutor());
+        } catch (Exception e) {
+            CompletableFuture<OperonValue> failed = new CompletableFuture<OperonValue>();
+            failed.completeExceptionally(HttpComponent.toComponentException(e));
+            return failed;
+        }
+    }
+
+    private static OperonComponentException toComponentException(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
         
-        catch (java.net.ConnectException e) {
-            throw new OperonComponentException("Could not connect");
-        } 
+        if (e instanceof OperonComponentException) {
+            return (OperonComponentException) e;
+        }
         
-        catch (java.net.BindException e) {
-            throw new OperonComponentException("Could not bind socket to local port");
+        else if (e instanceof java.net.ConnectException) {
+            return new OperonComponentException("Could not connect");
         } 
         
-        catch (java.net.NoRouteToHostException e) {
-            throw new OperonComponentException("No route to host");
+        else if (e instanceof java.net.BindException) {
+            return new OperonComponentException("Could not bind socket to local port");
         } 
         
-        catch (java.net.PortUnreachableException e) {
-            throw new OperonComponentException("Target port unreachable");
+        else if (e instanceof java.net.NoRouteToHostException) {
+            return new OperonComponentException("No route to host");
         } 
         
-        catch (OperonGenericException | IOException | InterruptedException e) {
-            throw new OperonComponentException(e.getMessage());
-        }
+        else if (e instanceof java.net.PortUnreachableException) {
+            return new OperonComponentException("Target port unreachable");
+        } 
         
         // E.g. unsupporteduri:
-        catch (Exception e) {
-            throw new OperonComponentException(e.getMessage());
+        else {
+            return new OperonComponentException(e.getMessage());
         }
     }
 
+    private Info getInfo(OperonValue currentValue) throws OperonGenericException {
+        ObjectType jsonConfiguration = this.getJsonConfiguration();
+        Info info = this.resolvedInfo;
+        if (info != null && info.resolvedFrom == jsonConfiguration) {
+            return info;
+        }
+        info = this.resolve(currentValue);
+        if (jsonConfiguration.getUnboxed() && jsonConfiguration.getPreventReEvaluation()) {
+            info.resolvedFrom = jsonConfiguration;
+            this.resolvedInfo = info;
+        }
+        else {
+            this.resolvedInfo = null;
+        }
+        return info;
+    }
+
     private OperonValue handleTask(OperonValue currentValue, Info info) throws OperonGenericException, IOException, InterruptedException {
         debug(info, "handleTask");
-        ObjectType result = new ObjectType(currentValue.getStatement());
-
+        HttpClient client = this.getClient(info);
+        HttpRequest request = this.buildRequest(currentValue, info);
+        
         //
-        // Build client:
+        // Send the request:
         //
+        debug(info, "Send request");
+        HttpResponse<?> response = this.send(client, request, HttpComponent.bodyHandler(info));
+        debug(info, "Sent request");
         
-        HttpClient.Builder builder = HttpClient.newBuilder();
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        builder.executor(executor);
-        
-        if (info.httpVersion != null) {
-            if (info.httpVersion == 1.1) {
-                builder.version(Version.HTTP_1_1);
-            }
-        }
-        
-        if (info.followRedirects != null) {
-            builder.followRedirects(info.followRedirects);
+        OperonValue result = this.handleResponse(currentValue, info, response);
+        if (info.debug) {
+            debug(info, HttpClientPool.getMetrics());
         }
+        return result;
+    }
 
-        if (info.connectTimeout != null) {
-            builder.connectTimeout(Duration.ofMillis(info.connectTimeout));
-        }
-        
-        if (info.proxy != null) {
-            builder.proxy(ProxySelector.of(new InetSocketAddress(info.proxy.host, info.proxy.port)));
-        }
-        
-        //builder.authenticator(Authenticator.getDefault());
-        
-        HttpClient client = builder.build();
-        
+    //
+    // Get the shared client for the connection-settings:
+    //
+    private HttpClient getClient(Info info) {
+        return HttpClientPool.getClient(info.httpVersion, info.followRedirects, info.connectTimeout,
+            (info.proxy != null ? info.proxy.host : null),
+            (info.proxy != null ? info.proxy.port : null));
+    }
+
+    private HttpRequest buildRequest(OperonValue currentValue, Info info) throws OperonGenericException, IOException {
         //
         // Build request:
         //
@@ -278,10 +349,23 @@ public class HttpComponent extends BaseComponent implements IntegrationComponent
         debug(info, "Build request");
         HttpRequest request = requestBuilder.build();
         debug(info, "Build request done");
-        //
-        // Send the request:
-        //
-        HttpResponse<?> response = null;
+        return request;
+    }
+
+    private static HttpResponse.BodyHandler<?> bodyHandler(Info info) {
+        switch (info.readAs) {
+            case RAW:
+                return BodyHandlers.ofByteArray();
+            case EMPTY:
+                return BodyHandlers.discarding();
+            default:
+                // JSON and STREAM
+                return BodyHandlers.ofInputStream();
+        }
+    }
+
+    private OperonValue handleResponse(OperonValue currentValue, Info info, HttpResponse<?> response) throws OperonGenericException, IOException {
+        ObjectType result = new ObjectType(currentValue.getStatement());
         
         OperonValue responseValue = null;
         Integer statusCode = null;
@@ -300,9 +384,6 @@ public class HttpComponent extends BaseComponent implements IntegrationComponent
         //Map<String, List<String>> headersMap = headers.map();
         
         if (info.readAs == ReadAsType.JSON) {
-            debug(info, "Send request");
-            response = client.send(request, BodyHandlers.ofInputStream());
-            debug(info, "Sent request");
             //response = client.send(request, BodyHandlers.ofString(StandardCharsets.UTF_8));
             
         	//
@@ -379,7 +460,6 @@ public class HttpComponent extends BaseComponent implements IntegrationComponent
         }
         
         else if (info.readAs == ReadAsType.RAW) {
-            response = client.send(request, BodyHandlers.ofByteArray());
             statusCode = response.statusCode();
         	if (statusCode >= 400 && info.createErrorOnFailureStatusCode) {
         	    responseValue = this.createErrorSinceFailureStatus(currentValue.getStatement(), statusCode, "");
@@ -414,7 +494,6 @@ public class HttpComponent extends BaseComponent implements IntegrationComponent
         }
         
         else if (info.readAs == ReadAsType.STREAM) {
-            response = client.send(request, BodyHandlers.ofInputStream());
             statusCode = response.statusCode();
         	if (statusCode >= 400 && info.createErrorOnFailureStatusCode) {
         	    responseValue = this.createErrorSinceFailureStatus(currentValue.getStatement(), statusCode, "");
@@ -449,7 +528,6 @@ public class HttpComponent extends BaseComponent implements IntegrationComponent
         }
         
         else if (info.readAs == ReadAsType.EMPTY) {
-            response = client.send(request, BodyHandlers.discarding());
             statusCode = response.statusCode();
         	if (statusCode >= 400 && info.createErrorOnFailureStatusCode) {
         	    responseValue = this.createErrorSinceFailureStatus(currentValue.getStatement(), statusCode, "");
@@ -481,11 +559,21 @@ public class HttpComponent extends BaseComponent implements IntegrationComponent
         ///                     ", Value = " + entry.getValue());
         //}
         
-        executor.shutdownNow();
-        client = null;
         return result;
     }
 
+    private <T> HttpResponse<T> send(HttpClient client, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+        long startTime = HttpClientPool.requestStarted();
+        try {
+            HttpResponse<T> response = client.send(request, bodyHandler);
+            HttpClientPool.requestDone(startTime, response.version());
+            return response;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            HttpClientPool.requestFailed(startTime);
+            throw e;
+        }
+    }
+
     //
     // Returns true if gzipped, otherwise false.
     //
@@ -684,7 +772,7 @@ public class HttpComponent extends BaseComponent implements IntegrationComponent
         
         private String contentType = null; // Automatically set. Can be overridden here.
         
-        private Integer httpVersion = null; // 2 (default) or 1.1
+        private Integer httpVersion = null; // 2 (default) or 1.1 (read as 1)
         private Redirect followRedirects = null; // ALWAYS, NORMAL, NEVER (default)
         private Long connectTimeout = null; // milliseconds
         private ProxyInfo proxy = null;
@@ -697,6 +785,8 @@ public class HttpComponent extends BaseComponent implements IntegrationComponent
         // common configuration option
         private boolean debug = false;
         private boolean createErrorOnFailureStatusCode = false;
+        
+        private ObjectType resolvedFrom = null; // the configuration-object, when the Info may be reused
     }
 
     private class ProxyInfo {
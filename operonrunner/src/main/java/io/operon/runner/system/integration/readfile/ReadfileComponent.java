@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.FileInputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
@@ -37,6 +38,10 @@ import java.nio.file.LinkOption;
 import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
+import io.operon.runner.BaseContext;
+import io.operon.runner.Context;
+import io.operon.runner.EmptyContext;
+import io.operon.runner.OperonContext;
 import io.operon.runner.statement.Statement;
 import io.operon.runner.node.AbstractNode;
 import io.operon.runner.node.Node;
@@ -238,25 +243,60 @@ public class ReadfileComponent extends BaseComponent implements IntegrationCompo
     	}
     }
 
+    //
+    // The file is closed when the evaluation of the query ends, also when the query read only a part of it.
+    // When the query is not evaluated by the OperonContext, the file is closed only when it was read to the end.
+    //
+    private static void closeAfterEvaluation(Statement stmt, StreamValueWrapper svw) {
+        Context rootContext = BaseContext.getRootContextByStatement(stmt);
+        if (rootContext instanceof OperonContext) {
+            ((OperonContext) rootContext).closeAfterEvaluation(svw);
+        }
+    }
+
     public OperonValue readSingleFile(Statement stmt, Path folder, Path path, Info info) throws OperonGenericException, IOException {
         if (folder == null || path == null) {
             return null;
         }
         OperonValue bodyValue = null;
         
-        if (info.readAs == ReadAsType.JSON) {
-            String readData = "";
+        if (info.split && info.readAs != ReadAsType.RAW) {
+            //
+            // The elements of the top-level array are read one at a time from the stream,
+            // so only the element being processed is in the memory.
+            //
+            if (Files.exists(path) == false) {
+                return null;
+            }
+            if (StandardCharsets.UTF_8.equals(info.charSet) == false && StandardCharsets.US_ASCII.equals(info.charSet) == false) {
+                // The stream is read as UTF-8 (see JsonStreamReader).
+                ErrorUtil.createErrorValueAndThrow(stmt, "COMPONENT", "READFILE", "split is supported only for UTF-8, charset was: " + info.charSet);
+            }
+            InputStream fileInputStream = new FileInputStream(path.toString());
+            StreamValue streamNode = new StreamValue(stmt);
+            StreamValueInputStreamWrapper svw = new StreamValueInputStreamWrapper(fileInputStream);
+            svw.setSupportsJson(true);
+            svw.setSplitArrays(true);
+            closeAfterEvaluation(stmt, svw);
+            streamNode.setValue(svw);
+            bodyValue = streamNode;
+        }
+        
+        else if (info.readAs == ReadAsType.JSON) {
             try {
                 if (path != null && Files.exists(path)) {
-                    readData = new String(Files.readAllBytes(path), info.charSet);
-                    if (readData.length() == 0) {
+                    byte[] readData = Files.readAllBytes(path);
+                    if (readData.length == 0) {
                         return null;
                     }
-                    else {
+                    else if (StandardCharsets.UTF_8.equals(info.charSet)) {
                         //
-                        // json-parse:
+                        // json-parse: the UTF-8 bytes are read as such, without decoding them first into String.
                         //
-                        bodyValue = JsonUtil.operonValueFromString(readData);
+                        bodyValue = JsonUtil.operonValueFromBytes(readData, null, new EmptyContext());
+                    }
+                    else {
+                        bodyValue = JsonUtil.operonValueFromString(new String(readData, info.charSet));
                     }
                 }
                 else {
@@ -286,6 +326,7 @@ public class ReadfileComponent extends BaseComponent implements IntegrationCompo
             InputStream fileInputStream = new FileInputStream(path.toString());
             StreamValue streamNode = new StreamValue(stmt);
             StreamValueWrapper svw = new StreamValueInputStreamWrapper(fileInputStream);
+            closeAfterEvaluation(stmt, svw);
             
             if (info.streamLines == false) {
                 svw.setSupportsJson(false);
@@ -360,6 +401,15 @@ public class ReadfileComponent extends BaseComponent implements IntegrationCompo
                     }
                     break;
                 
+                case "\"split\"":
+                    OperonValue split_Node = pair.getEvaluatedValue();
+                    if (split_Node instanceof TrueType) {
+                        info.split = true;
+                    }
+                    else {
+                        info.split = false;
+                    }
+                    break;
                 case "\"shuffle\"":
                     OperonValue shuffle_Node = pair.getEvaluatedValue();
                     if (shuffle_Node instanceof TrueType) {
@@ -398,6 +448,7 @@ public class ReadfileComponent extends BaseComponent implements IntegrationCompo
         private String fileName;
         private ReadAsType readAs = ReadAsType.JSON;
         private boolean streamLines = false;
+        private boolean split = false; // read the elements of the top-level array one at a time (as a stream)
         private boolean createPaths = true;
         private boolean shuffle = false;
         private boolean recursive = false;
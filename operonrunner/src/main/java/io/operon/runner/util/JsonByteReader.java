@@ -0,0 +1,528 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.operon.runner.node.Node;
+import io.operon.runner.node.type.*;
+import io.operon.runner.statement.Statement;
+
+/**
+ *
+ * Single-pass JSON-reader, which creates the OperonValues directly from the UTF-8 bytes,
+ * without the ANTLR lexer, parser and the JSONCompiler.
+ *
+ * Only the standard JSON is read. For the Operon-specific literals (e.g. Path-values, raw-strings,
+ * single-quoted and multiline-strings, empty, unquoted keys, comments) and for the invalid input
+ * the reader gives up and returns null. The caller then falls back to the JSONParser
+ * (see JsonUtil.operonValueFromBytes), which also reports the possible errors.
+ *
+ * The values are the same that the JSONCompiler creates, except that the values are not
+ * boxed into OperonValues (other than the root-value).
+ *
+ */
+public class JsonByteReader {
+     // no logger
+
+    private final byte[] buf;
+    private final int end;
+    private int pos;
+    private final Statement stmt;
+    private final boolean index;
+
+    //
+    // The keys that were already read, so the repeated keys (e.g. in an array of records)
+    // are not decoded again, and the pairs share the same PairKey.
+    //
+    private static final int KEY_CACHE_SIZE = 256;
+    private PairKey[] keyCache;
+
+    // The last number read by parseNumber.
+    private double numberValue;
+    private byte numberPrecision;
+
+    private JsonByteReader(byte[] buf, int offset, int end, Statement stmt, boolean index) {
+        this.buf = buf;
+        this.pos = offset;
+        this.end = end;
+        this.stmt = stmt;
+        this.index = index;
+    }
+
+    public static OperonValue read(byte[] json, Statement stmt, boolean index) {
+        return read(json, 0, json.length, stmt, index);
+    }
+
+    //
+    // @param index :: create the key-index for the objects (see CompilerFlags.INDEX_ROOT)
+    // @returns the value boxed into OperonValue (as the JSONCompiler does), or null when the
+    //          input must be parsed with the JSONParser.
+    //
+    public static OperonValue read(byte[] json, int offset, int length, Statement stmt, boolean index) {
+        JsonByteReader reader = new JsonByteReader(json, offset, offset + length, stmt, index);
+        try {
+            reader.skipWhitespace();
+            OperonValue value = reader.readValue();
+            if (value == null) {
+                return null;
+            }
+            reader.skipWhitespace();
+            if (reader.pos != reader.end) {
+                return null;
+            }
+            OperonValue result = new OperonValue(stmt);
+            result.setValue(value);
+            return result;
+        } catch (RuntimeException | StackOverflowError e) {
+            return null;
+        }
+    }
+
+    private OperonValue readValue() {
+        if (pos >= end) {
+            return null;
+        }
+        switch (buf[pos]) {
+            case '{':
+                return this.readObject();
+            case '[':
+                return this.readArray();
+            case '"':
+                String str = this.readStringText();
+                if (str == null) {
+                    return null;
+                }
+                StringType sNode = new StringType(stmt);
+                sNode.setValue(str);
+                return sNode;
+            case 't':
+                return this.readKeyword("true") ? new TrueType(stmt) : null;
+            case 'f':
+                return this.readKeyword("false") ? new FalseType(stmt) : null;
+            case 'n':
+                return this.readKeyword("null") ? new NullType(stmt) : null;
+            case '-':
+            case '0': case '1': case '2': case '3': case '4':
+            case '5': case '6': case '7': case '8': case '9':
+                return this.readNumber();
+            default:
+                return null;
+        }
+    }
+
+    private ObjectType readObject() {
+        pos ++; // {
+        ObjectType obj = new ObjectType(stmt);
+        PairList pairs = new PairList();
+        this.skipWhitespace();
+        if (pos < end && buf[pos] == '}') {
+            pos ++;
+            obj.setPairs(pairs);
+            obj.setIndexedPairs(index ? new HashMap<String, PairType>() : null);
+            return obj;
+        }
+        while (true) {
+            if (pos >= end || buf[pos] != '"') {
+                return null; // e.g. unquoted key
+            }
+            PairKey key = this.readKey();
+            if (key == null) {
+                return null;
+            }
+            //
+            // Duplicate keys are reported by the JSONParser.
+            //
+            if (pairs.indexOfKey(key.getQuoted()) > -1) {
+                return null;
+            }
+            this.skipWhitespace();
+            if (pos >= end || buf[pos] != ':') {
+                return null;
+            }
+            pos ++;
+            this.skipWhitespace();
+            OperonValue value = this.readValue();
+            if (value == null) {
+                return null;
+            }
+            PairType pair = new PairType(stmt);
+            pair.setPair(key, value);
+            pairs.add(pair);
+            this.skipWhitespace();
+            if (pos >= end) {
+                return null;
+            }
+            if (buf[pos] == ',') {
+                pos ++;
+                this.skipWhitespace();
+            }
+            else if (buf[pos] == '}') {
+                pos ++;
+                break;
+            }
+            else {
+                return null;
+            }
+        }
+        obj.setPairs(pairs);
+        if (index) {
+            Map<String, PairType> indexedPairs = new HashMap<String, PairType>();
+            for (PairType p : pairs) {
+                indexedPairs.put(p.getKey(), p);
+            }
+            obj.setIndexedPairs(indexedPairs);
+        }
+        return obj;
+    }
+
+    private ArrayType readArray() {
+        pos ++; // [
+        ArrayType arr = new ArrayType(stmt);
+        this.skipWhitespace();
+        if (pos < end && buf[pos] == ']') {
+            pos ++;
+            return arr;
+        }
+
+        //
+        // The leading numbers are read without creating the NumberTypes. When the array has only numbers
+        // they are kept packed (see PackedNumbers), otherwise they are added as NumberTypes.
+        //
+        if (isNumberStart(buf[pos])) {
+            double[] numbers = new double[PackedNumbers.MIN_PACKED_SIZE];
+            byte[] precisions = new byte[PackedNumbers.MIN_PACKED_SIZE];
+            int count = 0;
+            boolean onlyNumbers = false;
+            while (true) {
+                if (this.parseNumber() == false) {
+                    return null;
+                }
+                if (count == numbers.length) {
+                    numbers = Arrays.copyOf(numbers, count * 2);
+                    precisions = Arrays.copyOf(precisions, count * 2);
+                }
+                numbers[count] = numberValue;
+                precisions[count] = numberPrecision;
+                count ++;
+                this.skipWhitespace();
+                if (pos >= end) {
+                    return null;
+                }
+                if (buf[pos] == ',') {
+                    pos ++;
+                    this.skipWhitespace();
+                    if (pos < end && isNumberStart(buf[pos])) {
+                        continue;
+                    }
+                    break;
+                }
+                else if (buf[pos] == ']') {
+                    pos ++;
+                    onlyNumbers = true;
+                    break;
+                }
+                else {
+                    return null;
+                }
+            }
+            if (onlyNumbers && count >= PackedNumbers.MIN_PACKED_SIZE) {
+                arr.setPackedValues(PackedNumbers.of(numbers, count, precisions));
+                return arr;
+            }
+            List<Node> values = arr.getValues();
+            for (int i = 0; i < count; i ++) {
+                values.add(this.createNumber(numbers[i], precisions[i]));
+            }
+            if (onlyNumbers) {
+                return arr;
+            }
+        }
+
+        List<Node> values = arr.getValues();
+        while (true) {
+            OperonValue value = this.readValue();
+            if (value == null) {
+                return null;
+            }
+            values.add(value);
+            this.skipWhitespace();
+            if (pos >= end) {
+                return null;
+            }
+            if (buf[pos] == ',') {
+                pos ++;
+                this.skipWhitespace();
+            }
+            else if (buf[pos] == ']') {
+                pos ++;
+                return arr;
+            }
+            else {
+                return null;
+            }
+        }
+    }
+
+    //
+    // The ASCII-keys without escapes are looked up from the keyCache, other keys are read as strings.
+    //
+    private PairKey readKey() {
+        int start = pos;
+        int i = pos + 1;
+        int h = 0;
+        while (i < end) {
+            int b = buf[i] & 0xff;
+            if (b == '"') {
+                break;
+            }
+            if (b == '\\' || b < 0x20 || b >= 0x80) {
+                String text = this.readStringText();
+                return (text == null ? null : PairKey.ofQuoted(text));
+            }
+            h = 31 * h + b;
+            i ++;
+        }
+        if (i >= end) {
+            return null;
+        }
+        int len = i + 1 - start;
+        if (keyCache == null) {
+            keyCache = new PairKey[KEY_CACHE_SIZE];
+        }
+        int slot = (h ^ (h >>> 16)) & (KEY_CACHE_SIZE - 1);
+        PairKey cached = keyCache[slot];
+        pos = i + 1;
+        if (cached != null && this.matches(cached.getQuoted(), start, len)) {
+            return cached;
+        }
+        PairKey key = PairKey.ofQuoted(new String(buf, start, len, StandardCharsets.ISO_8859_1));
+        keyCache[slot] = key;
+        return key;
+    }
+
+    private boolean matches(String quoted, int start, int len) {
+        if (quoted.length() != len) {
+            return false;
+        }
+        for (int k = 1; k < len - 1; k ++) {
+            if (quoted.charAt(k) != (buf[start + k] & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //
+    // Returns the string with the double-quotes and the escapes as-is (as the StringType keeps it).
+    //
+    private String readStringText() {
+        int start = pos;
+        int i = pos + 1;
+        boolean ascii = true;
+        if (i + 1 < end && buf[i] == '"' && buf[i + 1] == '"') {
+            return null; // multiline-string
+        }
+        while (true) {
+            if (i >= end) {
+                return null;
+            }
+            int b = buf[i] & 0xff;
+            if (b == '"') {
+                break;
+            }
+            else if (b == '\\') {
+                if (i + 1 >= end) {
+                    return null;
+                }
+                int e = buf[i + 1];
+                if (e == '"' || e == '\\' || e == '/' || e == 'b' || e == 'f' || e == 'n' || e == 'r' || e == 't') {
+                    i += 2;
+                }
+                else if (e == 'u') {
+                    if (i + 5 >= end) {
+                        return null;
+                    }
+                    for (int h = i + 2; h < i + 6; h ++) {
+                        if (isHex(buf[h]) == false) {
+                            return null;
+                        }
+                    }
+                    i += 6;
+                }
+                else {
+                    return null;
+                }
+            }
+            else if (b < 0x20) {
+                return null;
+            }
+            else {
+                if (b >= 0x80) {
+                    ascii = false;
+                }
+                i ++;
+            }
+        }
+        pos = i + 1;
+        if (ascii) {
+            return new String(buf, start, pos - start, StandardCharsets.ISO_8859_1);
+        }
+        else {
+            return new String(buf, start, pos - start, StandardCharsets.UTF_8);
+        }
+    }
+
+    private NumberType readNumber() {
+        if (this.parseNumber() == false) {
+            return null;
+        }
+        return this.createNumber(numberValue, numberPrecision);
+    }
+
+    private NumberType createNumber(double value, byte precision) {
+        NumberType nNode = new NumberType(stmt);
+        nNode.setDoubleValue(value);
+        nNode.setPrecision(precision);
+        return nNode;
+    }
+
+    //
+    // Reads the number into numberValue and numberPrecision.
+    //
+    private boolean parseNumber() {
+        int start = pos;
+        int i = pos;
+        if (buf[i] == '-') {
+            i ++;
+        }
+        if (i >= end) {
+            return false;
+        }
+        if (buf[i] == '0') {
+            i ++;
+        }
+        else if (buf[i] >= '1' && buf[i] <= '9') {
+            while (i < end && buf[i] >= '0' && buf[i] <= '9') {
+                i ++;
+            }
+        }
+        else {
+            return false;
+        }
+        int intEnd = i;
+        boolean decimal = false;
+        if (i < end && buf[i] == '.') {
+            decimal = true;
+            i ++;
+            int fracStart = i;
+            while (i < end && buf[i] >= '0' && buf[i] <= '9') {
+                i ++;
+            }
+            if (i == fracStart) {
+                return false;
+            }
+        }
+        if (i < end && (buf[i] == 'e' || buf[i] == 'E')) {
+            decimal = true;
+            i ++;
+            if (i < end && (buf[i] == '+' || buf[i] == '-')) {
+                i ++;
+            }
+            int expStart = i;
+            while (i < end && buf[i] >= '0' && buf[i] <= '9') {
+                i ++;
+            }
+            if (i == expStart) {
+                return false;
+            }
+        }
+        if (i < end && isDelimiter(buf[i]) == false) {
+            return false;
+        }
+        pos = i;
+
+        if (decimal == false && intEnd - start <= 9) {
+            // Integer, e.g. 123 or -45
+            int d = (buf[start] == '-' ? start + 1 : start);
+            long value = 0;
+            for (; d < intEnd; d ++) {
+                value = value * 10 + (buf[d] - '0');
+            }
+            numberValue = (double) (buf[start] == '-' ? -value : value);
+            numberPrecision = 0;
+        }
+        else {
+            String symbolText = new String(buf, start, i - start, StandardCharsets.ISO_8859_1).toLowerCase();
+            numberValue = Double.valueOf(symbolText).doubleValue();
+            numberPrecision = NumberType.getPrecisionFromStr(symbolText);
+        }
+        return true;
+    }
+
+    //
+    // Keyword must not continue as an ID (e.g. "trueValue"), which is left for the JSONParser.
+    //
+    private boolean readKeyword(String keyword) {
+        int len = keyword.length();
+        if (pos + len > end) {
+            return false;
+        }
+        for (int k = 0; k < len; k ++) {
+            if (buf[pos + k] != keyword.charAt(k)) {
+                return false;
+            }
+        }
+        if (pos + len < end) {
+            byte next = buf[pos + len];
+            if ((next >= 'a' && next <= 'z') || (next >= 'A' && next <= 'Z')
+                    || (next >= '0' && next <= '9') || next == '_' || next == '-') {
+                return false;
+            }
+        }
+        pos += len;
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte b = buf[pos];
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                pos ++;
+            }
+            else {
+                return;
+            }
+        }
+    }
+
+    private static boolean isNumberStart(byte b) {
+        return b == '-' || (b >= '0' && b <= '9');
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == ']' || b == '}' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static boolean isHex(byte b) {
+        return (b >= '0' && b <= '9') || (b >= 'a' && b <= 'f') || (b >= 'A' && b <= 'F');
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import io.operon.runner.Context;
+import io.operon.runner.EmptyContext;
+import io.operon.runner.model.exception.OperonGenericException;
+import io.operon.runner.node.type.OperonValue;
+import io.operon.runner.statement.DefaultStatement;
+import io.operon.runner.statement.Statement;
+
+/**
+ *
+ * Reads the JSON-values one at a time from the UTF-8 InputStream: the line-delimited JSON (NDJSON)
+ * and the concatenated JSON-values (separated by whitespace, or not separated at all).
+ *
+ * The bytes are read into a buffer, which holds only the value that is being read (and the bytes read
+ * ahead of it), so the memory is bounded by the largest value, not by the size of the stream.
+ * The read blocks until the producer has written the next value, or closed the stream.
+ *
+ * The end of the value is found by scanning the bytes (the depth of the objects and arrays, and the strings),
+ * and the value is then read with the JsonByteReader directly from the buffer. The Operon-specific values
+ * are read with the JSONParser (see JsonUtil.operonValueFromBytes).
+ *
+ * With the splitArrays -option the elements of the top-level arrays are read one at a time,
+ * so a large exported array can be processed without reading the whole array into the memory.
+ *
+ */
+public class JsonStreamReader {
+     // no logger
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    //
+    // After reading a value larger than this, the buffer is shrunk back to the default size.
+    //
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private final InputStream is;
+    private byte[] buf;
+    private int start = 0; // start of the value being read
+    private int pos = 0; // next byte to scan
+    private int limit = 0; // end of the bytes read
+    private boolean eof = false;
+
+    // The scanning state of the value, kept over the buffer-refills:
+    private int depth = 0;
+    private byte quote = 0; // the quote-char when inside a string, otherwise 0
+    private boolean escape = false;
+
+    private boolean splitArrays = false;
+    private boolean inArray = false; // inside the top-level array, when splitArrays
+
+    private Context context;
+
+    public JsonStreamReader(InputStream is) {
+        this(is, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonStreamReader(InputStream is, int bufferSize) {
+        this.is = is;
+        this.buf = new byte[bufferSize];
+    }
+
+    //
+    // Read the elements of the top-level arrays as the values. The other top-level values are read as such.
+    //
+    public void setSplitArrays(boolean splitArrays) {
+        this.splitArrays = splitArrays;
+    }
+
+    public boolean isSplitArrays() {
+        return this.splitArrays;
+    }
+
+    //
+    // @returns the next value, or null at the end of the stream.
+    //
+    public OperonValue next() throws IOException, OperonGenericException {
+        if (this.skipWhitespace() == false) {
+            return null;
+        }
+        if (this.splitArrays && this.skipArrayDelimiters() == false) {
+            return null;
+        }
+        this.start = this.pos;
+        this.depth = 0;
+        this.quote = 0;
+        this.escape = false;
+
+        byte first = this.buf[this.pos];
+        boolean structured = (first == '{' || first == '[' || first == '"' || first == '`');
+
+        while (true) {
+            if (this.pos == this.limit && this.fill() == false) {
+                break; // the value ends at the end of the stream
+            }
+            if (structured) {
+                if (this.scanStructured()) {
+                    break;
+                }
+            }
+            else if (this.scanScalar()) {
+                break;
+            }
+        }
+
+        OperonValue result = this.readValue(this.start, this.pos - this.start);
+        this.start = this.pos;
+        if (this.buf.length > MAX_RETAINED_BUFFER_SIZE && this.limit - this.pos < DEFAULT_BUFFER_SIZE) {
+            // Release the memory of the large value.
+            byte[] smaller = new byte[DEFAULT_BUFFER_SIZE];
+            System.arraycopy(this.buf, this.pos, smaller, 0, this.limit - this.pos);
+            this.limit -= this.pos;
+            this.pos = 0;
+            this.start = 0;
+            this.buf = smaller;
+        }
+        return result;
+    }
+
+    //
+    // @returns true when the end of the object, array or string was found.
+    //
+    private boolean scanStructured() {
+        byte[] b = this.buf;
+        int p = this.pos;
+        int end = this.limit;
+        while (p < end) {
+            byte c = b[p ++];
+            if (this.quote != 0) {
+                if (this.escape) {
+                    this.escape = false;
+                }
+                else if (c == '\\') {
+                    this.escape = true;
+                }
+                else if (c == this.quote) {
+                    this.quote = 0;
+                    if (this.depth == 0) {
+                        this.pos = p;
+                        return true;
+                    }
+                }
+            }
+            else if (c == '"' || c == '`') {
+                this.quote = c;
+            }
+            else if (c == '{' || c == '[') {
+                this.depth ++;
+            }
+            else if (c == '}' || c == ']') {
+                this.depth --;
+                if (this.depth <= 0) {
+                    this.pos = p;
+                    return true;
+                }
+            }
+        }
+        this.pos = p;
+        return false;
+    }
+
+    //
+    // The number, true, false, null, or other literal ends at the whitespace, or where the next value starts.
+    //
+    private boolean scanScalar() {
+        byte[] b = this.buf;
+        int p = this.pos;
+        int end = this.limit;
+        while (p < end) {
+            byte c = b[p];
+            if (isWhitespace(c) || (p > this.start && (c == '{' || c == '[' || c == '"'))
+                    || (this.inArray && (c == ',' || c == ']'))) {
+                this.pos = p;
+                return true;
+            }
+            p ++;
+        }
+        this.pos = p;
+        return false;
+    }
+
+    //
+    // Skips the start and the end of the top-level array, and the commas between the elements.
+    //
+    // @returns false when the stream ended before the next value.
+    //
+    private boolean skipArrayDelimiters() throws IOException {
+        while (true) {
+            byte c = this.buf[this.pos];
+            if (this.inArray == false && c == '[') {
+                this.inArray = true;
+            }
+            else if (this.inArray && c == ',') {
+                // The next element
+            }
+            else if (this.inArray && c == ']') {
+                this.inArray = false;
+            }
+            else {
+                return true;
+            }
+            this.pos ++;
+            if (this.skipWhitespace() == false) {
+                return false;
+            }
+        }
+    }
+
+    //
+    // @returns false when the stream ended before the next value.
+    //
+    private boolean skipWhitespace() throws IOException {
+        while (true) {
+            while (this.pos < this.limit) {
+                if (isWhitespace(this.buf[this.pos]) == false) {
+                    return true;
+                }
+                this.pos ++;
+            }
+            this.start = this.pos;
+            if (this.fill() == false) {
+                return false;
+            }
+        }
+    }
+
+    //
+    // Reads more bytes after the limit. The value being read (from the start) is kept,
+    // and moved to the beginning of the buffer, which is grown when the value does not fit.
+    // Blocks until at least one byte is read.
+    //
+    // @returns false at the end of the stream.
+    //
+    private boolean fill() throws IOException {
+        if (this.eof) {
+            return false;
+        }
+        if (this.limit == this.buf.length) {
+            int kept = this.limit - this.start;
+            if (kept == this.buf.length) {
+                this.buf = Arrays.copyOf(this.buf, this.buf.length * 2);
+            }
+            else {
+                System.arraycopy(this.buf, this.start, this.buf, 0, kept);
+                this.pos -= this.start;
+                this.limit = kept;
+                this.start = 0;
+            }
+        }
+        int n = 0;
+        while (n == 0) {
+            n = this.is.read(this.buf, this.limit, this.buf.length - this.limit);
+        }
+        if (n < 0) {
+            this.eof = true;
+            return false;
+        }
+        this.limit += n;
+        return true;
+    }
+
+    private OperonValue readValue(int offset, int length) throws OperonGenericException {
+        if (this.context == null) {
+            this.context = new EmptyContext();
+        }
+        Statement stmt = new DefaultStatement(this.context);
+        stmt.setId("jsonStmt");
+        OperonValue result = JsonByteReader.read(this.buf, offset, length, stmt, false);
+        if (result != null) {
+            return result;
+        }
+        return JsonUtil.operonValueFromBytes(Arrays.copyOfRange(this.buf, offset, offset + length), null, this.context);
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    public void close() throws IOException {
+        this.is.close();
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.util;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+//
+// Escapes the Java-string into the body of the StringType (the JSON-string without the double-quotes),
+// and unescapes it back, in one pass.
+//
+// The escaped characters are: backslash, double-quote, \b, \f, \n, \r and \t.
+// When unescaping, the other escapes (e.g. the slash and the unicode-escapes) are kept as they are.
+//
+// Each function returns its input (the same instance), when there is nothing to escape or unescape.
+//
+// The byte[] -functions work on the bytes directly. This is safe for UTF-8 (and for the other
+// ASCII-compatible encodings), where the bytes of the multi-byte characters are never ASCII.
+// The escapeToString and unescapeToBytes use them when the default charset is such, otherwise they
+// go through the String.
+//
+public class JsonStringCodec {
+     // no logger
+
+    //
+    // The escape-letter by the character, 0 if the character is not escaped.
+    //
+    private static final char[] ESCAPES = new char[128];
+
+    //
+    // The character by the escape-letter, 0 if the escape is not unescaped.
+    //
+    private static final char[] UNESCAPES = new char[128];
+
+    static {
+        ESCAPES['\\'] = '\\';
+        ESCAPES['"'] = '"';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['\t'] = 't';
+        for (int c = 0; c < ESCAPES.length; c ++) {
+            if (ESCAPES[c] != 0) {
+                UNESCAPES[ESCAPES[c]] = (char) c;
+            }
+        }
+    }
+
+    private static final boolean BYTES_SAFE = isAsciiCompatible(Charset.defaultCharset());
+
+    private static boolean isAsciiCompatible(Charset cs) {
+        return cs.equals(StandardCharsets.UTF_8)
+            || cs.equals(StandardCharsets.US_ASCII)
+            || cs.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isEscaped(int c) {
+        return c < 128 && c >= 0 && ESCAPES[c] != 0;
+    }
+
+    //
+    // Escape
+    //
+
+    public static String escape(String value) {
+        int len = value.length();
+        int i = 0;
+        while (i < len && isEscaped(value.charAt(i)) == false) {
+            i ++;
+        }
+        if (i == len) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(len + 16);
+        sb.append(value, 0, i);
+        for (; i < len; i ++) {
+            char c = value.charAt(i);
+            if (isEscaped(c)) {
+                sb.append('\\').append(ESCAPES[c]);
+            }
+            else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public static char[] escape(char[] value) {
+        int count = 0;
+        for (int i = 0; i < value.length; i ++) {
+            if (isEscaped(value[i])) {
+                count ++;
+            }
+        }
+        if (count == 0) {
+            return value;
+        }
+        char[] result = new char[value.length + count];
+        int pos = 0;
+        for (int i = 0; i < value.length; i ++) {
+            char c = value[i];
+            if (isEscaped(c)) {
+                result[pos ++] = '\\';
+                result[pos ++] = ESCAPES[c];
+            }
+            else {
+                result[pos ++] = c;
+            }
+        }
+        return result;
+    }
+
+    public static byte[] escape(byte[] value) {
+        int count = 0;
+        for (int i = 0; i < value.length; i ++) {
+            if (isEscaped(value[i])) {
+                count ++;
+            }
+        }
+        if (count == 0) {
+            return value;
+        }
+        byte[] result = new byte[value.length + count];
+        int pos = 0;
+        for (int i = 0; i < value.length; i ++) {
+            byte b = value[i];
+            if (isEscaped(b)) {
+                result[pos ++] = '\\';
+                result[pos ++] = (byte) ESCAPES[b];
+            }
+            else {
+                result[pos ++] = b;
+            }
+        }
+        return result;
+    }
+
+    //
+    // The raw-bytes (in the default charset) as escaped String.
+    //
+    public static String escapeToString(byte[] value) {
+        if (BYTES_SAFE) {
+            return new String(escape(value));
+        }
+        return escape(new String(value));
+    }
+
+    //
+    // Escapes only the double-quotes.
+    //
+    public static String escapeQuotes(String value) {
+        int i = value.indexOf('"');
+        if (i < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 8);
+        int start = 0;
+        while (i >= 0) {
+            sb.append(value, start, i).append('\\').append('"');
+            start = i + 1;
+            i = value.indexOf('"', start);
+        }
+        sb.append(value, start, value.length());
+        return sb.toString();
+    }
+
+    //
+    // Unescape
+    //
+
+    private static boolean isUnescaped(int c) {
+        return c < 128 && c >= 0 && UNESCAPES[c] != 0;
+    }
+
+    public static String unescape(String value) {
+        int i = value.indexOf('\\');
+        if (i < 0) {
+            return value;
+        }
+        int len = value.length();
+        StringBuilder sb = new StringBuilder(len);
+        sb.append(value, 0, i);
+        for (; i < len; i ++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < len && isUnescaped(value.charAt(i + 1))) {
+                i ++;
+                sb.append(UNESCAPES[value.charAt(i)]);
+            }
+            else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public static char[] unescape(char[] value) {
+        int pos = 0;
+        char[] result = null;
+        for (int i = 0; i < value.length; i ++) {
+            char c = value[i];
+            if (c == '\\' && i + 1 < value.length && isUnescaped(value[i + 1])) {
+                if (result == null) {
+                    result = new char[value.length - 1];
+                    System.arraycopy(value, 0, result, 0, i);
+                    pos = i;
+                }
+                i ++;
+                result[pos ++] = UNESCAPES[value[i]];
+            }
+            else if (result != null) {
+                result[pos ++] = c;
+            }
+        }
+        if (result == null) {
+            return value;
+        }
+        return Arrays.copyOf(result, pos);
+    }
+
+    public static byte[] unescape(byte[] value) {
+        int pos = 0;
+        byte[] result = null;
+        for (int i = 0; i < value.length; i ++) {
+            byte b = value[i];
+            if (b == '\\' && i + 1 < value.length && isUnescaped(value[i + 1])) {
+                if (result == null) {
+                    result = new byte[value.length - 1];
+                    System.arraycopy(value, 0, result, 0, i);
+                    pos = i;
+                }
+                i ++;
+                result[pos ++] = (byte) UNESCAPES[value[i]];
+            }
+            else if (result != null) {
+                result[pos ++] = b;
+            }
+        }
+        if (result == null) {
+            return value;
+        }
+        return Arrays.copyOf(result, pos);
+    }
+
+    //
+    // The escaped String as raw-bytes (in the default charset).
+    //
+    public static byte[] unescapeToBytes(String value) {
+        if (BYTES_SAFE) {
+            return unescape(value.getBytes());
+        }
+        return unescape(value).getBytes();
+    }
+
+}
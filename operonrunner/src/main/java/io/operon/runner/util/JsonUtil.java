@@ -31,6 +31,7 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
@@ -58,53 +59,8 @@ public class JsonUtil {
      // no logger 
     
     public static ArrayType copyArray(ArrayType json) throws OperonGenericException {
-        //:OFF:log.debug("JsonUtil :: copyOperonValue");
-        //System.out.println("JsonUtil :: copyOperonValue, parentKey = " + json.getParentKey());
-        //int position = json.getPosition();
-        //String attr_parentKey = json.getParentKey();
-        //OperonValue attr_parentObj = json.getParentObj();
         Statement stmt = new DefaultStatement(OperonContext.emptyContext);
-        //Statement stmt = json.getStatement();
-        
-        List<Node> arrayNodes = null;
-        
-        if (json instanceof ArrayType) {
-            //System.out.println("Copy array1");
-            arrayNodes = ((ArrayType) json).getValues();
-        }
-        
-        else if (json.getValue() instanceof ArrayType) {
-            //System.out.println("Copy array2");
-            arrayNodes = ((ArrayType) json.getValue()).getValues();
-        }
-
-        else {
-            ErrorUtil.createErrorValueAndThrow(stmt, "COPY ARRAY", "TYPE", "Unknown: " + json.getClass().getName());
-            return null;
-        }
-
-        ArrayType result = new ArrayType(stmt);
-        //System.out.println("JSON :: " + json.getArrayValueType());
-        result.setArrayValueType(json.getArrayValueType());
-
-        for (int i = 0; i < arrayNodes.size(); i ++) {
-            Node n = arrayNodes.get(i);
-            
-            if ((n instanceof OperonValue) == false) {
-                //System.out.println("  Copy non-OperonValue instance");
-                Node copyValue = copyEvaluatedNode(n, true);
-                //System.out.println("  Copy OK");
-                result.addValue(copyValue);
-            }
-            
-            else {
-                //System.out.println("  Copy else: " + n);
-                OperonValue copyValue = JsonUtil.copyOperonValueWithArray((OperonValue) n);
-                result.addValue(copyValue);
-            }
-        }
-        
-        return result;
+        return (ArrayType) OperonValueCopier.copy(json, stmt, true);
     }
     
     public static OperonValue copyOperonValue(OperonValue json) throws OperonGenericException {
@@ -117,321 +73,11 @@ public class JsonUtil {
         return JsonUtil.copyOperonValue(json, stmt, true);
     }
     
+    //
+    // The value-tree is copied with the OperonValueCopier.
+    //
     public static OperonValue copyOperonValue(OperonValue json, Statement stmt, boolean deepCopyArrays) throws OperonGenericException {
-        //:OFF:log.debug("JsonUtil :: copyOperonValue");
-        //System.out.println("JsonUtil :: copyOperonValue, parentKey = " + json.getParentKey());
-        if (stmt == null) {
-            //stmt = json.getStatement();
-            stmt = new DefaultStatement(OperonContext.emptyContext);
-        }
-        
-        if (json instanceof ObjectType) {
-            //System.out.println("Copy object 1");
-            List<PairType> pairs = ((ObjectType) json).getPairs();
-            ObjectType result = new ObjectType(stmt);
-            //:OFF:log.debug("  >> copy ObjectType instance, pairs :: " + pairs.size());
-
-            for (PairType pair : pairs) {
-                PairType copyPair = new PairType(stmt);
-                copyPair.setIsEmptyValue(pair.isEmptyValue());
-                copyPair.setPreventReEvaluation(pair.getPreventReEvaluation());
-                copyPair.setUnboxed(pair.getUnboxed());
-                copyPair.setConfigs(pair.getConfigsNode());
-                
-                //Path pathCopy = pair.getStatement().getCurrentPath();
-                //System.out.println("  - pair pathCopy=" + pathCopy);
-                //System.out.println("  - pair pathCopy obj=" + pathCopy.getObjLink());
-                //copyPair.getStatement().setCurrentPath(pathCopy);
-
-                // Copy the object-value constraints:
-                if (pair.getOperonValueConstraint() != null) {
-                    copyPair.setOperonValueConstraint(pair.getOperonValueConstraint());
-                }
-                
-                // FIXME: BugTests#
-                // Originates from BaseBinaryNodeProcessor->preprocess->
-                //  initialValueRhsCopy = initialValue.copy();
-                OperonValue copyPairValue = pair.getValue().copy(deepCopyArrays);
-                copyPairValue.setUnboxed(pair.getValue().getUnboxed());
-                copyPairValue.setPreventReEvaluation(pair.getValue().getPreventReEvaluation());
-                copyPair.setPair(pair.getKey(), copyPairValue);
-                copyPair.setEvaluatedValue(pair.getEvaluatedValue().copy());
-                result.addPair(copyPair);
-            }
-
-            if (((ObjectType) json).getIndexedPairs() != null) {
-                result.setIndexedPairs(((ObjectType) json).getIndexedPairs());
-            }
-            result.setUnboxed(((ObjectType) json).getUnboxed());
-            result.setPreventReEvaluation(((ObjectType) json).getPreventReEvaluation());
-            return result;
-        }
-        
-        else if (json.getValue() instanceof ObjectType) {
-            //System.out.println("Copy object 2");
-            List<PairType> pairs = ((ObjectType) json.getValue()).getPairs();
-            ObjectType result = new ObjectType(stmt);
-            //:OFF:log.debug("  >> copy ObjectType evaluated instance, pairs :: " + pairs.size());
-            
-            for (PairType pair : pairs) {
-                PairType copyPair = new PairType(stmt);
-                copyPair.setIsEmptyValue(pair.isEmptyValue());
-                copyPair.setPreventReEvaluation(pair.getPreventReEvaluation());
-                copyPair.setUnboxed(pair.getUnboxed());
-                copyPair.setConfigs(pair.getConfigsNode());
-                
-                // Copy the object-value constraints:
-                if (pair.getOperonValueConstraint() != null) {
-                    copyPair.setOperonValueConstraint(pair.getOperonValueConstraint());
-                }
-                
-                OperonValue copyPairValue = pair.getValue().copy(deepCopyArrays);
-                copyPairValue.setUnboxed(pair.getValue().getUnboxed());
-                copyPairValue.setPreventReEvaluation(pair.getValue().getPreventReEvaluation());
-                copyPair.setPair(pair.getKey(), copyPairValue);
-                copyPair.setEvaluatedValue(pair.getEvaluatedValue().copy());
-                result.addPair(copyPair);
-            }
-            if (((ObjectType) json.getValue()).getIndexedPairs() != null) {
-                result.setIndexedPairs(((ObjectType) json.getValue()).getIndexedPairs());
-            }
-            result.setUnboxed(((ObjectType) json.getValue()).getUnboxed());
-            result.setPreventReEvaluation(((ObjectType) json.getValue()).getPreventReEvaluation());
-            return result;
-        }
-        
-        else if (json instanceof StringType) {
-            StringType result = new StringType(stmt);
-            result.setValue(((StringType) json).getStringValue());
-            result.setUnboxed(((StringType) json).getUnboxed());
-            result.setPreventReEvaluation(((StringType) json).getPreventReEvaluation());
-            return result;
-        }
-        
-        else if (json.getValue() instanceof StringType) {
-            StringType result = new StringType(stmt);
-            result.setValue(((StringType) json.getValue()).getStringValue());
-            result.setUnboxed(((StringType) json.getValue()).getUnboxed());
-            result.setPreventReEvaluation(((StringType) json.getValue()).getPreventReEvaluation());
-            return result;
-        }
-        
-        else if (json instanceof RawValue) {
-            //System.out.println("COPY RawValue");
-            RawValue bvNode = new RawValue(stmt);
-            bvNode.setValue(((RawValue) json).getBytes());
-            return bvNode;
-        }
-        
-        else if (json.getValue() instanceof RawValue) {
-            RawValue bvNode = new RawValue(stmt);
-            bvNode.setValue(((RawValue) json.getValue()).getBytes());
-            return bvNode;
-        }
-        
-        else if (json instanceof StreamValue) {
-            //System.out.println("COPY StreamValue");
-            StreamValue svNode = new StreamValue(stmt);
-            svNode.setValue(((StreamValue) json).getStreamValueWrapper());
-            return svNode;
-        }
-        
-        else if (json.getValue() instanceof StreamValue) {
-            StreamValue svNode = new StreamValue(stmt);
-            svNode.setValue(((StreamValue) json.getValue()).getStreamValueWrapper());
-            return svNode;
-        }
-        
-        else if (json instanceof NumberType) {
-            //:OFF:log.debug("JsonUtil :: copy NumberType 1");
-            NumberType nnode = new NumberType(stmt);
-            nnode.setDoubleValue(((NumberType) json).getDoubleValue());
-            nnode.setPrecision( ((NumberType) json.getValue()).getPrecision() );
-            return nnode;
-        }
-        
-        else if (json.getValue() instanceof NumberType) {
-            //:OFF:log.debug("JsonUtil :: copy NumberType 2");
-            NumberType nnode = new NumberType(stmt);
-            nnode.setDoubleValue(((NumberType) json.getValue()).getDoubleValue());
-            nnode.setPrecision( ((NumberType) json.getValue()).getPrecision() );
-            //copyBindings((OperonValue) json.getValue(), nnode);
-            return nnode;
-        }
-        
-        else if (json instanceof NullType) {
-            NullType nullNode = new NullType(stmt);
-            return nullNode;
-        }
-        
-        else if (json.getValue() instanceof NullType) {
-            NullType nullNode = new NullType(stmt);
-            return nullNode;
-        }
-        
-        else if (json instanceof TrueType) {
-            TrueType tNode = new TrueType(stmt);
-            return tNode;
-        }
-        
-        else if (json.getValue() instanceof TrueType) {
-            TrueType tNode = new TrueType(stmt);
-            return tNode;
-        }
-        
-        else if (json instanceof FalseType) {
-            FalseType fNode = new FalseType(stmt);
-            return fNode;
-        }
-
-        else if (json.getValue() instanceof FalseType) {
-            FalseType fNode = new FalseType(stmt);
-            return fNode;
-        }
-        
-        else if (json instanceof EmptyType) {
-            EmptyType jeNode = new EmptyType(stmt);
-            return jeNode;
-        }
-
-        else if (json.getValue() instanceof EmptyType) {
-            //System.out.println("Copy EmptyType2");
-            EmptyType jeNode = new EmptyType(stmt);
-            return jeNode;
-        }
-        
-        else if (json instanceof EndValueType) {
-            EndValueType jendNode = new EndValueType(stmt);
-            return jendNode;
-        }
-
-        else if (json.getValue() instanceof EndValueType) {
-            //System.out.println("Copy EndValueType2");
-            EndValueType jendNode = new EndValueType(stmt);
-            return jendNode;
-        }
-        
-        else if (json instanceof ErrorValue) {
-            ErrorValue evNode = new ErrorValue(stmt);
-            ErrorValue fromErrorValue = (ErrorValue) json;
-            evNode.setCode(fromErrorValue.getCode());
-            evNode.setType(fromErrorValue.getType());
-            evNode.setMessage(fromErrorValue.getMessage());
-            evNode.setErrorJson(fromErrorValue.getErrorJson());
-            return evNode;
-        }
-
-        else if (json.getValue() instanceof ErrorValue) {
-            //System.out.println("Copy ErrorValue2");
-            ErrorValue evNode = new ErrorValue(stmt);
-            ErrorValue fromErrorValue = (ErrorValue) json.getValue();
-            evNode.setCode(fromErrorValue.getCode());
-            evNode.setType(fromErrorValue.getType());
-            evNode.setMessage(fromErrorValue.getMessage());
-            evNode.setErrorJson(fromErrorValue.getErrorJson());
-            return evNode;
-        }
-        
-        else if (json instanceof io.operon.runner.node.type.Path) {
-            io.operon.runner.node.type.Path fromValue = (io.operon.runner.node.type.Path) json;
-            io.operon.runner.node.type.Path pathNode = fromValue.copy();
-            return pathNode;
-        }
-
-        else if (json.getValue() instanceof io.operon.runner.node.type.Path) {
-            //System.out.println("Copy io.operon.runner.model.Path2");
-            io.operon.runner.node.type.Path fromValue = (io.operon.runner.node.type.Path) json.getValue();
-            io.operon.runner.node.type.Path pathNode = fromValue.copy();
-            return pathNode;
-        }
-        
-        else if (json.getValue() instanceof UnaryNode) {
-            OperonValue result = ((UnaryNode) json.getValue()).getEvaluatedValue().copy(deepCopyArrays);
-            return result;
-        }
-
-        else if (json.getValue() instanceof BinaryNode) {
-            //System.out.println("COPY BinaryNode");
-            Node bn = ((BinaryNode) json.getValue());
-            OperonValue lhsValue = ((BinaryNode) bn).getLhs().getEvaluatedValue();
-            OperonValue rhsValue = ((BinaryNode) bn).getRhs().getEvaluatedValue();
-            OperonValue bnValue = bn.getEvaluatedValue();
-
-            if (bnValue == null) {
-                throw new OperonGenericException("BinaryNode");
-            }
-
-            OperonValue result = bnValue.copy(deepCopyArrays);
-            return result;
-        }
-        
-        else if (json.getValue() instanceof MultiNode) {
-            //:OFF:log.debug("  >> copy MultiNode");
-            OperonValue result = ((MultiNode) json.getValue()).getEvaluatedValue().copy(deepCopyArrays);
-            return result;
-        }
-
-        else if (json instanceof FunctionRef) {
-            //:OFF:log.debug("  >> copy FunctionRef instance");
-            OperonValue result = json;
-            return result;
-        }
-        
-        else if (json.getValue() instanceof FunctionRef) {
-            //:OFF:log.debug("  >> copy FunctionRef");
-            OperonValue result = (OperonValue) json.getValue();
-            return result;
-        }
-        
-        else if (json instanceof LambdaFunctionRef) {
-            //:OFF:log.debug("  >> copy LambdaFunctionRef instance");
-            OperonValue result = (OperonValue) json;
-            return result;
-        }
-        
-        else if (json.getValue() instanceof LambdaFunctionRef) {
-            //:OFF:log.debug("  >> copy LambdaFunctionRef");
-            OperonValue result = (OperonValue) json.getValue();
-            return result;
-        }
-        
-        else if (json.getValue() instanceof FunctionCall) {
-            OperonValue result = ((FunctionCall) json.getValue()).getEvaluatedValue().copy(deepCopyArrays);
-            return result;
-        }
-        
-        else if (json.getValue() instanceof LambdaFunctionCall) {
-            OperonValue result = ((LambdaFunctionCall) json.getValue()).getEvaluatedValue().copy(deepCopyArrays);
-            return result;
-        }
-        
-        else if (json instanceof ArrayType) {
-            if (deepCopyArrays) {
-                return JsonUtil.copyArray((ArrayType) json);
-            }
-            else {
-                return (ArrayType) json;
-            }
-        }
-        
-        else if (json.getValue() instanceof ArrayType) {
-            if (deepCopyArrays) {
-                return JsonUtil.copyArray((ArrayType) json.getValue());
-            }
-            else {
-                return (ArrayType) json.getValue();
-            }
-        }
-        
-        else if (json.getValue() instanceof OperonValue) {
-            //:OFF:log.debug("  >> unbox json");
-            OperonValue copyFrom = (OperonValue) json.getValue();
-            //System.out.println("    >>>COPY From parentKey :: " + json.getParentObj());
-            OperonValue copyResult = JsonUtil.copyOperonValue(copyFrom);
-            return copyResult;
-        }
-
-        return ErrorUtil.createErrorValueAndThrow(stmt, "COPY", "TYPE", "Unknown: " + json.getClass().getName());
+        return OperonValueCopier.copy(json, stmt, deepCopyArrays);
     }
     
     public static Node copyEvaluatedNode(Node n, boolean deepCopyArrays) throws OperonGenericException {
@@ -631,7 +277,85 @@ public class JsonUtil {
             return false;
         }
     }
-    
+
+    //
+    // Structural hash, consistent with isIdentical: identical values have the same hash.
+    // Numbers are hashed by their double-value, objects regardless of the key-order.
+    // The hash of the locked objects and arrays is cached (see ObjectType.getStructuralHash).
+    //
+    public static int structuralHash(OperonValue value) throws OperonGenericException {
+        // Try to unbox value (if boxed)
+        value = (OperonValue) value.evaluate();
+
+        if (value instanceof NumberType) {
+            return numberHash(((NumberType) value).getDoubleValue());
+        }
+        else if (value instanceof ArrayType) {
+            return ((ArrayType) value).getStructuralHash();
+        }
+        else if (value instanceof ObjectType) {
+            return ((ObjectType) value).getStructuralHash();
+        }
+        else if (value instanceof TrueType) {
+            return 1231;
+        }
+        else if (value instanceof FalseType) {
+            return 1237;
+        }
+        else if (value instanceof NullType) {
+            return 0;
+        }
+        else if (value instanceof EmptyType) {
+            return -1;
+        }
+        else {
+            return value.toString().hashCode();
+        }
+    }
+
+    public static int numberHash(double d) {
+        if (d == 0.0) {
+            d = 0.0; // -0.0 == 0.0
+        }
+        return Double.hashCode(d);
+    }
+
+    //
+    // The NullType's key for the scalarKey.
+    //
+    private static final Object NULL_KEY = new Object();
+
+    //
+    // Key of the scalar value, consistent with the Eq-operator: numbers by their double-value,
+    // strings by their string-value and booleans and null by their type.
+    // Returns null for the other values and for NaN (which is not equal to itself).
+    //
+    public static Object scalarKey(OperonValue value) {
+        if (value instanceof NumberType) {
+            return numberKey(((NumberType) value).getDoubleValue());
+        }
+        else if (value instanceof StringType) {
+            return ((StringType) value).getStringValue();
+        }
+        else if (value instanceof TrueType) {
+            return Boolean.TRUE;
+        }
+        else if (value instanceof FalseType) {
+            return Boolean.FALSE;
+        }
+        else if (value instanceof NullType) {
+            return NULL_KEY;
+        }
+        return null;
+    }
+
+    public static Object numberKey(double d) {
+        if (Double.isNaN(d)) {
+            return null;
+        }
+        return (d == 0.0 ? 0.0 : d);
+    }
+
     private static PairType findPairByKey(String findByKey, List<PairType> findFrom) {
         for (PairType p : findFrom) {
             if (p.getKey().equals(findByKey)) {
@@ -742,8 +466,61 @@ public class JsonUtil {
     // @param ctx :: used to link the possible OperonContext with the parsed JSON-value. Used with Path-values, which may have named-value ref or function-ref.
     //
     public static OperonValue operonValueFromString(String json, CompilerFlags[] compilerFlags, Context ctx) throws OperonGenericException {
+        return operonValueFromBytes(json.getBytes(StandardCharsets.UTF_8), compilerFlags, ctx);
+    }
+
+    public static OperonValue operonValueFromBytes(byte[] json) throws OperonGenericException {
+        return operonValueFromBytes(json, null, new EmptyContext());
+    }
+
+    //
+    // Reads the UTF-8 encoded JSON-value from the InputStream. The stream is read until the end, but not closed.
+    //
+    public static OperonValue operonValueFromStream(InputStream is, CompilerFlags[] compilerFlags, Context ctx) throws OperonGenericException {
         try {
-            InputStream is = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+            return operonValueFromBytes(is.readAllBytes(), compilerFlags, ctx);
+        } catch (IOException e) {
+            String message = e.getMessage();
+            if (message == null) {
+                message = "";
+            }
+            return ErrorUtil.createErrorValueAndThrow(null, "JSONPARSE", "JSONPARSE-001", "Unknown: " + message);
+        }
+    }
+
+    //
+    // Reads the UTF-8 encoded JSON-value from the remaining bytes of the ByteBuffer.
+    //
+    public static OperonValue operonValueFromBuffer(ByteBuffer buffer, CompilerFlags[] compilerFlags, Context ctx) throws OperonGenericException {
+        if (buffer.hasArray()) {
+            byte[] json = buffer.array();
+            int offset = buffer.arrayOffset() + buffer.position();
+            int length = buffer.remaining();
+            if (offset == 0 && length == json.length) {
+                return operonValueFromBytes(json, compilerFlags, ctx);
+            }
+            return operonValueFromBytes(java.util.Arrays.copyOfRange(json, offset, offset + length), compilerFlags, ctx);
+        }
+        byte[] json = new byte[buffer.remaining()];
+        buffer.duplicate().get(json);
+        return operonValueFromBytes(json, compilerFlags, ctx);
+    }
+
+    //
+    // The standard JSON is read with the JsonByteReader. When the reader gives up (Operon-specific literals,
+    // or invalid input), then the value is parsed with the JSONParser.
+    //
+    public static OperonValue operonValueFromBytes(byte[] json, CompilerFlags[] compilerFlags, Context ctx) throws OperonGenericException {
+        Statement jsonStatement = new DefaultStatement(ctx);
+        jsonStatement.setId("jsonStmt");
+        boolean index = (compilerFlags != null && compilerFlags[0] == CompilerFlags.INDEX_ROOT);
+        OperonValue result = JsonByteReader.read(json, jsonStatement, index);
+        if (result != null) {
+            return result;
+        }
+        
+        try {
+            InputStream is = new ByteArrayInputStream(json);
             
             // Create a CharStream that reads from standard input
             org.antlr.v4.runtime.CharStream input = org.antlr.v4.runtime.CharStreams.fromStream(is);
@@ -778,10 +555,6 @@ public class JsonUtil {
             
             // Walk the tree created during the parse, trigger callbacks
             JSONCompiler compiler = new JSONCompiler(compilerFlags);
-            
-            Context jsonContext = ctx;
-            Statement jsonStatement = new DefaultStatement(jsonContext);
-            jsonStatement.setId("jsonStmt");
             compiler.setCurrentStatement(jsonStatement);
             walker.walk(compiler, tree);
             
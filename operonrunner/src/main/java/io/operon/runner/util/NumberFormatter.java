@@ -0,0 +1,268 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.util;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/**
+ *
+ * Formats the numbers for the output (see NumberType).
+ *
+ * Fixed-precision mode: the value is rounded to the given number of decimals (HALF_EVEN), and written
+ * without grouping or exponent, exactly as the DecimalFormat("0.00...") writes it. The digits are
+ * computed with long-arithmetic from the binary value, and appended directly into the StringBuilder.
+ * The rest of the values (large values, values with more decimals than the double has precision,
+ * NaN and Infinity) are formatted with the DecimalFormat, which is kept per thread, because the
+ * DecimalFormat is not thread-safe.
+ *
+ * Shortest-roundtrip mode: see precisionOf.
+ *
+ */
+public class NumberFormatter {
+     // no logger
+
+    public static final int MAX_PRECISION = 18;
+
+    private static final long[] POW10 = new long[MAX_PRECISION + 1];
+
+    static {
+        POW10[0] = 1L;
+        for (int i = 1; i <= MAX_PRECISION; i ++) {
+            POW10[i] = POW10[i - 1] * 10L;
+        }
+    }
+
+    private static final ThreadLocal<NumberFormat[]> FORMATS = new ThreadLocal<NumberFormat[]>() {
+        @Override
+        protected NumberFormat[] initialValue() {
+            return new NumberFormat[MAX_PRECISION + 1];
+        }
+    };
+
+    public static String format(double value, int precision) {
+        StringBuilder sb = new StringBuilder(24);
+        append(sb, value, precision);
+        return sb.toString();
+    }
+
+    //
+    // @param precision :: number of decimals, -1 (undefined) is same as 0, and values above
+    //                     the MAX_PRECISION are written with the MAX_PRECISION.
+    //
+    public static void append(StringBuilder sb, double value, int precision) {
+        int p = precision;
+        if (p < 0) {
+            p = 0;
+        }
+        else if (p > MAX_PRECISION) {
+            p = MAX_PRECISION;
+        }
+
+        long bits = Double.doubleToRawLongBits(value);
+        boolean negative = bits < 0;
+        int exponent = (int) ((bits >>> 52) & 0x7ff);
+        long mantissa = bits & 0x000fffffffffffffL;
+
+        if (exponent == 0x7ff) {
+            // NaN or Infinity
+            appendSlow(sb, value, p);
+            return;
+        }
+
+        long m;
+        int e;
+        if (exponent == 0) {
+            m = mantissa; // subnormal
+            e = -1074;
+        }
+        else {
+            m = mantissa | (1L << 52);
+            e = exponent - 1075;
+        }
+
+        // value = m * 2^e, the scaled value is m * 10^p * 2^e, rounded to long q.
+        long q;
+        if (m == 0) {
+            q = 0;
+        }
+        else if (e >= 0) {
+            //
+            // Above 2^53 the DecimalFormat writes the digits of the shortest representation,
+            // which are not the digits of the exact value.
+            //
+            if (e > 0 || (p > 0 && m > Long.MAX_VALUE / POW10[p])) {
+                appendSlow(sb, value, p);
+                return;
+            }
+            q = m * POW10[p];
+        }
+        else {
+            //
+            // The DecimalFormat rounds the shortest representation of the value, not the exact value.
+            // They round the same way, when the ulp of the value is below the last written decimal.
+            //
+            if (Math.scalb((double) POW10[p] * 10.0, e) > 1.0) {
+                appendSlow(sb, value, p);
+                return;
+            }
+            int shift = -e;
+            long lo = m * POW10[p];
+            long hi = Math.multiplyHigh(m, POW10[p]);
+            if (shift >= 128) {
+                q = 0; // m * 10^p is below 2^113, so below the half.
+            }
+            else {
+                long quotientHi;
+                long quotientLo;
+                boolean above;
+                boolean nearHalf; // within one ulp from the half, where the DecimalFormat decides by the shortest representation
+                long ulp = POW10[p]; // the ulp of the value, in the units of the remainder
+                if (shift >= 64) {
+                    int s = shift - 64;
+                    quotientHi = 0;
+                    quotientLo = (s == 0 ? hi : hi >>> s);
+                    // remainder = (hi & (2^s - 1)) : lo, compared with the half 2^(shift - 1)
+                    if (s == 0) {
+                        long diff = lo + Long.MIN_VALUE; // lo - 2^63
+                        above = diff > 0;
+                        nearHalf = Math.abs(diff) <= ulp;
+                    }
+                    else {
+                        long remHi = hi & ((1L << s) - 1);
+                        long halfHi = 1L << (s - 1);
+                        above = remHi > halfHi || (remHi == halfHi && lo != 0);
+                        nearHalf = (remHi == halfHi && Long.compareUnsigned(lo, ulp) <= 0)
+                                || (remHi == halfHi - 1 && Long.compareUnsigned(lo, -ulp) >= 0);
+                    }
+                }
+                else {
+                    quotientHi = hi >>> shift;
+                    quotientLo = (lo >>> shift) | (hi << (64 - shift)); // shift is at least 1
+                    long remLo = lo & ((1L << shift) - 1);
+                    long halfLo = 1L << (shift - 1);
+                    above = remLo > halfLo;
+                    nearHalf = Math.abs(remLo - halfLo) <= ulp;
+                }
+                if (quotientHi != 0 || quotientLo < 0 || nearHalf) {
+                    appendSlow(sb, value, p);
+                    return;
+                }
+                q = quotientLo;
+                if (above) {
+                    q ++;
+                    if (q < 0) {
+                        appendSlow(sb, value, p);
+                        return;
+                    }
+                }
+            }
+        }
+
+        if (negative) {
+            sb.append('-');
+        }
+        appendDigits(sb, q / POW10[p]);
+        if (p > 0) {
+            sb.append('.');
+            long fraction = q % POW10[p];
+            for (int i = p - 1; i >= 0; i --) {
+                sb.append((char) ('0' + (fraction / POW10[i]) % 10));
+            }
+        }
+    }
+
+    private static void appendDigits(StringBuilder sb, long value) {
+        if (value < 10) {
+            sb.append((char) ('0' + value));
+            return;
+        }
+        int digits = 1;
+        while (digits <= MAX_PRECISION && value >= POW10[digits]) {
+            digits ++;
+        }
+        for (int i = digits - 1; i >= 0; i --) {
+            sb.append((char) ('0' + (value / POW10[i]) % 10));
+        }
+    }
+
+    private static void appendSlow(StringBuilder sb, double value, int p) {
+        NumberFormat[] formats = FORMATS.get();
+        NumberFormat format = formats[p];
+        if (format == null) {
+            StringBuilder pattern = new StringBuilder("0");
+            if (p > 0) {
+                pattern.append('.');
+                for (int i = 0; i < p; i ++) {
+                    pattern.append('0');
+                }
+            }
+            format = new DecimalFormat(pattern.toString(), new DecimalFormatSymbols(Locale.US));
+            formats[p] = format;
+        }
+        sb.append(format.format(value));
+    }
+
+    //
+    // Shortest-roundtrip mode: the number of decimals in the shortest decimal representation
+    // of the value (Double.toString), e.g. 0.25 --> 2, 100.0 --> 0 (same as
+    // NumberType.getPrecisionFromStr(String.valueOf(value))).
+    //
+    public static byte precisionOf(double value) {
+        return precisionOf(Double.toString(value));
+    }
+
+    //
+    // The number of decimals in the number-string, e.g. "100.00" --> 2.
+    // The exponent is taken into account when it is negative, e.g. "1.5E-5" --> 5.
+    //
+    public static byte precisionOf(CharSequence value) {
+        int len = value.length();
+        int ePos = -1;
+        for (int i = 0; i < len; i ++) {
+            char c = value.charAt(i);
+            if (c == 'e' || c == 'E') {
+                ePos = i;
+                break;
+            }
+        }
+        int mantissaEnd = len;
+        if (ePos >= 0) {
+            char sign = value.charAt(ePos + 1);
+            if (sign == '-') {
+                // Resolve precision from mantissa:
+                return Byte.parseByte(value.subSequence(ePos + 2, len).toString());
+            }
+            mantissaEnd = ePos;
+        }
+        int dot = -1;
+        for (int i = 0; i < mantissaEnd; i ++) {
+            if (value.charAt(i) == '.') {
+                if (dot >= 0) {
+                    return 0; // not a number
+                }
+                dot = i;
+            }
+        }
+        if (dot < 0) {
+            return 0;
+        }
+        return (byte) (mantissaEnd - dot - 1);
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import io.operon.runner.OperonContext;
+import io.operon.runner.node.Node;
+import io.operon.runner.node.UnaryNode;
+import io.operon.runner.node.BinaryNode;
+import io.operon.runner.node.MultiNode;
+import io.operon.runner.node.FunctionRef;
+import io.operon.runner.node.LambdaFunctionRef;
+import io.operon.runner.node.FunctionCall;
+import io.operon.runner.node.LambdaFunctionCall;
+import io.operon.runner.node.type.*;
+import io.operon.runner.statement.Statement;
+import io.operon.runner.statement.DefaultStatement;
+
+import io.operon.runner.model.exception.OperonGenericException;
+
+/**
+ *
+ * Copies the OperonValues by walking the value-tree.
+ *
+ * The tree is walked iteratively (with an explicit work-stack), so deeply nested values do not
+ * consume the call-stack, and the values are never serialized and re-parsed. NumberType's precision,
+ * bindings and constraints are preserved.
+ *
+ * Copy-on-write (opt-in, see setCopyOnWrite): copying a locked ObjectType or ArrayType
+ * (i.e. unboxed and prevented from re-evaluation) does not copy its contents. The copy and the
+ * source share the pairs (or values) until either one of them is accessed through getPairs()
+ * (or getValues()), and only then that one level is copied. Unmodified subtrees remain shared.
+ *
+ */
+public class OperonValueCopier {
+     // no logger
+
+    private static volatile boolean copyOnWrite = false;
+
+    public static void setCopyOnWrite(boolean cow) {
+        copyOnWrite = cow;
+    }
+
+    public static boolean isCopyOnWrite() {
+        return copyOnWrite;
+    }
+
+    //
+    // Same semantics as JsonUtil.copyOperonValue: arrays are shared unless deepCopyArrays is set,
+    // function-refs are returned as they are.
+    //
+    public static OperonValue copy(OperonValue value, Statement stmt, boolean deepCopyArrays) throws OperonGenericException {
+        if (stmt == null) {
+            stmt = new DefaultStatement(OperonContext.emptyContext);
+        }
+        Deque<Task> work = new ArrayDeque<Task>();
+        OperonValue result = copyValue(value, stmt, deepCopyArrays, false, work);
+        drain(work, stmt, deepCopyArrays, false);
+        return result;
+    }
+
+    //
+    // Copies the value as it would be serialized, i.e. replaces the toString() and re-parse -round-trip:
+    // all arrays are copied, the evaluated values are copied, and the empty and hidden fields are dropped.
+    // The result is detached from the source and never shares any containers with it.
+    //
+    public static OperonValue snapshot(OperonValue value, Statement stmt) throws OperonGenericException {
+        if (stmt == null) {
+            stmt = new DefaultStatement(OperonContext.emptyContext);
+        }
+        Deque<Task> work = new ArrayDeque<Task>();
+        OperonValue result = copyValue(value, stmt, true, true, work);
+        drain(work, stmt, true, true);
+        return result;
+    }
+
+    //
+    // Copy-on-write: copies one level of pairs, used when a shared ObjectType is accessed for modification.
+    //
+    public static List<PairType> copyPairs(List<PairType> pairs, Statement stmt) throws OperonGenericException {
+        ObjectType from = new ObjectType(stmt);
+        from.setPairs(pairs);
+        ObjectType to = new ObjectType(stmt);
+        Deque<Task> work = new ArrayDeque<Task>();
+        copyPairsInto(from, to, stmt, false, false, work);
+        drain(work, stmt, false, false);
+        return to.getPairs();
+    }
+
+    //
+    // Copy-on-write: copies one level of array-values, used when a shared ArrayType is accessed for modification.
+    //
+    public static List<Node> copyValues(List<Node> values, Statement stmt) throws OperonGenericException {
+        ArrayType from = new ArrayType(stmt);
+        from.setValues(values);
+        ArrayType to = new ArrayType(stmt);
+        Deque<Task> work = new ArrayDeque<Task>();
+        copyValuesInto(from, to, stmt, false, work);
+        drain(work, stmt, true, false);
+        return to.getValues();
+    }
+
+    private static void drain(Deque<Task> work, Statement stmt, boolean deepCopyArrays, boolean snapshot) throws OperonGenericException {
+        while (work.isEmpty() == false) {
+            Task task = work.pop();
+            if (task.from instanceof ObjectType) {
+                copyPairsInto((ObjectType) task.from, (ObjectType) task.to, stmt, deepCopyArrays, snapshot, work);
+            }
+            else {
+                copyValuesInto((ArrayType) task.from, (ArrayType) task.to, stmt, snapshot, work);
+            }
+            //
+            // NOTE: ObjectType.setPreventReEvaluation sets the flag also for the pairs,
+            //       therefore flags are set only after the pairs have been added.
+            //
+            task.to.setUnboxed(task.unboxed);
+            task.to.setPreventReEvaluation(task.preventReEvaluation);
+            copyBindingsAndConstraint(task.from, task.to);
+        }
+    }
+
+    //
+    // Returns the copy. Objects and arrays are returned empty and their contents
+    // are queued into the work-stack.
+    //
+    private static OperonValue copyValue(OperonValue value, Statement stmt, boolean deepCopyArrays,
+            boolean snapshot, Deque<Task> work) throws OperonGenericException {
+        OperonValue from = unbox(value, stmt);
+
+        if (from instanceof ObjectType) {
+            ObjectType fromObj = (ObjectType) from;
+            if (copyOnWrite && snapshot == false && isLocked(fromObj)) {
+                return fromObj.shareCopy(stmt);
+            }
+            ObjectType result = new ObjectType(stmt);
+            if (snapshot == false && fromObj.getIndexedPairs() != null) {
+                result.setIndexedPairs(fromObj.getIndexedPairs());
+            }
+            work.push(new Task(fromObj, result));
+            return result;
+        }
+
+        else if (from instanceof ArrayType) {
+            ArrayType fromArray = (ArrayType) from;
+            if (deepCopyArrays == false) {
+                return fromArray;
+            }
+            if (fromArray.getPackedValues() != null) {
+                // The packed values are immutable, so they are shared with the copy.
+                ArrayType result = fromArray.shareCopy(stmt);
+                copyBindingsAndConstraint(fromArray, result);
+                return result;
+            }
+            if (copyOnWrite && snapshot == false && isLocked(fromArray)) {
+                return fromArray.shareCopy(stmt);
+            }
+            ArrayType result = new ArrayType(stmt);
+            result.setArrayValueType(fromArray.getArrayValueType());
+            work.push(new Task(fromArray, result));
+            return result;
+        }
+
+        else if (from instanceof StringType) {
+            StringType result = new StringType(stmt);
+            result.setValue(((StringType) from).getStringValue());
+            result.setUnboxed(from.getUnboxed());
+            result.setPreventReEvaluation(from.getPreventReEvaluation());
+            copyBindingsAndConstraint(from, result);
+            return result;
+        }
+
+        else if (from instanceof NumberType) {
+            NumberType result = new NumberType(stmt);
+            result.setDoubleValue(((NumberType) from).getDoubleValue());
+            result.setPrecision(((NumberType) from).getPrecision());
+            copyBindingsAndConstraint(from, result);
+            return result;
+        }
+
+        else if (from instanceof TrueType) {
+            return new TrueType(stmt);
+        }
+
+        else if (from instanceof FalseType) {
+            return new FalseType(stmt);
+        }
+
+        else if (from instanceof NullType) {
+            return new NullType(stmt);
+        }
+
+        else if (from instanceof EmptyType) {
+            return new EmptyType(stmt);
+        }
+
+        else if (from instanceof EndValueType) {
+            return new EndValueType(stmt);
+        }
+
+        else if (from instanceof RawValue) {
+            RawValue result = new RawValue(stmt);
+            result.setValue(((RawValue) from).getBytes());
+            return result;
+        }
+
+        else if (from instanceof StreamValue) {
+            StreamValue result = new StreamValue(stmt);
+            result.setValue(((StreamValue) from).getStreamValueWrapper());
+            return result;
+        }
+
+        else if (from instanceof ErrorValue) {
+            ErrorValue fromErrorValue = (ErrorValue) from;
+            ErrorValue result = new ErrorValue(stmt);
+            result.setCode(fromErrorValue.getCode());
+            result.setType(fromErrorValue.getType());
+            result.setMessage(fromErrorValue.getMessage());
+            result.setErrorJson(fromErrorValue.getErrorJson());
+            return result;
+        }
+
+        else if (from instanceof Path) {
+            Path result = ((Path) from).copy();
+            if (snapshot) {
+                // Serialized Path does not carry the links
+                result.setObjLink(null);
+                result.setValueLink(null);
+            }
+            return result;
+        }
+
+        else if (from instanceof FunctionRef || from instanceof LambdaFunctionRef) {
+            return from;
+        }
+
+        return ErrorUtil.createErrorValueAndThrow(stmt, "COPY", "TYPE", "Unknown: " + from.getClass().getName());
+    }
+
+    private static void copyPairsInto(ObjectType from, ObjectType to, Statement stmt, boolean deepCopyArrays,
+            boolean snapshot, Deque<Task> work) throws OperonGenericException {
+        List<PairType> fromPairs = from.peekPairs();
+        List<PairType> toPairs = new PairList(fromPairs.size());
+
+        for (int i = 0; i < fromPairs.size(); i ++) {
+            PairType pair = fromPairs.get(i);
+            PairType copyPair = new PairType(stmt);
+            copyPair.setIsEmptyValue(pair.isEmptyValue());
+            copyPair.setPreventReEvaluation(pair.getPreventReEvaluation());
+            copyPair.setUnboxed(pair.getUnboxed());
+            if (pair.getOperonValueConstraint() != null) {
+                copyPair.setOperonValueConstraint(pair.getOperonValueConstraint());
+            }
+
+            if (snapshot) {
+                if (pair.isEmptyValue() || pair.isHidden()) {
+                    continue;
+                }
+                OperonValue evaluatedValue = unbox(pair.getEvaluatedValue(), stmt);
+                if (evaluatedValue instanceof EmptyType) {
+                    continue;
+                }
+                copyPair.setPair(pair.getKey(), copyValue(evaluatedValue, stmt, true, true, work));
+                toPairs.add(copyPair);
+                continue;
+            }
+
+            copyPair.setConfigs(pair.getConfigsNode());
+            OperonValue pairValue = pair.getValue();
+            OperonValue copyPairValue = copyValue(pairValue, stmt, deepCopyArrays, false, work);
+            setFlags(copyPairValue, pairValue.getUnboxed(), pairValue.getPreventReEvaluation(), work);
+            copyPair.setPair(pair.getKey(), copyPairValue);
+
+            OperonValue evaluatedValue = pair.getEvaluatedValue();
+            if (evaluatedValue != null && evaluatedValue != pairValue) {
+                copyPair.setEvaluatedValue(copyValue(evaluatedValue, stmt, false, false, work));
+            }
+            toPairs.add(copyPair);
+        }
+
+        //
+        // The source-object does not have duplicate keys, therefore the pairs
+        // are set directly instead of checking them with addPair.
+        //
+        to.setPairs(toPairs);
+    }
+
+    private static void copyValuesInto(ArrayType from, ArrayType to, Statement stmt,
+            boolean snapshot, Deque<Task> work) throws OperonGenericException {
+        List<Node> fromValues = from.peekValues();
+        List<Node> toValues = new ArrayList<Node>(fromValues.size());
+
+        for (int i = 0; i < fromValues.size(); i ++) {
+            Node n = fromValues.get(i);
+            Node copyValue = null;
+
+            if (n instanceof OperonValue) {
+                copyValue = copyValue((OperonValue) n, stmt, true, snapshot, work);
+            }
+
+            else if (n instanceof UnaryNode || n instanceof BinaryNode || n instanceof MultiNode
+                    || n instanceof FunctionCall || n instanceof LambdaFunctionCall) {
+                OperonValue evaluatedValue = n.getEvaluatedValue();
+                if (evaluatedValue != null) {
+                    copyValue = copyValue(evaluatedValue, stmt, true, snapshot, work);
+                }
+                else {
+                    copyValue = n; // not evaluated, use as is.
+                }
+            }
+
+            else {
+                ErrorUtil.createErrorValueAndThrow(stmt, "COPY", "TYPE", "Unknown: " + n.getClass().getName());
+            }
+
+            // Same as ArrayType.addValue: empty-values are not added
+            if (copyValue instanceof EmptyType == false) {
+                toValues.add(copyValue);
+            }
+        }
+
+        to.setValues(toValues);
+    }
+
+    //
+    // Resolves the boxed value, or the evaluated value of an expression.
+    //
+    private static OperonValue unbox(OperonValue value, Statement stmt) throws OperonGenericException {
+        OperonValue result = value;
+        while (isConcrete(result) == false) {
+            Node boxed = result.getValue();
+            if (boxed instanceof UnaryNode || boxed instanceof BinaryNode || boxed instanceof MultiNode
+                    || boxed instanceof FunctionCall || boxed instanceof LambdaFunctionCall) {
+                OperonValue evaluatedValue = boxed.getEvaluatedValue();
+                if (evaluatedValue == null) {
+                    return ErrorUtil.createErrorValueAndThrow(stmt, "COPY", "TYPE", "Value not evaluated: " + boxed.getClass().getName());
+                }
+                result = evaluatedValue;
+            }
+            else if (boxed instanceof OperonValue) {
+                result = (OperonValue) boxed;
+            }
+            else {
+                return ErrorUtil.createErrorValueAndThrow(stmt, "COPY", "TYPE", "Unknown: " + result.getClass().getName());
+            }
+        }
+        return result;
+    }
+
+    private static boolean isConcrete(OperonValue value) {
+        return value instanceof ObjectType
+            || value instanceof ArrayType
+            || value instanceof StringType
+            || value instanceof NumberType
+            || value instanceof TrueType
+            || value instanceof FalseType
+            || value instanceof NullType
+            || value instanceof EmptyType
+            || value instanceof EndValueType
+            || value instanceof RawValue
+            || value instanceof StreamValue
+            || value instanceof ErrorValue
+            || value instanceof Path
+            || value instanceof FunctionRef
+            || value instanceof LambdaFunctionRef;
+    }
+
+    private static boolean isLocked(OperonValue value) {
+        return value.getUnboxed() && value.getPreventReEvaluation();
+    }
+
+    //
+    // The flags of the copied pair-value follow the flags of the (possibly boxed) source pair-value.
+    // For the queued objects and arrays the flags are set after their contents are copied.
+    //
+    private static void setFlags(OperonValue copy, boolean unboxed, boolean preventReEvaluation, Deque<Task> work) {
+        Task queued = work.peek();
+        if (queued != null && queued.to == copy) {
+            queued.unboxed = unboxed;
+            queued.preventReEvaluation = preventReEvaluation;
+            return;
+        }
+        if (copy.getUnboxed() != unboxed) {
+            copy.setUnboxed(unboxed);
+        }
+        if (copy.getPreventReEvaluation() != preventReEvaluation) {
+            copy.setPreventReEvaluation(preventReEvaluation);
+        }
+    }
+
+    private static void copyBindingsAndConstraint(OperonValue from, OperonValue to) {
+        if (from.getDoBindings() == false) {
+            to.setDoBindings(false);
+        }
+        else if (from.getBindings().isEmpty() == false) {
+            to.getBindings().putAll(from.getBindings());
+        }
+        if (from.getOperonValueConstraint() != null) {
+            to.setOperonValueConstraint(from.getOperonValueConstraint());
+        }
+    }
+
+    private static class Task {
+        private final OperonValue from;
+        private final OperonValue to;
+        private boolean unboxed;
+        private boolean preventReEvaluation;
+
+        private Task(OperonValue from, OperonValue to) {
+            this.from = from;
+            this.to = to;
+            this.unboxed = from.getUnboxed();
+            this.preventReEvaluation = from.getPreventReEvaluation();
+        }
+    }
+
+    //
+    // The list shared between the copy-on-write -copies, and the count of its owners.
+    // The last owner takes the list as it is, others copy it.
+    //
+    public static class Shared<T> implements java.io.Serializable {
+        private final List<T> list;
+        private int owners = 1;
+
+        public Shared(List<T> list) {
+            this.list = list;
+        }
+
+        public List<T> getList() {
+            return this.list;
+        }
+
+        public synchronized void acquire() {
+            this.owners += 1;
+        }
+
+        //
+        // @returns true when the caller was the last owner and may take the list.
+        //
+        public synchronized boolean isLastOwner() {
+            return this.owners == 1;
+        }
+
+        public synchronized void release() {
+            this.owners -= 1;
+        }
+    }
+}
@@ -21,6 +21,13 @@ package io.operon.runner.util;
 //
 public class OutputFormatter {
     
+    //
+    // The serialization, which is used when the value is written with OperonValue.writeTo.
+    //
+    public enum Format {JSON, PRETTY_JSON, YAML, TOML};
+    
+    public Format format = Format.PRETTY_JSON;
+    
     public byte rawOutput = (byte) 0; // see from RawValue
     //
     // Current amount of spaces. This keeps track of the current indentation.
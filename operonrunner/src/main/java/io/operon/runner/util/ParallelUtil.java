@@ -0,0 +1,296 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import io.operon.runner.CompiledQueryCache;
+import io.operon.runner.Context;
+import io.operon.runner.OperonContext;
+import io.operon.runner.OperonRunner;
+import io.operon.runner.node.IOCall;
+import io.operon.runner.node.Node;
+import io.operon.runner.node.UnaryNode;
+import io.operon.runner.node.type.EmptyType;
+import io.operon.runner.node.type.OperonValue;
+import io.operon.runner.statement.DefaultStatement;
+import io.operon.runner.statement.Statement;
+import io.operon.runner.model.exception.BreakLoopException;
+import io.operon.runner.model.exception.ContinueLoopException;
+import io.operon.runner.model.exception.OperonGenericException;
+
+/**
+ *
+ * The ForkJoinPools for the parallel operations (e.g. parallel Map).
+ * The pools are shared by parallelism, so the queries do not create new threads on each evaluation.
+ *
+ * The in-flight operations (e.g. Map with the "inFlight" -option) are for the expressions which wait
+ * for I/O (e.g. the component-calls): the number of the concurrent evaluations is given by the query,
+ * and not bound to the number of the cores.
+ *
+ */
+public class ParallelUtil {
+     // no logger
+
+    //
+    // The parallelism is capped to the number of the cores: the parallel operations are CPU-bound
+    // (the I/O is waited with inFlight), so more threads would not help. This also bounds the
+    // number of the pools. The idle workers of the pools are released by the ForkJoinPool.
+    //
+    private static final int MAX_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private static final Map<Integer, ForkJoinPool> pools = new ConcurrentHashMap<Integer, ForkJoinPool>();
+
+    //
+    // @param parallelism: the number of threads, at most the number of the cores.
+    //                     When 0 (or less), then the common-pool is returned.
+    //
+    public static ForkJoinPool getPool(int parallelism) {
+        if (parallelism <= 0) {
+            return ForkJoinPool.commonPool();
+        }
+        return pools.computeIfAbsent(Math.min(parallelism, MAX_PARALLELISM), p -> new ForkJoinPool(p));
+    }
+
+    private static volatile ExecutorService ioExecutor = null;
+
+    //
+    // The threads for the blocking I/O. The threads are daemons and created on demand, the amount of
+    // the concurrent tasks is bounded by the callers (see inFlight).
+    //
+    public static ExecutorService getIoExecutor() {
+        ExecutorService executor = ioExecutor;
+        if (executor == null) {
+            synchronized (ParallelUtil.class) {
+                executor = ioExecutor;
+                if (executor == null) {
+                    final AtomicInteger threadCount = new AtomicInteger();
+                    executor = Executors.newCachedThreadPool(r -> {
+                        Thread t = new Thread(r, "operon-io-" + threadCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    ioExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    public interface AsyncTask<T> {
+        public CompletableFuture<T> start(int index) throws Exception;
+    }
+
+    //
+    // Starts the tasks in the order of the index, keeping at most maxInFlight of them running at the same time.
+    // No more tasks are started after a task has failed.
+    //
+    // @returns the results in the order of the index.
+    // @throws the error of the first failed task (in the order of the index).
+    //
+    public static <T> List<T> inFlight(int count, int maxInFlight, AsyncTask<T> task) throws Exception {
+        final Semaphore permits = new Semaphore(Math.max(1, maxInFlight));
+        final AtomicReference<Throwable> failed = new AtomicReference<Throwable>();
+        List<CompletableFuture<T>> futures = new ArrayList<CompletableFuture<T>>(count);
+        for (int i = 0; i < count && failed.get() == null; i ++) {
+            permits.acquire();
+            CompletableFuture<T> future = null;
+            try {
+                future = task.start(i);
+            } catch (Exception e) {
+                future = new CompletableFuture<T>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((result, t) -> {
+                if (t != null) {
+                    failed.compareAndSet(null, t);
+                }
+                permits.release();
+            });
+            futures.add(future);
+        }
+
+        List<T> results = new ArrayList<T>(futures.size());
+        Exception error = null;
+        for (CompletableFuture<T> future : futures) {
+            try {
+                T result = future.get();
+                if (error == null) {
+                    results.add(result);
+                }
+            } catch (ExecutionException ee) {
+                if (error == null) {
+                    error = unwrap(ee);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return results;
+    }
+
+    //
+    // The copies of the expr for the concurrent evaluations.
+    //
+    public interface ExprSource {
+        //
+        // A new copy of the expr, which is not shared with the other concurrent evaluations.
+        //
+        public Node copy() throws Exception;
+
+        //
+        // Called before the copy is evaluated against the value (e.g. to set the current path).
+        //
+        default void prepare(Node exprCopy, int index) throws OperonGenericException {}
+
+        //
+        // When true, then Break and Continue control the evaluation as in the Map. Otherwise they are
+        // errors of the evaluation, as in the sequential evaluation of the forEach.
+        //
+        default boolean isLoop() { return true; }
+    }
+
+    //
+    // Compiles the copy of the expr into the context of the scope, and links it to the scope, so the expr may
+    // refer to the values and the functions of the query. Outside of the query (e.g. in a module) the copy is
+    // compiled with a new context.
+    //
+    public static Node compileInScope(Statement scope, ParseTree exprTree) throws Exception {
+        Context ctx = scope.getOperonContext();
+        if (ctx instanceof OperonContext == false) {
+            ctx = new OperonContext();
+        }
+        DefaultStatement copyStatement = new DefaultStatement(ctx);
+        copyStatement.setPreviousStatement(scope);
+        return OperonRunner.compileExprParseTree(copyStatement, exprTree);
+    }
+
+    //
+    // Evaluates the expr against each value, keeping at most maxInFlight evaluations running at the same time.
+    //
+    // Each concurrent evaluation has its own copy of the expr (given by the source), and the copies are reused.
+    // When the expr is a component-call, then it is evaluated with IOCall.evaluateAsync, which does not reserve
+    // a thread while waiting for the result. Other exprs are evaluated on the I/O -executor.
+    //
+    // Restriction: the copies compiled with compileInScope share the context of the query, i.e. the Let -values
+    // and the state, and they are evaluated concurrently. The expr should only read the values of the query
+    // (e.g. $base) which are not reset on each evaluation, and not update the state.
+    //
+    // @returns the (copied) results in the order of the values. The result is null when the evaluation was
+    //          continued (Continue), and the results are cut from the first value that breaks (Break).
+    //          When the source is not a loop, then the Break and Continue are thrown as errors.
+    //
+    public static List<OperonValue> evaluateInFlight(ExprSource source, List<OperonValue> values, int maxInFlight) throws Exception {
+        final ConcurrentLinkedQueue<Node> compiledExprs = new ConcurrentLinkedQueue<Node>();
+        final AtomicInteger breakIndex = new AtomicInteger(Integer.MAX_VALUE);
+
+        List<OperonValue> results = inFlight(values.size(), maxInFlight, (index) -> {
+            if (index > breakIndex.get()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            Node compiledExpr = compiledExprs.poll();
+            if (compiledExpr == null) {
+                compiledExpr = source.copy();
+            }
+            final Node exprNode = compiledExpr;
+            final OperonValue value = values.get(index);
+            source.prepare(exprNode, index);
+
+            CompletableFuture<OperonValue> evaluated = null;
+            IOCall ioCall = asIOCall(exprNode);
+            if (ioCall != null) {
+                evaluated = ioCall.evaluateAsync(value);
+            }
+            else {
+                evaluated = CompletableFuture.supplyAsync(() -> {
+                    exprNode.getStatement().setCurrentValue(value);
+                    try {
+                        return exprNode.evaluate();
+                    } catch (OperonGenericException oge) {
+                        throw new CompletionException(oge);
+                    }
+                }, getIoExecutor());
+            }
+
+            return evaluated.handle((result, t) -> {
+                compiledExprs.add(exprNode);
+                if (t != null) {
+                    Throwable cause = (t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+                    if (cause instanceof BreakLoopException && source.isLoop()) {
+                        breakIndex.accumulateAndGet(index, Math::min);
+                        return null;
+                    }
+                    else if (cause instanceof ContinueLoopException && source.isLoop()) {
+                        return null;
+                    }
+                    throw new CompletionException(cause);
+                }
+                if (result == null || result instanceof EmptyType) {
+                    return result;
+                }
+                try {
+                    // Return the deep-copy instead of the value-reference to prevent modifation from memory.
+                    return result.copy();
+                } catch (OperonGenericException oge) {
+                    throw new CompletionException(oge);
+                }
+            });
+        });
+
+        int resultCount = Math.min(results.size(), breakIndex.get());
+        return new ArrayList<OperonValue>(results.subList(0, resultCount));
+    }
+
+    //
+    // @returns the IOCall when the node is a plain component-call, e.g. "-> http:{...}".
+    //
+    private static IOCall asIOCall(Node node) {
+        while (node instanceof UnaryNode && ((UnaryNode) node).getUnaryNodeProcessor() == null) {
+            node = ((UnaryNode) node).getNode();
+        }
+        if (node instanceof IOCall) {
+            return (IOCall) node;
+        }
+        return null;
+    }
+
+    private static Exception unwrap(Throwable t) {
+        while ((t instanceof ExecutionException || t instanceof CompletionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        if (t instanceof Exception) {
+            return (Exception) t;
+        }
+        return new RuntimeException(t);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import io.operon.runner.node.Node;
+import io.operon.runner.node.UnaryNode;
+import io.operon.runner.node.type.StringType;
+import io.operon.runner.processor.function.core.string.StringToRaw;
+
+//
+// The compiled regular expressions of the string- and raw-functions.
+//
+// When the regex is given as a literal, the function compiles it once when the query is compiled
+// (see compileLiteral). The other regexes are compiled when evaluated, and kept in the LRU-cache,
+// which is shared by all the queries, so evaluating the same regex again (e.g. in a Map) does not
+// compile it again.
+//
+// The functions take a new Matcher from the Pattern for each evaluation (which is cheap once the
+// Pattern is compiled), so no Matcher is kept with a reference to its last input.
+//
+public class RegexCache {
+     // no logger
+
+    public static final int DEFAULT_MAX_SIZE = 512;
+
+    private static int maxSize = DEFAULT_MAX_SIZE;
+
+    private static final Map<String, Pattern> patterns = new LinkedHashMap<String, Pattern>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+            return this.size() > maxSize;
+        }
+    };
+
+    public static Pattern compile(String regex) {
+        synchronized (patterns) {
+            Pattern p = patterns.get(regex);
+            if (p == null) {
+                p = Pattern.compile(regex);
+                patterns.put(regex, p);
+            }
+            return p;
+        }
+    }
+
+    //
+    // Compiles the regex, when the param is a literal string.
+    //
+    // @return null, if the param is not a literal, or if the regex is not valid
+    //         (the error is then given when the function is evaluated).
+    //
+    public static Pattern compileLiteral(Node param) {
+        return compileLiteral(param, false);
+    }
+
+    //
+    // @param unescape true when the regex is unescaped before compiling (as in collect, see StringToRaw.stringToBytes).
+    //
+    public static Pattern compileLiteral(Node param, boolean unescape) {
+        // The literal is wrapped in the UnaryNode (without the processor, e.g. the '-')
+        while (param instanceof UnaryNode && ((UnaryNode) param).getUnaryNodeProcessor() == null) {
+            param = ((UnaryNode) param).getNode();
+        }
+        if (param instanceof StringType == false) {
+            return null;
+        }
+        try {
+            String regex = ((StringType) param).getJavaStringValue();
+            if (unescape) {
+                regex = new String(StringToRaw.stringToBytes(regex, true));
+            }
+            return compile(regex);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public static void setMaxSize(int max) {
+        synchronized (patterns) {
+            maxSize = max;
+        }
+    }
+
+    public static int size() {
+        synchronized (patterns) {
+            return patterns.size();
+        }
+    }
+
+}
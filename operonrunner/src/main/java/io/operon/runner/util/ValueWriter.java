@@ -0,0 +1,509 @@
+/*
+ *   Copyright 2022-2023, operon.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.operon.runner.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import io.operon.runner.node.Node;
+import io.operon.runner.node.type.ArrayType;
+import io.operon.runner.node.type.ObjectType;
+import io.operon.runner.node.type.OperonValue;
+import io.operon.runner.node.type.PackedNumbers;
+import io.operon.runner.node.type.PairType;
+
+/**
+ *
+ * Writes the value into the Writer, without building the whole result as String.
+ *
+ * The output is the same as from the toString (JSON), toFormattedString (pretty JSON), toYamlString
+ * and toTomlString. The ObjectType and ArrayType are written recursively, the other values are
+ * written from their String-form. In YAML the array-items (other than sub-arrays) are written
+ * from their String-form, because the indentation of the item is rewritten for the "- " -mark.
+ *
+ * The output is collected into a char-buffer, which is reused by the thread, and written into
+ * the Writer when full. The beginning of the pair (the key) is kept as pending, until the value
+ * writes something: the pairs whose value writes nothing (e.g. empty) are omitted.
+ *
+ */
+public class ValueWriter {
+     // no logger
+
+    public static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<char[]> BUFFERS = new ThreadLocal<char[]>();
+
+    private static final String LS = System.lineSeparator();
+
+    private final Writer out;
+    private char[] buffer;
+    private int pos = 0;
+    private long written = 0; // the amount of chars written, used to check if the value wrote something.
+    private final StringBuilder pending = new StringBuilder();
+    private final StringBuilder number = new StringBuilder(24);
+
+    private ValueWriter(Writer out) {
+        this.out = out;
+        char[] buf = BUFFERS.get();
+        if (buf == null) {
+            buf = new char[BUFFER_SIZE];
+        }
+        else {
+            BUFFERS.set(null); // in use, e.g. when writing inside another write
+        }
+        this.buffer = buf;
+    }
+
+    //
+    // @param ofmt :: the ofmt.format selects the serialization. When null, then the value is written as JSON.
+    //
+    public static void write(Node value, Writer out, OutputFormatter ofmt) throws IOException {
+        ValueWriter vw = new ValueWriter(out);
+        try {
+            if (ofmt == null) {
+                vw.json(value);
+            }
+            else {
+                switch (ofmt.format) {
+                    case JSON:
+                        vw.json(value);
+                        break;
+                    case PRETTY_JSON:
+                        vw.pretty(value, ofmt);
+                        break;
+                    case YAML:
+                        YamlFormatter yf = new YamlFormatter();
+                        yf.spacing = ofmt.spacing;
+                        vw.yaml(value, yf);
+                        break;
+                    case TOML:
+                        vw.toml(value, ofmt);
+                        break;
+                }
+            }
+            vw.flush();
+        } finally {
+            vw.release();
+        }
+    }
+
+    //
+    // JSON, same as toString
+    //
+    private void json(Node value) throws IOException {
+        value = unbox(value);
+        if (value instanceof ObjectType) {
+            List<PairType> pairs = ((ObjectType) value).peekPairs();
+            this.write('{');
+            boolean first = true;
+            for (int i = 0; i < pairs.size(); i ++) {
+                PairType pair = pairs.get(i);
+                if (isOmitted(pair)) {
+                    continue;
+                }
+                int mark = this.pending.length();
+                long start = this.written;
+                if (first == false) {
+                    this.pending.append(", ");
+                }
+                this.pending.append(pair.getKey()).append(": ");
+                this.json(pair.getEvaluatedValue());
+                if (this.written == start) {
+                    this.pending.setLength(mark);
+                }
+                else {
+                    first = false;
+                }
+            }
+            this.write('}');
+        }
+        else if (value instanceof ArrayType) {
+            ArrayType array = (ArrayType) value;
+            this.write('[');
+            PackedNumbers packed = array.getPackedValues();
+            if (packed != null) {
+                for (int i = 0; i < packed.size(); i ++) {
+                    this.writeNumber(packed, i);
+                    if (i < packed.size() - 1) {
+                        this.write(", ");
+                    }
+                }
+            }
+            else {
+                List<Node> values = array.peekValues();
+                for (int i = 0; i < values.size(); i ++) {
+                    long start = this.written;
+                    this.json(values.get(i));
+                    // Check if EmptyValue
+                    if (this.written == start) {
+                        continue;
+                    }
+                    if (i < values.size() - 1) {
+                        this.write(", ");
+                    }
+                }
+            }
+            this.write(']');
+        }
+        else {
+            this.write(value.toString());
+        }
+    }
+
+    //
+    // Pretty JSON, same as toFormattedString
+    //
+    private void pretty(Node value, OutputFormatter ofmt) throws IOException {
+        value = unbox(value);
+        if (value instanceof ObjectType) {
+            List<PairType> pairs = ((ObjectType) value).peekPairs();
+            this.write(ofmt.objectStart);
+            this.write(LS);
+            ofmt.spaces = (short) (ofmt.spaces + ofmt.spacing);
+            for (int i = 0; i < pairs.size(); i ++) {
+                PairType pair = pairs.get(i);
+                long start = this.written;
+                this.write(ofmt.spaces());
+                if (isOmitted(pair) == false) {
+                    int mark = this.pending.length();
+                    long valueStart = this.written;
+                    this.pending.append(pair.getKey()).append(": ");
+                    this.pretty(pair.getEvaluatedValue(), ofmt);
+                    if (this.written == valueStart) {
+                        this.pending.setLength(mark);
+                    }
+                }
+                if (this.written == start) {
+                    continue;
+                }
+                if (i < pairs.size() - 1) {
+                    this.write(',');
+                    this.write(LS);
+                }
+            }
+            ofmt.spaces = (short) (ofmt.spaces - ofmt.spacing); // reset spacing
+            this.write(LS);
+            this.write(ofmt.spaces());
+            this.write(ofmt.objectEnd);
+        }
+        else if (value instanceof ArrayType) {
+            this.indentedArray((ArrayType) value, ofmt, false);
+        }
+        else {
+            this.write(value.toFormattedString(ofmt));
+        }
+    }
+
+    //
+    // The array in pretty JSON and TOML.
+    //
+    private void indentedArray(ArrayType array, OutputFormatter ofmt, boolean isToml) throws IOException {
+        this.write(ofmt.arrayStart);
+        this.write(LS);
+        ofmt.spaces = (short) (ofmt.spaces + ofmt.spacing);
+        PackedNumbers packed = array.getPackedValues();
+        if (packed != null) {
+            String indent = ofmt.spaces();
+            for (int i = 0; i < packed.size(); i ++) {
+                this.write(indent);
+                this.writeNumber(packed, i);
+                if (i < packed.size() - 1) {
+                    this.write(',');
+                    this.write(LS);
+                }
+            }
+        }
+        else {
+            List<Node> values = array.peekValues();
+            for (int i = 0; i < values.size(); i ++) {
+                long start = this.written;
+                this.write(ofmt.spaces());
+                if (isToml) {
+                    this.toml(values.get(i), ofmt);
+                }
+                else {
+                    this.pretty(values.get(i), ofmt);
+                }
+                // Check if EmptyValue
+                if (this.written == start) {
+                    continue;
+                }
+                if (i < values.size() - 1) {
+                    this.write(',');
+                    this.write(LS);
+                }
+            }
+        }
+        ofmt.spaces = (short) (ofmt.spaces - ofmt.spacing); // reset spacing
+        this.write(LS);
+        this.write(ofmt.spaces());
+        this.write(ofmt.arrayEnd);
+    }
+
+    //
+    // YAML, same as toYamlString
+    //
+    private void yaml(Node value, YamlFormatter yf) throws IOException {
+        value = unbox(value);
+        if (value instanceof ObjectType) {
+            List<PairType> pairs = ((ObjectType) value).peekPairs();
+            if (pairs.size() == 0) {
+                this.write("{}");
+            }
+            for (int i = 0; i < pairs.size(); i ++) {
+                long start = this.written;
+                this.yamlPair(pairs.get(i), yf);
+                if (this.written == start) {
+                    continue;
+                }
+                if (i < pairs.size() - 1) {
+                    this.write(LS);
+                }
+            }
+        }
+        else if (value instanceof ArrayType) {
+            this.yamlArray((ArrayType) value, yf);
+        }
+        else {
+            this.write(value.toYamlString(yf));
+        }
+    }
+
+    private void yamlPair(PairType pair, YamlFormatter yf) throws IOException {
+        if (isOmitted(pair)) {
+            return;
+        }
+        OperonValue ev = pair.getEvaluatedValue();
+        int mark = this.pending.length();
+        long start = this.written;
+        if (ev instanceof ArrayType) {
+            this.pending.append(yf.spaces()).append(pair.getKeyName()).append(":").append(LS);
+            yf.spaces = (short) (yf.spaces + yf.spacing);
+            this.yaml(ev, yf);
+            yf.spaces = (short) (yf.spaces - yf.spacing); // reset spacing
+        }
+        else if (ev instanceof ObjectType) {
+            this.pending.append(pair.getKeyName()).append(":").append(LS);
+            yf.spaces = (short) (yf.spaces + yf.spacing);
+            this.yaml(ev, yf);
+            yf.spaces = (short) (yf.spaces - yf.spacing); // reset spacing
+        }
+        else {
+            this.pending.append(yf.spaces()).append(pair.getKeyName()).append(": ");
+            this.yaml(ev, yf);
+        }
+        if (this.written == start) {
+            this.pending.setLength(mark);
+        }
+    }
+
+    private void yamlArray(ArrayType array, YamlFormatter yf) throws IOException {
+        PackedNumbers packed = array.getPackedValues();
+        if (packed != null) {
+            for (int i = 0; i < packed.size(); i ++) {
+                this.write(yf.spaces());
+                this.write(yf.arrayStart);
+                this.write(' ');
+                this.writeNumber(packed, i);
+                if (i < packed.size() - 1) {
+                    this.write(LS);
+                }
+            }
+            return;
+        }
+        List<Node> values = array.peekValues();
+        for (int i = 0; i < values.size(); i ++) {
+            Node arrayValue = values.get(i);
+
+            // Sub-array:
+            if (arrayValue instanceof ArrayType) {
+                this.write(yf.spaces());
+                this.write(yf.arrayStart);
+                yf.spaces = (short) (yf.spaces + yf.spacing);
+                this.write(LS);
+                this.yaml(arrayValue, yf);
+                yf.spaces = (short) (yf.spaces - yf.spacing); // reset spacing
+            }
+
+            else {
+                String appendValue = arrayValue.toYamlString(yf); // "    value"
+                int markPos = 0; // --> "   - value"
+                for (int ix = 0; ix < appendValue.length(); ix ++) {
+                    if (appendValue.charAt(ix) != ' ') {
+                        markPos = ix;
+                        break;
+                    }
+                }
+                if (markPos >= 2) {
+                    this.write(appendValue.substring(0, markPos - 2));
+                    this.write(yf.arrayStart);
+                    this.write(' ');
+                    this.write(appendValue.substring(markPos, appendValue.length()));
+                }
+                else {
+                    this.write(yf.spaces());
+                    this.write(yf.arrayStart);
+                    this.write(' ');
+                    this.write(appendValue);
+                }
+            }
+
+            if (i < values.size() - 1) {
+                this.write(LS);
+            }
+        }
+    }
+
+    //
+    // TOML, same as toTomlString
+    //
+    private void toml(Node value, OutputFormatter ofmt) throws IOException {
+        value = unbox(value);
+        if (value instanceof ObjectType) {
+            List<PairType> pairs = ((ObjectType) value).peekPairs();
+            for (int i = 0; i < pairs.size(); i ++) {
+                PairType pair = pairs.get(i);
+                long start = this.written;
+                this.write(ofmt.spaces());
+                if (isOmitted(pair) == false) {
+                    OperonValue ev = pair.getEvaluatedValue();
+                    if (ev instanceof ObjectType) {
+                        this.write('[');
+                        this.write(pair.getKeyName());
+                        this.write(']');
+                        this.write(LS);
+                        this.toml(ev, ofmt);
+                    }
+                    else {
+                        int mark = this.pending.length();
+                        long valueStart = this.written;
+                        this.pending.append(pair.getKeyName()).append(" = ");
+                        this.toml(ev, ofmt);
+                        if (this.written == valueStart) {
+                            this.pending.setLength(mark);
+                        }
+                    }
+                }
+                if (this.written == start) {
+                    continue;
+                }
+                if (i < pairs.size() - 1) {
+                    this.write(LS);
+                }
+            }
+            this.write(LS);
+        }
+        else if (value instanceof ArrayType) {
+            this.indentedArray((ArrayType) value, ofmt, true);
+        }
+        else {
+            this.write(value.toTomlString(ofmt));
+        }
+    }
+
+    //
+    // The pair is not written when it is empty or hidden.
+    //
+    private static boolean isOmitted(PairType pair) {
+        return pair.isEmptyValue() || pair.isHidden();
+    }
+
+    //
+    // The boxed OperonValue is written as its value.
+    //
+    private static Node unbox(Node value) {
+        while (value != null && value.getClass() == OperonValue.class) {
+            value = ((OperonValue) value).getValue();
+        }
+        return value;
+    }
+
+    private void writeNumber(PackedNumbers packed, int i) throws IOException {
+        this.number.setLength(0);
+        NumberFormatter.append(this.number, packed.getDouble(i), packed.getPrecision(i));
+        this.write(this.number);
+    }
+
+    private void write(CharSequence s) throws IOException {
+        int len = s.length();
+        if (len == 0) {
+            return;
+        }
+        if (this.pending.length() > 0) {
+            this.append(this.pending);
+            this.pending.setLength(0);
+        }
+        this.append(s);
+        this.written += len;
+    }
+
+    private void write(char c) throws IOException {
+        if (this.pending.length() > 0) {
+            this.append(this.pending);
+            this.pending.setLength(0);
+        }
+        if (this.pos == this.buffer.length) {
+            this.drain();
+        }
+        this.buffer[this.pos ++] = c;
+        this.written += 1;
+    }
+
+    private void append(CharSequence s) throws IOException {
+        int len = s.length();
+        int i = 0;
+        while (i < len) {
+            if (this.pos == this.buffer.length) {
+                this.drain();
+            }
+            int n = Math.min(len - i, this.buffer.length - this.pos);
+            if (s instanceof String) {
+                ((String) s).getChars(i, i + n, this.buffer, this.pos);
+            }
+            else if (s instanceof StringBuilder) {
+                ((StringBuilder) s).getChars(i, i + n, this.buffer, this.pos);
+            }
+            else {
+                for (int j = 0; j < n; j ++) {
+                    this.buffer[this.pos + j] = s.charAt(i + j);
+                }
+            }
+            this.pos += n;
+            i += n;
+        }
+    }
+
+    private void drain() throws IOException {
+        if (this.pos > 0) {
+            this.out.write(this.buffer, 0, this.pos);
+            this.pos = 0;
+        }
+    }
+
+    private void flush() throws IOException {
+        this.drain();
+        this.out.flush();
+    }
+
+    private void release() {
+        if (this.buffer != null) {
+            BUFFERS.set(this.buffer);
+            this.buffer = null;
+        }
+    }
+}